@@ -0,0 +1,255 @@
+package magnolia.datingpulse.DatingPulse.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Records and checks the benchmark baseline. Both reduce a JMH JSON result file to one summary per
+ * benchmark, mode and parameters: primary score, p99 for sample-time runs, bytes allocated per
+ * operation and, for benchmarks counting their output, encoded bytes per message; plus the JDK and
+ * processor count of the host.
+ *
+ * <p>The check exits non-zero if any benchmark regressed by more than the tolerance or has no
+ * baseline entry. Allocation per operation and encoded size barely depend on the host, so they are
+ * compared directly. Timings are compared relative to the run they belong to: each is divided by
+ * the geometric mean of all timings in its run, so a uniformly faster or slower host cancels out.
+ * A timing only counts as slower if the fast end of its confidence interval is, so a noisy run
+ * with wide error bars does not fail on its point estimate.
+ * The parallel scoring engine scales with processors, which shifts those ratios, so timings only
+ * gate when the processor count matches the baseline's. On a host with a different processor count
+ * timing regressions are not gated at all: they are reported as SLOW and never fail the check, which
+ * then only fails on allocation, encoded size or missing baseline entries.
+ *
+ * <p>Usage: {@code BaselineCheck <result.json> <baseline.json> <tolerancePercent>} to check, and
+ * {@code BaselineCheck record <result.json> <baseline.json>} on the host that produced the result
+ * to write a new baseline.
+ */
+public final class BaselineCheck {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    // Absolute slack so near-zero allocation baselines do not flag noise
+    private static final double ALLOCATION_SLACK_BYTES = 16;
+    // Secondary metrics counted by ChatWireFormatBenchmark.EncodedSize
+    private static final String ENCODED_BYTES_METRIC = "encodedBytes";
+    private static final String ENCODED_MESSAGES_METRIC = "encodedMessages";
+
+    private BaselineCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        if (args.length == 3 && "record".equals(args[0])) {
+            ObjectNode baseline = summarize(objectMapper, objectMapper.readTree(new File(args[1])));
+            objectMapper.writeValue(new File(args[2]), baseline);
+            System.out.printf("Recorded %d benchmark(s) to %s%n", baseline.path("benchmarks").size(), args[2]);
+            return;
+        }
+        if (args.length != 3) {
+            System.err.println("Usage: BaselineCheck <result.json> <baseline.json> <tolerancePercent>");
+            System.err.println("       BaselineCheck record <result.json> <baseline.json>");
+            System.exit(2);
+        }
+        ObjectNode results = summarize(objectMapper, objectMapper.readTree(new File(args[0])));
+        File baselineFile = new File(args[1]);
+        JsonNode baseline = baselineFile.exists() ? objectMapper.readTree(baselineFile) : objectMapper.createObjectNode();
+        double tolerance = Double.parseDouble(args[2]) / 100.0;
+
+        JsonNode expectedBenchmarks = baseline.path("benchmarks");
+        int baselineProcessors = baseline.path("host").path("availableProcessors").asInt();
+        int processors = results.path("host").path("availableProcessors").asInt();
+        boolean gateTimings = baselineProcessors == processors;
+        if (!gateTimings) {
+            System.out.printf("Timings not gated: %d processor(s), baseline recorded with %d%n",
+                    processors, baselineProcessors);
+        }
+        double actualScale = timingScale(results.path("benchmarks"), expectedBenchmarks);
+        double expectedScale = timingScale(expectedBenchmarks, results.path("benchmarks"));
+
+        int regressions = 0;
+        int missing = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> entries = results.path("benchmarks").fields(); entries.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            JsonNode expected = expectedBenchmarks.get(entry.getKey());
+            if (expected == null) {
+                System.out.printf("MISS %s: no baseline entry%n", entry.getKey());
+                missing++;
+                continue;
+            }
+            regressions += compare(entry.getKey(), entry.getValue(), expected, tolerance,
+                    actualScale, expectedScale, gateTimings);
+        }
+
+        System.out.printf("%d regression(s), %d without baseline against %s%n", regressions, missing, baselineFile);
+        if (regressions > 0 || missing > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static int compare(String key, JsonNode actual, JsonNode expected, double tolerance,
+                               double actualScale, double expectedScale, boolean gateTimings) {
+        int regressions = 0;
+        double actualTiming = secondsPerOp(actual) / actualScale;
+        double expectedTiming = secondsPerOp(expected) / expectedScale;
+        if (actualTiming > 0 && expectedTiming > 0) {
+            String metric = "sample".equals(actual.path("mode").asText()) ? "relative p99" : "relative time";
+            boolean slower = fastestSecondsPerOp(actual) / actualScale > expectedTiming * (1 + tolerance);
+            regressions += report(key, metric, actualTiming, expectedTiming, "x run mean",
+                    gateTimings && slower, !gateTimings && slower);
+        }
+
+        if (actual.has("allocBytesPerOp") && expected.has("allocBytesPerOp")) {
+            double actualBytes = actual.path("allocBytesPerOp").asDouble();
+            double expectedBytes = expected.path("allocBytesPerOp").asDouble();
+            boolean regressed = actualBytes > expectedBytes * (1 + tolerance) + ALLOCATION_SLACK_BYTES;
+            regressions += report(key, "alloc", actualBytes, expectedBytes, "B/op", regressed, false);
+        }
+
+        if (actual.has("bytesPerMessage") && expected.has("bytesPerMessage")) {
+            double actualSize = actual.path("bytesPerMessage").asDouble();
+            double expectedSize = expected.path("bytesPerMessage").asDouble();
+            regressions += report(key, "size", actualSize, expectedSize, "B/message",
+                    actualSize > expectedSize * (1 + tolerance), false);
+        }
+        return regressions;
+    }
+
+    private static int report(String key, String metric, double actual, double expected, String unit,
+                              boolean regressed, boolean slowerUngated) {
+        String status = regressed ? "FAIL" : slowerUngated ? "SLOW" : "OK  ";
+        System.out.printf("%s %s %s: %.3f %s (baseline %.3f)%n", status, key, metric, actual, unit, expected);
+        return regressed ? 1 : 0;
+    }
+
+    /**
+     * Geometric mean of the timings of the benchmarks present in both summaries, so each side is
+     * scaled over the same set
+     */
+    private static double timingScale(JsonNode benchmarks, JsonNode other) {
+        double logSum = 0;
+        int count = 0;
+        for (Iterator<Map.Entry<String, JsonNode>> entries = benchmarks.fields(); entries.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            double seconds = secondsPerOp(entry.getValue());
+            if (seconds > 0 && other.has(entry.getKey()) && secondsPerOp(other.get(entry.getKey())) > 0) {
+                logSum += Math.log(seconds);
+                count++;
+            }
+        }
+        return count > 0 ? Math.exp(logSum / count) : 1;
+    }
+
+    /**
+     * Time per operation in seconds: inverse throughput, p99 sample time or average time;
+     * zero if the unit is not recognized
+     */
+    private static double secondsPerOp(JsonNode summary) {
+        String unit = summary.path("unit").asText();
+        String[] parts = unit.split("/");
+        if (parts.length != 2) {
+            return 0;
+        }
+        if ("ops".equals(parts[0])) {
+            double score = summary.path("score").asDouble();
+            return score > 0 ? seconds(parts[1]) / score : 0;
+        }
+        double time = "sample".equals(summary.path("mode").asText())
+                ? summary.path("p99").asDouble()
+                : summary.path("score").asDouble();
+        return time * seconds(parts[0]);
+    }
+
+    /**
+     * {@link #secondsPerOp} at the fast end of the score's confidence interval; sample-time p99
+     * has no interval and is taken as is
+     */
+    private static double fastestSecondsPerOp(JsonNode summary) {
+        double error = summary.path("scoreError").asDouble();
+        if (!(error > 0) || "sample".equals(summary.path("mode").asText())) {
+            return secondsPerOp(summary);
+        }
+        ObjectNode fastest = ((ObjectNode) summary).deepCopy();
+        double score = summary.path("score").asDouble();
+        boolean throughput = summary.path("unit").asText().startsWith("ops/");
+        // An interval reaching zero time bounds nothing
+        fastest.put("score", throughput ? score + error : Math.max(0, score - error));
+        return secondsPerOp(fastest);
+    }
+
+    private static double seconds(String timeUnit) {
+        return switch (timeUnit) {
+            case "s" -> 1;
+            case "ms" -> 1e-3;
+            case "us" -> 1e-6;
+            case "ns" -> 1e-9;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Reduce JMH results to the fields the check reads, keyed by benchmark, mode and parameters
+     */
+    private static ObjectNode summarize(ObjectMapper objectMapper, JsonNode results) {
+        ObjectNode summary = objectMapper.createObjectNode();
+        ObjectNode host = summary.putObject("host");
+        host.put("jdkVersion", results.path(0).path("jdkVersion").asText());
+        host.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        ObjectNode benchmarks = summary.putObject("benchmarks");
+        for (JsonNode result : results) {
+            JsonNode primary = result.path("primaryMetric");
+            ObjectNode benchmark = benchmarks.putObject(key(result));
+            benchmark.put("mode", result.path("mode").asText());
+            benchmark.put("unit", primary.path("scoreUnit").asText());
+            benchmark.put("score", primary.path("score").asDouble());
+            // 99.9% confidence half-width; "NaN" with a single iteration
+            double error = primary.path("scoreError").asDouble();
+            if (error > 0) {
+                benchmark.put("scoreError", error);
+            }
+            if ("sample".equals(result.path("mode").asText())) {
+                benchmark.put("p99", primary.path("scorePercentiles").path("99.0").asDouble());
+            }
+            JsonNode allocation = allocation(result);
+            if (allocation != null) {
+                benchmark.put("allocBytesPerOp", allocation.path("score").asDouble());
+            }
+            JsonNode secondary = result.path("secondaryMetrics");
+            double messages = secondary.path(ENCODED_MESSAGES_METRIC).path("score").asDouble();
+            if (messages > 0) {
+                benchmark.put("bytesPerMessage",
+                        secondary.path(ENCODED_BYTES_METRIC).path("score").asDouble() / messages);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * The normalized allocation metric; older JMH versions prefix secondary metric names
+     */
+    private static JsonNode allocation(JsonNode result) {
+        JsonNode secondary = result.path("secondaryMetrics");
+        for (var fields = secondary.fields(); fields.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getKey().endsWith(ALLOCATION_METRIC)) {
+                return field.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String key(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+                .append(" [").append(result.path("mode").asText());
+        for (var params = result.path("params").fields(); params.hasNext(); ) {
+            Map.Entry<String, JsonNode> param = params.next();
+            key.append(", ").append(param.getKey()).append('=').append(param.getValue().asText());
+        }
+        return key.append(']').toString();
+    }
+}
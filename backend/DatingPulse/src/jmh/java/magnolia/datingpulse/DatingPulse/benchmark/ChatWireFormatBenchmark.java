@@ -0,0 +1,101 @@
+package magnolia.datingpulse.DatingPulse.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import magnolia.datingpulse.DatingPulse.config.CborWireFormat;
+import magnolia.datingpulse.DatingPulse.dto.ChatMessageDTO;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding cost of a chat frame payload as JSON and as CBOR, including the JSON-to-CBOR
+ * transcode done for CBOR sessions. The encoding benchmarks also count the bytes and messages they
+ * produce as secondary metrics, from which {@link BaselineCheck} tracks bytes per message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChatWireFormatBenchmark {
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private CborWireFormat wireFormat;
+    private ChatMessageDTO message;
+    private byte[] json;
+    private byte[] cbor;
+
+    @Setup
+    public void setUp() throws IOException {
+        jsonMapper = new ObjectMapper();
+        wireFormat = new CborWireFormat(jsonMapper);
+        cborMapper = wireFormat.getCborMapper();
+        message = ChatMessageDTO.builder()
+                .type("MESSAGE")
+                .conversationId(48213L)
+                .senderId(1029384L)
+                .senderUsername("john_doe")
+                .receiverId(2093847L)
+                .content("Hey! Are we still on for coffee tomorrow at ten?")
+                .messageType("TEXT")
+                .timestamp(1_700_000_000_000L)
+                .messageId(99_182_736L)
+                .build();
+        json = jsonMapper.writeValueAsBytes(message);
+        cbor = cborMapper.writeValueAsBytes(message);
+    }
+
+    /**
+     * Output of the encoding benchmarks; JMH reports each field summed over the run
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long encodedBytes;
+        public long encodedMessages;
+
+        byte[] count(byte[] encoded) {
+            encodedBytes += encoded.length;
+            encodedMessages++;
+            return encoded;
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeJson(EncodedSize size) throws IOException {
+        return size.count(jsonMapper.writeValueAsBytes(message));
+    }
+
+    @Benchmark
+    public byte[] encodeCbor(EncodedSize size) throws IOException {
+        return size.count(cborMapper.writeValueAsBytes(message));
+    }
+
+    @Benchmark
+    public byte[] transcodeJsonToCbor(EncodedSize size) throws IOException {
+        return size.count(wireFormat.jsonToCbor(json));
+    }
+
+    @Benchmark
+    public ChatMessageDTO decodeJson() throws IOException {
+        return jsonMapper.readValue(json, ChatMessageDTO.class);
+    }
+
+    @Benchmark
+    public ChatMessageDTO decodeCbor() throws IOException {
+        return cborMapper.readValue(cbor, ChatMessageDTO.class);
+    }
+}
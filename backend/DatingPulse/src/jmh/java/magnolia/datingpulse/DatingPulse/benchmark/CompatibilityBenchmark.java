@@ -0,0 +1,83 @@
+package magnolia.datingpulse.DatingPulse.benchmark;
+
+import magnolia.datingpulse.DatingPulse.algorithm.CompatibilityCalculator;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchCandidate;
+import magnolia.datingpulse.DatingPulse.entity.UserProfile;
+import magnolia.datingpulse.DatingPulse.util.InterestBitSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-pair cost of the scoring primitives. Pairs cycle through a pool of profiles
+ * so branch outcomes and cache behaviour resemble a scan over real candidates.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CompatibilityBenchmark {
+
+    private static final int POOL_SIZE = 4096;
+
+    private CompatibilityCalculator calculator;
+    private UserProfile[] profiles;
+    private MatchCandidate[] candidates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        calculator = new CompatibilityCalculator();
+        List<UserProfile> population = SyntheticPopulation.generate(POOL_SIZE, 42L);
+        profiles = population.toArray(new UserProfile[0]);
+        candidates = new MatchCandidate[POOL_SIZE];
+        for (int i = 0; i < POOL_SIZE; i++) {
+            candidates[i] = MatchCandidate.from(profiles[i]);
+        }
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (POOL_SIZE - 1);
+        return next;
+    }
+
+    @Benchmark
+    public double overallCompatibility() {
+        int i = nextIndex();
+        return calculator.calculateOverallCompatibility(candidates[0], candidates[i]);
+    }
+
+    @Benchmark
+    public double overallCompatibilityFromEntities() {
+        int i = nextIndex();
+        return calculator.calculateOverallCompatibility(profiles[0], profiles[i]);
+    }
+
+    @Benchmark
+    public double distanceKm() {
+        int i = nextIndex();
+        return calculator.calculateDistanceInKm(profiles[0].getLatitude(), profiles[0].getLongitude(),
+                profiles[i].getLatitude(), profiles[i].getLongitude());
+    }
+
+    @Benchmark
+    public double interestJaccard() {
+        int i = nextIndex();
+        MatchCandidate self = candidates[0];
+        MatchCandidate other = candidates[i];
+        return InterestBitSet.jaccard(self.getInterestBits(), self.getInterestCount(),
+                other.getInterestBits(), other.getInterestCount());
+    }
+}
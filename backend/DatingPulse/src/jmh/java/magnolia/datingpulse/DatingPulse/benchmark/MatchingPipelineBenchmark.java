@@ -0,0 +1,144 @@
+package magnolia.datingpulse.DatingPulse.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import magnolia.datingpulse.DatingPulse.algorithm.CandidateIndex;
+import magnolia.datingpulse.DatingPulse.algorithm.CompatibilityCalculator;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchFeedCache;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchScoringEngine;
+import magnolia.datingpulse.DatingPulse.config.MetricsConfig;
+import magnolia.datingpulse.DatingPulse.dto.UserProfileDTO;
+import magnolia.datingpulse.DatingPulse.entity.User;
+import magnolia.datingpulse.DatingPulse.entity.UserProfile;
+import magnolia.datingpulse.DatingPulse.mapper.UserProfileMapperImpl;
+import magnolia.datingpulse.DatingPulse.repositories.BlockedUserRepository;
+import magnolia.datingpulse.DatingPulse.repositories.SwipeHistoryRepository;
+import magnolia.datingpulse.DatingPulse.repositories.UserProfileRepository;
+import magnolia.datingpulse.DatingPulse.repositories.UserRepository;
+import magnolia.datingpulse.DatingPulse.service.MatchingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * End-to-end cost of {@link MatchingService#findPotentialMatches} over synthetic populations:
+ * index scan, scoring, top-K and hydration of the winners. Repositories are stub-only mocks
+ * backed by the in-memory population, so the numbers exclude database round trips.
+ * {@code coldFeed} rebuilds the requester's feed on every call; {@code warmFeed} is served
+ * from {@link MatchFeedCache}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class MatchingPipelineBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int REQUESTERS = 64;
+
+    @Param({"10000", "100000", "1000000"})
+    public int population;
+
+    private MatchingService matchingService;
+    private MatchFeedCache matchFeedCache;
+    private MatchScoringEngine scoringEngine;
+    private long[] requesterIds;
+
+    @Setup
+    public void setUp() {
+        List<UserProfile> profiles = SyntheticPopulation.generate(population, 7L);
+
+        CandidateIndex candidateIndex = new CandidateIndex();
+        profiles.forEach(candidateIndex::load);
+        candidateIndex.finishLoad();
+
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        UserProfileRepository userProfileRepository = mock(UserProfileRepository.class, withSettings().stubOnly());
+        SwipeHistoryRepository swipeHistoryRepository = mock(SwipeHistoryRepository.class, withSettings().stubOnly());
+        BlockedUserRepository blockedUserRepository = mock(BlockedUserRepository.class, withSettings().stubOnly());
+
+        when(userRepository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.of(profiles.get(index(invocation.<Long>getArgument(0))).getUser()));
+        when(userProfileRepository.findByUser(any(User.class))).thenAnswer(invocation ->
+                Optional.of(profiles.get(index(((User) invocation.getArgument(0)).getUserID()))));
+        when(userProfileRepository.findAllById(any())).thenAnswer(invocation -> {
+            List<UserProfile> found = new ArrayList<>();
+            for (Long id : (Iterable<Long>) invocation.getArgument(0)) {
+                found.add(profiles.get(index(id)));
+            }
+            return found;
+        });
+        when(swipeHistoryRepository.findTargetUserIdsByUserId(anyLong())).thenReturn(List.of());
+        when(blockedUserRepository.findBlockRelatedUserIds(anyLong())).thenReturn(List.of());
+
+        CompatibilityCalculator calculator = new CompatibilityCalculator();
+        scoringEngine = new MatchScoringEngine(calculator,
+                new MetricsConfig.DatingPulseMetrics(new SimpleMeterRegistry()), 0, 4096);
+        matchFeedCache = new MatchFeedCache(900_000L, 200);
+        matchingService = new MatchingService(userRepository, userProfileRepository, swipeHistoryRepository,
+                blockedUserRepository, calculator, new UserProfileMapperImpl(), candidateIndex,
+                scoringEngine, matchFeedCache);
+
+        requesterIds = new long[REQUESTERS];
+        for (int i = 0; i < REQUESTERS; i++) {
+            requesterIds[i] = 1 + (long) i * (population / REQUESTERS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        scoringEngine.shutdown();
+    }
+
+    private static int index(long userId) {
+        return (int) (userId - 1);
+    }
+
+    @State(Scope.Thread)
+    public static class Requester {
+        private int next;
+
+        long nextId(long[] requesterIds) {
+            next = (next + 1) % requesterIds.length;
+            return requesterIds[next];
+        }
+    }
+
+    @Benchmark
+    public List<UserProfileDTO> coldFeed(Requester requester) {
+        long userId = requester.nextId(requesterIds);
+        matchFeedCache.evict(userId);
+        return matchingService.findPotentialMatches(userId, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<UserProfileDTO> warmFeed(Requester requester) {
+        return matchingService.findPotentialMatches(requester.nextId(requesterIds), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<UserProfileDTO> nearby(Requester requester) {
+        return matchingService.findPotentialMatchesNearby(requester.nextId(requesterIds), 25.0, PAGE_SIZE);
+    }
+}
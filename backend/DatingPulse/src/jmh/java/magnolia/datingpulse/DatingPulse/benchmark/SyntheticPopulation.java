@@ -0,0 +1,68 @@
+package magnolia.datingpulse.DatingPulse.benchmark;
+
+import magnolia.datingpulse.DatingPulse.entity.Interest;
+import magnolia.datingpulse.DatingPulse.entity.Preference;
+import magnolia.datingpulse.DatingPulse.entity.User;
+import magnolia.datingpulse.DatingPulse.entity.UserProfile;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic synthetic user profiles for benchmarks, spread over a metro area
+ * roughly 200 km across so distance filters keep a realistic share of candidates.
+ * User IDs run from 1 to {@code size}.
+ */
+final class SyntheticPopulation {
+
+    static final int INTEREST_CATALOG_SIZE = 200;
+
+    private SyntheticPopulation() {
+    }
+
+    static List<UserProfile> generate(int size, long seed) {
+        Random random = new Random(seed);
+        List<Interest> catalog = new ArrayList<>(INTEREST_CATALOG_SIZE);
+        for (long id = 1; id <= INTEREST_CATALOG_SIZE; id++) {
+            catalog.add(Interest.builder().id(id).name("interest-" + id).build());
+        }
+
+        List<UserProfile> profiles = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            User user = User.builder()
+                    .userID(id)
+                    .username("user" + id)
+                    .email("user" + id + "@bench.test")
+                    .status("ACTIVE")
+                    .build();
+
+            Set<Interest> interests = new HashSet<>();
+            for (int i = 3 + random.nextInt(6); i > 0; i--) {
+                interests.add(catalog.get(random.nextInt(INTEREST_CATALOG_SIZE)));
+            }
+
+            // One in five users has not set preferences yet
+            Preference preference = random.nextInt(5) == 0 ? null : Preference.builder()
+                    .genderPreference(random.nextInt(3) == 0 ? "ANY" : random.nextBoolean() ? "MALE" : "FEMALE")
+                    .ageMin(18 + random.nextInt(10))
+                    .ageMax(30 + random.nextInt(30))
+                    .maxDistance(10 + random.nextInt(90))
+                    .build();
+
+            profiles.add(UserProfile.builder()
+                    .userID(id)
+                    .user(user)
+                    .age(18 + random.nextInt(42))
+                    .gender(random.nextBoolean() ? "MALE" : "FEMALE")
+                    .latitude(-27.0 + random.nextDouble() * 2.0)
+                    .longitude(27.0 + random.nextDouble() * 2.0)
+                    .preference(preference)
+                    .interests(interests)
+                    .build());
+        }
+        return profiles;
+    }
+}
@@ -0,0 +1,219 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import magnolia.datingpulse.DatingPulse.entity.UserProfile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static magnolia.datingpulse.DatingPulse.util.TransactionHooks.afterCommit;
+
+/**
+ * Resident index of active profiles used as the candidate pool for the matching feed.
+ * Kept current by the profile, preference and user services, so feed requests scan
+ * compact {@link MatchCandidate} records instead of loading every {@link UserProfile}.
+ * Located candidates are also kept in a {@link GeoCellIndex} for radius queries.
+ *
+ * <p>The startup load runs while requests already change the index. It never replaces an entry,
+ * and it skips every user changed since the load began, because its snapshot of them may be
+ * stale; {@link #finishLoad} hands those users back to the loader to read again. Until the load
+ * is finished the index is incomplete, which {@link #isLoaded} tells readers.
+ */
+@Component
+public class CandidateIndex {
+
+    // ~28km cells: a 50km radius query touches around 25 cells
+    private static final double GEO_CELL_DEGREES = 0.25;
+
+    private final ConcurrentHashMap<Long, MatchCandidate> candidates = new ConcurrentHashMap<>();
+    private final GeoCellIndex geoIndex = new GeoCellIndex(GEO_CELL_DEGREES);
+    // Users changed while the startup load runs; guarded by itself
+    private final Set<Long> changedDuringLoad = new HashSet<>();
+    private volatile boolean loaded;
+
+    /**
+     * Index or re-index a profile after the surrounding transaction commits.
+     * Profiles whose user is not ACTIVE are removed from the index.
+     */
+    public void upsert(UserProfile profile) {
+        if (profile == null || profile.getUserID() == null) {
+            return;
+        }
+        Long userId = profile.getUserID();
+        if (!isActive(profile)) {
+            remove(userId);
+            return;
+        }
+        // Snapshot now, while the profile's associations are still loadable
+        MatchCandidate candidate = MatchCandidate.from(profile);
+        afterCommit(() -> put(candidate));
+    }
+
+    /**
+     * Remove a user from the index after the surrounding transaction commits
+     */
+    public void remove(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> evict(userId));
+    }
+
+    /**
+     * Set one interest bit on an indexed candidate after the surrounding transaction commits,
+     * without re-reading the profile's interest collection
+     */
+    public void addInterest(Long userId, Long interestId) {
+        if (userId == null || interestId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            recordChange(userId);
+            candidates.computeIfPresent(userId, (id, current) -> current.withInterest(interestId));
+        });
+    }
+
+    /**
+     * Clear one interest bit on an indexed candidate after the surrounding transaction commits
+     */
+    public void removeInterest(Long userId, Long interestId) {
+        if (userId == null || interestId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            recordChange(userId);
+            candidates.computeIfPresent(userId, (id, current) -> current.withoutInterest(interestId));
+        });
+    }
+
+    /**
+     * Index a profile read by the startup load, unless the user is already indexed or was
+     * changed since the load began
+     */
+    public void load(UserProfile profile) {
+        if (profile == null || profile.getUserID() == null || !isActive(profile)) {
+            return;
+        }
+        MatchCandidate candidate = MatchCandidate.from(profile);
+        candidates.compute(candidate.getUserId(), (id, previous) -> {
+            if (previous != null || wasChangedDuringLoad(id)) {
+                return previous;
+            }
+            if (candidate.hasLocation()) {
+                geoIndex.add(id, candidate.getLatitude(), candidate.getLongitude());
+            }
+            return candidate;
+        });
+    }
+
+    /**
+     * End the startup load: returns the users changed while it ran, which the loader must read
+     * again and {@link #load}, then call this again. Once no user changed the index is marked
+     * loaded and an empty set is returned.
+     */
+    public Set<Long> finishLoad() {
+        synchronized (changedDuringLoad) {
+            if (changedDuringLoad.isEmpty()) {
+                loaded = true;
+                return Set.of();
+            }
+            Set<Long> changed = new HashSet<>(changedDuringLoad);
+            changedDuringLoad.clear();
+            return changed;
+        }
+    }
+
+    /**
+     * Whether the startup load has finished; until then the index misses users
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public MatchCandidate get(Long userId) {
+        return candidates.get(userId);
+    }
+
+    /**
+     * Weakly consistent view of all indexed candidates
+     */
+    public Collection<MatchCandidate> candidates() {
+        return candidates.values();
+    }
+
+    /**
+     * Candidates whose grid cell intersects the given circle. The result is a superset of
+     * the candidates within {@code radiusKm}; callers apply the exact distance check.
+     */
+    public List<MatchCandidate> candidatesNear(double latitude, double longitude, double radiusKm) {
+        List<MatchCandidate> nearby = new ArrayList<>();
+        geoIndex.forEachWithin(latitude, longitude, radiusKm, userId -> {
+            MatchCandidate candidate = candidates.get(userId);
+            if (candidate != null) {
+                nearby.add(candidate);
+            }
+        });
+        return nearby;
+    }
+
+    public int size() {
+        return candidates.size();
+    }
+
+    /**
+     * Replace a candidate, moving it between grid cells when its location changed
+     */
+    private void put(MatchCandidate candidate) {
+        recordChange(candidate.getUserId());
+        candidates.compute(candidate.getUserId(), (id, previous) -> {
+            if (previous != null && previous.hasLocation()) {
+                if (candidate.hasLocation()) {
+                    geoIndex.move(id, previous.getLatitude(), previous.getLongitude(),
+                            candidate.getLatitude(), candidate.getLongitude());
+                } else {
+                    geoIndex.remove(id, previous.getLatitude(), previous.getLongitude());
+                }
+            } else if (candidate.hasLocation()) {
+                geoIndex.add(id, candidate.getLatitude(), candidate.getLongitude());
+            }
+            return candidate;
+        });
+    }
+
+    private void evict(Long userId) {
+        recordChange(userId);
+        candidates.computeIfPresent(userId, (id, previous) -> {
+            if (previous.hasLocation()) {
+                geoIndex.remove(id, previous.getLatitude(), previous.getLongitude());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Called before the change is applied, so a load that has not seen it yet skips the user
+     */
+    private void recordChange(Long userId) {
+        if (!loaded) {
+            synchronized (changedDuringLoad) {
+                if (!loaded) {
+                    changedDuringLoad.add(userId);
+                }
+            }
+        }
+    }
+
+    private boolean wasChangedDuringLoad(Long userId) {
+        synchronized (changedDuringLoad) {
+            return changedDuringLoad.contains(userId);
+        }
+    }
+
+    private boolean isActive(UserProfile profile) {
+        return profile.getUser() != null && "ACTIVE".equals(profile.getUser().getStatus());
+    }
+}
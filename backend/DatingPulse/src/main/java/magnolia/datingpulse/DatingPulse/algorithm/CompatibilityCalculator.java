@@ -3,6 +3,7 @@ package magnolia.datingpulse.DatingPulse.algorithm;
 import magnolia.datingpulse.DatingPulse.entity.UserProfile;
 import magnolia.datingpulse.DatingPulse.entity.Preference;
 import magnolia.datingpulse.DatingPulse.entity.Interest;
+import magnolia.datingpulse.DatingPulse.util.InterestBitSet;
 import org.springframework.stereotype.Component;
 
 import java.util.Set;
@@ -79,7 +80,8 @@ public class CompatibilityCalculator {
 
     /**
      * Calculate interest-based compatibility (0.0 to 1.0)
-     * Based on common interests between users
+     * Based on common interests between users (Jaccard similarity over interest IDs).
+     * Interest sets are small, so the IDs are compared directly rather than encoded per call.
      */
     public double calculateInterestCompatibility(UserProfile user1, UserProfile user2) {
         Set<Interest> interests1 = user1.getInterests();
@@ -90,19 +92,25 @@ public class CompatibilityCalculator {
             return 0.5; // Default score if no interest data
         }
 
-        // Count common interests
-        long commonInterests = interests1.stream()
-            .mapToLong(interest -> interests2.contains(interest) ? 1 : 0)
-            .sum();
-
-        // Calculate Jaccard similarity coefficient
-        int totalUniqueInterests = interests1.size() + interests2.size() - (int)commonInterests;
-        
-        if (totalUniqueInterests == 0) {
-            return 1.0;
+        int count1 = 0;
+        int common = 0;
+        for (Interest interest : interests1) {
+            if (interest.getId() == null) {
+                continue;
+            }
+            count1++;
+            if (containsInterest(interests2, interest.getId())) {
+                common++;
+            }
         }
-
-        return (double) commonInterests / totalUniqueInterests;
+        int count2 = 0;
+        for (Interest interest : interests2) {
+            if (interest.getId() != null) {
+                count2++;
+            }
+        }
+        int union = count1 + count2 - common;
+        return union == 0 ? 1.0 : (double) common / union;
     }
 
     /**
@@ -126,20 +134,146 @@ public class CompatibilityCalculator {
         }
     }
 
+    /**
+     * Calculate overall compatibility score between two indexed candidates (0.0 to 1.0)
+     * Same weighting as {@link #calculateOverallCompatibility(UserProfile, UserProfile)}
+     */
+    public double calculateOverallCompatibility(MatchCandidate user1, MatchCandidate user2) {
+        if (user1 == null || user2 == null) {
+            return 0.0;
+        }
+        return calculateOverallCompatibility(user1, user2, distanceKm(user1, user2));
+    }
+
+    /**
+     * Overall compatibility of two indexed candidates whose distance is already known,
+     * so a distance computed for filtering is not recomputed for scoring.
+     * {@code distanceKm} is ignored unless both candidates have a location.
+     */
+    public double calculateOverallCompatibility(MatchCandidate user1, MatchCandidate user2, double distanceKm) {
+        double locationScore = calculateLocationCompatibility(user1, user2, distanceKm);
+        double ageScore = calculateAgeCompatibility(user1, user2);
+        double interestScore = calculateInterestCompatibility(user1, user2);
+        double preferenceScore = calculatePreferenceCompatibility(user1, user2);
+
+        return (locationScore * 0.3) + (ageScore * 0.2) + (interestScore * 0.3) + (preferenceScore * 0.2);
+    }
+
+    /**
+     * Check if two indexed candidates are compatible on basic criteria (gender, age, location)
+     */
+    public boolean isBasicCompatible(MatchCandidate user1, MatchCandidate user2) {
+        return isBasicCompatible(user1, user2, distanceKm(user1, user2));
+    }
+
+    /**
+     * Basic compatibility of two indexed candidates whose distance is already known.
+     * {@code distanceKm} is ignored unless both candidates have a location.
+     */
+    public boolean isBasicCompatible(MatchCandidate user1, MatchCandidate user2, double distanceKm) {
+        if (!user1.hasPreference() || !user2.hasPreference()) {
+            return true; // Allow if no preferences set
+        }
+
+        if (!user1.acceptsGender(user2.getGender()) || !user2.acceptsGender(user1.getGender())) {
+            return false;
+        }
+
+        if (!user1.acceptsAge(user2.getAge()) || !user2.acceptsAge(user1.getAge())) {
+            return false;
+        }
+
+        if (user1.hasLocation() && user2.hasLocation()) {
+            return distanceKm <= Math.min(user1.getMaxDistanceKm(), user2.getMaxDistanceKm());
+        }
+
+        return true;
+    }
+
+    /**
+     * Location-based compatibility between two indexed candidates (0.0 to 1.0)
+     */
+    public double calculateLocationCompatibility(MatchCandidate user1, MatchCandidate user2) {
+        return calculateLocationCompatibility(user1, user2, distanceKm(user1, user2));
+    }
+
+    /**
+     * Location-based compatibility of two indexed candidates whose distance is already known
+     */
+    public double calculateLocationCompatibility(MatchCandidate user1, MatchCandidate user2, double distanceKm) {
+        if (!user1.hasLocation() || !user2.hasLocation()) {
+            return 0.5; // Default score if location data is missing
+        }
+
+        double maxDistance = Math.min(user1.getMaxDistanceKm(), user2.getMaxDistanceKm());
+        if (distanceKm > maxDistance) {
+            return 0.0; // Outside acceptable range
+        }
+
+        return Math.max(0.0, 1.0 - (distanceKm / maxDistance));
+    }
+
+    /**
+     * Age-based compatibility between two indexed candidates (0.0 to 1.0)
+     */
+    public double calculateAgeCompatibility(MatchCandidate user1, MatchCandidate user2) {
+        if (!user1.hasAge() || !user2.hasAge()) {
+            return 0.5; // Default score if age data is missing
+        }
+
+        boolean user1InUser2Range = user2.acceptsAge(user1.getAge());
+        boolean user2InUser1Range = user1.acceptsAge(user2.getAge());
+
+        if (user1InUser2Range && user2InUser1Range) {
+            return 1.0;
+        } else if (user1InUser2Range || user2InUser1Range) {
+            return 0.5;
+        } else {
+            return 0.0;
+        }
+    }
+
+    /**
+     * Interest-based compatibility between two indexed candidates (0.0 to 1.0)
+     * Jaccard similarity over the interest bitsets
+     */
+    public double calculateInterestCompatibility(MatchCandidate user1, MatchCandidate user2) {
+        if (user1.getInterestCount() == 0 || user2.getInterestCount() == 0) {
+            return 0.5; // Default score if no interest data
+        }
+
+        return InterestBitSet.jaccard(user1.getInterestBits(), user1.getInterestCount(),
+                user2.getInterestBits(), user2.getInterestCount());
+    }
+
+    /**
+     * Preference-based compatibility between two indexed candidates (0.0 to 1.0)
+     */
+    public double calculatePreferenceCompatibility(MatchCandidate user1, MatchCandidate user2) {
+        if (!user1.hasPreference() || !user2.hasPreference()) {
+            return 0.5; // Default score if no preference data
+        }
+
+        boolean user1AcceptsUser2Gender = user1.acceptsGender(user2.getGender());
+        boolean user2AcceptsUser1Gender = user2.acceptsGender(user1.getGender());
+
+        if (user1AcceptsUser2Gender && user2AcceptsUser1Gender) {
+            return 1.0;
+        } else if (user1AcceptsUser2Gender || user2AcceptsUser1Gender) {
+            return 0.3;
+        } else {
+            return 0.0;
+        }
+    }
+
     /**
      * Calculate distance between two points using Haversine formula
      */
     public double calculateDistanceInKm(double lat1, double lon1, double lat2, double lon2) {
-        final double R = 6371; // Earth's radius in kilometers
-
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        
-        return R * c;
+        double latRad1 = Math.toRadians(lat1);
+        double latRad2 = Math.toRadians(lat2);
+        return GeoDistance.haversineKm(latRad1, Math.toRadians(lon1), Math.cos(latRad1),
+                latRad2, Math.toRadians(lon2), Math.cos(latRad2));
     }
 
     /**
@@ -204,4 +338,20 @@ public class CompatibilityCalculator {
         }
         return preference.getMaxDistance().doubleValue();
     }
+
+    /**
+     * Distance between two indexed candidates, or NaN when either has no location
+     */
+    private double distanceKm(MatchCandidate user1, MatchCandidate user2) {
+        return user1.hasLocation() && user2.hasLocation() ? GeoDistance.haversineKm(user1, user2) : Double.NaN;
+    }
+
+    private static boolean containsInterest(Set<Interest> interests, Long interestId) {
+        for (Interest interest : interests) {
+            if (interestId.equals(interest.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
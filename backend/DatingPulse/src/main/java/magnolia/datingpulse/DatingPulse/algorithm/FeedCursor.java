@@ -0,0 +1,61 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Position in a ranked feed: the score and user ID of the last entry a client received.
+ * The next page holds the entries ranking strictly below it, in the same order as
+ * {@link TopKSelector}, so paging stays stable while the feed changes underneath.
+ * Encoded as an opaque URL-safe token.
+ */
+public final class FeedCursor {
+
+    private static final int ENCODED_BYTES = Double.BYTES + Long.BYTES;
+
+    private final double score;
+    private final long userId;
+
+    public FeedCursor(double score, long userId) {
+        this.score = score;
+        this.userId = userId;
+    }
+
+    public static FeedCursor after(ScoredCandidate last) {
+        return new FeedCursor(last.getScore(), last.getUserId());
+    }
+
+    public double getScore() { return score; }
+    public long getUserId() { return userId; }
+
+    /**
+     * Whether an entry belongs after this cursor, i.e. the cursor ranks above it
+     */
+    public boolean admits(double otherScore, long otherUserId) {
+        return TopKSelector.ranksAbove(score, userId, otherScore, otherUserId);
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES);
+        buffer.putDouble(score).putLong(userId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static FeedCursor decode(String token) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        if (bytes.length != ENCODED_BYTES) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        double score = buffer.getDouble();
+        if (Double.isNaN(score)) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+        return new FeedCursor(score, buffer.getLong());
+    }
+}
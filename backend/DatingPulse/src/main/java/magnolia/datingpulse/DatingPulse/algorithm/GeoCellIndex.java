@@ -0,0 +1,121 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Spatial grid over latitude/longitude used to answer radius queries without scanning every user.
+ * The globe is split into fixed-size cells; a query visits only the cells overlapping the
+ * circle's bounding box, and callers run exact Haversine on the returned short list.
+ */
+public class GeoCellIndex {
+
+    private static final double KM_PER_DEGREE_LAT = 111.195;
+
+    private final double cellDegrees;
+    private final int latCells;
+    private final int lonCells;
+    private final ConcurrentHashMap<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    public GeoCellIndex(double cellDegrees) {
+        if (cellDegrees <= 0 || cellDegrees > 90) {
+            throw new IllegalArgumentException("Cell size must be between 0 and 90 degrees");
+        }
+        this.cellDegrees = cellDegrees;
+        this.latCells = (int) Math.ceil(180.0 / cellDegrees);
+        this.lonCells = (int) Math.ceil(360.0 / cellDegrees);
+    }
+
+    /**
+     * Add a user at the given coordinates. The insert runs under the cell's map lock, so a
+     * concurrent remove cannot drop the cell's set between lookup and insert.
+     */
+    public void add(long userId, double latitude, double longitude) {
+        cells.compute(cellKey(latitude, longitude), (k, users) -> {
+            Set<Long> cell = users != null ? users : ConcurrentHashMap.newKeySet();
+            cell.add(userId);
+            return cell;
+        });
+    }
+
+    /**
+     * Remove a user from the cell containing the given coordinates
+     */
+    public void remove(long userId, double latitude, double longitude) {
+        cells.computeIfPresent(cellKey(latitude, longitude), (k, users) -> {
+            users.remove(userId);
+            return users.isEmpty() ? null : users;
+        });
+    }
+
+    /**
+     * Move a user between cells; a no-op when both positions fall in the same cell
+     */
+    public void move(long userId, double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        if (cellKey(fromLatitude, fromLongitude) == cellKey(toLatitude, toLongitude)) {
+            return;
+        }
+        remove(userId, fromLatitude, fromLongitude);
+        add(userId, toLatitude, toLongitude);
+    }
+
+    /**
+     * Visit every user in the cells intersecting the circle's bounding box.
+     * Results are a superset of the users within the radius.
+     */
+    public void forEachWithin(double latitude, double longitude, double radiusKm, LongConsumer consumer) {
+        double latDelta = radiusKm / KM_PER_DEGREE_LAT;
+        double minLat = Math.max(-90.0, latitude - latDelta);
+        double maxLat = Math.min(90.0, latitude + latDelta);
+
+        // Longitude span widens towards the poles; use the most poleward latitude of the box
+        double poleward = Math.max(Math.abs(minLat), Math.abs(maxLat));
+        double cosLat = Math.cos(Math.toRadians(poleward));
+        double lonDelta = cosLat > 1e-9 ? latDelta / cosLat : 360.0;
+
+        int firstLatCell = latIndex(minLat);
+        int lastLatCell = latIndex(maxLat);
+
+        int firstLonCell;
+        int lonCellSpan;
+        if (lonDelta >= 180.0) {
+            firstLonCell = 0;
+            lonCellSpan = lonCells;
+        } else {
+            firstLonCell = lonIndex(longitude - lonDelta);
+            int lastLonCell = lonIndex(longitude + lonDelta);
+            lonCellSpan = Math.floorMod(lastLonCell - firstLonCell, lonCells) + 1;
+        }
+
+        for (int latCell = firstLatCell; latCell <= lastLatCell; latCell++) {
+            for (int i = 0; i < lonCellSpan; i++) {
+                int lonCell = (firstLonCell + i) % lonCells;
+                Set<Long> users = cells.get((long) latCell * lonCells + lonCell);
+                if (users != null) {
+                    for (Long userId : users) {
+                        consumer.accept(userId);
+                    }
+                }
+            }
+        }
+    }
+
+    public int cellCount() {
+        return cells.size();
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return (long) latIndex(latitude) * lonCells + lonIndex(longitude);
+    }
+
+    private int latIndex(double latitude) {
+        int index = (int) Math.floor((latitude + 90.0) / cellDegrees);
+        return Math.min(Math.max(index, 0), latCells - 1);
+    }
+
+    private int lonIndex(double longitude) {
+        double normalized = ((longitude + 180.0) % 360.0 + 360.0) % 360.0;
+        return Math.min((int) Math.floor(normalized / cellDegrees), lonCells - 1);
+    }
+}
@@ -0,0 +1,75 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+/**
+ * Haversine distances over coordinates already converted to radians, with cos(latitude)
+ * precomputed per point so a pair costs two sines, a square root and an arcsine.
+ * The batch form rejects points outside the query's lat/lon bounding box before
+ * evaluating the formula.
+ */
+public final class GeoDistance {
+
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    // Widens the bounding box slightly so rounding never rejects a point on the boundary
+    private static final double BOX_MARGIN = 1e-9;
+
+    private GeoDistance() {
+    }
+
+    /**
+     * Great-circle distance in kilometers between two points given in radians
+     */
+    public static double haversineKm(double latRad1, double lonRad1, double cosLat1,
+                                     double latRad2, double lonRad2, double cosLat2) {
+        double sinHalfLat = Math.sin((latRad2 - latRad1) / 2);
+        double sinHalfLon = Math.sin((lonRad2 - lonRad1) / 2);
+        double a = sinHalfLat * sinHalfLat + cosLat1 * cosLat2 * sinHalfLon * sinHalfLon;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Distance between two indexed candidates; both must have a location
+     */
+    public static double haversineKm(MatchCandidate from, MatchCandidate to) {
+        return haversineKm(from.getLatitudeRadians(), from.getLongitudeRadians(), from.getCosLatitude(),
+                to.getLatitudeRadians(), to.getLongitudeRadians(), to.getCosLatitude());
+    }
+
+    /**
+     * Distances from the query point to the first {@code count} points of the given arrays.
+     * Points outside the bounding box of {@code maxKm} around the query are certainly
+     * further than {@code maxKm} and get {@link Double#POSITIVE_INFINITY} instead.
+     */
+    public static void distancesKm(double latRad, double lonRad, double cosLat, double maxKm,
+                                   double[] latRads, double[] lonRads, double[] cosLats, int count,
+                                   double[] distancesOut) {
+        double maxLatDelta = maxKm / EARTH_RADIUS_KM + BOX_MARGIN;
+        double maxLonDelta = maxLongitudeDelta(cosLat, maxKm) + BOX_MARGIN;
+
+        for (int i = 0; i < count; i++) {
+            double latDelta = Math.abs(latRads[i] - latRad);
+            double lonDelta = Math.abs(lonRads[i] - lonRad);
+            if (lonDelta > Math.PI) {
+                lonDelta = 2 * Math.PI - lonDelta; // Across the antimeridian
+            }
+            if (latDelta > maxLatDelta || lonDelta > maxLonDelta) {
+                distancesOut[i] = Double.POSITIVE_INFINITY;
+            } else {
+                distancesOut[i] = haversineKm(latRad, lonRad, cosLat, latRads[i], lonRads[i], cosLats[i]);
+            }
+        }
+    }
+
+    /**
+     * Largest longitude offset of any point within {@code maxKm} of a point at the given
+     * latitude; unbounded when the circle reaches a pole
+     */
+    private static double maxLongitudeDelta(double cosLat, double maxKm) {
+        double angularRadius = maxKm / EARTH_RADIUS_KM;
+        if (!(angularRadius < Math.PI / 2)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double ratio = Math.sin(angularRadius) / cosLat;
+        return ratio >= 1.0 ? Double.POSITIVE_INFINITY : Math.asin(ratio);
+    }
+}
@@ -0,0 +1,163 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import magnolia.datingpulse.DatingPulse.entity.Preference;
+import magnolia.datingpulse.DatingPulse.entity.UserProfile;
+import magnolia.datingpulse.DatingPulse.util.InterestBitSet;
+
+import java.util.Locale;
+
+/**
+ * Compact, immutable snapshot of the profile fields the matching feed filters and scores on.
+ * Gender, age, location, preference bounds and interests are flattened into primitives so that
+ * a feed request can run over the {@link CandidateIndex} without touching JPA entities.
+ * Coordinates are also kept in radians with cos(latitude) precomputed for {@link GeoDistance}.
+ */
+public final class MatchCandidate {
+
+    /** Sentinel for a missing age or an unbounded age preference */
+    public static final int NO_AGE = -1;
+
+    private static final double DEFAULT_MAX_DISTANCE_KM = 50.0;
+
+    private final long userId;
+    private final String gender;
+    private final int age;
+    private final boolean hasLocation;
+    private final double latitude;
+    private final double longitude;
+    private final double latitudeRadians;
+    private final double longitudeRadians;
+    private final double cosLatitude;
+    private final boolean hasPreference;
+    private final String preferredGender;
+    private final int minAge;
+    private final int maxAge;
+    private final double maxDistanceKm;
+    private final long[] interestBits;
+    private final int interestCount;
+
+    private MatchCandidate(long userId, String gender, int age,
+                           boolean hasLocation, double latitude, double longitude,
+                           boolean hasPreference, String preferredGender, int minAge, int maxAge,
+                           double maxDistanceKm, long[] interestBits) {
+        this.userId = userId;
+        this.gender = gender;
+        this.age = age;
+        this.hasLocation = hasLocation;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.latitudeRadians = Math.toRadians(latitude);
+        this.longitudeRadians = Math.toRadians(longitude);
+        this.cosLatitude = Math.cos(latitudeRadians);
+        this.hasPreference = hasPreference;
+        this.preferredGender = preferredGender;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.maxDistanceKm = maxDistanceKm;
+        this.interestBits = interestBits;
+        this.interestCount = InterestBitSet.cardinality(interestBits);
+    }
+
+    /**
+     * Build a candidate from a profile entity. Must be called while the profile's
+     * preference and interests can still be loaded.
+     */
+    public static MatchCandidate from(UserProfile profile) {
+        boolean hasLocation = profile.getLatitude() != null && profile.getLongitude() != null;
+        Preference preference = profile.getPreference();
+
+        String preferredGender = null;
+        int minAge = NO_AGE;
+        int maxAge = NO_AGE;
+        double maxDistanceKm = DEFAULT_MAX_DISTANCE_KM;
+        if (preference != null) {
+            preferredGender = normalizeGender(preference.getPreferredGender());
+            if ("ANY".equals(preferredGender)) {
+                preferredGender = null; // No gender restrictions
+            }
+            minAge = preference.getMinAge() != null ? preference.getMinAge() : NO_AGE;
+            maxAge = preference.getMaxAge() != null ? preference.getMaxAge() : NO_AGE;
+            if (preference.getMaxDistance() != null) {
+                maxDistanceKm = preference.getMaxDistance().doubleValue();
+            }
+        }
+
+        return new MatchCandidate(
+                profile.getUserID(),
+                normalizeGender(profile.getGender()),
+                profile.getAge() != null ? profile.getAge() : NO_AGE,
+                hasLocation,
+                hasLocation ? profile.getLatitude() : 0.0,
+                hasLocation ? profile.getLongitude() : 0.0,
+                preference != null,
+                preferredGender,
+                minAge,
+                maxAge,
+                maxDistanceKm,
+                InterestBitSet.encode(profile.getInterests()));
+    }
+
+    /**
+     * Copy of this candidate with the interest added; returns this candidate if already present
+     */
+    public MatchCandidate withInterest(long interestId) {
+        return withInterestBits(InterestBitSet.with(interestBits, interestId));
+    }
+
+    /**
+     * Copy of this candidate with the interest removed; returns this candidate if absent
+     */
+    public MatchCandidate withoutInterest(long interestId) {
+        return withInterestBits(InterestBitSet.without(interestBits, interestId));
+    }
+
+    /**
+     * Check if this candidate's preference accepts the given (normalized) gender
+     */
+    public boolean acceptsGender(String targetGender) {
+        if (targetGender == null || !hasPreference) {
+            return false;
+        }
+        return preferredGender == null || preferredGender.equals(targetGender);
+    }
+
+    /**
+     * Check if this candidate's preference accepts the given age
+     */
+    public boolean acceptsAge(int targetAge) {
+        if (targetAge == NO_AGE || !hasPreference) {
+            return false;
+        }
+        if (minAge != NO_AGE && targetAge < minAge) {
+            return false;
+        }
+        return maxAge == NO_AGE || targetAge <= maxAge;
+    }
+
+    public long getUserId() { return userId; }
+    public String getGender() { return gender; }
+    public int getAge() { return age; }
+    public boolean hasAge() { return age != NO_AGE; }
+    public boolean hasLocation() { return hasLocation; }
+    public double getLatitude() { return latitude; }
+    public double getLongitude() { return longitude; }
+    public double getLatitudeRadians() { return latitudeRadians; }
+    public double getLongitudeRadians() { return longitudeRadians; }
+    public double getCosLatitude() { return cosLatitude; }
+    public boolean hasPreference() { return hasPreference; }
+    public double getMaxDistanceKm() { return maxDistanceKm; }
+    public long[] getInterestBits() { return interestBits; }
+    public int getInterestCount() { return interestCount; }
+
+    private MatchCandidate withInterestBits(long[] bits) {
+        if (bits == interestBits) {
+            return this;
+        }
+        return new MatchCandidate(userId, gender, age, hasLocation, latitude, longitude,
+                hasPreference, preferredGender, minAge, maxAge, maxDistanceKm, bits);
+    }
+
+    private static String normalizeGender(String gender) {
+        return gender != null ? gender.toUpperCase(Locale.ROOT) : null;
+    }
+}
@@ -0,0 +1,174 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static magnolia.datingpulse.DatingPulse.util.TransactionHooks.afterCommit;
+
+/**
+ * Per-user cache of precomputed {@link RankedFeed}s.
+ * Invalidation is selective: a swipe or block drops single entries from the affected
+ * feeds, while a preference change discards only the user's own feed. Every mutation
+ * gives the entry a new version, so a feed built concurrently from older data is not stored.
+ * Versions are drawn from one counter for the whole cache, so an entry evicted and created
+ * again never repeats a version a build may have stamped.
+ */
+@Component
+public class MatchFeedCache {
+
+    private final ConcurrentHashMap<Long, Entry> feeds = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final long ttlMillis;
+    private final int feedSize;
+
+    public MatchFeedCache(@Value("${app.matching.feed.ttl-ms:900000}") long ttlMillis,
+                          @Value("${app.matching.feed.size:200}") int feedSize) {
+        this.ttlMillis = ttlMillis;
+        this.feedSize = feedSize;
+    }
+
+    /**
+     * Number of candidates a feed is precomputed for
+     */
+    public int getFeedSize() {
+        return feedSize;
+    }
+
+    /**
+     * The user's feed if one is cached and not expired
+     */
+    public RankedFeed get(Long userId) {
+        Entry entry = feeds.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        entry.lastAccessMillis = now;
+        RankedFeed feed = entry.feed;
+        return feed != null && now - feed.getBuiltAtMillis() < ttlMillis ? feed : null;
+    }
+
+    /**
+     * Version to pass to {@link #store} for a feed about to be built.
+     * Must be read before the data the feed is built from.
+     */
+    public long stamp(Long userId) {
+        Entry entry = feeds.get(userId);
+        return entry != null ? entry.version : 0L;
+    }
+
+    /**
+     * Store a freshly built feed unless the user's entry changed since {@code stamp}.
+     * An entry stamped but gone by now was evicted, so nothing vouches for the feed and it is dropped.
+     */
+    public void store(Long userId, RankedFeed feed, long stamp) {
+        feeds.compute(userId, (id, current) -> {
+            if (current == null) {
+                return stamp == 0 ? new Entry(feed, versions.incrementAndGet(), System.currentTimeMillis()) : null;
+            }
+            return current.version == stamp ? replace(current, feed) : current;
+        });
+    }
+
+    /**
+     * Drop one candidate from a user's feed once the surrounding transaction commits,
+     * e.g. after the user swiped on them
+     */
+    public void removeCandidate(Long userId, Long candidateId) {
+        if (userId == null || candidateId == null) {
+            return;
+        }
+        afterCommit(() -> feeds.compute(userId, (id, current) -> current == null
+                ? invalidated()
+                : replace(current, current.feed != null ? current.feed.without(candidateId) : null)));
+    }
+
+    /**
+     * Discard a user's feed once the surrounding transaction commits,
+     * e.g. after their preferences changed
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        afterCommit(() -> feeds.compute(userId, (id, current) -> current == null
+                ? invalidated()
+                : replace(current, null)));
+    }
+
+    /**
+     * Remove a user who is no longer a valid candidate from every feed, and discard
+     * their own feed, once the surrounding transaction commits
+     */
+    public void removeCandidateEverywhere(Long candidateId) {
+        if (candidateId == null) {
+            return;
+        }
+        afterCommit(() -> {
+            feeds.replaceAll((id, current) -> id.equals(candidateId) || current.feed == null
+                    ? replace(current, null)
+                    : replace(current, current.feed.without(candidateId)));
+            feeds.computeIfAbsent(candidateId, id -> invalidated());
+        });
+    }
+
+    /**
+     * Users whose feed is missing or older than {@code maxAgeMillis}, for background refresh
+     */
+    public List<Long> usersNeedingRefresh(long maxAgeMillis) {
+        long cutoff = System.currentTimeMillis() - maxAgeMillis;
+        List<Long> userIds = new ArrayList<>();
+        feeds.forEach((userId, entry) -> {
+            if (entry.feed == null || entry.feed.getBuiltAtMillis() <= cutoff) {
+                userIds.add(userId);
+            }
+        });
+        return userIds;
+    }
+
+    /**
+     * Forget users who have not opened their feed within {@code idleMillis}; returns how many
+     */
+    public int evictIdle(long idleMillis) {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        int before = feeds.size();
+        feeds.values().removeIf(entry -> entry.lastAccessMillis <= cutoff);
+        return Math.max(0, before - feeds.size());
+    }
+
+    public void evict(Long userId) {
+        feeds.remove(userId);
+    }
+
+    public int size() {
+        return feeds.size();
+    }
+
+    private Entry invalidated() {
+        return new Entry(null, versions.incrementAndGet(), System.currentTimeMillis());
+    }
+
+    private Entry replace(Entry current, RankedFeed feed) {
+        return new Entry(feed, versions.incrementAndGet(), current.lastAccessMillis);
+    }
+
+    /**
+     * Feed slot for one user; a null feed means it was invalidated and must be rebuilt
+     */
+    private static final class Entry {
+        private final RankedFeed feed;
+        private final long version;
+        private volatile long lastAccessMillis;
+
+        private Entry(RankedFeed feed, long version, long lastAccessMillis) {
+            this.feed = feed;
+            this.version = version;
+            this.lastAccessMillis = lastAccessMillis;
+        }
+    }
+}
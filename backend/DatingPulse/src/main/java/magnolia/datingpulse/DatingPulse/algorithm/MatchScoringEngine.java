@@ -0,0 +1,232 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import magnolia.datingpulse.DatingPulse.config.MetricsConfig;
+import magnolia.datingpulse.DatingPulse.util.LongHashSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Filters, scores and ranks a pool of {@link MatchCandidate}s for one requesting user.
+ * Large pools are split into chunks scored on a dedicated fork/join pool, each chunk
+ * keeping its own top-K which are merged at the end. Small pools, or a parallelism
+ * of 1, are scored inline on the request thread.
+ */
+@Component
+@Slf4j
+public class MatchScoringEngine {
+
+    /** Radius for {@link #rank} that places no distance restriction on candidates */
+    public static final double ANY_DISTANCE = Double.POSITIVE_INFINITY;
+
+    // Candidates are buffered so distances are computed in one batch per block
+    private static final int BLOCK_SIZE = 256;
+
+    private final CompatibilityCalculator compatibilityCalculator;
+    private final MetricsConfig.DatingPulseMetrics datingPulseMetrics;
+    private final int chunkSize;
+    private final ForkJoinPool scoringPool;
+
+    public MatchScoringEngine(CompatibilityCalculator compatibilityCalculator,
+                              MetricsConfig.DatingPulseMetrics datingPulseMetrics,
+                              @Value("${app.matching.scoring.parallelism:0}") int parallelism,
+                              @Value("${app.matching.scoring.chunk-size:4096}") int chunkSize) {
+        this.compatibilityCalculator = compatibilityCalculator;
+        this.datingPulseMetrics = datingPulseMetrics;
+        this.chunkSize = Math.max(1, chunkSize);
+
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.scoringPool = threads > 1 ? new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("match-scoring-" + thread.getPoolIndex());
+            return thread;
+        }, null, false) : null;
+
+        log.info("Match scoring engine using {} thread(s), chunk size {}", threads > 1 ? threads : 1, this.chunkSize);
+    }
+
+    /**
+     * Rank the pool for the requesting user, best first.
+     * Candidates that are the user, excluded, rejected by {@code filter}, further than
+     * {@code radiusKm}, not basically compatible or scoring at or below {@code minScore}
+     * are skipped. A finite radius also skips candidates without a location.
+     * With a cursor, only candidates ranking below it are returned, so any page
+     * costs the same as the first one.
+     */
+    public List<ScoredCandidate> rank(MatchCandidate self, LongHashSet excluded, Collection<MatchCandidate> pool,
+                                      Predicate<MatchCandidate> filter, double radiusKm, double minScore, int limit,
+                                      FeedCursor after) {
+        ScoringRequest request = new ScoringRequest(self, excluded, filter, radiusKm, minScore, limit, after);
+        LongAdder busyNanos = new LongAdder();
+        int poolSize = pool.size();
+
+        long start = System.nanoTime();
+        TopKSelector topK;
+        if (scoringPool == null || poolSize <= chunkSize) {
+            topK = scoreChunk(request, pool.spliterator(), busyNanos);
+        } else {
+            topK = scoringPool.invoke(new ScoringTask(request, pool.spliterator(), busyNanos));
+        }
+        datingPulseMetrics.recordScoring(System.nanoTime() - start, busyNanos.sum(), poolSize);
+
+        return topK.toSortedList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scoringPool != null) {
+            scoringPool.shutdown();
+        }
+    }
+
+    private TopKSelector scoreChunk(ScoringRequest request, Spliterator<MatchCandidate> chunk, LongAdder busyNanos) {
+        long start = System.nanoTime();
+        TopKSelector topK = new TopKSelector(request.limit);
+        CandidateBlock block = new CandidateBlock();
+        chunk.forEachRemaining(candidate -> {
+            if (accepts(request, candidate)) {
+                block.add(candidate);
+                if (block.size == BLOCK_SIZE) {
+                    scoreBlock(request, block, topK);
+                }
+            }
+        });
+        scoreBlock(request, block, topK);
+        busyNanos.add(System.nanoTime() - start);
+        return topK;
+    }
+
+    private boolean accepts(ScoringRequest request, MatchCandidate candidate) {
+        if (candidate.getUserId() == request.self.getUserId() || request.excluded.contains(candidate.getUserId())) {
+            return false;
+        }
+        if (request.radiusKm != ANY_DISTANCE && !(request.self.hasLocation() && candidate.hasLocation())) {
+            return false;
+        }
+        return request.filter.test(candidate);
+    }
+
+    /**
+     * Compute the block's distances in one batch, then filter and score each candidate
+     * with its distance; the buffer is cleared afterwards
+     */
+    private void scoreBlock(ScoringRequest request, CandidateBlock block, TopKSelector topK) {
+        MatchCandidate self = request.self;
+        if (self.hasLocation()) {
+            // Box-rejected candidates get an infinite distance, which filters and scores
+            // exactly like their true distance would (see ScoringRequest.boxKm)
+            GeoDistance.distancesKm(self.getLatitudeRadians(), self.getLongitudeRadians(), self.getCosLatitude(),
+                    request.boxKm, block.latitudes, block.longitudes, block.cosLatitudes, block.size, block.distances);
+        }
+
+        for (int i = 0; i < block.size; i++) {
+            MatchCandidate candidate = block.candidates[i];
+            double distance = self.hasLocation() && candidate.hasLocation() ? block.distances[i] : Double.NaN;
+            if (distance > request.radiusKm || !compatibilityCalculator.isBasicCompatible(self, candidate, distance)) {
+                continue;
+            }
+            double score = compatibilityCalculator.calculateOverallCompatibility(self, candidate, distance);
+            if (score > request.minScore
+                    && (request.after == null || request.after.admits(score, candidate.getUserId()))) {
+                topK.offer(candidate.getUserId(), score);
+            }
+        }
+        block.clear();
+    }
+
+    /**
+     * Splits its spliterator until chunks are small enough, scores the remainder
+     * itself and merges the forked chunks' top-K into its own
+     */
+    private final class ScoringTask extends RecursiveTask<TopKSelector> {
+
+        private final ScoringRequest request;
+        private final Spliterator<MatchCandidate> spliterator;
+        private final LongAdder busyNanos;
+
+        ScoringTask(ScoringRequest request, Spliterator<MatchCandidate> spliterator, LongAdder busyNanos) {
+            this.request = request;
+            this.spliterator = spliterator;
+            this.busyNanos = busyNanos;
+        }
+
+        @Override
+        protected TopKSelector compute() {
+            List<ScoringTask> forked = new ArrayList<>();
+            Spliterator<MatchCandidate> prefix;
+            while (spliterator.estimateSize() > chunkSize && (prefix = spliterator.trySplit()) != null) {
+                ScoringTask task = new ScoringTask(request, prefix, busyNanos);
+                task.fork();
+                forked.add(task);
+            }
+
+            TopKSelector topK = scoreChunk(request, spliterator, busyNanos);
+            for (ScoringTask task : forked) {
+                topK.addAll(task.join());
+            }
+            return topK;
+        }
+    }
+
+    private static final class ScoringRequest {
+        private final MatchCandidate self;
+        private final LongHashSet excluded;
+        private final Predicate<MatchCandidate> filter;
+        private final double radiusKm;
+        private final double boxKm;
+        private final double minScore;
+        private final int limit;
+        private final FeedCursor after;
+
+        ScoringRequest(MatchCandidate self, LongHashSet excluded, Predicate<MatchCandidate> filter,
+                       double radiusKm, double minScore, int limit, FeedCursor after) {
+            this.self = self;
+            this.excluded = excluded;
+            this.filter = filter;
+            this.radiusKm = radiusKm;
+            // A radius is a hard filter and needs exact distances up to it; otherwise nothing
+            // beyond the user's own max distance can score on location or pass the basic check
+            this.boxKm = radiusKm != ANY_DISTANCE ? radiusKm : self.getMaxDistanceKm();
+            this.minScore = minScore;
+            this.limit = limit;
+            this.after = after;
+        }
+    }
+
+    /**
+     * Reusable buffer of candidates and their coordinates in primitive arrays
+     */
+    private static final class CandidateBlock {
+        private final MatchCandidate[] candidates = new MatchCandidate[BLOCK_SIZE];
+        private final double[] latitudes = new double[BLOCK_SIZE];
+        private final double[] longitudes = new double[BLOCK_SIZE];
+        private final double[] cosLatitudes = new double[BLOCK_SIZE];
+        private final double[] distances = new double[BLOCK_SIZE];
+        private int size;
+
+        void add(MatchCandidate candidate) {
+            candidates[size] = candidate;
+            latitudes[size] = candidate.getLatitudeRadians();
+            longitudes[size] = candidate.getLongitudeRadians();
+            cosLatitudes[size] = candidate.getCosLatitude();
+            size++;
+        }
+
+        void clear() {
+            Arrays.fill(candidates, 0, size, null);
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable precomputed ranking of one user's matching feed, best first.
+ * Built {@code depth} deep; {@code exhausted} records that fewer candidates than
+ * that qualified, so any request size can be served from it.
+ */
+public final class RankedFeed {
+
+    private final long[] userIds;
+    private final double[] scores;
+    private final boolean exhausted;
+    private final long builtAtMillis;
+
+    public RankedFeed(List<ScoredCandidate> ranked, int depth, long builtAtMillis) {
+        this.userIds = new long[ranked.size()];
+        this.scores = new double[ranked.size()];
+        for (int i = 0; i < ranked.size(); i++) {
+            userIds[i] = ranked.get(i).getUserId();
+            scores[i] = ranked.get(i).getScore();
+        }
+        this.exhausted = ranked.size() < depth;
+        this.builtAtMillis = builtAtMillis;
+    }
+
+    private RankedFeed(long[] userIds, double[] scores, boolean exhausted, long builtAtMillis) {
+        this.userIds = userIds;
+        this.scores = scores;
+        this.exhausted = exhausted;
+        this.builtAtMillis = builtAtMillis;
+    }
+
+    public int size() { return userIds.length; }
+    public boolean isExhausted() { return exhausted; }
+    public long getBuiltAtMillis() { return builtAtMillis; }
+
+    /**
+     * Up to {@code limit} entries starting at position {@code from}
+     */
+    public List<ScoredCandidate> page(int from, int limit) {
+        int start = Math.min(Math.max(from, 0), userIds.length);
+        int end = start + Math.min(Math.max(limit, 0), userIds.length - start);
+        List<ScoredCandidate> result = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            result.add(new ScoredCandidate(userIds[i], scores[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Position of the first entry ranking below the cursor, by binary search
+     */
+    public int indexAfter(FeedCursor cursor) {
+        int low = 0;
+        int high = userIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cursor.admits(scores[mid], userIds[mid])) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The last entry, or null if the feed is empty
+     */
+    public ScoredCandidate last() {
+        int index = userIds.length - 1;
+        return index >= 0 ? new ScoredCandidate(userIds[index], scores[index]) : null;
+    }
+
+    /**
+     * Copy of this feed without the given user; returns this feed if the user is absent
+     */
+    public RankedFeed without(long userId) {
+        int index = -1;
+        for (int i = 0; i < userIds.length; i++) {
+            if (userIds[i] == userId) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return this;
+        }
+
+        long[] remainingIds = new long[userIds.length - 1];
+        double[] remainingScores = new double[scores.length - 1];
+        System.arraycopy(userIds, 0, remainingIds, 0, index);
+        System.arraycopy(scores, 0, remainingScores, 0, index);
+        System.arraycopy(userIds, index + 1, remainingIds, index, userIds.length - index - 1);
+        System.arraycopy(scores, index + 1, remainingScores, index, scores.length - index - 1);
+        return new RankedFeed(remainingIds, remainingScores, exhausted, builtAtMillis);
+    }
+}
@@ -0,0 +1,18 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+/**
+ * A candidate user ID paired with its compatibility score against the requesting user
+ */
+public final class ScoredCandidate {
+
+    private final long userId;
+    private final double score;
+
+    public ScoredCandidate(long userId, double score) {
+        this.userId = userId;
+        this.score = score;
+    }
+
+    public long getUserId() { return userId; }
+    public double getScore() { return score; }
+}
@@ -0,0 +1,120 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded min-heap that keeps the K best-scoring candidates seen so far.
+ * Selection is O(N log K) with no per-candidate allocation; ties on score
+ * are broken by the lower user ID so rankings are deterministic.
+ * Not thread-safe.
+ */
+public class TopKSelector {
+
+    private final int capacity;
+    private final long[] userIds;
+    private final double[] scores;
+    private int size;
+
+    public TopKSelector(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity must not be negative");
+        }
+        this.capacity = capacity;
+        this.userIds = new long[capacity];
+        this.scores = new double[capacity];
+    }
+
+    /**
+     * Offer a candidate; returns true if it is currently among the top K
+     */
+    public boolean offer(long userId, double score) {
+        if (size < capacity) {
+            userIds[size] = userId;
+            scores[size] = score;
+            siftUp(size++);
+            return true;
+        }
+        if (capacity == 0 || !ranksAbove(score, userId, scores[0], userIds[0])) {
+            return false;
+        }
+        userIds[0] = userId;
+        scores[0] = score;
+        siftDown(0);
+        return true;
+    }
+
+    /**
+     * Merge the entries of another selector, e.g. a per-chunk result, into this one
+     */
+    public void addAll(TopKSelector other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.userIds[i], other.scores[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Selected candidates, best first
+     */
+    public List<ScoredCandidate> toSortedList() {
+        List<ScoredCandidate> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new ScoredCandidate(userIds[i], scores[i]));
+        }
+        result.sort((a, b) -> ranksAbove(a.getScore(), a.getUserId(), b.getScore(), b.getUserId()) ? -1
+                : ranksAbove(b.getScore(), b.getUserId(), a.getScore(), a.getUserId()) ? 1 : 0);
+        return result;
+    }
+
+    /**
+     * Ranking order: higher score first, then lower user ID
+     */
+    static boolean ranksAbove(double score, long userId, double otherScore, long otherUserId) {
+        int byScore = Double.compare(score, otherScore);
+        return byScore > 0 || (byScore == 0 && userId < otherUserId);
+    }
+
+    // The root holds the lowest-ranked entry
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(scores[parent], userIds[parent], scores[index], userIds[index])) {
+                break;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int lowest = left;
+            if (right < size && ranksAbove(scores[left], userIds[left], scores[right], userIds[right])) {
+                lowest = right;
+            }
+            if (!ranksAbove(scores[index], userIds[index], scores[lowest], userIds[lowest])) {
+                break;
+            }
+            swap(index, lowest);
+            index = lowest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long userId = userIds[i];
+        userIds[i] = userIds[j];
+        userIds[j] = userId;
+        double score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+}
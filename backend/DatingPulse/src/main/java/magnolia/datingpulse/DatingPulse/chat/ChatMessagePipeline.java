@@ -0,0 +1,440 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import magnolia.datingpulse.DatingPulse.repositories.MessageRepository;
+import magnolia.datingpulse.DatingPulse.service.MessageService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind path for chat messages. A message is authorized against
+ * {@link ConversationMembershipCache}, given its ID by {@link MessageIdAllocator}, journaled to the
+ * local {@link MessageSpool} and returned for immediate delivery; shard workers then write queued
+ * messages to the database in batches. A conversation always maps to the same shard, whose queue is
+ * FIFO, so its messages are persisted in the order they were accepted.
+ *
+ * <p>Backpressure: at most {@code capacity} messages may be accepted but not yet persisted. When
+ * the database falls behind, {@link #submit} waits up to {@code accept-timeout-ms} for room and then
+ * rejects the message instead of growing the backlog. Spooled messages left over from a previous
+ * run are set aside at startup and written by a replay thread while new ones are accepted; a
+ * leftover spool is only deleted once all of its messages are persisted, so if the database is
+ * still down it is replayed again on the next start.
+ */
+@Component
+@ConditionalOnProperty(name = "app.chat.write-behind.enabled", havingValue = "true")
+@Slf4j
+public class ChatMessagePipeline {
+
+    private static final int MAX_CONTENT_LENGTH = 5000;
+    private static final long POLL_MILLIS = 200;
+    private static final long INITIAL_RETRY_MILLIS = 100;
+    private static final long MAX_RETRY_MILLIS = 5000;
+    private static final long SHUTDOWN_WAIT_MILLIS = 10_000;
+    private static final String REPLAY_PREFIX = "replay-";
+
+    private final ConversationMembershipCache membershipCache;
+    private final MessageIdAllocator idAllocator;
+    private final MessageService messageService;
+    private final MessageRepository messageRepository;
+    private final ObjectMapper objectMapper;
+    private final Path spoolDirectory;
+    private final int shardCount;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long acceptTimeoutMillis;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final int capacity;
+    private final Semaphore permits;
+    private final Counter dropped;
+
+    private Shard[] shards;
+    private Thread replayThread;
+    private volatile boolean running;
+
+    public ChatMessagePipeline(ConversationMembershipCache membershipCache,
+                               MessageIdAllocator idAllocator,
+                               MessageService messageService,
+                               MessageRepository messageRepository,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.chat.write-behind.spool-dir:spool/chat}") String spoolDirectory,
+                               @Value("${app.chat.write-behind.shards:4}") int shardCount,
+                               @Value("${app.chat.write-behind.batch-size:200}") int batchSize,
+                               @Value("${app.chat.write-behind.linger-ms:10}") long lingerMillis,
+                               @Value("${app.chat.write-behind.capacity:10000}") int capacity,
+                               @Value("${app.chat.write-behind.accept-timeout-ms:250}") long acceptTimeoutMillis,
+                               @Value("${app.chat.write-behind.spool-segment-bytes:16777216}") long segmentBytes,
+                               @Value("${app.chat.write-behind.spool-fsync:false}") boolean fsync) {
+        this.membershipCache = membershipCache;
+        this.idAllocator = idAllocator;
+        this.messageService = messageService;
+        this.messageRepository = messageRepository;
+        this.objectMapper = objectMapper;
+        this.spoolDirectory = Paths.get(spoolDirectory);
+        this.shardCount = Math.max(1, shardCount);
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+        this.acceptTimeoutMillis = acceptTimeoutMillis;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+        this.dropped = meterRegistry.counter("datingpulse.chat.write_behind.dropped");
+        Gauge.builder("datingpulse.chat.write_behind.pending", permits, p -> this.capacity - p.availablePermits())
+                .description("Chat messages delivered but not yet persisted")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        running = true;
+        setAsideSpool();
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, new MessageSpool(spoolDirectory.resolve("shard-" + i), segmentBytes, fsync, objectMapper));
+            shards[i].thread.start();
+        }
+        // The database may be down at startup; replaying must not hold the application up
+        replayThread = new Thread(this::replaySpool, "chat-write-behind-replay");
+        replayThread.setDaemon(true);
+        replayThread.start();
+        log.info("Chat write-behind pipeline started: {} shards, batches of {}, capacity {}",
+                shardCount, batchSize, capacity);
+    }
+
+    /**
+     * Stop accepting messages and let the workers drain their queues. Anything a worker cannot
+     * persist in time stays in the spool and is written on the next start.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (shards == null) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + SHUTDOWN_WAIT_MILLIS;
+        replayThread.join(Math.max(1, deadline - System.currentTimeMillis()));
+        if (replayThread.isAlive()) {
+            replayThread.interrupt();
+        }
+        for (Shard shard : shards) {
+            shard.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            if (shard.thread.isAlive()) {
+                log.warn("Chat write-behind shard {} did not drain in time; its backlog stays spooled", shard.index);
+                shard.thread.interrupt();
+            }
+            shard.closeSpool();
+        }
+    }
+
+    /**
+     * Accept a message from {@code senderId}: authorize it, assign its ID and queue it for
+     * persistence. The returned message may be delivered right away.
+     *
+     * @param receiverId the receiver named by the client, checked against the conversation; may be null
+     * @throws IllegalArgumentException if the sender may not post this message
+     * @throws IllegalStateException if the backlog stayed full for the accept timeout
+     */
+    public PendingMessage submit(long senderId, Long conversationId, Long receiverId, String content, String type)
+            throws InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("Chat is shutting down");
+        }
+        if (conversationId == null) {
+            throw new IllegalArgumentException("Conversation ID is required");
+        }
+        ConversationMembership membership = membershipCache.get(conversationId);
+        if (membership == null || !membership.isParticipant(senderId)) {
+            throw new IllegalArgumentException("Sender is not part of this conversation");
+        }
+        if (!membership.isActive()) {
+            throw new IllegalArgumentException("Cannot send message to inactive match");
+        }
+        long receiver = membership.otherParticipant(senderId);
+        if (receiverId != null && receiverId != receiver) {
+            throw new IllegalArgumentException("Receiver is not part of this conversation");
+        }
+        if (content == null || content.isBlank() || content.length() > MAX_CONTENT_LENGTH) {
+            throw new IllegalArgumentException("Message content must be 1 to " + MAX_CONTENT_LENGTH + " characters");
+        }
+        if (!MessageService.isValidMessageType(type)) {
+            throw new IllegalArgumentException("Invalid message type: " + type);
+        }
+
+        if (!permits.tryAcquire(acceptTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("Chat is busy, please retry");
+        }
+        // The permit is released with the batch once a shard holds the message, and here otherwise
+        boolean queued = false;
+        try {
+            PendingMessage message = PendingMessage.builder()
+                    .messageId(idAllocator.next())
+                    .conversationId(conversationId)
+                    .senderId(senderId)
+                    .receiverId(receiver)
+                    .receiverIsUserOne(receiver == membership.getUserOneId())
+                    .content(content)
+                    .type(type)
+                    .sentAt(LocalDateTime.now())
+                    .build();
+            shards[Math.floorMod(conversationId, shards.length)].enqueue(message);
+            queued = true;
+            return message;
+        } catch (IOException e) {
+            throw new IllegalStateException("Chat spool unavailable", e);
+        } finally {
+            if (!queued) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Move the shard spools of the previous run out of the way, so the new shards start with empty
+     * ones and the replay thread owns the leftovers
+     */
+    private void setAsideSpool() throws IOException {
+        if (!Files.isDirectory(spoolDirectory)) {
+            return;
+        }
+        String run = REPLAY_PREFIX + System.currentTimeMillis() + "-";
+        for (Path directory : spoolDirectories("shard-*")) {
+            Files.move(directory, spoolDirectory.resolve(run + directory.getFileName()));
+        }
+    }
+
+    /**
+     * Write spooled messages left by previous runs, skipping those that reached the database
+     * before it stopped. A spool is deleted only once every one of its batches is persisted.
+     */
+    private void replaySpool() {
+        try {
+            for (Path directory : spoolDirectories(REPLAY_PREFIX + "*")) {
+                if (!replay(directory)) {
+                    log.warn("Chat spool replay stopped; {} and later spools are replayed on the next start", directory);
+                    return;
+                }
+                MessageSpool.clear(directory);
+                Files.deleteIfExists(directory);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Chat spool replay failed; the remaining spools are replayed on the next start", e);
+        }
+    }
+
+    /**
+     * @return false if the pipeline stopped before every message of the spool was written
+     */
+    private boolean replay(Path directory) throws IOException {
+        List<PendingMessage> spooled = MessageSpool.recover(directory, objectMapper);
+        if (spooled.isEmpty()) {
+            return true;
+        }
+        Set<Long> existing = existingIds(spooled.stream().map(PendingMessage::getMessageId).toList());
+        if (existing == null) {
+            return false;
+        }
+        List<PendingMessage> missing = spooled.stream()
+                .filter(message -> !existing.contains(message.getMessageId()))
+                .toList();
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            if (!persist(missing.subList(from, Math.min(from + batchSize, missing.size())))) {
+                return false;
+            }
+        }
+        log.info("Replayed {} spooled chat messages from {} ({} already persisted)",
+                missing.size(), directory, spooled.size() - missing.size());
+        return true;
+    }
+
+    /**
+     * Which of the IDs are already in the database, retrying with backoff while it is unavailable
+     *
+     * @return null if the pipeline stopped first
+     */
+    private Set<Long> existingIds(List<Long> ids) {
+        long backoff = INITIAL_RETRY_MILLIS;
+        while (true) {
+            try {
+                return new HashSet<>(messageRepository.findExistingIds(ids));
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return null;
+                }
+                log.warn("Reading spooled chat message IDs failed, retrying in {} ms: {}", backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+                backoff = Math.min(backoff * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Subdirectories of the spool directory matching {@code glob}, oldest run first
+     */
+    private List<Path> spoolDirectories(String glob) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(spoolDirectory, glob)) {
+            stream.forEach(directories::add);
+        }
+        directories.sort(null);
+        return directories;
+    }
+
+    /**
+     * Persist a batch, retrying with backoff while the database is unavailable. A batch rejected
+     * for a constraint violation is split so only the offending messages are dropped.
+     *
+     * @return false if the pipeline stopped before the batch could be written
+     */
+    private boolean persist(List<PendingMessage> batch) {
+        long backoff = INITIAL_RETRY_MILLIS;
+        while (true) {
+            try {
+                messageService.persistAcceptedMessages(batch);
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                if (batch.size() == 1) {
+                    log.error("Dropping chat message {} in conversation {}: {}",
+                            batch.get(0).getMessageId(), batch.get(0).getConversationId(), e.getMessage());
+                    dropped.increment();
+                    return true;
+                }
+                for (PendingMessage message : batch) {
+                    if (!persist(List.of(message))) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.warn("Chat write-behind stopped with {} messages unwritten; they stay spooled", batch.size());
+                    return false;
+                }
+                log.warn("Writing {} chat messages failed, retrying in {} ms: {}", batch.size(), backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoff = Math.min(backoff * 2, MAX_RETRY_MILLIS);
+            }
+        }
+    }
+
+    private static final class Queued {
+        private final long sequence;
+        private final PendingMessage message;
+
+        private Queued(long sequence, PendingMessage message) {
+            this.sequence = sequence;
+            this.message = message;
+        }
+    }
+
+    private final class Shard implements Runnable {
+        private final int index;
+        private final MessageSpool spool;
+        // Unbounded itself; the pipeline's permits bound what is queued
+        private final LinkedBlockingQueue<Queued> queue = new LinkedBlockingQueue<>();
+        private final Thread thread;
+
+        private Shard(int index, MessageSpool spool) {
+            this.index = index;
+            this.spool = spool;
+            this.thread = new Thread(this, "chat-write-behind-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        /**
+         * Spool and queue under one lock, so queue order matches spool order
+         */
+        private synchronized void enqueue(PendingMessage message) throws IOException {
+            queue.add(new Queued(spool.append(message), message));
+        }
+
+        @Override
+        public void run() {
+            List<Queued> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    Queued first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    fill(batch);
+                    if (!persist(batch.stream().map(queued -> queued.message).toList())) {
+                        return;
+                    }
+                    spool.persistedThrough(batch.get(batch.size() - 1).sequence);
+                    permits.release(batch.size());
+                    batch.clear();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException e) {
+                    // The batch is persisted; a stale segment only means it is skipped again on replay
+                    log.warn("Could not release chat spool segment in shard {}: {}", index, e.getMessage());
+                    permits.release(batch.size());
+                    batch.clear();
+                }
+            }
+        }
+
+        /**
+         * Top the batch up with whatever arrives within the linger time
+         */
+        private void fill(List<Queued> batch) throws InterruptedException {
+            long deadline = System.nanoTime() + lingerNanos;
+            while (batch.size() < batchSize) {
+                queue.drainTo(batch, batchSize - batch.size());
+                long remaining = deadline - System.nanoTime();
+                if (batch.size() >= batchSize || remaining <= 0) {
+                    return;
+                }
+                Queued next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+                batch.add(next);
+            }
+        }
+
+        private void closeSpool() {
+            try {
+                spool.close();
+            } catch (IOException e) {
+                log.warn("Could not close chat spool of shard {}: {}", index, e.getMessage());
+            }
+        }
+    }
+}
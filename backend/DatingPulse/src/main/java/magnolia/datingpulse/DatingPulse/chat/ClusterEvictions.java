@@ -0,0 +1,32 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Carries evictions of a node-local chat cache to the other nodes over {@link ClusterMessageBus}.
+ * Each instance tags what it publishes, so it skips its own evictions, which were already applied.
+ */
+final class ClusterEvictions {
+
+    private final ClusterMessageBus bus;
+    private final String channel;
+    private final String origin = UUID.randomUUID() + ":";
+
+    /**
+     * Subscribe {@code listener} to the evictions other nodes publish on {@code channel}
+     */
+    ClusterEvictions(ClusterMessageBus bus, String channel, Consumer<String> listener) {
+        this.bus = bus;
+        this.channel = channel;
+        bus.subscribe(channel, message -> {
+            if (!message.startsWith(origin)) {
+                listener.accept(message.substring(message.indexOf(':') + 1));
+            }
+        });
+    }
+
+    void publish(String eviction) {
+        bus.publish(channel, origin + eviction);
+    }
+}
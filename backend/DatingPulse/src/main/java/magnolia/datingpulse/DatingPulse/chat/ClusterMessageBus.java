@@ -0,0 +1,32 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Shared state and pub/sub between backend nodes, used by {@link ClusteredUserDestinationRelay} to
+ * carry STOMP messages to the node holding the recipient's session, and by the chat caches to
+ * spread their evictions. Implemented on Redis in {@link RedisClusterMessageBus}.
+ */
+public interface ClusterMessageBus {
+
+    void publish(String channel, String message);
+
+    /**
+     * Deliver every message published to {@code channel}, on a bus thread
+     */
+    void subscribe(String channel, Consumer<String> listener);
+
+    /**
+     * Record that {@code node} holds a session of {@code user}; the entry lapses after
+     * {@code ttlMillis} unless registered again
+     */
+    void register(String user, String node, long ttlMillis);
+
+    void unregister(String user, String node);
+
+    /**
+     * Nodes with a live registration for {@code user}
+     */
+    Set<String> nodesOf(String user);
+}
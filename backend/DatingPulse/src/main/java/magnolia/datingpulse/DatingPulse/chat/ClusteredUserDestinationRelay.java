@@ -0,0 +1,225 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Extends the in-memory STOMP broker across backend nodes. Every node registers the users whose
+ * sessions it holds in {@link ClusterMessageBus}. A message sent to {@code /user/{name}/...} is
+ * published to the channel of each other node holding a session of that user, and a message sent
+ * to {@code /topic/...} to a channel all nodes share; the receiving node hands it to its own
+ * broker, which resolves the user's sessions and subscribers as if the message had been sent
+ * locally. Local delivery is unchanged, so a single node behaves exactly as before.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.cluster.enabled", havingValue = "true")
+@Slf4j
+public class ClusteredUserDestinationRelay implements ChannelInterceptor {
+
+    private static final String USER_PREFIX = "/user/";
+    private static final String TOPIC_PREFIX = "/topic/";
+    // Marks a message received from another node, so it is not published again
+    private static final String RELAYED_HEADER = "datingpulseRelayedFrom";
+    // Registrations survive this many missed heartbeats
+    private static final int HEARTBEATS_PER_TTL = 3;
+
+    private final ClusterMessageBus bus;
+    private final AbstractSubscribableChannel brokerChannel;
+    private final SimpUserRegistry userRegistry;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+    private final String channelPrefix;
+    private final long registrationTtlMillis;
+
+    public ClusteredUserDestinationRelay(ClusterMessageBus bus,
+                                         @Qualifier("brokerChannel") AbstractSubscribableChannel brokerChannel,
+                                         SimpUserRegistry userRegistry,
+                                         ObjectMapper objectMapper,
+                                         @Value("${app.websocket.cluster.node-id:}") String nodeId,
+                                         @Value("${app.websocket.cluster.channel-prefix:datingpulse:ws}") String channelPrefix,
+                                         @Value("${app.websocket.cluster.heartbeat-ms:30000}") long heartbeatMillis) {
+        this.bus = bus;
+        this.brokerChannel = brokerChannel;
+        this.userRegistry = userRegistry;
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.channelPrefix = channelPrefix;
+        this.registrationTtlMillis = heartbeatMillis * HEARTBEATS_PER_TTL;
+    }
+
+    @PostConstruct
+    public void start() {
+        bus.subscribe(nodeChannel(nodeId), this::receive);
+        bus.subscribe(broadcastChannel(), this::receive);
+        brokerChannel.addInterceptor(this);
+        log.info("WebSocket cluster relay started as node {}", nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Publish messages bound for users or topics to the nodes that may hold their sessions,
+     * then let the local broker deliver them as usual
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        // Skip relayed messages and the per-session copies the user destination handler resolves
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || headers.containsKey(RELAYED_HEADER)
+                || headers.containsKey(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION)) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null) {
+            return message;
+        }
+        try {
+            if (destination.startsWith(USER_PREFIX)) {
+                int end = destination.indexOf('/', USER_PREFIX.length());
+                if (end > 0) {
+                    String user = destination.substring(USER_PREFIX.length(), end).replace("%2F", "/");
+                    Set<String> nodes = new HashSet<>(bus.nodesOf(user));
+                    nodes.remove(nodeId);
+                    String encoded = nodes.isEmpty() ? null : encode(message, destination);
+                    if (encoded != null) {
+                        for (String node : nodes) {
+                            bus.publish(nodeChannel(node), encoded);
+                        }
+                    }
+                }
+            } else if (destination.startsWith(TOPIC_PREFIX)) {
+                String encoded = encode(message, destination);
+                if (encoded != null) {
+                    bus.publish(broadcastChannel(), encoded);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Local subscribers still get the message
+            log.warn("Failed to relay message for {} to other nodes: {}", destination, e.getMessage());
+        }
+        return message;
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        if (user != null) {
+            register(user.getName());
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user == null) {
+            return;
+        }
+        // The registry may not have dropped the closing session yet
+        SimpUser local = userRegistry.getUser(user.getName());
+        boolean otherSessions = local != null && local.getSessions().stream()
+                .anyMatch(session -> !session.getId().equals(event.getSessionId()));
+        if (!otherSessions) {
+            try {
+                bus.unregister(user.getName(), nodeId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to unregister user {} from node {}: {}", user.getName(), nodeId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Renew the registrations of every user connected to this node
+     */
+    @Scheduled(fixedDelayString = "${app.websocket.cluster.heartbeat-ms:30000}",
+               initialDelayString = "${app.websocket.cluster.heartbeat-ms:30000}")
+    public void heartbeat() {
+        for (SimpUser user : userRegistry.getUsers()) {
+            register(user.getName());
+        }
+    }
+
+    private void register(String user) {
+        try {
+            bus.register(user, nodeId, registrationTtlMillis);
+        } catch (RuntimeException e) {
+            log.warn("Failed to register user {} on node {}: {}", user, nodeId, e.getMessage());
+        }
+    }
+
+    private void receive(String raw) {
+        RelayedMessage relayed;
+        try {
+            relayed = objectMapper.readValue(raw, RelayedMessage.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping unreadable relayed message: {}", e.getOriginalMessage());
+            return;
+        }
+        if (nodeId.equals(relayed.getOrigin())) {
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(relayed.getDestination());
+        if (relayed.getContentType() != null) {
+            accessor.setContentType(MimeType.valueOf(relayed.getContentType()));
+        }
+        accessor.setHeader(RELAYED_HEADER, relayed.getOrigin());
+        brokerChannel.send(MessageBuilder.createMessage(relayed.getPayload(), accessor.getMessageHeaders()));
+    }
+
+    private String encode(Message<?> message, String destination) {
+        byte[] payload;
+        if (message.getPayload() instanceof byte[] bytes) {
+            payload = bytes;
+        } else if (message.getPayload() instanceof String text) {
+            payload = text.getBytes(StandardCharsets.UTF_8);
+        } else {
+            log.debug("Not relaying {} payload for {}", message.getPayload().getClass().getName(), destination);
+            return null;
+        }
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        try {
+            return objectMapper.writeValueAsString(new RelayedMessage(nodeId, destination,
+                    contentType != null ? contentType.toString() : null, payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to encode relayed message", e);
+        }
+    }
+
+    private String nodeChannel(String node) {
+        return channelPrefix + ":node:" + node;
+    }
+
+    private String broadcastChannel() {
+        return channelPrefix + ":broadcast";
+    }
+}
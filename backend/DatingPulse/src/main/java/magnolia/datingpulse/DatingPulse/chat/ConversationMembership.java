@@ -0,0 +1,51 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+/**
+ * The participants of a conversation and whether their match is still active. Usernames are kept
+ * because they name the participants' STOMP sessions.
+ */
+public final class ConversationMembership {
+
+    private final long conversationId;
+    private final long matchId;
+    private final long userOneId;
+    private final long userTwoId;
+    private final String userOneUsername;
+    private final String userTwoUsername;
+    private final boolean active;
+
+    public ConversationMembership(long conversationId, long matchId, long userOneId, long userTwoId,
+                                  String userOneUsername, String userTwoUsername, boolean active) {
+        this.conversationId = conversationId;
+        this.matchId = matchId;
+        this.userOneId = userOneId;
+        this.userTwoId = userTwoId;
+        this.userOneUsername = userOneUsername;
+        this.userTwoUsername = userTwoUsername;
+        this.active = active;
+    }
+
+    public long getConversationId() { return conversationId; }
+    public long getMatchId() { return matchId; }
+    public long getUserOneId() { return userOneId; }
+    public long getUserTwoId() { return userTwoId; }
+    public boolean isActive() { return active; }
+
+    public boolean isParticipant(long userId) {
+        return userId == userOneId || userId == userTwoId;
+    }
+
+    /**
+     * The participant other than {@code userId}, who must be a participant
+     */
+    public long otherParticipant(long userId) {
+        return userId == userOneId ? userTwoId : userOneId;
+    }
+
+    /**
+     * The username of {@code userId}, who must be a participant
+     */
+    public String username(long userId) {
+        return userId == userOneId ? userOneUsername : userTwoUsername;
+    }
+}
@@ -0,0 +1,194 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import magnolia.datingpulse.DatingPulse.entity.Conversation;
+import magnolia.datingpulse.DatingPulse.repositories.ConversationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static magnolia.datingpulse.DatingPulse.util.TransactionHooks.afterCommit;
+
+/**
+ * Conversation participants by conversation ID, so chat authorization is a hash lookup instead of
+ * loading the Conversation, Match and both Users. Entries are loaded on first use and dropped when
+ * their match is deactivated or deleted, the conversation is deleted, or a participant is renamed.
+ * Every eviction bumps a generation, so a load that raced with one is not stored. Past
+ * {@code maxEntries} a slice of entries is discarded to make room; they reload on their next use.
+ *
+ * <p>With the cluster bus present, evictions are also published to the other nodes, which hold
+ * their own copies. Entries expire {@code ttlSeconds} after loading in case an eviction is lost.
+ */
+@Component
+public class ConversationMembershipCache {
+
+    // Share of entries discarded when the cache is full
+    private static final int TRIM_DIVISOR = 8;
+    private static final String EVICTION_CHANNEL = "datingpulse:chat:membership:evict";
+
+    private final ConversationRepository conversationRepository;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<Long, Entry> memberships = new ConcurrentHashMap<>();
+    // Match ID to conversation ID, to evict by match without a scan
+    private final ConcurrentHashMap<Long, Long> conversationByMatch = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    // Null on a single node
+    private final ClusterEvictions clusterEvictions;
+
+    public ConversationMembershipCache(ConversationRepository conversationRepository,
+                                       @Autowired(required = false) ClusterMessageBus clusterBus,
+                                       @Value("${app.chat.membership-cache.max-entries:200000}") int maxEntries,
+                                       @Value("${app.chat.membership-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.conversationRepository = conversationRepository;
+        this.maxEntries = Math.max(TRIM_DIVISOR, maxEntries);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.clusterEvictions = clusterBus != null
+                ? new ClusterEvictions(clusterBus, EVICTION_CHANNEL, this::onClusterEviction)
+                : null;
+    }
+
+    /**
+     * The conversation's membership, or null if the conversation does not exist
+     */
+    public ConversationMembership get(long conversationId) {
+        Entry cached = memberships.get(conversationId);
+        if (cached != null) {
+            if (System.nanoTime() - cached.loadedAt < ttlNanos) {
+                return cached.membership;
+            }
+            memberships.remove(conversationId, cached);
+        }
+        long stamp = generation.get();
+        ConversationMembership loaded = conversationRepository.findById(conversationId)
+                .map(ConversationMembershipCache::toMembership)
+                .orElse(null);
+        if (loaded != null && generation.get() == stamp) {
+            if (memberships.size() >= maxEntries) {
+                trim();
+            }
+            Entry entry = new Entry(loaded, System.nanoTime());
+            conversationByMatch.put(loaded.getMatchId(), conversationId);
+            memberships.putIfAbsent(conversationId, entry);
+            // An eviction between the check and the put may have missed this entry
+            if (generation.get() != stamp) {
+                memberships.remove(conversationId, entry);
+            }
+        }
+        return loaded;
+    }
+
+    public int size() {
+        return memberships.size();
+    }
+
+    /**
+     * Drop a conversation once the surrounding transaction commits, e.g. after it was deleted
+     */
+    public void evict(long conversationId) {
+        afterCommit(() -> {
+            evictNow(conversationId);
+            publish("c:" + conversationId);
+        });
+    }
+
+    /**
+     * Drop the conversation of a match once the surrounding transaction commits,
+     * e.g. after the match was deactivated
+     */
+    public void evictMatch(long matchId) {
+        afterCommit(() -> {
+            evictMatchNow(matchId);
+            publish("m:" + matchId);
+        });
+    }
+
+    /**
+     * Drop every conversation of a user once the surrounding transaction commits, e.g. after they
+     * were renamed. Renames are rare, so this scans rather than keeping an index by user.
+     */
+    public void evictUser(long userId) {
+        afterCommit(() -> {
+            evictUserNow(userId);
+            publish("u:" + userId);
+        });
+    }
+
+    private void evictNow(long conversationId) {
+        generation.incrementAndGet();
+        Entry removed = memberships.remove(conversationId);
+        if (removed != null) {
+            conversationByMatch.remove(removed.membership.getMatchId(), conversationId);
+        }
+    }
+
+    private void evictMatchNow(long matchId) {
+        generation.incrementAndGet();
+        Long conversationId = conversationByMatch.remove(matchId);
+        if (conversationId != null) {
+            memberships.remove(conversationId);
+        }
+    }
+
+    private void evictUserNow(long userId) {
+        generation.incrementAndGet();
+        memberships.values().removeIf(entry -> {
+            if (!entry.membership.isParticipant(userId)) {
+                return false;
+            }
+            conversationByMatch.remove(entry.membership.getMatchId(), entry.membership.getConversationId());
+            return true;
+        });
+    }
+
+    private void publish(String eviction) {
+        if (clusterEvictions != null) {
+            clusterEvictions.publish(eviction);
+        }
+    }
+
+    /**
+     * Apply an eviction published by another node, as {@code <kind>:<id>}
+     */
+    private void onClusterEviction(String eviction) {
+        long id = Long.parseLong(eviction.substring(2));
+        switch (eviction.charAt(0)) {
+            case 'c' -> evictNow(id);
+            case 'm' -> evictMatchNow(id);
+            case 'u' -> evictUserNow(id);
+            default -> throw new IllegalArgumentException("Unknown membership eviction: " + eviction);
+        }
+    }
+
+    /**
+     * Discard roughly one entry in {@link #TRIM_DIVISOR}. Hash order is unrelated to use,
+     * so this approximates random eviction without tracking access.
+     */
+    private void trim() {
+        int toRemove = memberships.size() / TRIM_DIVISOR;
+        Iterator<Entry> iterator = memberships.values().iterator();
+        while (toRemove-- > 0 && iterator.hasNext()) {
+            ConversationMembership membership = iterator.next().membership;
+            iterator.remove();
+            conversationByMatch.remove(membership.getMatchId(), membership.getConversationId());
+        }
+    }
+
+    private static ConversationMembership toMembership(Conversation conversation) {
+        return new ConversationMembership(
+                conversation.getConversationID(),
+                conversation.getMatch().getId(),
+                conversation.getMatch().getUserOne().getUserID(),
+                conversation.getMatch().getUserTwo().getUserID(),
+                conversation.getMatch().getUserOne().getUsername(),
+                conversation.getMatch().getUserTwo().getUsername(),
+                Boolean.TRUE.equals(conversation.getMatch().getIsActive()));
+    }
+
+    private record Entry(ConversationMembership membership, long loadedAt) {
+    }
+}
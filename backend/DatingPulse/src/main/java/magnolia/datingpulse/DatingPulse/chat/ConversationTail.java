@@ -0,0 +1,229 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import magnolia.datingpulse.DatingPulse.dto.MessageDTO;
+import magnolia.datingpulse.DatingPulse.dto.MessagePageDTO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The most recent messages of one conversation in a ring buffer, oldest first. It holds every
+ * message at or after its oldest entry; if {@code complete} it holds the whole conversation.
+ * Stored DTOs are shared with readers and never modified; changes replace them.
+ */
+public final class ConversationTail {
+
+    // Rough heap cost of a MessageDTO without its content: object, boxed fields and timestamps
+    private static final int MESSAGE_OVERHEAD_BYTES = 256;
+    private static final Comparator<MessageDTO> ORDER = Comparator
+            .comparing(MessageDTO::getSentAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(MessageDTO::getMessageID, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final MessageDTO[] ring;
+    private int head;
+    private int count;
+    private boolean complete;
+    private long bytes;
+    private boolean evicted;
+    // System.nanoTime() when built from the database
+    private final long loadedAt = System.nanoTime();
+
+    ConversationTail(int capacity, List<MessageDTO> oldestFirst, boolean complete) {
+        this.ring = new MessageDTO[capacity];
+        int skip = Math.max(0, oldestFirst.size() - capacity);
+        for (int i = skip; i < oldestFirst.size(); i++) {
+            MessageDTO message = oldestFirst.get(i);
+            ring[count++] = message;
+            bytes += estimateBytes(message);
+        }
+        this.complete = complete && skip == 0;
+    }
+
+    /**
+     * The latest {@code pageSize} messages visible to the user, oldest first, or null if this tail
+     * cannot tell whether older visible messages exist
+     */
+    public synchronized MessagePageDTO firstPage(long userId, int pageSize) {
+        List<MessageDTO> messages = new ArrayList<>(Math.min(pageSize, count));
+        for (int i = count - 1; i >= 0; i--) {
+            MessageDTO message = at(i);
+            if (!isVisibleTo(message, userId)) {
+                continue;
+            }
+            if (messages.size() == pageSize) {
+                Collections.reverse(messages);
+                return MessagePageDTO.builder().messages(messages).hasMore(true).build();
+            }
+            messages.add(message);
+        }
+        if (!complete) {
+            return null;
+        }
+        Collections.reverse(messages);
+        return MessagePageDTO.builder().messages(messages).hasMore(false).build();
+    }
+
+    synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * Insert a new message in order, or replace it if present; returns the change in bytes
+     */
+    synchronized long add(MessageDTO message) {
+        if (evicted) {
+            return 0;
+        }
+        int index = indexOf(message.getMessageID());
+        if (index >= 0) {
+            return set(index, message);
+        }
+        int position = count;
+        while (position > 0 && ORDER.compare(at(position - 1), message) > 0) {
+            position--;
+        }
+        long before = bytes;
+        if (count == ring.length) {
+            // Full: the oldest entry makes room, or the new message is older than all of them
+            complete = false;
+            if (position == 0) {
+                return 0;
+            }
+            bytes -= estimateBytes(ring[head]);
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            count--;
+            position--;
+        } else if (position == 0 && !complete) {
+            // Older messages between it and the tail may exist but are not held
+            return 0;
+        }
+        for (int i = count; i > position; i--) {
+            ring[slot(i)] = at(i - 1);
+        }
+        ring[slot(position)] = message;
+        count++;
+        bytes += estimateBytes(message);
+        return bytes - before;
+    }
+
+    /**
+     * Replace a held message with its updated version; returns the change in bytes
+     */
+    synchronized long replace(MessageDTO message) {
+        if (evicted) {
+            return 0;
+        }
+        int index = indexOf(message.getMessageID());
+        return index >= 0 ? set(index, message) : 0;
+    }
+
+    /**
+     * Apply a conversation-wide read by {@code receiverId}, matching the bulk UPDATE
+     */
+    synchronized void markRead(long receiverId, LocalDateTime readAt) {
+        if (evicted) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            MessageDTO message = at(i);
+            if (message.getReadAt() == null && Long.valueOf(receiverId).equals(message.getReceiverID())
+                    && !Boolean.TRUE.equals(message.getDeletedForReceiver())) {
+                MessageDTO read = copyOf(message);
+                read.setReadAt(readAt);
+                read.setIsRead(true);
+                ring[slot(i)] = read;
+            }
+        }
+    }
+
+    /**
+     * Drop a deleted message; returns the change in bytes
+     */
+    synchronized long remove(long messageId) {
+        if (evicted) {
+            return 0;
+        }
+        int index = indexOf(messageId);
+        if (index < 0) {
+            return 0;
+        }
+        long removed = estimateBytes(at(index));
+        for (int i = index; i < count - 1; i++) {
+            ring[slot(i)] = at(i + 1);
+        }
+        ring[slot(count - 1)] = null;
+        count--;
+        bytes -= removed;
+        return -removed;
+    }
+
+    /**
+     * Detach from the cache: later changes are ignored. Returns the bytes released.
+     */
+    synchronized long evict() {
+        evicted = true;
+        return bytes;
+    }
+
+    long loadedAt() {
+        return loadedAt;
+    }
+
+    private long set(int index, MessageDTO message) {
+        long delta = estimateBytes(message) - estimateBytes(at(index));
+        ring[slot(index)] = message;
+        bytes += delta;
+        return delta;
+    }
+
+    private int indexOf(Long messageId) {
+        for (int i = count - 1; i >= 0; i--) {
+            if (at(i).getMessageID().equals(messageId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private MessageDTO at(int index) {
+        return ring[slot(index)];
+    }
+
+    private int slot(int index) {
+        return (head + index) % ring.length;
+    }
+
+    private static boolean isVisibleTo(MessageDTO message, long userId) {
+        Long user = userId;
+        return (user.equals(message.getSenderID()) && !Boolean.TRUE.equals(message.getDeletedForSender()))
+                || (user.equals(message.getReceiverID()) && !Boolean.TRUE.equals(message.getDeletedForReceiver()));
+    }
+
+    static long estimateBytes(MessageDTO message) {
+        String content = message.getContent();
+        return MESSAGE_OVERHEAD_BYTES + (content != null ? 2L * content.length() : 0);
+    }
+
+    private static MessageDTO copyOf(MessageDTO message) {
+        MessageDTO copy = new MessageDTO();
+        copy.setMessageID(message.getMessageID());
+        copy.setConversationID(message.getConversationID());
+        copy.setSenderID(message.getSenderID());
+        copy.setReceiverID(message.getReceiverID());
+        copy.setContent(message.getContent());
+        copy.setType(message.getType());
+        copy.setSentAt(message.getSentAt());
+        copy.setDeliveredAt(message.getDeliveredAt());
+        copy.setReadAt(message.getReadAt());
+        copy.setStatus(message.getStatus());
+        copy.setIsEdited(message.getIsEdited());
+        copy.setIsRead(message.getIsRead());
+        copy.setDeletedForSender(message.getDeletedForSender());
+        copy.setDeletedForReceiver(message.getDeletedForReceiver());
+        return copy;
+    }
+}
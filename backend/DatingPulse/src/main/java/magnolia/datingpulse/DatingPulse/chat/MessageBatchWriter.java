@@ -0,0 +1,50 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Inserts pipelined messages with multi-row INSERT statements, using their preassigned IDs.
+ * Runs on the JDBC connection of the caller's transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class MessageBatchWriter {
+
+    static final int ROWS_PER_STATEMENT = 100;
+
+    private static final String INSERT = "INSERT INTO messages (message_id, conversation_id, sender_id, receiver_id, " +
+            "content, message_type, sent_at, status, is_edited, is_read, deleted_for_sender, deleted_for_receiver) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, 'SENT', false, false, false, false)";
+    private static final String FULL_STATEMENT = statement(ROWS_PER_STATEMENT);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(List<PendingMessage> messages) {
+        for (int from = 0; from < messages.size(); from += ROWS_PER_STATEMENT) {
+            List<PendingMessage> rows = messages.subList(from, Math.min(from + ROWS_PER_STATEMENT, messages.size()));
+            String sql = rows.size() == ROWS_PER_STATEMENT ? FULL_STATEMENT : statement(rows.size());
+            jdbcTemplate.update(sql, ps -> {
+                int parameter = 1;
+                for (PendingMessage message : rows) {
+                    ps.setLong(parameter++, message.getMessageId());
+                    ps.setLong(parameter++, message.getConversationId());
+                    ps.setLong(parameter++, message.getSenderId());
+                    ps.setLong(parameter++, message.getReceiverId());
+                    ps.setString(parameter++, message.getContent());
+                    ps.setString(parameter++, message.getType());
+                    ps.setTimestamp(parameter++, Timestamp.valueOf(message.getSentAt()));
+                }
+            });
+        }
+    }
+
+    private static String statement(int rows) {
+        return INSERT + String.join(", ", Collections.nCopies(rows, ROW));
+    }
+}
@@ -0,0 +1,52 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out message IDs ahead of the insert, so the chat pipeline can deliver a message before it
+ * is written. IDs are drawn in blocks from the same sequence and with the same convention as
+ * Hibernate's pooled optimizer on {@code Message}: a drawn value v reserves (v - BLOCK_SIZE, v].
+ * One database round trip per block.
+ */
+@Component
+public class MessageIdAllocator {
+
+    static final String SEQUENCE = "messages_message_id_seq";
+    // Must equal the allocationSize of Message's sequence generator
+    static final int BLOCK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private long next;
+    private long limit;
+
+    public MessageIdAllocator(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport().getSequenceNextValString(SEQUENCE);
+    }
+
+    public synchronized long next() {
+        if (next == limit) {
+            long high = drawSequence();
+            if (high < BLOCK_SIZE) {
+                // The first value of a fresh sequence does not cover a whole block
+                high = drawSequence();
+            }
+            next = high - BLOCK_SIZE + 1;
+            limit = high + 1;
+        }
+        return next++;
+    }
+
+    private long drawSequence() {
+        Long value = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+        if (value == null) {
+            throw new IllegalStateException("Sequence " + SEQUENCE + " returned no value");
+        }
+        return value;
+    }
+}
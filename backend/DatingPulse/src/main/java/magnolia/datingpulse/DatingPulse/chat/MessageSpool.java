@@ -0,0 +1,158 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Append-only local journal of one pipeline shard, so messages that were delivered but not yet
+ * written to the database survive a crash. Records are JSON lines in segment files named by the
+ * sequence number of their first record; a segment is deleted once all its records are persisted.
+ * Appends go straight to the file channel, which survives a process crash; with {@code fsync}
+ * every append is also forced to disk, which survives power loss at the cost of a disk flush
+ * per message.
+ */
+@Slf4j
+final class MessageSpool implements Closeable {
+
+    private static final String SEGMENT_GLOB = "*.spool";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+    // Closed segments oldest first, each with the sequence number of its last record
+    private final Deque<Segment> closed = new ArrayDeque<>();
+
+    private Segment current;
+    private FileChannel channel;
+    private long nextSequence;
+
+    MessageSpool(Path directory, long segmentBytes, boolean fsync, ObjectMapper objectMapper) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Append a record and return its sequence number
+     */
+    synchronized long append(PendingMessage message) throws IOException {
+        if (channel == null || current.bytes >= segmentBytes) {
+            roll();
+        }
+        ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(message) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        current.bytes += line.remaining();
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        current.lastSequence = nextSequence;
+        return nextSequence++;
+    }
+
+    /**
+     * Release every record up to and including {@code sequence}, which has been persisted
+     */
+    synchronized void persistedThrough(long sequence) throws IOException {
+        while (!closed.isEmpty() && closed.peekFirst().lastSequence <= sequence) {
+            Files.deleteIfExists(closed.pollFirst().path);
+        }
+        if (current != null && current.bytes > 0 && current.lastSequence <= sequence) {
+            // Everything written so far is persisted: reuse the open segment from the start
+            channel.truncate(0);
+            current.bytes = 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        if (channel != null) {
+            channel.close();
+            closed.addLast(current);
+        }
+        Path path = directory.resolve(String.format("%020d.spool", nextSequence));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        current = new Segment(path);
+    }
+
+    /**
+     * Read every record left in a spool directory, oldest first. A line that does not parse is the
+     * torn tail of a write interrupted by the crash and is skipped.
+     */
+    static List<PendingMessage> recover(Path directory, ObjectMapper objectMapper) throws IOException {
+        List<PendingMessage> records = new ArrayList<>();
+        for (Path segment : segments(directory)) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        records.add(objectMapper.readValue(line, PendingMessage.class));
+                    } catch (JsonProcessingException e) {
+                        log.warn("Skipping unreadable spool record in {}: {}", segment, e.getOriginalMessage());
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Delete a spool directory's segments once their records have been recovered and persisted
+     */
+    static void clear(Path directory) throws IOException {
+        for (Path segment : segments(directory)) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_GLOB)) {
+            stream.forEach(segments::add);
+        }
+        // Zero-padded sequence numbers sort in write order
+        segments.sort(null);
+        return segments;
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private long bytes;
+        private long lastSequence = -1;
+
+        private Segment(Path path) {
+            this.path = path;
+        }
+    }
+}
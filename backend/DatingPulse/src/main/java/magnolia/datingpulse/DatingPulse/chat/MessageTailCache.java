@@ -0,0 +1,222 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import magnolia.datingpulse.DatingPulse.dto.MessageDTO;
+import magnolia.datingpulse.DatingPulse.dto.MessagePageDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToLongFunction;
+
+import static magnolia.datingpulse.DatingPulse.util.TransactionHooks.afterCommit;
+
+/**
+ * Recent messages per conversation, so opening a chat reads its first history page without a
+ * query. A conversation's tail is loaded on its first history read, then kept current by the
+ * message writes, each applied once its transaction commits. Conversations are evicted least
+ * recently used first once the estimated size of all tails passes {@code maxBytes}.
+ *
+ * <p>Each change bumps a stamp shared by a stripe of conversations. A load records the stamp
+ * before querying and is discarded if it moved, since the rows it read may miss that change.
+ *
+ * <p>Tails only see the writes made on their own node. With the cluster bus present, each change
+ * is also published so the other nodes drop that conversation's tail and reload it on its next
+ * read. Tails are dropped {@code maxAgeSeconds} after loading regardless, bounding how long a
+ * lost invalidation can serve a stale page.
+ */
+@Component
+public class MessageTailCache {
+
+    private static final int STAMP_STRIPES = 1024;
+    private static final String EVICTION_CHANNEL = "datingpulse:chat:history:evict";
+
+    private final int messagesPerConversation;
+    private final long maxBytes;
+    private final long maxAgeNanos;
+    // Access ordered, guarded by itself
+    private final LinkedHashMap<Long, ConversationTail> tails = new LinkedHashMap<>(256, 0.75f, true);
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    // Null on a single node
+    private final ClusterEvictions clusterEvictions;
+
+    public MessageTailCache(@Value("${app.chat.history-cache.messages-per-conversation:64}") int messagesPerConversation,
+                            @Value("${app.chat.history-cache.max-bytes:67108864}") long maxBytes,
+                            @Value("${app.chat.history-cache.max-age-seconds:30}") long maxAgeSeconds,
+                            @Autowired(required = false) ClusterMessageBus clusterBus) {
+        if (messagesPerConversation < 1) {
+            throw new IllegalArgumentException("History cache must hold at least one message per conversation");
+        }
+        this.messagesPerConversation = messagesPerConversation;
+        this.maxBytes = maxBytes;
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+        this.clusterEvictions = clusterBus != null
+                ? new ClusterEvictions(clusterBus, EVICTION_CHANNEL, id -> evictNow(Long.parseLong(id)))
+                : null;
+    }
+
+    public int getMessagesPerConversation() {
+        return messagesPerConversation;
+    }
+
+    /**
+     * The first history page from the cached tail, or null if the conversation is not cached
+     * or its tail cannot answer
+     */
+    public MessagePageDTO firstPage(long conversationId, long userId, int pageSize) {
+        ConversationTail tail;
+        synchronized (tails) {
+            tail = tails.get(conversationId);
+        }
+        if (tail == null) {
+            return null;
+        }
+        if (System.nanoTime() - tail.loadedAt() >= maxAgeNanos) {
+            discard(conversationId, tail);
+            return null;
+        }
+        return tail.firstPage(userId, pageSize);
+    }
+
+    /**
+     * Take before querying the rows for {@link #load}
+     */
+    public long stamp(long conversationId) {
+        return stamps.get(stripe(conversationId));
+    }
+
+    /**
+     * Cache the latest messages of a conversation, read from the database
+     *
+     * @param oldestFirst up to {@link #getMessagesPerConversation()} of the newest messages
+     * @param complete    whether these are all of the conversation's messages
+     * @return the tail built from the rows, whether or not it could be cached
+     */
+    public ConversationTail load(long conversationId, long stamp, List<MessageDTO> oldestFirst, boolean complete) {
+        ConversationTail tail = new ConversationTail(messagesPerConversation, oldestFirst, complete);
+        if (stamp(conversationId) != stamp) {
+            return tail;
+        }
+        ConversationTail replaced;
+        synchronized (tails) {
+            replaced = tails.put(conversationId, tail);
+        }
+        bytes.addAndGet(tail.bytes() - (replaced != null ? replaced.evict() : 0));
+        // A change between the check and the put may have missed this tail
+        if (stamp(conversationId) != stamp) {
+            discard(conversationId, tail);
+        }
+        trim();
+        return tail;
+    }
+
+    public int size() {
+        synchronized (tails) {
+            return tails.size();
+        }
+    }
+
+    public long estimatedBytes() {
+        return bytes.get();
+    }
+
+    public void messageAdded(MessageDTO message) {
+        apply(message.getConversationID(), tail -> tail.add(message));
+    }
+
+    public void messageUpdated(MessageDTO message) {
+        apply(message.getConversationID(), tail -> tail.replace(message));
+    }
+
+    public void conversationRead(long conversationId, long receiverId, LocalDateTime readAt) {
+        apply(conversationId, tail -> {
+            tail.markRead(receiverId, readAt);
+            return 0;
+        });
+    }
+
+    public void messageDeleted(long conversationId, long messageId) {
+        apply(conversationId, tail -> tail.remove(messageId));
+    }
+
+    /**
+     * Drop a conversation once the surrounding transaction commits, e.g. after it was deleted
+     */
+    public void evict(long conversationId) {
+        afterCommit(() -> {
+            evictNow(conversationId);
+            publish(conversationId);
+        });
+    }
+
+    private void evictNow(long conversationId) {
+        stamps.incrementAndGet(stripe(conversationId));
+        ConversationTail removed;
+        synchronized (tails) {
+            removed = tails.remove(conversationId);
+        }
+        if (removed != null) {
+            bytes.addAndGet(-removed.evict());
+        }
+    }
+
+    private void publish(long conversationId) {
+        if (clusterEvictions != null) {
+            clusterEvictions.publish(Long.toString(conversationId));
+        }
+    }
+
+    private void apply(long conversationId, ToLongFunction<ConversationTail> change) {
+        afterCommit(() -> {
+            // Stamp first: a load that checks after this sees the change in its rows or is discarded
+            stamps.incrementAndGet(stripe(conversationId));
+            ConversationTail tail;
+            synchronized (tails) {
+                tail = tails.get(conversationId);
+            }
+            if (tail != null) {
+                long delta = change.applyAsLong(tail);
+                if (delta != 0) {
+                    bytes.addAndGet(delta);
+                    trim();
+                }
+            }
+            publish(conversationId);
+        });
+    }
+
+    private void discard(long conversationId, ConversationTail tail) {
+        boolean removed;
+        synchronized (tails) {
+            removed = tails.remove(conversationId, tail);
+        }
+        if (removed) {
+            bytes.addAndGet(-tail.evict());
+        }
+    }
+
+    private void trim() {
+        if (bytes.get() <= maxBytes) {
+            return;
+        }
+        synchronized (tails) {
+            Iterator<ConversationTail> eldest = tails.values().iterator();
+            while (bytes.get() > maxBytes && eldest.hasNext()) {
+                ConversationTail tail = eldest.next();
+                eldest.remove();
+                bytes.addAndGet(-tail.evict());
+            }
+        }
+    }
+
+    private static int stripe(long conversationId) {
+        return (int) (conversationId ^ (conversationId >>> 32)) & (STAMP_STRIPES - 1);
+    }
+}
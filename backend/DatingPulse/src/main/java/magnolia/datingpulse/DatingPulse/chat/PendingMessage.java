@@ -0,0 +1,28 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A chat message accepted by {@link ChatMessagePipeline}: validated, assigned its ID and already
+ * delivered, waiting to be written to the database. Also the record format of {@link MessageSpool}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingMessage {
+    private long messageId;
+    private long conversationId;
+    private long senderId;
+    private long receiverId;
+    // True when the receiver is the match's userOne, which selects the conversation's unread counter
+    private boolean receiverIsUserOne;
+    private String content;
+    private String type;
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,44 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+/**
+ * An online user in {@link PresenceRegistry}. The last-seen stamp is updated in place, so a
+ * heartbeat allocates nothing; the wheel fields belong to the registry shard holding the entry.
+ */
+public final class Presence {
+
+    private final long userId;
+    private volatile String username;
+    private volatile long lastSeenMillis;
+    // When this entry was last written to shared storage, to rate-limit heartbeats there
+    private volatile long publishedMillis;
+
+    // Timing wheel links, guarded by the owning shard
+    long deadlineTick;
+    int level = -1;
+    int slot;
+    Presence prev;
+    Presence next;
+
+    Presence(long userId, String username, long lastSeenMillis) {
+        this.userId = userId;
+        this.username = username;
+        this.lastSeenMillis = lastSeenMillis;
+    }
+
+    public long getUserId() { return userId; }
+    public String getUsername() { return username; }
+    public long getLastSeenMillis() { return lastSeenMillis; }
+    public long getPublishedMillis() { return publishedMillis; }
+
+    void setUsername(String username) {
+        this.username = username;
+    }
+
+    void setLastSeenMillis(long lastSeenMillis) {
+        this.lastSeenMillis = lastSeenMillis;
+    }
+
+    public void setPublishedMillis(long publishedMillis) {
+        this.publishedMillis = publishedMillis;
+    }
+}
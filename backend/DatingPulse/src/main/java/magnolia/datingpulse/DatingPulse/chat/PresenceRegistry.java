@@ -0,0 +1,393 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Online users by user ID, split into shards that each hold a primitive-keyed open-addressing
+ * table and a hierarchical timing wheel under their own lock.
+ *
+ * <p>An entry is scheduled on the wheel for when it would time out. A heartbeat only moves its
+ * last-seen stamp; when the wheel reaches the entry it is either expired or, if seen since,
+ * rescheduled from the new stamp. Each {@link #expire} call therefore touches only entries whose
+ * deadline has come, instead of sweeping every online user.
+ *
+ * <p>The wheel has {@value #LEVELS} levels of {@value #SLOTS} slots; a level-{@code n} slot spans
+ * {@code 64^n} ticks, and its entries are moved down a level when the wheel enters that span.
+ */
+public final class PresenceRegistry {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    private static final int INITIAL_TABLE_SIZE = 64;
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private final long tickMillis;
+    private final long timeoutMillis;
+
+    public PresenceRegistry(int shardCount, long tickMillis, long timeoutMillis, long nowMillis) {
+        if (tickMillis <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Presence tick and timeout must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1) << 1);
+        this.shards = new Shard[size];
+        this.shardMask = size - 1;
+        this.tickMillis = tickMillis;
+        this.timeoutMillis = timeoutMillis;
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard(nowMillis / tickMillis);
+        }
+    }
+
+    /**
+     * Mark a user online as of {@code nowMillis}; returns whether they were not online before
+     */
+    public boolean online(long userId, String username, long nowMillis) {
+        Shard shard = shard(userId);
+        synchronized (shard) {
+            Presence presence = shard.get(userId);
+            if (presence != null) {
+                presence.setUsername(username);
+                touch(presence, nowMillis);
+                return false;
+            }
+            presence = new Presence(userId, username, nowMillis);
+            shard.put(userId, presence);
+            shard.schedule(presence, deadlineTick(nowMillis));
+            return true;
+        }
+    }
+
+    /**
+     * Move an online user's last-seen stamp forward; returns the entry, or null if not online.
+     * Stamped under the shard lock, so an entry expired or removed meanwhile is never touched.
+     */
+    public Presence touch(long userId, long nowMillis) {
+        Shard shard = shard(userId);
+        synchronized (shard) {
+            Presence presence = shard.get(userId);
+            if (presence != null) {
+                touch(presence, nowMillis);
+            }
+            return presence;
+        }
+    }
+
+    public Presence get(long userId) {
+        Shard shard = shard(userId);
+        synchronized (shard) {
+            return shard.get(userId);
+        }
+    }
+
+    public Presence remove(long userId) {
+        Shard shard = shard(userId);
+        synchronized (shard) {
+            Presence presence = shard.remove(userId);
+            if (presence != null) {
+                shard.unschedule(presence);
+            }
+            return presence;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                size += shard.size;
+            }
+        }
+        return size;
+    }
+
+    public Set<Long> userIds() {
+        Set<Long> userIds = new HashSet<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (long key : shard.keys) {
+                    if (key != 0) {
+                        userIds.add(key);
+                    }
+                }
+            }
+        }
+        return userIds;
+    }
+
+    /**
+     * Advance the wheels to {@code nowMillis} and remove the users not seen for the timeout
+     */
+    public List<Presence> expire(long nowMillis) {
+        List<Presence> expired = new ArrayList<>();
+        long nowTick = nowMillis / tickMillis;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                shard.advance(nowTick, nowMillis, expired);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Remove every user not seen since {@code cutoffMillis}, whatever the configured timeout.
+     * Visits every entry; routine expiry goes through {@link #expire}.
+     */
+    public List<Presence> removeIdleSince(long cutoffMillis) {
+        List<Presence> removed = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                int from = removed.size();
+                for (Presence presence : shard.values) {
+                    if (presence != null && presence.getLastSeenMillis() < cutoffMillis) {
+                        removed.add(presence);
+                    }
+                }
+                for (Presence presence : removed.subList(from, removed.size())) {
+                    shard.remove(presence.getUserId());
+                    shard.unschedule(presence);
+                }
+            }
+        }
+        return removed;
+    }
+
+    private static void touch(Presence presence, long nowMillis) {
+        if (nowMillis > presence.getLastSeenMillis()) {
+            presence.setLastSeenMillis(nowMillis);
+        }
+    }
+
+    private long deadlineTick(long lastSeenMillis) {
+        return (lastSeenMillis + timeoutMillis + tickMillis - 1) / tickMillis;
+    }
+
+    private Shard shard(long userId) {
+        if (userId == 0) {
+            throw new IllegalArgumentException("User ID must not be 0");
+        }
+        return shards[(int) mix(userId) & shardMask];
+    }
+
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private final class Shard {
+        // Linear probing table; 0 marks an empty slot, so user ID 0 is not supported
+        private long[] keys = new long[INITIAL_TABLE_SIZE];
+        private Presence[] values = new Presence[INITIAL_TABLE_SIZE];
+        private int size;
+
+        private final Presence[][] wheel = new Presence[LEVELS][SLOTS];
+        private final int[] scheduled = new int[LEVELS];
+        private long currentTick;
+
+        private Shard(long currentTick) {
+            this.currentTick = currentTick;
+        }
+
+        private int home(long key) {
+            // High bits; the low bits chose the shard
+            return (int) (mix(key) >>> 32) & (keys.length - 1);
+        }
+
+        private Presence get(long key) {
+            int mask = keys.length - 1;
+            for (int i = home(key); keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        private void put(long key, Presence value) {
+            if ((size + 1) * 4L > keys.length * 3L) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int i = home(key);
+            while (keys[i] != 0) {
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            size++;
+        }
+
+        private Presence remove(long key) {
+            int mask = keys.length - 1;
+            int i = home(key);
+            while (keys[i] != key) {
+                if (keys[i] == 0) {
+                    return null;
+                }
+                i = (i + 1) & mask;
+            }
+            Presence removed = values[i];
+            // Shift later entries of the probe run back over the gap
+            int gap = i;
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                if (((j - home(keys[j])) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = 0;
+            values[gap] = null;
+            size--;
+            return removed;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Presence[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Presence[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        /**
+         * Schedule outside {@link #advance}, where the current tick's slot has already been drained
+         */
+        private void schedule(Presence presence, long deadlineTick) {
+            presence.deadlineTick = Math.max(deadlineTick, currentTick + 1);
+            place(presence);
+        }
+
+        /**
+         * Link an entry into the lowest level whose span around the current tick holds its deadline
+         */
+        private void place(Presence presence) {
+            long deadline = Math.max(presence.deadlineTick, currentTick);
+            int level = 0;
+            long slotIndex = deadline;
+            while (slotIndex - (currentTick >>> (SLOT_BITS * level)) >= SLOTS && level < LEVELS - 1) {
+                level++;
+                slotIndex = deadline >>> (SLOT_BITS * level);
+            }
+            if (slotIndex - (currentTick >>> (SLOT_BITS * level)) >= SLOTS) {
+                // Beyond the top level: park in its furthest slot and place again on the way down
+                slotIndex = (currentTick >>> (SLOT_BITS * level)) + SLOTS - 1;
+            }
+            int slot = (int) (slotIndex & (SLOTS - 1));
+            presence.level = level;
+            presence.slot = slot;
+            scheduled[level]++;
+            presence.prev = null;
+            presence.next = wheel[level][slot];
+            if (presence.next != null) {
+                presence.next.prev = presence;
+            }
+            wheel[level][slot] = presence;
+        }
+
+        private void unschedule(Presence presence) {
+            if (presence.level < 0) {
+                return;
+            }
+            if (presence.prev != null) {
+                presence.prev.next = presence.next;
+            } else {
+                wheel[presence.level][presence.slot] = presence.next;
+            }
+            if (presence.next != null) {
+                presence.next.prev = presence.prev;
+            }
+            scheduled[presence.level]--;
+            presence.prev = null;
+            presence.next = null;
+            presence.level = -1;
+        }
+
+        /**
+         * Unlink a whole slot; returns its first entry, the rest still chained by {@code next}
+         */
+        private Presence detach(int level, int slot) {
+            Presence head = wheel[level][slot];
+            wheel[level][slot] = null;
+            for (Presence presence = head; presence != null; presence = presence.next) {
+                presence.level = -1;
+                scheduled[level]--;
+            }
+            return head;
+        }
+
+        /**
+         * Move the current tick to just before the next tick that has work, at most {@code nowTick}.
+         * Lower levels being empty, nothing happens until the lowest occupied level enters its next span.
+         */
+        private void skipIdleTicks(long nowTick) {
+            int level = 0;
+            while (level < LEVELS && scheduled[level] == 0) {
+                level++;
+            }
+            if (level == 0) {
+                return;
+            }
+            long target = level == LEVELS
+                    ? nowTick
+                    : Math.min(nowTick, (((currentTick >>> (SLOT_BITS * level)) + 1) << (SLOT_BITS * level)) - 1);
+            currentTick = Math.max(currentTick, target);
+        }
+
+        private void advance(long nowTick, long nowMillis, List<Presence> expired) {
+            while (currentTick < nowTick) {
+                skipIdleTicks(nowTick);
+                if (currentTick == nowTick) {
+                    break;
+                }
+                currentTick++;
+                // Entering a new span of a higher level: move its entries down
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                        Presence presence = detach(level, (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1)));
+                        while (presence != null) {
+                            Presence next = presence.next;
+                            place(presence);
+                            presence = next;
+                        }
+                    }
+                }
+                Presence presence = detach(0, (int) (currentTick & (SLOTS - 1)));
+                while (presence != null) {
+                    Presence next = presence.next;
+                    presence.prev = null;
+                    presence.next = null;
+                    long deadline = deadlineTick(presence.getLastSeenMillis());
+                    if (deadline > currentTick) {
+                        // Seen since it was scheduled
+                        schedule(presence, deadline);
+                    } else if (presence.getLastSeenMillis() + timeoutMillis <= nowMillis) {
+                        remove(presence.getUserId());
+                        expired.add(presence);
+                    } else {
+                        schedule(presence, currentTick + 1);
+                    }
+                    presence = next;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * {@link ClusterMessageBus} on the Redis already used for caching. A user's registrations are a
+ * sorted set of node IDs scored by expiry time, so a node that dies without unregistering drops
+ * out once its last heartbeat lapses. Subscriptions share one listener thread, which keeps
+ * messages on a channel in publish order.
+ */
+@Component
+@ConditionalOnProperty(name = "app.websocket.cluster.enabled", havingValue = "true")
+public class RedisClusterMessageBus implements ClusterMessageBus {
+
+    private static final String USER_KEY_PREFIX = "datingpulse:ws:user:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ExecutorService listenerExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ws-cluster-listener");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+
+    public RedisClusterMessageBus(StringRedisTemplate redisTemplate, RedisConnectionFactory connectionFactory) {
+        this.redisTemplate = redisTemplate;
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.setTaskExecutor(listenerExecutor);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        redisTemplate.convertAndSend(channel, message);
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listenerContainer.addMessageListener(
+                (message, pattern) -> listener.accept(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(channel));
+    }
+
+    @Override
+    public void register(String user, String node, long ttlMillis) {
+        String key = USER_KEY_PREFIX + user;
+        long now = System.currentTimeMillis();
+        redisTemplate.opsForZSet().removeRangeByScore(key, Double.NEGATIVE_INFINITY, now);
+        redisTemplate.opsForZSet().add(key, node, now + ttlMillis);
+        redisTemplate.expire(key, Duration.ofMillis(ttlMillis));
+    }
+
+    @Override
+    public void unregister(String user, String node) {
+        redisTemplate.opsForZSet().remove(USER_KEY_PREFIX + user, node);
+    }
+
+    @Override
+    public Set<String> nodesOf(String user) {
+        Set<String> nodes = redisTemplate.opsForZSet()
+                .rangeByScore(USER_KEY_PREFIX + user, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        return nodes != null ? nodes : Set.of();
+    }
+
+    @PreDestroy
+    public void close() throws Exception {
+        listenerContainer.destroy();
+        listenerExecutor.shutdown();
+    }
+}
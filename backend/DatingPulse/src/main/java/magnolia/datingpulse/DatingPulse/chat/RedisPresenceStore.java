@@ -0,0 +1,79 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Presence shared by all nodes: a sorted set of user IDs scored by last-seen time, and their
+ * usernames. A user counts as online while their score is within the presence timeout; entries
+ * past it are pruned by whichever node gets there first.
+ */
+@Component
+@ConditionalOnProperty(name = "app.chat.presence.redis.enabled", havingValue = "true")
+public class RedisPresenceStore {
+
+    private static final String LAST_SEEN_KEY = "datingpulse:presence:last-seen";
+    private static final String USERNAMES_KEY = "datingpulse:presence:usernames";
+
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisPresenceStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public void publish(long userId, String username, long lastSeenMillis) {
+        String member = Long.toString(userId);
+        redisTemplate.opsForZSet().add(LAST_SEEN_KEY, member, lastSeenMillis);
+        if (username != null) {
+            redisTemplate.opsForHash().put(USERNAMES_KEY, member, username);
+        }
+    }
+
+    public void remove(long userId) {
+        String member = Long.toString(userId);
+        redisTemplate.opsForZSet().remove(LAST_SEEN_KEY, member);
+        redisTemplate.opsForHash().delete(USERNAMES_KEY, member);
+    }
+
+    /**
+     * Last-seen time in epoch milliseconds, or null if the user is not registered
+     */
+    public Long lastSeen(long userId) {
+        Double score = redisTemplate.opsForZSet().score(LAST_SEEN_KEY, Long.toString(userId));
+        return score != null ? score.longValue() : null;
+    }
+
+    public String username(long userId) {
+        Object username = redisTemplate.opsForHash().get(USERNAMES_KEY, Long.toString(userId));
+        return username != null ? username.toString() : null;
+    }
+
+    public Set<Long> seenSince(long cutoffMillis) {
+        Set<String> members = redisTemplate.opsForZSet().rangeByScore(LAST_SEEN_KEY, cutoffMillis, Double.POSITIVE_INFINITY);
+        Set<Long> userIds = new HashSet<>();
+        if (members != null) {
+            members.forEach(member -> userIds.add(Long.parseLong(member)));
+        }
+        return userIds;
+    }
+
+    public long countSeenSince(long cutoffMillis) {
+        Long count = redisTemplate.opsForZSet().count(LAST_SEEN_KEY, cutoffMillis, Double.POSITIVE_INFINITY);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Drop users not seen since {@code cutoffMillis}
+     */
+    public void prune(long cutoffMillis) {
+        Set<String> stale = redisTemplate.opsForZSet().rangeByScore(LAST_SEEN_KEY, Double.NEGATIVE_INFINITY, cutoffMillis - 1);
+        if (stale != null && !stale.isEmpty()) {
+            redisTemplate.opsForZSet().removeRangeByScore(LAST_SEEN_KEY, Double.NEGATIVE_INFINITY, cutoffMillis - 1);
+            redisTemplate.opsForHash().delete(USERNAMES_KEY, stale.toArray());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A STOMP message carried between nodes by {@link ClusteredUserDestinationRelay}
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelayedMessage {
+    // Node that published the message, so it ignores its own broadcasts
+    private String origin;
+    private String destination;
+    private String contentType;
+    private byte[] payload;
+}
@@ -0,0 +1,84 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debounces typing indicators per sender and conversation. Clients send one per keystroke; only
+ * one is forwarded per {@code min-interval-ms}, except that a stop after a forwarded start always
+ * passes so the indicator clears promptly. At most two indicators per interval are forwarded for
+ * a sender in a conversation.
+ */
+@Component
+public class TypingIndicatorThrottle {
+
+    // Entries idle this long are forgotten
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+
+    private final long intervalNanos;
+    private final ConcurrentHashMap<Key, Forwarded> lastForwarded = new ConcurrentHashMap<>();
+
+    public TypingIndicatorThrottle(@Value("${app.chat.typing.min-interval-ms:2000}") long intervalMillis) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    /**
+     * Whether to forward this indicator; if so it is recorded as the last forwarded one
+     */
+    public boolean tryForward(long conversationId, long senderId, boolean typing) {
+        long now = System.nanoTime();
+        boolean[] forward = new boolean[1];
+        lastForwarded.compute(new Key(conversationId, senderId), (key, last) -> {
+            if (last == null || (last.typing && !typing) || now - last.atNanos >= intervalNanos) {
+                forward[0] = true;
+                return new Forwarded(now, typing);
+            }
+            return last;
+        });
+        return forward[0];
+    }
+
+    @Scheduled(fixedDelay = PURGE_INTERVAL_MILLIS)
+    public void purge() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(PURGE_INTERVAL_MILLIS);
+        lastForwarded.values().removeIf(forwarded -> forwarded.atNanos - cutoff < 0);
+    }
+
+    int size() {
+        return lastForwarded.size();
+    }
+
+    private static final class Key {
+        private final long conversationId;
+        private final long senderId;
+
+        private Key(long conversationId, long senderId) {
+            this.conversationId = conversationId;
+            this.senderId = senderId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.conversationId == conversationId && key.senderId == senderId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(conversationId) * 31 + Long.hashCode(senderId);
+        }
+    }
+
+    private static final class Forwarded {
+        private final long atNanos;
+        private final boolean typing;
+
+        private Forwarded(long atNanos, boolean typing) {
+            this.atNanos = atNanos;
+            this.typing = typing;
+        }
+    }
+}
@@ -1,66 +1,131 @@
 package magnolia.datingpulse.DatingPulse.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Redis Cache Configuration
- * Configures caching for frequently accessed data to improve performance
+ * Configures caching for frequently accessed data to improve performance.
+ * Each Redis cache has a small local tier in front of it, see {@link TieredCacheManager}.
  */
 @Configuration
 @EnableCaching
 @ConditionalOnProperty(name = "app.cache.enabled", havingValue = "true", matchIfMissing = true)
 public class CacheConfig {
 
+    private static final String INVALIDATION_CHANNEL = "datingpulse:cache:invalidate";
+
+    @Value("${app.cache.local.default-max-entries:1000}")
+    private long defaultLocalMaxEntries;
+
+    @Value("${app.cache.local.ttl-seconds:60}")
+    private long localTtlSeconds;
+
     /**
-     * Configure Redis Cache Manager with different TTL for different cache types
+     * Configure Redis Cache Manager with different TTL for different cache types,
+     * behind local tiers sized per cache
      */
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public TieredCacheManager cacheManager(RedisConnectionFactory connectionFactory, StringRedisTemplate redisTemplate,
+                                           RedisMessageListenerContainer cacheInvalidationListener, Environment environment,
+                                           MeterRegistry meterRegistry) {
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(30)) // Default TTL: 30 minutes
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new MeasuredRedisSerializer(new GenericJackson2JsonRedisSerializer(), "other", meterRegistry)))
                 .disableCachingNullValues();
 
         // Configure specific TTL for different cache types
         Map<String, RedisCacheConfiguration> cacheConfigurations = new HashMap<>();
+        // Local tier sizes, overridable with app.cache.local.max-entries.<cache>
+        Map<String, Long> localMaxEntries = new HashMap<>();
         
         // User data cache - 1 hour (frequently accessed, relatively stable)
-        cacheConfigurations.put("users", defaultConfig.entryTtl(Duration.ofHours(1)));
-        cacheConfigurations.put("userProfiles", defaultConfig.entryTtl(Duration.ofHours(1)));
+        cacheConfigurations.put("users", measured(defaultConfig, "users", meterRegistry).entryTtl(Duration.ofHours(1)));
+        cacheConfigurations.put("userProfiles", measured(defaultConfig, "userProfiles", meterRegistry).entryTtl(Duration.ofHours(1)));
+        localMaxEntries.put("users", localMaxEntries(environment, "users", 10_000));
+        localMaxEntries.put("userProfiles", localMaxEntries(environment, "userProfiles", 5_000));
         
         // Session data cache - 30 minutes (security sensitive)
-        cacheConfigurations.put("sessions", defaultConfig.entryTtl(Duration.ofMinutes(30)));
+        cacheConfigurations.put("sessions", measured(defaultConfig, "sessions", meterRegistry).entryTtl(Duration.ofMinutes(30)));
+        localMaxEntries.put("sessions", localMaxEntries(environment, "sessions", 10_000));
         
         // Preferences cache - 2 hours (less frequently changed)
-        cacheConfigurations.put("preferences", defaultConfig.entryTtl(Duration.ofHours(2)));
+        cacheConfigurations.put("preferences", measured(defaultConfig, "preferences", meterRegistry).entryTtl(Duration.ofHours(2)));
+        localMaxEntries.put("preferences", localMaxEntries(environment, "preferences", 5_000));
         
         // Photo metadata cache - 4 hours (rarely changes)
-        cacheConfigurations.put("photos", defaultConfig.entryTtl(Duration.ofHours(4)));
+        cacheConfigurations.put("photos", measured(defaultConfig, "photos", meterRegistry).entryTtl(Duration.ofHours(4)));
+        localMaxEntries.put("photos", localMaxEntries(environment, "photos", 5_000));
         
         // Report data cache - 15 minutes (frequently updated)
-        cacheConfigurations.put("reports", defaultConfig.entryTtl(Duration.ofMinutes(15)));
+        cacheConfigurations.put("reports", measured(defaultConfig, "reports", meterRegistry).entryTtl(Duration.ofMinutes(15)));
+        localMaxEntries.put("reports", localMaxEntries(environment, "reports", 1_000));
         
         // Admin data cache - 1 hour
-        cacheConfigurations.put("admins", defaultConfig.entryTtl(Duration.ofHours(1)));
+        cacheConfigurations.put("admins", measured(defaultConfig, "admins", meterRegistry).entryTtl(Duration.ofHours(1)));
+        localMaxEntries.put("admins", localMaxEntries(environment, "admins", 1_000));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
+                .enableStatistics()
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        TieredCacheManager cacheManager = new TieredCacheManager(redisCacheManager, localMaxEntries,
+                defaultLocalMaxEntries, Duration.ofSeconds(localTtlSeconds),
+                message -> redisTemplate.convertAndSend(INVALIDATION_CHANNEL, message), meterRegistry);
+        cacheInvalidationListener.addMessageListener(
+                (message, pattern) -> cacheManager.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(INVALIDATION_CHANNEL));
+        // Create the configured caches now so their meters exist before first use
+        cacheConfigurations.keySet().forEach(cacheManager::getCache);
+        return cacheManager;
+    }
+
+    /**
+     * Receives the local tier invalidations published by every node
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * Record the serialized value sizes of one cache
+     */
+    private static RedisCacheConfiguration measured(RedisCacheConfiguration defaultConfig, String cacheName,
+                                                    MeterRegistry meterRegistry) {
+        return defaultConfig.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                new MeasuredRedisSerializer(new GenericJackson2JsonRedisSerializer(), cacheName, meterRegistry)));
+    }
+
+    private static long localMaxEntries(Environment environment, String cacheName, long defaultMaxEntries) {
+        return environment.getProperty("app.cache.local.max-entries." + cacheName, Long.class, defaultMaxEntries);
     }
 }
\ No newline at end of file
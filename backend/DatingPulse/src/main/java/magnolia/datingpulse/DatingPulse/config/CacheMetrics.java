@@ -0,0 +1,108 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.search.Search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Names of the cache meters and a per-cache summary of them. The local tier is bound with
+ * Micrometer's Caffeine binder and the Redis tier with Spring Boot's Redis binder, both as the
+ * standard {@code cache.*} meters tagged with {@code cache} and {@code tier}; the timers and value
+ * sizes below are added by {@link TieredCache} and {@link MeasuredRedisSerializer}.
+ */
+public final class CacheMetrics {
+
+    public static final String TIER_TAG = "tier";
+    public static final String LOCAL_TIER = "local";
+    public static final String REMOTE_TIER = "remote";
+
+    // Time of a Redis round trip, by operation
+    public static final String REMOTE_LATENCY = "datingpulse.cache.remote.latency";
+    // Time to load a value missing from both tiers, by loader or from miss to put
+    public static final String LOAD_LATENCY = "datingpulse.cache.load";
+    public static final String VALUE_SIZE = "datingpulse.cache.value.size";
+
+    private CacheMetrics() {
+    }
+
+    /**
+     * Hits, misses, puts, evictions, latencies and value sizes of one cache, as recorded so far
+     */
+    public static Map<String, Object> snapshot(MeterRegistry meterRegistry, String cacheName) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", cacheName);
+        stats.put(LOCAL_TIER, tierStats(meterRegistry, cacheName, LOCAL_TIER));
+        stats.put(REMOTE_TIER, tierStats(meterRegistry, cacheName, REMOTE_TIER));
+
+        Map<String, Object> latency = new LinkedHashMap<>();
+        meterRegistry.find(REMOTE_LATENCY).tag("cache", cacheName).timers()
+                .forEach(timer -> latency.put("remote." + timer.getId().getTag("operation"), timerStats(timer)));
+        Timer load = meterRegistry.find(LOAD_LATENCY).tag("cache", cacheName).timer();
+        if (load != null) {
+            latency.put("load", timerStats(load));
+        }
+        stats.put("latency", latency);
+
+        Map<String, Object> sizes = new LinkedHashMap<>();
+        meterRegistry.find(VALUE_SIZE).tag("cache", cacheName).summaries()
+                .forEach(summary -> sizes.put(summary.getId().getTag("operation"), sizeStats(summary)));
+        stats.put("valueSizeBytes", sizes);
+        return stats;
+    }
+
+    private static Map<String, Object> tierStats(MeterRegistry meterRegistry, String cacheName, String tier) {
+        double hits = count(meterRegistry, "cache.gets", cacheName, tier, "result", "hit");
+        double misses = count(meterRegistry, "cache.gets", cacheName, tier, "result", "miss");
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", (long) hits);
+        stats.put("misses", (long) misses);
+        stats.put("hitRatio", hits + misses > 0 ? hits / (hits + misses) : 0.0);
+        stats.put("puts", (long) count(meterRegistry, "cache.puts", cacheName, tier, null, null));
+        // Caffeine reports evictions, Redis removals
+        stats.put("evictions", (long) (count(meterRegistry, "cache.evictions", cacheName, tier, null, null)
+                + count(meterRegistry, "cache.removals", cacheName, tier, null, null)));
+        Gauge size = search(meterRegistry, "cache.size", cacheName, tier).gauge();
+        if (size != null) {
+            stats.put("size", (long) size.value());
+        }
+        return stats;
+    }
+
+    private static double count(MeterRegistry meterRegistry, String name, String cacheName, String tier,
+                                 String tagKey, String tagValue) {
+        Search search = search(meterRegistry, name, cacheName, tier);
+        if (tagKey != null) {
+            search = search.tag(tagKey, tagValue);
+        }
+        return search.functionCounters().stream().mapToDouble(FunctionCounter::count).sum()
+                + search.counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private static Search search(MeterRegistry meterRegistry, String name, String cacheName, String tier) {
+        return meterRegistry.find(name).tag("cache", cacheName).tag(TIER_TAG, tier);
+    }
+
+    private static Map<String, Object> timerStats(Timer timer) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", timer.count());
+        stats.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+        stats.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+        return stats;
+    }
+
+    private static Map<String, Object> sizeStats(DistributionSummary summary) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", summary.count());
+        stats.put("mean", summary.mean());
+        stats.put("max", summary.max());
+        return stats;
+    }
+}
@@ -0,0 +1,173 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional CBOR encoding of STOMP payloads. A client connected to a native WebSocket endpoint
+ * opts in with the CONNECT header {@code accept-content-type: application/cbor}; the JSON
+ * payloads sent to its session are then transcoded to CBOR on the way out, streaming token by
+ * token without building objects. Clients may send CBOR payloads with
+ * {@code content-type: application/cbor} whether or not they opted in.
+ *
+ * <p>Spring writes a STOMP frame as a binary WebSocket message only for
+ * {@code application/octet-stream} content, so outbound CBOR frames are labelled
+ * {@code application/octet-stream;encoding=cbor}. SockJS cannot carry binary frames, which is why
+ * the opt-in is honoured only on sessions marked by {@link #nativeSessionMarker()}.
+ */
+@Component
+@Slf4j
+public class CborWireFormat {
+
+    public static final MimeType CBOR = new MimeType("application", "cbor");
+    public static final MimeType CBOR_FRAME = new MimeType("application", "octet-stream", Map.of("encoding", "cbor"));
+    // CONNECT header a client sets to receive CBOR payloads
+    public static final String ACCEPT_HEADER = "accept-content-type";
+    // Session attribute set during the handshake of endpoints without SockJS
+    private static final String NATIVE_SESSION = "nativeWebSocket";
+
+    private final JsonFactory jsonFactory;
+    private final ObjectMapper cborMapper;
+    private final Set<String> cborSessions = ConcurrentHashMap.newKeySet();
+
+    public CborWireFormat(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.cborMapper = objectMapper.copyWith(new CBORFactory());
+    }
+
+    /**
+     * Reads {@code application/cbor} payloads into {@code @Payload} parameters. Strict, so
+     * payloads without that content type still go to the JSON converter.
+     */
+    public MessageConverter messageConverter() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter(CBOR);
+        converter.setObjectMapper(cborMapper);
+        converter.setStrictContentTypeMatch(true);
+        return converter;
+    }
+
+    public HandshakeInterceptor nativeSessionMarker() {
+        return new HandshakeInterceptor() {
+            @Override
+            public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                           WebSocketHandler wsHandler, Map<String, Object> attributes) {
+                attributes.put(NATIVE_SESSION, Boolean.TRUE);
+                return true;
+            }
+
+            @Override
+            public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                       WebSocketHandler wsHandler, Exception exception) {
+            }
+        };
+    }
+
+    /**
+     * Records the sessions that asked for CBOR on CONNECT
+     */
+    public ChannelInterceptor inboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+                if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
+                    String accepted = accessor.getFirstNativeHeader(ACCEPT_HEADER);
+                    Map<String, Object> attributes = accessor.getSessionAttributes();
+                    if (accepted != null && accepted.contains(CBOR.toString())
+                            && attributes != null && Boolean.TRUE.equals(attributes.get(NATIVE_SESSION))) {
+                        cborSessions.add(accessor.getSessionId());
+                    }
+                }
+                return message;
+            }
+        };
+    }
+
+    /**
+     * Transcodes JSON payloads bound for CBOR sessions
+     */
+    public ChannelInterceptor outboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                MessageHeaders headers = message.getHeaders();
+                if (cborSessions.isEmpty()
+                        || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                        || !cborSessions.contains(SimpMessageHeaderAccessor.getSessionId(headers))
+                        || !(message.getPayload() instanceof byte[] json)
+                        || !isJson(headers.get(MessageHeaders.CONTENT_TYPE))) {
+                    return message;
+                }
+                try {
+                    SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+                    accessor.setContentType(CBOR_FRAME);
+                    return MessageBuilder.createMessage(jsonToCbor(json), accessor.getMessageHeaders());
+                } catch (IOException e) {
+                    log.warn("Sending JSON to CBOR session {}: {}", SimpMessageHeaderAccessor.getSessionId(headers),
+                            e.getMessage());
+                    return message;
+                }
+            }
+        };
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        cborSessions.remove(event.getSessionId());
+    }
+
+    /**
+     * Re-encode a JSON document as CBOR by copying its token stream
+     */
+    public byte[] jsonToCbor(byte[] json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = cborMapper.getFactory().createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toByteArray();
+    }
+
+    public ObjectMapper getCborMapper() {
+        return cborMapper;
+    }
+
+    private static boolean isJson(Object contentType) {
+        if (contentType instanceof MimeType mimeType) {
+            return MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(mimeType);
+        }
+        return contentType instanceof String value && MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(MimeType.valueOf(value));
+    }
+}
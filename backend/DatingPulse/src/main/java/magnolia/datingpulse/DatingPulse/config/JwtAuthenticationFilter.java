@@ -1,5 +1,7 @@
 package magnolia.datingpulse.DatingPulse.config;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,6 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import magnolia.datingpulse.DatingPulse.service.CustomUserDetailsService;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -17,6 +20,12 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates requests carrying a bearer token. Tokens issued at login carry the user's ID, roles
+ * and status version, so the principal is built from the verified claims and the only per-request
+ * check is the version against {@link TokenRevocationCache}. Tokens without a user ID, issued
+ * before those claims were added, still load the user.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -24,6 +33,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationCache tokenRevocationCache;
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -32,11 +42,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
             
-            if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
-                String username = jwtUtil.extractUsername(jwt);
-                
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (StringUtils.hasText(jwt)) {
+                UserDetails userDetails = authenticate(jwtUtil.parseClaims(jwt));
+                if (userDetails != null) {
                     UsernamePasswordAuthenticationToken authentication = 
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -44,6 +52,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             }
+        } catch (JwtException ex) {
+            // Logged by JwtUtil; the request continues unauthenticated
         } catch (Exception ex) {
             log.error("Could not set user authentication in security context", ex);
         }
@@ -51,6 +61,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
     
+    /**
+     * The principal for verified claims, or null if the token was revoked
+     */
+    private UserDetails authenticate(Claims claims) {
+        Long userId = jwtUtil.extractUserId(claims);
+        if (userId == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        if (!tokenRevocationCache.isCurrent(userId, jwtUtil.extractStatusVersion(claims))) {
+            log.debug("Refusing revoked token for user {}", userId);
+            return null;
+        }
+        return User.withUsername(claims.getSubject())
+                .password("")
+                .authorities(jwtUtil.extractAuthorities(claims))
+                .build();
+    }
+    
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -1,21 +1,45 @@
 package magnolia.datingpulse.DatingPulse.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import magnolia.datingpulse.DatingPulse.entity.User;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies the application's HS256 tokens. The signing key and parser are built once;
+ * verified claims are kept by token hash until the token expires or {@code claims-cache.max-ttl-ms}
+ * passes, so a token presented again is not re-verified. Failed verifications are not cached.
+ * Returned claims are shared between callers and must not be modified.
+ */
 @Component
 @Slf4j
 public class JwtUtil {
+
+    // Signed into tokens issued at login so requests are authenticated without loading the user
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLES_CLAIM = "roles";
+    public static final String STATUS_VERSION_CLAIM = "sv";
     
     @Value("${app.jwt.secret:datingpulse-jwt-secret-key-for-development-change-in-production}")
     private String jwtSecret;
@@ -23,8 +47,42 @@ public class JwtUtil {
     @Value("${app.jwt.expiration:86400000}") // 24 hours in milliseconds
     private Long jwtExpiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @Value("${app.jwt.claims-cache.max-entries:10000}")
+    private long claimsCacheMaxEntries;
+    
+    @Value("${app.jwt.claims-cache.max-ttl-ms:600000}")
+    private long claimsCacheMaxTtlMillis;
+    
+    private SecretKey signingKey;
+    private JwtParser parser;
+    // Verified claims by SHA-256 of the token, so raw tokens are not held
+    private Cache<String, Claims> verifiedClaims;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxEntries)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String tokenHash, Claims claims, long currentTime) {
+                        return untilExpiry(claims);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return untilExpiry(claims);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
     
     public String generateToken(UserDetails userDetails) {
@@ -36,6 +94,17 @@ public class JwtUtil {
         Map<String, Object> claims = new HashMap<>();
         return createToken(claims, username);
     }
+
+    /**
+     * A token carrying the user's ID, role and status version, see {@link TokenRevocationCache}
+     */
+    public String generateToken(User user, long statusVersion) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, user.getUserID());
+        claims.put(ROLES_CLAIM, List.of("ROLE_" + user.getRole()));
+        claims.put(STATUS_VERSION_CLAIM, statusVersion);
+        return createToken(claims, user.getUsername());
+    }
     
     private String createToken(Map<String, Object> claims, String subject) {
         Date now = new Date();
@@ -46,7 +115,7 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
@@ -63,19 +132,75 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
     
+    /**
+     * Verify the token's signature and expiry and return its claims
+     *
+     * @throws JwtException if the token is malformed, forged or expired
+     */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
+    /**
+     * The user ID claim, or null for tokens issued without one
+     */
+    public Long extractUserId(Claims claims) {
+        return claims.get(USER_ID_CLAIM, Long.class);
+    }
+
+    public long extractStatusVersion(Claims claims) {
+        Long version = claims.get(STATUS_VERSION_CLAIM, Long.class);
+        return version != null ? version : 0L;
+    }
+
+    public List<GrantedAuthority> extractAuthorities(Claims claims) {
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        if (roles == null) {
+            return List.of();
+        }
+        return roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(role)))
+                .toList();
+    }
+
     private Claims extractAllClaims(String token) {
+        String tokenHash = hash(token);
+        Claims cached = verifiedClaims.getIfPresent(tokenHash);
+        if (cached != null && !isExpired(cached)) {
+            return cached;
+        }
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            verifiedClaims.put(tokenHash, claims);
+            return claims;
         } catch (JwtException e) {
             log.error("Error extracting claims from JWT token: {}", e.getMessage());
             throw e;
         }
     }
     
+    private long untilExpiry(Claims claims) {
+        long ttlMillis = claimsCacheMaxTtlMillis;
+        if (claims.getExpiration() != null) {
+            ttlMillis = Math.min(ttlMillis, claims.getExpiration().getTime() - System.currentTimeMillis());
+        }
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMillis));
+    }
+    
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
+    }
+    
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+    
     public Boolean isTokenExpired(String token) {
         try {
             return extractExpiration(token).before(new Date());
@@ -87,8 +212,8 @@ public class JwtUtil {
     
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            final Claims claims = extractAllClaims(token);
+            return (claims.getSubject().equals(userDetails.getUsername()) && !isExpired(claims));
         } catch (JwtException e) {
             log.error("JWT token validation failed: {}", e.getMessage());
             return false;
@@ -97,8 +222,7 @@ public class JwtUtil {
     
     public Boolean validateToken(String token) {
         try {
-            extractAllClaims(token);
-            return !isTokenExpired(token);
+            return !isExpired(extractAllClaims(token));
         } catch (JwtException e) {
             log.error("JWT token validation failed: {}", e.getMessage());
             return false;
@@ -0,0 +1,49 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Records the size of every value a Redis cache writes and reads
+ */
+public class MeasuredRedisSerializer implements RedisSerializer<Object> {
+
+    private final RedisSerializer<Object> delegate;
+    private final DistributionSummary writtenSizes;
+    private final DistributionSummary readSizes;
+
+    public MeasuredRedisSerializer(RedisSerializer<Object> delegate, String cacheName, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.writtenSizes = size(cacheName, "write", meterRegistry);
+        this.readSizes = size(cacheName, "read", meterRegistry);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] bytes = delegate.serialize(value);
+        if (bytes != null) {
+            writtenSizes.record(bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes != null) {
+            readSizes.record(bytes.length);
+        }
+        return delegate.deserialize(bytes);
+    }
+
+    private static DistributionSummary size(String cacheName, String operation, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder(CacheMetrics.VALUE_SIZE)
+                .description("Serialized size of values in the Redis cache tier")
+                .baseUnit("bytes")
+                .tag("cache", cacheName)
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
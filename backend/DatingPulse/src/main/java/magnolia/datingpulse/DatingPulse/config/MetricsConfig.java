@@ -1,11 +1,14 @@
 package magnolia.datingpulse.DatingPulse.config;
 
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Metrics Configuration for application monitoring
  * Sets up custom metrics for dating app specific operations
@@ -30,6 +33,8 @@ public class MetricsConfig {
         private final Timer userLoginTimer;
         private final Timer matchingTimer;
         private final Timer messageTimer;
+        private final Timer scoringTimer;
+        private final DistributionSummary scoringSpeedup;
 
         public DatingPulseMetrics(MeterRegistry meterRegistry) {
             this.meterRegistry = meterRegistry;
@@ -42,6 +47,12 @@ public class MetricsConfig {
             this.messageTimer = Timer.builder("datingpulse.message.send")
                     .description("Message sending duration")
                     .register(meterRegistry);
+            this.scoringTimer = Timer.builder("datingpulse.matching.scoring.time")
+                    .description("Wall time to score a feed's candidate pool")
+                    .register(meterRegistry);
+            this.scoringSpeedup = DistributionSummary.builder("datingpulse.matching.scoring.speedup")
+                    .description("Scoring CPU time across workers divided by wall time")
+                    .register(meterRegistry);
         }
 
         public Timer.Sample startUserLoginTimer() {
@@ -68,6 +79,14 @@ public class MetricsConfig {
             sample.stop(messageTimer);
         }
 
+        public void recordScoring(long wallNanos, long busyNanos, int candidates) {
+            scoringTimer.record(wallNanos, TimeUnit.NANOSECONDS);
+            if (wallNanos > 0) {
+                scoringSpeedup.record((double) busyNanos / wallNanos);
+            }
+            meterRegistry.counter("datingpulse.matching.scoring.candidates").increment(candidates);
+        }
+
         public void incrementUserRegistration() {
             meterRegistry.counter("datingpulse.user.registrations").increment();
         }
@@ -1,24 +1,66 @@
 package magnolia.datingpulse.DatingPulse.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
 import io.github.bucket4j.Refill;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
 
 /**
  * Rate Limiting Configuration using Bucket4j
  * Implements different rate limits for different types of operations
+ *
+ * <p>Buckets are kept on this node unless {@code app.rate-limiting.redis.enabled}, when they live
+ * in Redis and limits hold across nodes; see {@link RedisBucketStore}. Either way the local store is
+ * bounded: an entry idle until its bucket would have refilled is dropped, losing nothing, and past
+ * {@code max-buckets} the least used are dropped, which for local buckets resets their limits.
  */
 @Configuration
-@RequiredArgsConstructor
 public class RateLimitingConfig {
-    
-    // In-memory cache for rate limiting buckets
-    private final ConcurrentHashMap<String, Bucket> cache = new ConcurrentHashMap<>();
+
+    public static final String BUCKETS_METRIC = "datingpulse.ratelimit.buckets";
+
+    private final Optional<RedisBucketStore> sharedBuckets;
+    // Local buckets, or handles on the shared ones, by client and limit type
+    private final Cache<String, StoredBucket> buckets;
+
+    public RateLimitingConfig(Optional<RedisBucketStore> sharedBuckets,
+                              @Value("${app.rate-limiting.max-buckets:100000}") long maxBuckets,
+                              MeterRegistry meterRegistry) {
+        this.sharedBuckets = sharedBuckets;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfter(new Expiry<String, StoredBucket>() {
+                    @Override
+                    public long expireAfterCreate(String key, StoredBucket stored, long currentTime) {
+                        return stored.type().refillTime().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, StoredBucket stored, long currentTime, long currentDuration) {
+                        return stored.type().refillTime().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, StoredBucket stored, long currentTime, long currentDuration) {
+                        return stored.type().refillTime().toNanos();
+                    }
+                })
+                .build();
+        Gauge.builder(BUCKETS_METRIC, buckets, Cache::estimatedSize)
+                .description("Rate limit buckets held on this node")
+                .tag("store", sharedBuckets.isPresent() ? "redis" : "local")
+                .register(meterRegistry);
+    }
 
     /**
      * Rate limiting configurations for different endpoint types
@@ -58,16 +100,43 @@ public class RateLimitingConfig {
 
         public Bucket createBucket() {
             return Bucket.builder()
-                    .addLimit(Bandwidth.classic(shortTermLimit, Refill.intervally(shortTermLimit, shortTermDuration)))
-                    .addLimit(Bandwidth.classic(longTermLimit, Refill.intervally(longTermLimit, longTermDuration)))
+                    .addLimit(shortTermLimit())
+                    .addLimit(longTermLimit())
+                    .build();
+        }
+
+        public BucketConfiguration createConfiguration() {
+            return BucketConfiguration.builder()
+                    .addLimit(shortTermLimit())
+                    .addLimit(longTermLimit())
                     .build();
         }
+
+        /**
+         * Time after which an untouched bucket is full again
+         */
+        public Duration refillTime() {
+            return shortTermDuration.compareTo(longTermDuration) > 0 ? shortTermDuration : longTermDuration;
+        }
+
+        private Bandwidth shortTermLimit() {
+            return Bandwidth.classic(shortTermLimit, Refill.intervally(shortTermLimit, shortTermDuration));
+        }
+
+        private Bandwidth longTermLimit() {
+            return Bandwidth.classic(longTermLimit, Refill.intervally(longTermLimit, longTermDuration));
+        }
     }
 
     /**
      * Get or create a bucket for rate limiting
      */
     public Bucket resolveBucket(String key, RateLimitType rateLimitType) {
-        return cache.computeIfAbsent(key, k -> rateLimitType.createBucket());
+        return buckets.get(key, k -> new StoredBucket(sharedBuckets
+                .map(store -> store.bucket(k, rateLimitType::createConfiguration))
+                .orElseGet(rateLimitType::createBucket), rateLimitType)).bucket();
+    }
+
+    private record StoredBucket(Bucket bucket, RateLimitType type) {
     }
 }
\ No newline at end of file
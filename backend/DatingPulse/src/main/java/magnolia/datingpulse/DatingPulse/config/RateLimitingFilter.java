@@ -47,8 +47,16 @@ public class RateLimitingFilter extends OncePerRequestFilter {
         RateLimitingConfig.RateLimitType rateLimitType = determineRateLimitType(requestUri, method);
         String bucketKey = clientIp + ":" + rateLimitType.name();
         
-        Bucket bucket = rateLimitingConfig.resolveBucket(bucketKey, rateLimitType);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        ConsumptionProbe probe;
+        try {
+            Bucket bucket = rateLimitingConfig.resolveBucket(bucketKey, rateLimitType);
+            probe = bucket.tryConsumeAndReturnRemaining(1);
+        } catch (RuntimeException e) {
+            // Shared buckets unreachable; serve the request rather than fail every request
+            log.warn("Rate limit check failed for {}: {}", bucketKey, e.getMessage());
+            filterChain.doFilter(request, response);
+            return;
+        }
         
         if (probe.isConsumed()) {
             // Add rate limit headers
@@ -0,0 +1,56 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Rate limit buckets shared by all nodes. Each bucket's state is a Redis key updated by
+ * compare-and-swap, so a limit holds across the cluster rather than per node; a key expires once
+ * its bucket would have refilled, plus a margin. Uses its own connection from the application's
+ * Lettuce client, so a standalone Redis is required.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limiting.redis.enabled", havingValue = "true")
+public class RedisBucketStore {
+
+    private static final String KEY_PREFIX = "datingpulse:ratelimit:";
+    private static final Duration EXPIRY_MARGIN = Duration.ofSeconds(10);
+
+    private final StatefulRedisConnection<byte[], byte[]> connection;
+    private final LettuceBasedProxyManager<byte[]> proxyManager;
+
+    public RedisBucketStore(LettuceConnectionFactory connectionFactory) {
+        if (!(connectionFactory.getRequiredNativeClient() instanceof RedisClient redisClient)) {
+            throw new IllegalStateException("Distributed rate limiting requires a standalone Redis connection");
+        }
+        this.connection = redisClient.connect(ByteArrayCodec.INSTANCE);
+        this.proxyManager = LettuceBasedProxyManager.builderFor(connection)
+                .withExpirationStrategy(ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(EXPIRY_MARGIN))
+                .build();
+    }
+
+    /**
+     * A handle on the shared bucket; the configuration is only used if the bucket does not exist yet
+     */
+    public Bucket bucket(String key, Supplier<BucketConfiguration> configuration) {
+        return proxyManager.builder().build((KEY_PREFIX + key).getBytes(StandardCharsets.UTF_8), configuration);
+    }
+
+    @PreDestroy
+    void close() {
+        connection.close();
+    }
+}
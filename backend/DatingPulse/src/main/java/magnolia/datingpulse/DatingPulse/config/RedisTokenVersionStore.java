@@ -0,0 +1,41 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Status versions shared by all nodes, one counter per user. A counter outlives the last token it
+ * can refuse by being renewed for a token lifetime on every bump; once it expires every token
+ * issued before it has expired too.
+ */
+@Component
+@ConditionalOnProperty(name = "app.jwt.revocation.redis.enabled", havingValue = "true")
+public class RedisTokenVersionStore {
+
+    private static final String KEY_PREFIX = "datingpulse:auth:status-version:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration tokenLifetime;
+
+    public RedisTokenVersionStore(StringRedisTemplate redisTemplate,
+                                  @Value("${app.jwt.expiration:86400000}") long jwtExpirationMillis) {
+        this.redisTemplate = redisTemplate;
+        this.tokenLifetime = Duration.ofMillis(jwtExpirationMillis);
+    }
+
+    public long version(long userId) {
+        String version = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+        return version != null ? Long.parseLong(version) : 0L;
+    }
+
+    public long increment(long userId) {
+        String key = KEY_PREFIX + userId;
+        Long version = redisTemplate.opsForValue().increment(key);
+        redisTemplate.expire(key, tokenLifetime);
+        return version != null ? version : 0L;
+    }
+}
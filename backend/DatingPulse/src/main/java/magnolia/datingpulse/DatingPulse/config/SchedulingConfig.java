@@ -0,0 +1,30 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Scheduling Configuration
+ * Enables background jobs such as the matching feed refresh
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+
+    /**
+     * Scheduler for @Scheduled jobs. Several threads, so the per-second presence and typing jobs
+     * keep running while a long job such as the feed refresh is in progress.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${app.scheduling.pool-size:4}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
+}
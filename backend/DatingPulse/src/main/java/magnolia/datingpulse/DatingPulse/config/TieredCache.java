@@ -0,0 +1,213 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * A bounded on-heap cache in front of a shared one. Reads try the local tier first and fill it
+ * from the shared tier; writes and evictions go to the shared tier, drop the local entry and are
+ * published so the other nodes drop theirs.
+ *
+ * <p>Local keys are the keys' string forms, as in Redis, so an invalidation received as text
+ * matches the entry. Each local eviction bumps a stamp for a stripe of keys; a read fills the local
+ * tier only if its stripe did not move while the shared tier was read, so a value read just before
+ * an eviction is not cached past it.
+ *
+ * <p>Shared-tier round trips and value loads are timed; see {@link CacheMetrics}. A plain
+ * {@code @Cacheable} loads between a {@link #get(Object)} that misses both tiers and the
+ * {@link #put} that stores the result, so that interval is timed per key as the load.
+ */
+public class TieredCache implements Cache {
+
+    private static final int STAMP_STRIPES = 64;
+    // Misses awaiting their put; a miss never followed by one (e.g. an unless condition) lapses
+    private static final long MAX_PENDING_LOADS = 10_000;
+    private static final Duration PENDING_LOAD_TIMEOUT = Duration.ofMinutes(1);
+
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    // Receives the key of each local change, or null for a clear
+    private final Consumer<String> invalidationPublisher;
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    private final Timer remoteGets;
+    private final Timer remoteWrites;
+    private final Timer remoteEvictions;
+    private final Timer loads;
+    // Key to System.nanoTime() of its miss in both tiers
+    private final com.github.benmanes.caffeine.cache.Cache<String, Long> pendingLoads = Caffeine.newBuilder()
+            .maximumSize(MAX_PENDING_LOADS)
+            .expireAfterWrite(PENDING_LOAD_TIMEOUT)
+            .build();
+
+    public TieredCache(Cache remote, com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+                       Consumer<String> invalidationPublisher, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.local = local;
+        this.invalidationPublisher = invalidationPublisher;
+        this.remoteGets = remoteLatency("get", meterRegistry);
+        this.remoteWrites = remoteLatency("put", meterRegistry);
+        this.remoteEvictions = remoteLatency("evict", meterRegistry);
+        this.loads = Timer.builder(CacheMetrics.LOAD_LATENCY)
+                .description("Time to load a value missing from both cache tiers")
+                .tag("cache", remote.getName())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    public com.github.benmanes.caffeine.cache.Cache<String, Object> getLocalCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            return new SimpleValueWrapper(cached);
+        }
+        long stamp = stamp(localKey);
+        ValueWrapper wrapper = remoteGets.record(() -> remote.get(key));
+        if (wrapper != null) {
+            fill(localKey, stamp, wrapper.get());
+        } else {
+            pendingLoads.put(localKey, System.nanoTime());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            return (T) cached;
+        }
+        long stamp = stamp(localKey);
+        T value = remoteGets.record(() -> remote.get(key, () -> loads.recordCallable(valueLoader)));
+        fill(localKey, stamp, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = localKey(key);
+        Long missedAt = pendingLoads.asMap().remove(localKey);
+        if (missedAt != null) {
+            loads.record(System.nanoTime() - missedAt, TimeUnit.NANOSECONDS);
+        }
+        remoteWrites.record(() -> remote.put(key, value));
+        changed(localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remoteWrites.record(() -> remote.putIfAbsent(key, value));
+        if (existing == null) {
+            changed(localKey(key));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteEvictions.record(() -> remote.evict(key));
+        changed(localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = Boolean.TRUE.equals(remoteEvictions.record(() -> remote.evictIfPresent(key)));
+        changed(localKey(key));
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        clearLocal();
+        invalidationPublisher.accept(null);
+    }
+
+    /**
+     * Drop a local entry changed on another node
+     */
+    public void invalidateLocal(String localKey) {
+        stamps.incrementAndGet(stripe(localKey));
+        local.invalidate(localKey);
+    }
+
+    public void clearLocal() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            stamps.incrementAndGet(i);
+        }
+        local.invalidateAll();
+    }
+
+    private Timer remoteLatency(String operation, MeterRegistry meterRegistry) {
+        return Timer.builder(CacheMetrics.REMOTE_LATENCY)
+                .description("Round trip to the shared cache tier")
+                .tag("cache", remote.getName())
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private void changed(String localKey) {
+        invalidateLocal(localKey);
+        invalidationPublisher.accept(localKey);
+    }
+
+    private void fill(String localKey, long stamp, Object value) {
+        if (value == null) {
+            return;
+        }
+        local.put(localKey, value);
+        // An eviction between the read and the put may have missed this entry
+        if (stamp(localKey) != stamp) {
+            local.asMap().remove(localKey, value);
+        }
+    }
+
+    private long stamp(String localKey) {
+        return stamps.get(stripe(localKey));
+    }
+
+    private static int stripe(String localKey) {
+        return localKey.hashCode() & (STAMP_STRIPES - 1);
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,111 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Wraps every cache of a shared {@link CacheManager} in a {@link TieredCache} with a local
+ * Caffeine tier, sized per cache. Local changes are announced as text messages
+ * {@code origin \t cache [\t key]} (no key for a clear) through {@code publisher}; the same
+ * messages from other nodes are applied by {@link #onInvalidation(String)}.
+ *
+ * <p>Both tiers of each cache are registered with Micrometer when the cache is created; Redis
+ * caches report only if the RedisCacheManager was built with statistics enabled.
+ */
+@Slf4j
+public class TieredCacheManager implements CacheManager {
+
+    private final CacheManager remote;
+    private final Map<String, Long> localMaxEntries;
+    private final long defaultLocalMaxEntries;
+    private final Duration localTtl;
+    private final Consumer<String> publisher;
+    private final MeterRegistry meterRegistry;
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<String, TieredCache> caches = new ConcurrentHashMap<>();
+
+    public TieredCacheManager(CacheManager remote, Map<String, Long> localMaxEntries, long defaultLocalMaxEntries,
+                              Duration localTtl, Consumer<String> publisher, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.localMaxEntries = Map.copyOf(localMaxEntries);
+        this.defaultLocalMaxEntries = defaultLocalMaxEntries;
+        this.localTtl = localTtl;
+        this.publisher = publisher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TieredCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache shared = remote.getCache(name);
+        if (shared == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> create(cacheName, shared));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    /**
+     * Apply an invalidation published by any node; this node's own are skipped
+     */
+    public void onInvalidation(String message) {
+        String[] parts = message.split("\t", 3);
+        if (parts.length < 2 || origin.equals(parts[0])) {
+            return;
+        }
+        TieredCache cache = caches.get(parts[1]);
+        if (cache == null) {
+            return;
+        }
+        if (parts.length == 2) {
+            cache.clearLocal();
+        } else {
+            cache.invalidateLocal(parts[2]);
+        }
+    }
+
+    private TieredCache create(String cacheName, Cache shared) {
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(localMaxEntries.getOrDefault(cacheName, defaultLocalMaxEntries))
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, cacheName,
+                Tags.of(CacheMetrics.TIER_TAG, CacheMetrics.LOCAL_TIER));
+        if (shared instanceof RedisCache redisCache) {
+            new RedisCacheMetrics(redisCache, Tags.of(CacheMetrics.TIER_TAG, CacheMetrics.REMOTE_TIER))
+                    .bindTo(meterRegistry);
+        }
+        return new TieredCache(shared, local, key -> publish(cacheName, key), meterRegistry);
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            publisher.accept(key == null ? origin + "\t" + cacheName : origin + "\t" + cacheName + "\t" + key);
+        } catch (Exception e) {
+            // Other nodes keep the stale entry until their local TTL passes
+            log.warn("Could not publish invalidation for cache {}: {}", cacheName, e.getMessage());
+        }
+    }
+}
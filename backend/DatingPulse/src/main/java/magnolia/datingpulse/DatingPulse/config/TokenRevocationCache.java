@@ -0,0 +1,82 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Per-user status versions, so a token can be refused without loading its user. Tokens carry the
+ * version current when they were issued; banning or suspending a user, or changing their role or
+ * status, bumps it and every token issued before is refused from then on.
+ *
+ * <p>Without Redis the versions live on this node only, for a token lifetime. With
+ * {@code app.jwt.revocation.redis.enabled} they are shared through {@link RedisTokenVersionStore}
+ * and read through a local copy kept for {@code local-ttl-ms}, so the other nodes refuse old tokens
+ * within that time. If Redis cannot be read, tokens are checked by signature and expiry only.
+ */
+@Component
+@Slf4j
+public class TokenRevocationCache {
+
+    private final Optional<RedisTokenVersionStore> sharedVersions;
+    private final Cache<Long, Long> versions;
+
+    public TokenRevocationCache(Optional<RedisTokenVersionStore> sharedVersions,
+                                @Value("${app.jwt.expiration:86400000}") long jwtExpirationMillis,
+                                @Value("${app.jwt.revocation.local-ttl-ms:5000}") long localTtlMillis,
+                                @Value("${app.jwt.revocation.max-entries:100000}") long maxEntries) {
+        this.sharedVersions = sharedVersions;
+        this.versions = sharedVersions.isPresent()
+                ? Caffeine.newBuilder()
+                        .expireAfterWrite(Duration.ofMillis(localTtlMillis))
+                        .maximumSize(maxEntries)
+                        .build()
+                // The only copy; bumps are rare, and dropping one before its tokens expire would revive them
+                : Caffeine.newBuilder()
+                        .expireAfterWrite(Duration.ofMillis(jwtExpirationMillis))
+                        .build();
+    }
+
+    /**
+     * The version to sign into a token issued now
+     */
+    public long currentVersion(long userId) {
+        return sharedVersions.map(store -> store.version(userId)).orElseGet(() -> localVersion(userId));
+    }
+
+    /**
+     * Whether a token carrying {@code tokenVersion} was issued after the user's last bump
+     */
+    public boolean isCurrent(long userId, long tokenVersion) {
+        if (sharedVersions.isEmpty()) {
+            return tokenVersion >= localVersion(userId);
+        }
+        try {
+            return tokenVersion >= versions.get(userId, sharedVersions.get()::version);
+        } catch (RuntimeException e) {
+            log.warn("Could not read status version for user {}: {}", userId, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * Refuse every token issued to the user so far
+     */
+    public void revoke(long userId) {
+        if (sharedVersions.isPresent()) {
+            versions.put(userId, sharedVersions.get().increment(userId));
+        } else {
+            versions.asMap().merge(userId, 1L, Long::sum);
+        }
+    }
+
+    private long localVersion(long userId) {
+        Long version = versions.getIfPresent(userId);
+        return version != null ? version : 0L;
+    }
+}
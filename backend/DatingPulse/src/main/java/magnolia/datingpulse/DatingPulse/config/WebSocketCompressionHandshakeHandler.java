@@ -0,0 +1,36 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.List;
+
+/**
+ * Negotiates permessage-deflate per session: a session compresses its frames only if its client
+ * offered the extension and compression is enabled. Disabling it trades bandwidth for the CPU
+ * and per-session deflate buffers.
+ */
+public class WebSocketCompressionHandshakeHandler extends DefaultHandshakeHandler {
+
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final boolean deflateEnabled;
+
+    public WebSocketCompressionHandshakeHandler(boolean deflateEnabled) {
+        this.deflateEnabled = deflateEnabled;
+    }
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                 List<WebSocketExtension> requestedExtensions,
+                                                                 List<WebSocketExtension> supportedExtensions) {
+        List<WebSocketExtension> accepted = super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+        if (deflateEnabled) {
+            return accepted;
+        }
+        return accepted.stream()
+                .filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()))
+                .toList();
+    }
+}
@@ -1,10 +1,18 @@
 package magnolia.datingpulse.DatingPulse.config;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import magnolia.datingpulse.DatingPulse.config.JwtUtil;
+import magnolia.datingpulse.DatingPulse.service.UserStatusService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.messaging.simp.stomp.StompCommand;
@@ -15,10 +23,14 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * WebSocket configuration for real-time chat system.
  * Enables STOMP messaging over WebSocket with JWT authentication.
@@ -30,12 +42,39 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final CborWireFormat cborWireFormat;
+    private final TokenRevocationCache tokenRevocationCache;
+
+    @Value("${app.websocket.permessage-deflate.enabled:true}")
+    private boolean permessageDeflateEnabled;
+
+    @Value("${app.websocket.heartbeat-ms:10000}")
+    private long heartbeatMillis;
+
+    // Both depend on the broker this class configures, so they are resolved on first use
+    private TaskScheduler messageBrokerTaskScheduler;
+    private UserStatusService userStatusService;
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy @Qualifier("messageBrokerTaskScheduler") TaskScheduler taskScheduler) {
+        this.messageBrokerTaskScheduler = taskScheduler;
+    }
+
+    @Autowired
+    public void setUserStatusService(@Lazy UserStatusService userStatusService) {
+        this.userStatusService = userStatusService;
+    }
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple in-memory message broker to carry messages back to the client
         // on destinations prefixed with "/topic" (for broadcasting) and "/queue" (for point-to-point)
-        config.enableSimpleBroker("/topic", "/queue");
+        // With app.websocket.cluster.enabled, ClusteredUserDestinationRelay carries messages between nodes
+        // STOMP heart-beats both ways: the broker closes sessions whose client has gone silent,
+        // and the client's heart-beats keep its user online
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(new long[]{heartbeatMillis, heartbeatMillis})
+                .setTaskScheduler(messageBrokerTaskScheduler);
         
         // Define prefix for messages bound for @MessageMapping-annotated methods
         config.setApplicationDestinationPrefixes("/app");
@@ -48,8 +87,27 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Register the WebSocket endpoint that clients will use to connect
         registry.addEndpoint("/ws")
+                .setHandshakeHandler(new WebSocketCompressionHandshakeHandler(permessageDeflateEnabled))
                 .setAllowedOriginPatterns("*") // Allow all origins for development
                 .withSockJS(); // Enable SockJS fallback for browsers that don't support WebSocket
+
+        // Plain WebSocket endpoint; binary frames, and so CBOR, are only available here
+        registry.addEndpoint("/ws/native")
+                .setHandshakeHandler(new WebSocketCompressionHandshakeHandler(permessageDeflateEnabled))
+                .addInterceptors(cborWireFormat.nativeSessionMarker())
+                .setAllowedOriginPatterns("*");
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Decode application/cbor payloads; the default converters are still added after it
+        messageConverters.add(cborWireFormat.messageConverter());
+        return true;
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(cborWireFormat.outboundInterceptor());
     }
 
     @Override
@@ -67,8 +125,12 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                         String token = authHeader.substring(7);
                         
                         try {
-                            String username = jwtUtil.extractUsername(token);
-                            if (username != null && jwtUtil.validateToken(token)) {
+                            Claims claims = jwtUtil.parseClaims(token);
+                            String username = claims.getSubject();
+                            Long userId = jwtUtil.extractUserId(claims);
+                            boolean revoked = userId != null
+                                    && !tokenRevocationCache.isCurrent(userId, jwtUtil.extractStatusVersion(claims));
+                            if (username != null && !revoked) {
                                 // Set the user in the STOMP session
                                 accessor.setUser(() -> username);
                                 
@@ -84,6 +146,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                     }
                 }
                 
+                return message;
+            }
+        }, cborWireFormat.inboundInterceptor(), new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                // Any frame, heart-beats included, keeps the session's user online
+                Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+                if (attributes != null && attributes.get(UserStatusService.SESSION_USER_ID) instanceof Long userId) {
+                    userStatusService.keepAlive(userId);
+                }
                 return message;
             }
         });
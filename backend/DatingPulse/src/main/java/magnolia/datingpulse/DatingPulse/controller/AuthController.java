@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import magnolia.datingpulse.DatingPulse.config.JwtUtil;
+import magnolia.datingpulse.DatingPulse.config.TokenRevocationCache;
 import magnolia.datingpulse.DatingPulse.dto.*;
 import magnolia.datingpulse.DatingPulse.entity.User;
 import magnolia.datingpulse.DatingPulse.repositories.UserRepository;
@@ -28,6 +29,7 @@ public class AuthController {
     private final UserService userService;
     private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final TokenRevocationCache tokenRevocationCache;
     // Password-based authentication components removed
     private final UserMapper userMapper;
     
@@ -60,7 +62,8 @@ public class AuthController {
             User savedUser = userRepository.save(user);
             
             // Generate JWT token immediately - no password verification needed
-            String token = jwtUtil.generateToken(savedUser.getUsername());
+            String token = jwtUtil.generateToken(savedUser,
+                    tokenRevocationCache.currentVersion(savedUser.getUserID()));
             
             // Calculate expiration time
             String expiresAt = LocalDateTime.now()
@@ -96,12 +99,18 @@ public class AuthController {
                     .or(() -> userRepository.findByEmail(loginRequest.getUsername()))
                     .orElseThrow(() -> new RuntimeException("User not found"));
             
+            // Tokens are not checked against the user's status, so suspended and banned users get none
+            if (!"ACTIVE".equals(user.getStatus())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body(Map.of("error", "Login failed: account is " + user.getStatus().toLowerCase()));
+            }
+            
             // Update last login
             user.setLastLogin(java.time.LocalDateTime.now());
             userRepository.save(user);
             
             // Generate JWT token - no password verification needed
-            String token = jwtUtil.generateToken(user.getUsername());
+            String token = jwtUtil.generateToken(user, tokenRevocationCache.currentVersion(user.getUserID()));
             
             // Calculate expiration time
             String expiresAt = LocalDateTime.now()
@@ -2,6 +2,11 @@ package magnolia.datingpulse.DatingPulse.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import magnolia.datingpulse.DatingPulse.chat.ChatMessagePipeline;
+import magnolia.datingpulse.DatingPulse.chat.ConversationMembership;
+import magnolia.datingpulse.DatingPulse.chat.ConversationMembershipCache;
+import magnolia.datingpulse.DatingPulse.chat.PendingMessage;
+import magnolia.datingpulse.DatingPulse.chat.TypingIndicatorThrottle;
 import magnolia.datingpulse.DatingPulse.dto.ChatMessageDTO;
 import magnolia.datingpulse.DatingPulse.dto.MessageDTO;
 import magnolia.datingpulse.DatingPulse.dto.TypingIndicatorDTO;
@@ -11,6 +16,7 @@ import magnolia.datingpulse.DatingPulse.service.ConversationService;
 import magnolia.datingpulse.DatingPulse.service.MessageService;
 import magnolia.datingpulse.DatingPulse.service.UserStatusService;
 import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
@@ -21,6 +27,8 @@ import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
 import java.security.Principal;
 import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * WebSocket controller for real-time chat functionality
@@ -35,6 +43,10 @@ public class ChatWebSocketController {
     private final ConversationService conversationService;
     private final UserRepository userRepository;
     private final UserStatusService userStatusService;
+    private final TypingIndicatorThrottle typingIndicatorThrottle;
+    private final ConversationMembershipCache membershipCache;
+    // Present when app.chat.write-behind.enabled=true
+    private final Optional<ChatMessagePipeline> chatMessagePipeline;
 
     /**
      * Handle WebSocket connection events
@@ -50,6 +62,14 @@ public class ChatWebSocketController {
                         .orElse(null);
                 
                 if (userEntity != null) {
+                    // The CONNECT frame carries the session's attributes; later frames read the ID from there
+                    Message<?> connectMessage = (Message<?>) headerAccessor.getHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+                    Map<String, Object> attributes = connectMessage != null
+                            ? SimpMessageHeaderAccessor.getSessionAttributes(connectMessage.getHeaders())
+                            : null;
+                    if (attributes != null) {
+                        attributes.put(UserStatusService.SESSION_USER_ID, userEntity.getUserID());
+                    }
                     userStatusService.setUserOnline(userEntity.getUserID(), userEntity.getUsername());
                     log.info("User {} connected to WebSocket", userEntity.getUsername());
                 }
@@ -83,29 +103,54 @@ public class ChatWebSocketController {
     }
 
     /**
-     * Handle incoming chat messages via WebSocket
+     * Handle incoming chat messages via WebSocket. With the write-behind pipeline enabled the
+     * message is delivered as soon as it is accepted and persisted in the background; otherwise
+     * it is saved first.
      */
     @MessageMapping("/chat.sendMessage")
-    public void sendMessage(@Payload ChatMessageDTO chatMessage, Principal principal) {
+    public void sendMessage(@Payload ChatMessageDTO chatMessage, Principal principal,
+                            SimpMessageHeaderAccessor headerAccessor) {
         try {
             log.debug("Received message from user: {} for conversation: {}", 
                     principal.getName(), chatMessage.getConversationId());
 
-            // Get sender details
-            User sender = userRepository.findByUsername(principal.getName())
-                    .orElseThrow(() -> new IllegalArgumentException("Sender not found"));
+            Long senderId = sessionUserId(principal, headerAccessor);
+            // Sending brings the user back online if they had timed out
+            userStatusService.updateLastSeen(senderId, principal.getName());
+
+            if (chatMessagePipeline.isPresent()) {
+                PendingMessage accepted = chatMessagePipeline.get().submit(
+                        senderId,
+                        chatMessage.getConversationId(),
+                        chatMessage.getReceiverId(),
+                        chatMessage.getContent(),
+                        chatMessage.getMessageType() != null ? chatMessage.getMessageType() : "TEXT");
+                deliver(ChatMessageDTO.builder()
+                        .type("MESSAGE")
+                        .conversationId(accepted.getConversationId())
+                        .senderId(accepted.getSenderId())
+                        .senderUsername(principal.getName())
+                        .receiverId(accepted.getReceiverId())
+                        .content(accepted.getContent())
+                        .messageType(accepted.getType())
+                        .messageId(accepted.getMessageId())
+                        .timestamp(System.currentTimeMillis())
+                        .build());
+                log.debug("Message accepted for write-behind: messageId={}", accepted.getMessageId());
+                return;
+            }
 
             // Verify user is part of conversation
-            if (!conversationService.isUserPartOfConversation(chatMessage.getConversationId(), sender.getUserID())) {
+            if (!conversationService.isUserPartOfConversation(chatMessage.getConversationId(), senderId)) {
                 log.warn("User {} attempted to send message to conversation {} they're not part of", 
-                        sender.getUserID(), chatMessage.getConversationId());
+                        senderId, chatMessage.getConversationId());
                 return;
             }
 
             // Create MessageDTO for persistence
             MessageDTO messageDTO = new MessageDTO();
             messageDTO.setConversationID(chatMessage.getConversationId());
-            messageDTO.setSenderID(sender.getUserID());
+            messageDTO.setSenderID(senderId);
             messageDTO.setReceiverID(chatMessage.getReceiverId());
             messageDTO.setContent(chatMessage.getContent());
             messageDTO.setType(chatMessage.getMessageType() != null ? chatMessage.getMessageType() : "TEXT");
@@ -118,7 +163,7 @@ public class ChatWebSocketController {
                     .type("MESSAGE")
                     .conversationId(savedMessage.getConversationID())
                     .senderId(savedMessage.getSenderID())
-                    .senderUsername(sender.getUsername())
+                    .senderUsername(principal.getName())
                     .receiverId(savedMessage.getReceiverID())
                     .content(savedMessage.getContent())
                     .messageType(savedMessage.getType())
@@ -126,18 +171,7 @@ public class ChatWebSocketController {
                     .timestamp(System.currentTimeMillis())
                     .build();
 
-            // Send message to both sender and receiver
-            messagingTemplate.convertAndSendToUser(
-                    String.valueOf(savedMessage.getSenderID()),
-                    "/queue/messages",
-                    response
-            );
-
-            messagingTemplate.convertAndSendToUser(
-                    String.valueOf(savedMessage.getReceiverID()),
-                    "/queue/messages",
-                    response
-            );
+            deliver(response);
 
             log.debug("Message sent successfully: messageId={}", savedMessage.getMessageID());
 
@@ -159,29 +193,83 @@ public class ChatWebSocketController {
         }
     }
 
+    /**
+     * Send a message to both sender and receiver. User destinations are resolved by username, the
+     * name of the session's principal.
+     */
+    private void deliver(ChatMessageDTO message) {
+        messagingTemplate.convertAndSendToUser(
+                message.getSenderUsername(),
+                "/queue/messages",
+                message
+        );
+
+        String receiver = participantUsername(message.getConversationId(), message.getReceiverId());
+        if (receiver != null) {
+            messagingTemplate.convertAndSendToUser(
+                    receiver,
+                    "/queue/messages",
+                    message
+            );
+        }
+    }
+
+    /**
+     * A participant's username from the conversation's cached membership, or null if the
+     * conversation no longer exists
+     */
+    private String participantUsername(Long conversationId, Long userId) {
+        ConversationMembership membership = membershipCache.get(conversationId);
+        return membership != null ? membership.username(userId) : null;
+    }
+
+    /**
+     * The connected user's ID, looked up once per WebSocket session
+     */
+    private Long sessionUserId(Principal principal, SimpMessageHeaderAccessor headerAccessor) {
+        Map<String, Object> attributes = headerAccessor.getSessionAttributes();
+        if (attributes != null && attributes.get(UserStatusService.SESSION_USER_ID) instanceof Long userId) {
+            return userId;
+        }
+        Long userId = userRepository.findByUsername(principal.getName())
+                .map(User::getUserID)
+                .orElseThrow(() -> new IllegalArgumentException("Sender not found"));
+        if (attributes != null) {
+            attributes.put(UserStatusService.SESSION_USER_ID, userId);
+        }
+        return userId;
+    }
+
     /**
      * Handle typing indicators
      */
     @MessageMapping("/chat.typing")
-    public void handleTyping(@Payload TypingIndicatorDTO typingIndicator, Principal principal) {
+    public void handleTyping(@Payload TypingIndicatorDTO typingIndicator, Principal principal,
+                             SimpMessageHeaderAccessor headerAccessor) {
         try {
             log.debug("Received typing indicator from user: {} for conversation: {}", 
                     principal.getName(), typingIndicator.getConversationId());
 
-            // Get sender details
-            User sender = userRepository.findByUsername(principal.getName())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
+            Long senderId = sessionUserId(principal, headerAccessor);
 
             // Verify user is part of conversation
-            if (!conversationService.isUserPartOfConversation(typingIndicator.getConversationId(), sender.getUserID())) {
+            if (!conversationService.isUserPartOfConversation(typingIndicator.getConversationId(), senderId)) {
                 log.warn("User {} attempted to send typing indicator to conversation {} they're not part of", 
-                        sender.getUserID(), typingIndicator.getConversationId());
+                        senderId, typingIndicator.getConversationId());
+                return;
+            }
+
+            userStatusService.updateLastSeen(senderId, principal.getName());
+
+            // Drop keystroke-rate repeats
+            if (!typingIndicatorThrottle.tryForward(typingIndicator.getConversationId(), senderId,
+                    typingIndicator.isTyping())) {
                 return;
             }
 
             // Update typing indicator with user info
-            typingIndicator.setUserId(sender.getUserID());
-            typingIndicator.setUsername(sender.getUsername());
+            typingIndicator.setUserId(senderId);
+            typingIndicator.setUsername(principal.getName());
             typingIndicator.setTimestamp(Instant.now().toEpochMilli());
 
             // Broadcast typing indicator to conversation topic
@@ -210,6 +298,8 @@ public class ChatWebSocketController {
             User user = userRepository.findByUsername(principal.getName())
                     .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
+            userStatusService.updateLastSeen(user.getUserID(), user.getUsername());
+
             // Mark message as read using existing service
             MessageDTO updatedMessage = messageService.markMessageAsRead(readReceipt.getMessageId(), user.getUserID());
 
@@ -223,11 +313,14 @@ public class ChatWebSocketController {
                     .build();
 
             // Send read receipt to sender
-            messagingTemplate.convertAndSendToUser(
-                    String.valueOf(updatedMessage.getSenderID()),
-                    "/queue/read-receipts",
-                    response
-            );
+            String sender = participantUsername(updatedMessage.getConversationID(), updatedMessage.getSenderID());
+            if (sender != null) {
+                messagingTemplate.convertAndSendToUser(
+                        sender,
+                        "/queue/read-receipts",
+                        response
+                );
+            }
 
             log.debug("Read receipt sent for message: {}", updatedMessage.getMessageID());
 
@@ -240,25 +333,24 @@ public class ChatWebSocketController {
      * Handle user online/offline status
      */
     @MessageMapping("/chat.userStatus")
-    public void handleUserStatus(@Payload ChatMessageDTO statusMessage, Principal principal) {
+    public void handleUserStatus(@Payload ChatMessageDTO statusMessage, Principal principal,
+                                 SimpMessageHeaderAccessor headerAccessor) {
         try {
             log.debug("Received status update from user: {}", principal.getName());
 
-            // Get user details
-            User user = userRepository.findByUsername(principal.getName())
-                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
+            Long userId = sessionUserId(principal, headerAccessor);
 
             // Update user status through UserStatusService
             if ("USER_ONLINE".equals(statusMessage.getType())) {
-                userStatusService.setUserOnline(user.getUserID(), user.getUsername());
+                userStatusService.setUserOnline(userId, principal.getName());
             } else if ("USER_OFFLINE".equals(statusMessage.getType())) {
-                userStatusService.setUserOffline(user.getUserID());
+                userStatusService.setUserOffline(userId);
             } else {
                 // Update last seen for any activity
-                userStatusService.updateLastSeen(user.getUserID());
+                userStatusService.updateLastSeen(userId, principal.getName());
             }
 
-            log.debug("User status updated: {} for user: {}", statusMessage.getType(), user.getUserID());
+            log.debug("User status updated: {} for user: {}", statusMessage.getType(), userId);
 
         } catch (Exception e) {
             log.error("Error handling user status: {}", e.getMessage(), e);
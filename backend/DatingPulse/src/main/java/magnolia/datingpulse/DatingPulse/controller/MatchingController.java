@@ -1,6 +1,7 @@
 package magnolia.datingpulse.DatingPulse.controller;
 
 import magnolia.datingpulse.DatingPulse.service.MatchingService;
+import magnolia.datingpulse.DatingPulse.dto.MatchPageDTO;
 import magnolia.datingpulse.DatingPulse.dto.UserProfileDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -15,9 +16,14 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/v1/matching")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = MatchingController.NEXT_CURSOR_HEADER)
 public class MatchingController {
 
+    /**
+     * Opaque continuation token for the next page; absent on the last page
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final MatchingService matchingService;
 
     /**
@@ -26,11 +32,11 @@ public class MatchingController {
     @GetMapping("/users/{userId}/potential-matches")
     public ResponseEntity<List<UserProfileDTO>> findPotentialMatches(
             @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int limit) {
         
         try {
-            List<UserProfileDTO> matches = matchingService.findPotentialMatches(userId, limit);
-            return ResponseEntity.ok(matches);
+            return toResponse(matchingService.findPotentialMatches(userId, cursor, limit));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -43,11 +49,11 @@ public class MatchingController {
     public ResponseEntity<List<UserProfileDTO>> findNearbyMatches(
             @PathVariable Long userId,
             @RequestParam double radiusKm,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int limit) {
         
         try {
-            List<UserProfileDTO> matches = matchingService.findPotentialMatchesNearby(userId, radiusKm, limit);
-            return ResponseEntity.ok(matches);
+            return toResponse(matchingService.findPotentialMatchesNearby(userId, radiusKm, cursor, limit));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -61,11 +67,11 @@ public class MatchingController {
             @PathVariable Long userId,
             @RequestParam int minAge,
             @RequestParam int maxAge,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int limit) {
         
         try {
-            List<UserProfileDTO> matches = matchingService.findPotentialMatchesByAge(userId, minAge, maxAge, limit);
-            return ResponseEntity.ok(matches);
+            return toResponse(matchingService.findPotentialMatchesByAge(userId, minAge, maxAge, cursor, limit));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -86,4 +92,15 @@ public class MatchingController {
             return ResponseEntity.badRequest().build();
         }
     }
-}
+
+    /**
+     * Keep the list body for existing clients and pass the continuation in a header
+     */
+    private ResponseEntity<List<UserProfileDTO>> toResponse(MatchPageDTO page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getMatches());
+    }
+}
\ No newline at end of file
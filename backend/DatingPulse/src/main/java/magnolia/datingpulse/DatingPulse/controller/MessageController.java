@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import magnolia.datingpulse.DatingPulse.dto.MessageDTO;
+import magnolia.datingpulse.DatingPulse.dto.MessagePageDTO;
 import magnolia.datingpulse.DatingPulse.service.MessageService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -65,6 +66,25 @@ public class MessageController {
         }
     }
 
+    /**
+     * Keyset-paginated history: the latest messages by default, older ones with {@code before},
+     * newer ones with {@code after}. Messages are returned oldest first.
+     */
+    @GetMapping("/conversation/{conversationId}/history")
+    public ResponseEntity<MessagePageDTO> getMessageHistory(
+            @PathVariable @Positive(message = "Conversation ID must be positive") Long conversationId,
+            @RequestParam @Positive(message = "User ID must be positive") Long userId,
+            @RequestParam(required = false) @Positive(message = "Message ID must be positive") Long before,
+            @RequestParam(required = false) @Positive(message = "Message ID must be positive") Long after,
+            @RequestParam(defaultValue = "50") @Positive(message = "Limit must be positive") int limit) {
+        try {
+            MessagePageDTO page = messageService.getMessageHistory(conversationId, userId, before, after, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(null, HttpStatus.NOT_FOUND);
+        }
+    }
+
     @GetMapping("/user/{userId}/unread")
     public ResponseEntity<List<MessageDTO>> getUnreadMessagesForUser(
             @PathVariable @Positive(message = "User ID must be positive") Long userId) {
@@ -98,12 +118,12 @@ public class MessageController {
     }
 
     @PutMapping("/conversation/{conversationId}/mark-all-read")
-    public ResponseEntity<Void> markAllMessagesAsRead(
+    public ResponseEntity<Integer> markAllMessagesAsRead(
             @PathVariable @Positive(message = "Conversation ID must be positive") Long conversationId,
             @RequestParam @Positive(message = "User ID must be positive") Long userId) {
         try {
-            messageService.markAllMessagesAsReadInConversation(conversationId, userId);
-            return ResponseEntity.ok().build();
+            int markedRead = messageService.markAllMessagesAsReadInConversation(conversationId, userId);
+            return ResponseEntity.ok(markedRead);
         } catch (IllegalArgumentException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
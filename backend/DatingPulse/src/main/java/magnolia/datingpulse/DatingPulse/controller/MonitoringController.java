@@ -1,6 +1,7 @@
 package magnolia.datingpulse.DatingPulse.controller;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import magnolia.datingpulse.DatingPulse.config.CacheMetrics;
 import magnolia.datingpulse.DatingPulse.config.MetricsConfig;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.CacheManager;
@@ -55,19 +56,15 @@ public class MonitoringController {
     }
 
     /**
-     * Get cache statistics
+     * Get cache statistics: hits, misses, puts and evictions per tier, latencies and value sizes
      */
     @GetMapping("/cache")
     public ResponseEntity<Map<String, Object>> getCacheStats() {
         Map<String, Object> cacheStats = new HashMap<>();
         
         if (cacheManager != null) {
-            cacheManager.getCacheNames().forEach(cacheName -> {
-                Map<String, Object> stats = new HashMap<>();
-                stats.put("name", cacheName);
-                // Add more detailed cache statistics if available
-                cacheStats.put(cacheName, stats);
-            });
+            cacheManager.getCacheNames().forEach(cacheName ->
+                    cacheStats.put(cacheName, CacheMetrics.snapshot(meterRegistry, cacheName)));
         } else {
             cacheStats.put("message", "Cache manager not available");
         }
@@ -1,7 +1,9 @@
 package magnolia.datingpulse.DatingPulse.controller;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import magnolia.datingpulse.DatingPulse.config.CacheMetrics;
 import magnolia.datingpulse.DatingPulse.config.MetricsConfig;
 import magnolia.datingpulse.DatingPulse.dto.UserDTO;
 import magnolia.datingpulse.DatingPulse.service.UserService;
@@ -26,13 +28,16 @@ public class PerformanceTestController {
     private final UserService userService;
     private final CacheManager cacheManager;
     private final MetricsConfig.DatingPulseMetrics datingPulseMetrics;
+    private final MeterRegistry meterRegistry;
 
     public PerformanceTestController(UserService userService, 
                                    @Autowired(required = false) CacheManager cacheManager,
-                                   MetricsConfig.DatingPulseMetrics datingPulseMetrics) {
+                                   MetricsConfig.DatingPulseMetrics datingPulseMetrics,
+                                   MeterRegistry meterRegistry) {
         this.userService = userService;
         this.cacheManager = cacheManager;
         this.datingPulseMetrics = datingPulseMetrics;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -157,8 +162,7 @@ public class PerformanceTestController {
         
         if (cacheManager != null) {
             cacheManager.getCacheNames().forEach(cacheName -> {
-                Map<String, Object> cacheInfo = new HashMap<>();
-                cacheInfo.put("name", cacheName);
+                Map<String, Object> cacheInfo = new HashMap<>(CacheMetrics.snapshot(meterRegistry, cacheName));
                 
                 if (cacheManager.getCache(cacheName) != null) {
                     cacheInfo.put("native_cache", cacheManager.getCache(cacheName).getNativeCache().getClass().getSimpleName());
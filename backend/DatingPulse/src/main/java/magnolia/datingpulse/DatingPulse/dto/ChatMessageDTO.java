@@ -18,10 +18,10 @@ import lombok.NoArgsConstructor;
 public class ChatMessageDTO {
     
     @NotBlank(message = "Message type is required")
-    @Pattern(regexp = "^(MESSAGE|TYPING_START|TYPING_STOP|USER_ONLINE|USER_OFFLINE|MESSAGE_READ)$", 
-             message = "Type must be MESSAGE, TYPING_START, TYPING_STOP, USER_ONLINE, USER_OFFLINE, or MESSAGE_READ")
+    @Pattern(regexp = "^(MESSAGE|TYPING_START|TYPING_STOP|USER_ONLINE|USER_OFFLINE|MESSAGE_READ|CONVERSATION_READ)$", 
+             message = "Type must be MESSAGE, TYPING_START, TYPING_STOP, USER_ONLINE, USER_OFFLINE, MESSAGE_READ, or CONVERSATION_READ")
     @Schema(description = "WebSocket message type", example = "MESSAGE", 
-            allowableValues = {"MESSAGE", "TYPING_START", "TYPING_STOP", "USER_ONLINE", "USER_OFFLINE", "MESSAGE_READ"})
+            allowableValues = {"MESSAGE", "TYPING_START", "TYPING_STOP", "USER_ONLINE", "USER_OFFLINE", "MESSAGE_READ", "CONVERSATION_READ"})
     private String type;
     
     @NotNull(message = "Conversation ID is required")
@@ -61,4 +61,7 @@ public class ChatMessageDTO {
     @Positive(message = "Message ID must be positive when provided")
     @Schema(description = "Message ID for read receipts", example = "1")
     private Long messageId; // For read receipts
+
+    @Schema(description = "Number of messages marked read, for CONVERSATION_READ receipts", example = "12")
+    private Integer readCount;
 }
\ No newline at end of file
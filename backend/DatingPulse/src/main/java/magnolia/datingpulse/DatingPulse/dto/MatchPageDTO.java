@@ -0,0 +1,26 @@
+package magnolia.datingpulse.DatingPulse.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a ranked matching feed
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Page of potential matches with a cursor for the next page")
+public class MatchPageDTO {
+
+    @Schema(description = "Matches on this page, highest compatibility first")
+    private List<UserProfileDTO> matches;
+
+    @Schema(description = "Opaque cursor for the next page; null when there are no more matches")
+    private String nextCursor;
+}
@@ -0,0 +1,26 @@
+package magnolia.datingpulse.DatingPulse.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a conversation's message history
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Page of conversation messages in chronological order")
+public class MessagePageDTO {
+
+    @Schema(description = "Messages on this page, oldest first")
+    private List<MessageDTO> messages;
+
+    @Schema(description = "Whether more messages exist beyond this page in the requested direction")
+    private boolean hasMore;
+}
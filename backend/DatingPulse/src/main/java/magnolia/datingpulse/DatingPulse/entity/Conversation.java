@@ -3,6 +3,7 @@ package magnolia.datingpulse.DatingPulse.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 
 @Entity
@@ -44,4 +45,15 @@ public class Conversation {
     @NotNull(message = "Active status is required")
     @Builder.Default
     private Boolean isActive = true; // Match schema column
+
+    // Unread messages per participant, written only by the atomic updates in ConversationRepository
+    @Column(name = "unread_count_user1", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer unreadCountUser1 = 0;
+
+    @Column(name = "unread_count_user2", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer unreadCountUser2 = 0;
 }
\ No newline at end of file
@@ -17,8 +17,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 public class Message {
+    // Pooled sequence: IDs come in blocks of 50, shared with MessageIdAllocator, and inserts can batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_id_seq")
+    @SequenceGenerator(name = "message_id_seq", sequenceName = "messages_message_id_seq", allocationSize = 50)
     @Column(name = "message_id")
     private Long messageID;
 
@@ -3,6 +3,7 @@ package magnolia.datingpulse.DatingPulse.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
@@ -82,6 +83,17 @@ public class User {
     @Builder.Default
     private Integer loginAttempt = 0; // Added for test compatibility
 
+    // Denormalized unread counters, written only by the atomic updates in UserRepository
+    @Column(name = "unread_message_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer unreadMessageCount = 0;
+
+    @Column(name = "unread_conversation_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer unreadConversationCount = 0;
+
     // Note: login_attempt field doesn't exist in current schema - removing
     // @Transient
     // @NotNull(message = "Login attempt count is required")
@@ -10,6 +10,8 @@ public interface ConversationMapper {
     @Mapping(source = "lastMessage.messageID", target = "lastMessageID")
     ConversationDTO toDTO(Conversation entity);
 
-    // For DTO→entity: set match and lastMessage in service
+    // For DTO→entity: set match and lastMessage in service; unread counters are maintained by MessageService
+    @Mapping(target = "unreadCountUser1", ignore = true)
+    @Mapping(target = "unreadCountUser2", ignore = true)
     Conversation toEntity(ConversationDTO dto);
 }
\ No newline at end of file
@@ -19,5 +19,7 @@ public interface UserMapper {
     @Mapping(target = "updatedAt", ignore = true) // Auto-generated
     @Mapping(target = "lastLogin", ignore = true) // Set by authentication service
     @Mapping(target = "isVerified", ignore = true) // Set by verification service
+    @Mapping(target = "unreadMessageCount", ignore = true) // Maintained by MessageService
+    @Mapping(target = "unreadConversationCount", ignore = true) // Maintained by MessageService
     User toEntity(UserDTO dto);
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package magnolia.datingpulse.DatingPulse.repositories;
 import magnolia.datingpulse.DatingPulse.entity.BlockedUser;
 import magnolia.datingpulse.DatingPulse.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,4 +12,9 @@ import java.util.Optional;
 public interface BlockedUserRepository extends JpaRepository<BlockedUser, Long> {
     List<BlockedUser> findByBlocker(User blocker);
     Optional<BlockedUser> findByBlockerAndBlocked(User blocker, User blocked);
+
+    // IDs of users on either side of a block with this user, for bulk feed exclusion
+    @Query("SELECT CASE WHEN b.blocker.userID = :userId THEN b.blocked.userID ELSE b.blocker.userID END " +
+           "FROM BlockedUser b WHERE b.blocker.userID = :userId OR b.blocked.userID = :userId")
+    List<Long> findBlockRelatedUserIds(@Param("userId") Long userId);
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package magnolia.datingpulse.DatingPulse.repositories;
 import magnolia.datingpulse.DatingPulse.entity.Conversation;
 import magnolia.datingpulse.DatingPulse.entity.Match;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -21,5 +22,32 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     @Query("SELECT c FROM Conversation c WHERE c.match.userOne.userID = :userId OR c.match.userTwo.userID = :userId")
     List<Conversation> findAllByUserId(@Param("userId") Long userId);
 
+    // Unread counters: userOne selects the match's userOne side (unread_count_user1), otherwise user2.
+    // The UPDATE takes the conversation row lock, so read the count back in the same transaction.
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Conversation c SET " +
+           "c.unreadCountUser1 = c.unreadCountUser1 + CASE WHEN :userOne = true THEN :delta ELSE 0 END, " +
+           "c.unreadCountUser2 = c.unreadCountUser2 + CASE WHEN :userOne = true THEN 0 ELSE :delta END " +
+           "WHERE c.conversationID = :conversationId")
+    int adjustUnreadCount(@Param("conversationId") Long conversationId,
+                          @Param("userOne") boolean userOne,
+                          @Param("delta") int delta);
+
+    @Query("SELECT CASE WHEN :userOne = true THEN c.unreadCountUser1 ELSE c.unreadCountUser2 END " +
+           "FROM Conversation c WHERE c.conversationID = :conversationId")
+    int findUnreadCount(@Param("conversationId") Long conversationId, @Param("userOne") boolean userOne);
+
+    // Whether the conversation counts toward its participants' unread conversation counts: its match
+    // is active and at least one participant still shows it
+    @Query("SELECT CASE WHEN c.match.isActive = true AND (c.deletedForUser1 = false OR c.deletedForUser2 = false) " +
+           "THEN true ELSE false END FROM Conversation c WHERE c.conversationID = :conversationId")
+    boolean countsTowardUnread(@Param("conversationId") Long conversationId);
+
+    // Native so the last message can be set by ID for rows inserted outside the persistence context
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE conversations SET last_message_id = :messageId WHERE conversation_id = :conversationId",
+           nativeQuery = true)
+    int updateLastMessageId(@Param("conversationId") Long conversationId, @Param("messageId") Long messageId);
 
 }
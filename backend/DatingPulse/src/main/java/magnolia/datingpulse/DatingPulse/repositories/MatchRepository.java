@@ -3,7 +3,10 @@ package magnolia.datingpulse.DatingPulse.repositories;
 import magnolia.datingpulse.DatingPulse.entity.Match;
 import magnolia.datingpulse.DatingPulse.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
@@ -11,4 +14,9 @@ public interface MatchRepository extends JpaRepository<Match, Long> {
     Optional<Match> findByUserOneAndUserTwo(User userOne, User userTwo);
     List<Match> findByUserOneOrUserTwo(User userOne, User userTwo);
     List<Match> findByIsActiveTrueAndExpiresAtAfter(java.time.LocalDateTime now);
+
+    // [userOneId, userTwoId] of every active match involving one of the given users
+    @Query("SELECT m.userOne.userID, m.userTwo.userID FROM Match m " +
+           "WHERE m.isActive = true AND (m.userOne.userID IN :userIds OR m.userTwo.userID IN :userIds)")
+    List<Object[]> findActiveMatchPairs(@Param("userIds") Collection<Long> userIds);
 }
\ No newline at end of file
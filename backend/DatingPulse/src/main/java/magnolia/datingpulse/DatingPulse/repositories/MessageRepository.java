@@ -3,12 +3,101 @@ package magnolia.datingpulse.DatingPulse.repositories;
 import magnolia.datingpulse.DatingPulse.entity.Message;
 import magnolia.datingpulse.DatingPulse.entity.Conversation;
 import magnolia.datingpulse.DatingPulse.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findByConversationOrderBySentAtAsc(Conversation conversation);
     List<Message> findBySender(User sender);
     List<Message> findByReceiverAndReadAtIsNull(User receiver); // Changed to use read_at timestamp
-}
\ No newline at end of file
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Message m SET m.readAt = :readAt, m.isRead = true " +
+           "WHERE m.conversation.conversationID = :conversationId AND m.receiver.userID = :receiverId " +
+           "AND m.readAt IS NULL AND m.deletedForReceiver = false")
+    int markAllAsRead(@Param("conversationId") Long conversationId,
+                      @Param("receiverId") Long receiverId,
+                      @Param("readAt") LocalDateTime readAt);
+
+    // Conditional single-row transitions out of "unread by the receiver": only the statement that
+    // actually flips the row reports it, so concurrent read/delete calls adjust the counters once
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Message m SET m.readAt = :readAt, m.isRead = true " +
+           "WHERE m.messageID = :messageId AND m.readAt IS NULL AND m.deletedForReceiver = false")
+    int markAsReadIfUnread(@Param("messageId") Long messageId, @Param("readAt") LocalDateTime readAt);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Message m SET m.deletedForReceiver = true " +
+           "WHERE m.messageID = :messageId AND m.readAt IS NULL AND m.deletedForReceiver = false")
+    int deleteForReceiverIfUnread(@Param("messageId") Long messageId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Message m " +
+           "WHERE m.messageID = :messageId AND m.readAt IS NULL AND m.deletedForReceiver = false")
+    int deleteIfUnread(@Param("messageId") Long messageId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Message m WHERE m.messageID = :messageId")
+    int deleteByMessageId(@Param("messageId") Long messageId);
+
+    @Query("SELECT m.messageID FROM Message m WHERE m.messageID IN :messageIds")
+    List<Long> findExistingIds(@Param("messageIds") List<Long> messageIds);
+
+    // Keyset history queries: all walk idx_conversation_sent_at, with message ID breaking sent_at ties
+    // and the per-user deletion flags applied in SQL
+
+    @Query("SELECT m.sentAt FROM Message m WHERE m.messageID = :messageId AND m.conversation.conversationID = :conversationId")
+    Optional<LocalDateTime> findSentAtInConversation(@Param("conversationId") Long conversationId,
+                                                     @Param("messageId") Long messageId);
+
+    @Query("SELECT m FROM Message m WHERE m.conversation.conversationID = :conversationId " +
+           "AND ((m.sender.userID = :userId AND m.deletedForSender = false) " +
+           "OR (m.receiver.userID = :userId AND m.deletedForReceiver = false)) " +
+           "ORDER BY m.sentAt ASC, m.messageID ASC")
+    List<Message> findVisibleInConversation(@Param("conversationId") Long conversationId,
+                                            @Param("userId") Long userId);
+
+    // Newest messages regardless of who deleted them, to load MessageTailCache
+    @Query("SELECT m FROM Message m WHERE m.conversation.conversationID = :conversationId " +
+           "ORDER BY m.sentAt DESC, m.messageID DESC")
+    List<Message> findLatestInConversation(@Param("conversationId") Long conversationId,
+                                           Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE m.conversation.conversationID = :conversationId " +
+           "AND ((m.sender.userID = :userId AND m.deletedForSender = false) " +
+           "OR (m.receiver.userID = :userId AND m.deletedForReceiver = false)) " +
+           "ORDER BY m.sentAt DESC, m.messageID DESC")
+    List<Message> findLatestVisible(@Param("conversationId") Long conversationId,
+                                    @Param("userId") Long userId,
+                                    Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE m.conversation.conversationID = :conversationId " +
+           "AND ((m.sender.userID = :userId AND m.deletedForSender = false) " +
+           "OR (m.receiver.userID = :userId AND m.deletedForReceiver = false)) " +
+           "AND (m.sentAt < :sentAt OR (m.sentAt = :sentAt AND m.messageID < :messageId)) " +
+           "ORDER BY m.sentAt DESC, m.messageID DESC")
+    List<Message> findVisibleBefore(@Param("conversationId") Long conversationId,
+                                    @Param("userId") Long userId,
+                                    @Param("sentAt") LocalDateTime sentAt,
+                                    @Param("messageId") Long messageId,
+                                    Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE m.conversation.conversationID = :conversationId " +
+           "AND ((m.sender.userID = :userId AND m.deletedForSender = false) " +
+           "OR (m.receiver.userID = :userId AND m.deletedForReceiver = false)) " +
+           "AND (m.sentAt > :sentAt OR (m.sentAt = :sentAt AND m.messageID > :messageId)) " +
+           "ORDER BY m.sentAt ASC, m.messageID ASC")
+    List<Message> findVisibleAfter(@Param("conversationId") Long conversationId,
+                                   @Param("userId") Long userId,
+                                   @Param("sentAt") LocalDateTime sentAt,
+                                   @Param("messageId") Long messageId,
+                                   Pageable pageable);
+}
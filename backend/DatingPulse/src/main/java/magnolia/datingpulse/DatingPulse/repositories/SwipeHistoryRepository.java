@@ -3,6 +3,8 @@ package magnolia.datingpulse.DatingPulse.repositories;
 import magnolia.datingpulse.DatingPulse.entity.SwipeHistory;
 import magnolia.datingpulse.DatingPulse.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +14,8 @@ public interface SwipeHistoryRepository extends JpaRepository<SwipeHistory, Long
     List<SwipeHistory> findByUserAndSwipeType(User user, String swipeType);
     Optional<SwipeHistory> findTopByUserOrderByCreatedAtDesc(User user);
     Optional<SwipeHistory> findByUserAndTargetUser(User user, User targetUser);
+
+    // IDs of every user this user has already swiped on, for bulk feed exclusion
+    @Query("SELECT s.targetUser.userID FROM SwipeHistory s WHERE s.user.userID = :userId")
+    List<Long> findTargetUserIdsByUserId(@Param("userId") Long userId);
 }
\ No newline at end of file
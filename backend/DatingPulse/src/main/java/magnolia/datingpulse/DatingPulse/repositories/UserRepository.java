@@ -2,6 +2,9 @@ package magnolia.datingpulse.DatingPulse.repositories;
 
 import magnolia.datingpulse.DatingPulse.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 import java.util.List;
@@ -10,4 +13,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     List<User> findByStatus(String status);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.unreadMessageCount = u.unreadMessageCount + :messages, " +
+           "u.unreadConversationCount = u.unreadConversationCount + :conversations WHERE u.userID = :userId")
+    int adjustUnreadCounts(@Param("userId") Long userId,
+                           @Param("messages") int messages,
+                           @Param("conversations") int conversations);
+
+    @Query("SELECT u.unreadMessageCount FROM User u WHERE u.userID = :userId")
+    Optional<Integer> findUnreadMessageCount(@Param("userId") Long userId);
+
+    @Query("SELECT u.unreadConversationCount FROM User u WHERE u.userID = :userId")
+    Optional<Integer> findUnreadConversationCount(@Param("userId") Long userId);
 }
\ No newline at end of file
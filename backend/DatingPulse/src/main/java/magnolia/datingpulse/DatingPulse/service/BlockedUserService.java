@@ -1,6 +1,7 @@
 package magnolia.datingpulse.DatingPulse.service;
 
 import lombok.RequiredArgsConstructor;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchFeedCache;
 import magnolia.datingpulse.DatingPulse.dto.BlockedUserDTO;
 import magnolia.datingpulse.DatingPulse.entity.BlockedUser;
 import magnolia.datingpulse.DatingPulse.entity.User;
@@ -21,6 +22,7 @@ public class BlockedUserService {
     private final BlockedUserRepository blockedUserRepository;
     private final UserRepository userRepository;
     private final BlockedUserMapper blockedUserMapper;
+    private final MatchFeedCache matchFeedCache;
 
     @Transactional
     public BlockedUserDTO blockUser(Long blockerId, Long blockedId) {
@@ -49,6 +51,10 @@ public class BlockedUserService {
                 .build();
 
         BlockedUser saved = blockedUserRepository.save(blockedUser);
+
+        // Blocks apply in both directions, so drop each user from the other's feed
+        matchFeedCache.removeCandidate(blockerId, blockedId);
+        matchFeedCache.removeCandidate(blockedId, blockerId);
         return blockedUserMapper.toDTO(saved);
     }
 
@@ -67,6 +73,10 @@ public class BlockedUserService {
         }
 
         blockedUserRepository.delete(existingBlock.get());
+
+        // Both users may now appear in each other's feeds again
+        matchFeedCache.invalidate(blockerId);
+        matchFeedCache.invalidate(blockedId);
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,65 @@
+package magnolia.datingpulse.DatingPulse.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import magnolia.datingpulse.DatingPulse.algorithm.CandidateIndex;
+import magnolia.datingpulse.DatingPulse.entity.UserProfile;
+import magnolia.datingpulse.DatingPulse.repositories.UserProfileRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Populates the {@link CandidateIndex} from the database once the application has started.
+ * Users changed while the pages are read are read again afterwards, until none changed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CandidateIndexLoader {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final UserProfileRepository userProfileRepository;
+    private final CandidateIndex candidateIndex;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Load all profiles page by page, one short read-only transaction per page, then re-read
+     * the users changed meanwhile
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCandidateIndex() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        try {
+            int page = 0;
+            boolean hasNext = true;
+            while (hasNext) {
+                PageRequest pageRequest = PageRequest.of(page++, PAGE_SIZE, Sort.by("userID"));
+                hasNext = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    Page<UserProfile> profiles = userProfileRepository.findAll(pageRequest);
+                    profiles.forEach(candidateIndex::load);
+                    return profiles.hasNext();
+                }));
+            }
+            for (Set<Long> changed = candidateIndex.finishLoad(); !changed.isEmpty(); changed = candidateIndex.finishLoad()) {
+                List<Long> userIds = List.copyOf(changed);
+                transactionTemplate.executeWithoutResult(status ->
+                        userProfileRepository.findAllById(userIds).forEach(candidateIndex::load));
+            }
+            log.info("Candidate index loaded with {} active profiles", candidateIndex.size());
+        } catch (Exception e) {
+            log.error("Error loading candidate index: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package magnolia.datingpulse.DatingPulse.service;
 
 import lombok.RequiredArgsConstructor;
+import magnolia.datingpulse.DatingPulse.chat.ConversationMembership;
+import magnolia.datingpulse.DatingPulse.chat.ConversationMembershipCache;
+import magnolia.datingpulse.DatingPulse.chat.MessageTailCache;
 import magnolia.datingpulse.DatingPulse.dto.ConversationDTO;
 import magnolia.datingpulse.DatingPulse.entity.Conversation;
 import magnolia.datingpulse.DatingPulse.entity.Match;
@@ -9,6 +12,7 @@ import magnolia.datingpulse.DatingPulse.mapper.ConversationMapper;
 import magnolia.datingpulse.DatingPulse.repositories.ConversationRepository;
 import magnolia.datingpulse.DatingPulse.repositories.MatchRepository;
 import magnolia.datingpulse.DatingPulse.repositories.MessageRepository;
+import magnolia.datingpulse.DatingPulse.repositories.UserRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +27,9 @@ public class ConversationService {
     private final ConversationRepository conversationRepository;
     private final MatchRepository matchRepository;
     private final MessageRepository messageRepository;
+    private final UserRepository userRepository;
+    private final ConversationMembershipCache membershipCache;
+    private final MessageTailCache messageTailCache;
     private final ConversationMapper conversationMapper;
 
     @Transactional
@@ -117,6 +124,7 @@ public class ConversationService {
         Long userOneId = conversation.getMatch().getUserOne().getUserID();
         Long userTwoId = conversation.getMatch().getUserTwo().getUserID();
 
+        boolean counted = countsTowardUnread(conversation);
         if (userId.equals(userOneId)) {
             conversation.setDeletedForUser1(true);
         } else if (userId.equals(userTwoId)) {
@@ -126,6 +134,7 @@ public class ConversationService {
         }
 
         conversationRepository.save(conversation);
+        moveUnreadConversations(conversation, counted);
     }
 
     @Transactional
@@ -137,6 +146,7 @@ public class ConversationService {
         Long userOneId = conversation.getMatch().getUserOne().getUserID();
         Long userTwoId = conversation.getMatch().getUserTwo().getUserID();
 
+        boolean counted = countsTowardUnread(conversation);
         if (userId.equals(userOneId)) {
             conversation.setDeletedForUser1(false);
         } else if (userId.equals(userTwoId)) {
@@ -146,25 +156,43 @@ public class ConversationService {
         }
 
         conversationRepository.save(conversation);
+        moveUnreadConversations(conversation, counted);
     }
 
     @Transactional
     public void deleteConversation(Long conversationId) {
-        if (!conversationRepository.existsById(conversationId)) {
-            throw new IllegalArgumentException("Conversation not found with ID: " + conversationId);
-        }
-        conversationRepository.deleteById(conversationId);
-    }
-
-    @Transactional(readOnly = true)
-    public boolean isUserPartOfConversation(Long conversationId, Long userId) {
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new IllegalArgumentException("Conversation not found with ID: " + conversationId));
 
-        Long userOneId = conversation.getMatch().getUserOne().getUserID();
-        Long userTwoId = conversation.getMatch().getUserTwo().getUserID();
+        // Take the conversation's unread messages out of both participants' counters
+        boolean counted = countsTowardUnread(conversation);
+        releaseUnreadCount(conversation.getMatch().getUserOne().getUserID(), conversation.getUnreadCountUser1(), counted);
+        releaseUnreadCount(conversation.getMatch().getUserTwo().getUserID(), conversation.getUnreadCountUser2(), counted);
+        conversationRepository.delete(conversation);
+        membershipCache.evict(conversationId);
+        messageTailCache.evict(conversationId);
+    }
 
-        return userId.equals(userOneId) || userId.equals(userTwoId);
+    /**
+     * Called by MatchService after it activated or deactivated a match, so the match's conversation
+     * enters or leaves its participants' unread conversation counts
+     */
+    @Transactional
+    public void matchActivityChanged(Match match, boolean wasActive) {
+        conversationRepository.findByMatch(match).ifPresent(conversation ->
+                moveUnreadConversations(conversation, wasActive && isConversationVisibleForUser(conversation)));
+    }
+
+    /**
+     * Answered from {@link ConversationMembershipCache}; not transactional, so a cache hit does not
+     * check out a connection
+     */
+    public boolean isUserPartOfConversation(Long conversationId, Long userId) {
+        ConversationMembership membership = membershipCache.get(conversationId);
+        if (membership == null) {
+            throw new IllegalArgumentException("Conversation not found with ID: " + conversationId);
+        }
+        return membership.isParticipant(userId);
     }
 
     @Transactional(readOnly = true)
@@ -189,36 +217,46 @@ public class ConversationService {
         return getActiveConversationsForUser(userId).size();
     }
 
+    /**
+     * Active, visible conversations holding messages the user has not read, served from the user's
+     * denormalized counter. MessageService maintains it on send, read and delete; this service and
+     * MatchService when a conversation is hidden for both users or its match is deactivated, and back.
+     */
     @Transactional(readOnly = true)
     public long countUnreadConversationsForUser(Long userId) {
-        List<Conversation> conversations = conversationRepository.findAllByUserId(userId);
-        
-        return conversations.stream()
-                .filter(conv -> conv.getMatch().getIsActive())
-                .filter(this::isConversationVisibleForUser)
-                .filter(conv -> hasUnreadMessages(conv, userId))
-                .count();
+        return userRepository.findUnreadConversationCount(userId).orElse(0);
     }
 
-    private boolean isConversationVisibleForUser(Conversation conversation) {
-        // Conversation is visible if it's not deleted for both users
-        return !(conversation.getDeletedForUser1() && conversation.getDeletedForUser2());
+    private void releaseUnreadCount(Long userId, int unread, boolean counted) {
+        if (unread > 0) {
+            userRepository.adjustUnreadCounts(userId, -unread, counted ? -1 : 0);
+        }
     }
 
-    private boolean hasUnreadMessages(Conversation conversation, Long userId) {
-        // Check if there are unread messages for this user
-        if (conversation.getLastMessage() == null) {
-            return false;
+    /**
+     * Add the conversation to, or take it out of, the unread conversation count of each participant
+     * with unread messages in it, if it started or stopped counting there
+     */
+    private void moveUnreadConversations(Conversation conversation, boolean countedBefore) {
+        boolean counted = countsTowardUnread(conversation);
+        if (counted == countedBefore) {
+            return;
         }
-
-        Message lastMessage = conversation.getLastMessage();
-        
-        // If the last message was sent by this user, no unread messages for them
-        if (lastMessage.getSender().getUserID().equals(userId)) {
-            return false;
+        int delta = counted ? 1 : -1;
+        if (conversation.getUnreadCountUser1() > 0) {
+            userRepository.adjustUnreadCounts(conversation.getMatch().getUserOne().getUserID(), 0, delta);
+        }
+        if (conversation.getUnreadCountUser2() > 0) {
+            userRepository.adjustUnreadCounts(conversation.getMatch().getUserTwo().getUserID(), 0, delta);
         }
+    }
+
+    private boolean countsTowardUnread(Conversation conversation) {
+        return conversation.getMatch().getIsActive() && isConversationVisibleForUser(conversation);
+    }
 
-        // Check if the last message is read by this user (using read_at timestamp)
-        return lastMessage.getReadAt() == null;
+    private boolean isConversationVisibleForUser(Conversation conversation) {
+        // Conversation is visible if it's not deleted for both users
+        return !(conversation.getDeletedForUser1() && conversation.getDeletedForUser2());
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import magnolia.datingpulse.DatingPulse.config.TokenRevocationCache;
 import magnolia.datingpulse.DatingPulse.entity.User;
 import magnolia.datingpulse.DatingPulse.repositories.UserRepository;
 import magnolia.datingpulse.DatingPulse.security.DataEncryptionService;
@@ -16,6 +17,8 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 
+import static magnolia.datingpulse.DatingPulse.util.TransactionHooks.afterCommit;
+
 /**
  * GDPR Compliance Service
  * Handles data export, deletion, and privacy compliance operations
@@ -27,6 +30,7 @@ import java.util.*;
 public class GdprComplianceService {
 
     private final UserRepository userRepository;
+    private final TokenRevocationCache tokenRevocationCache;
     private final DataEncryptionService encryptionService;
     private final ObjectMapper objectMapper;
 
@@ -134,6 +138,9 @@ public class GdprComplianceService {
         // user.setAccountStatus("DELETION_PENDING");
         user.setStatus("BANNED"); // Use existing status field instead
         userRepository.save(user);
+        // Tokens are not checked against the user's status, so refuse the ones already issued
+        Long userId = user.getId();
+        afterCommit(() -> tokenRevocationCache.revoke(userId));
 
         logGdprAction(user.getId(), "DELETION_REQUESTED", 
                 "Account deletion requested" + (reason != null ? " with reason: " + reason : ""));
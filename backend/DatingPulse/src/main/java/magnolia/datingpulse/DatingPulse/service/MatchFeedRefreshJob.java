@@ -0,0 +1,49 @@
+package magnolia.datingpulse.DatingPulse.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchFeedCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps recently used matching feeds precomputed so feed opens are served from {@link MatchFeedCache}
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MatchFeedRefreshJob {
+
+    private final MatchFeedCache matchFeedCache;
+    private final MatchingService matchingService;
+
+    @Value("${app.matching.feed.refresh-interval-ms:300000}")
+    private long refreshIntervalMillis;
+
+    @Value("${app.matching.feed.idle-timeout-ms:1800000}")
+    private long idleTimeoutMillis;
+
+    /**
+     * Drop feeds of users who stopped opening them, then rebuild stale or invalidated ones
+     */
+    @Scheduled(fixedDelayString = "${app.matching.feed.refresh-interval-ms:300000}",
+            initialDelayString = "${app.matching.feed.refresh-interval-ms:300000}")
+    public void refreshFeeds() {
+        int evicted = matchFeedCache.evictIdle(idleTimeoutMillis);
+        List<Long> stale = matchFeedCache.usersNeedingRefresh(refreshIntervalMillis);
+
+        int refreshed = 0;
+        for (Long userId : stale) {
+            try {
+                matchingService.refreshFeed(userId);
+                refreshed++;
+            } catch (Exception e) {
+                log.warn("Failed to refresh matching feed for user {}: {}", userId, e.getMessage());
+            }
+        }
+        log.debug("Matching feeds refreshed: {}, evicted: {}, cached: {}", refreshed, evicted, matchFeedCache.size());
+    }
+}
@@ -1,6 +1,7 @@
 package magnolia.datingpulse.DatingPulse.service;
 
 import lombok.RequiredArgsConstructor;
+import magnolia.datingpulse.DatingPulse.chat.ConversationMembershipCache;
 import magnolia.datingpulse.DatingPulse.dto.MatchDTO;
 import magnolia.datingpulse.DatingPulse.entity.Match;
 import magnolia.datingpulse.DatingPulse.entity.User;
@@ -22,6 +23,8 @@ public class MatchService {
     private final UserRepository userRepository;
     private final MatchMapper matchMapper;
     private final LikeService likeService;
+    private final ConversationMembershipCache membershipCache;
+    private final ConversationService conversationService;
 
     @Transactional
     public MatchDTO createMatch(Long userOneId, Long userTwoId, String matchSource) {
@@ -52,6 +55,9 @@ public class MatchService {
                 // Extend expiry by 30 days from now
                 existing.setExpiresAt(LocalDateTime.now().plusDays(30));
                 Match updated = matchRepository.save(existing);
+                // A conversation loaded while the match was inactive is cached as inactive
+                membershipCache.evictMatch(existing.getId());
+                conversationService.matchActivityChanged(existing, false);
                 return matchMapper.toDTO(updated);
             } else {
                 throw new IllegalArgumentException("Match already exists between users " + userOneId + " and " + userTwoId);
@@ -136,14 +142,17 @@ public class MatchService {
         if (matchDTO.getMatchSource() != null) {
             existing.setMatchSource(matchDTO.getMatchSource());
         }
+        boolean wasActive = existing.getIsActive();
         if (matchDTO.getIsActive() != null) {
             existing.setIsActive(matchDTO.getIsActive());
+            membershipCache.evictMatch(matchId);
         }
         if (matchDTO.getExpiresAt() != null) {
             existing.setExpiresAt(matchDTO.getExpiresAt());
         }
 
         Match updated = matchRepository.save(existing);
+        conversationService.matchActivityChanged(existing, wasActive);
         return matchMapper.toDTO(updated);
     }
 
@@ -152,8 +161,11 @@ public class MatchService {
         Match match = matchRepository.findById(matchId)
                 .orElseThrow(() -> new IllegalArgumentException("Match not found with ID: " + matchId));
 
+        boolean wasActive = match.getIsActive();
         match.setIsActive(false);
         matchRepository.save(match);
+        membershipCache.evictMatch(matchId);
+        conversationService.matchActivityChanged(match, wasActive);
     }
 
     @Transactional
@@ -188,6 +200,8 @@ public class MatchService {
         for (Match match : expiredMatches) {
             match.setIsActive(false);
             matchRepository.save(match);
+            membershipCache.evictMatch(match.getId());
+            conversationService.matchActivityChanged(match, true);
         }
     }
 
@@ -197,6 +211,7 @@ public class MatchService {
             throw new IllegalArgumentException("Match not found with ID: " + matchId);
         }
         matchRepository.deleteById(matchId);
+        membershipCache.evictMatch(matchId);
     }
 
     @Transactional(readOnly = true)
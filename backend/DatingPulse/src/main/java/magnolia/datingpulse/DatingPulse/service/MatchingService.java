@@ -1,24 +1,33 @@
 package magnolia.datingpulse.DatingPulse.service;
 
+import magnolia.datingpulse.DatingPulse.algorithm.CandidateIndex;
 import magnolia.datingpulse.DatingPulse.algorithm.CompatibilityCalculator;
+import magnolia.datingpulse.DatingPulse.algorithm.FeedCursor;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchCandidate;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchFeedCache;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchScoringEngine;
+import magnolia.datingpulse.DatingPulse.algorithm.RankedFeed;
+import magnolia.datingpulse.DatingPulse.algorithm.ScoredCandidate;
 import magnolia.datingpulse.DatingPulse.entity.User;
 import magnolia.datingpulse.DatingPulse.entity.UserProfile;
-import magnolia.datingpulse.DatingPulse.entity.SwipeHistory;
-import magnolia.datingpulse.DatingPulse.entity.BlockedUser;
 import magnolia.datingpulse.DatingPulse.repositories.UserRepository;
 import magnolia.datingpulse.DatingPulse.repositories.UserProfileRepository;
 import magnolia.datingpulse.DatingPulse.repositories.SwipeHistoryRepository;
 import magnolia.datingpulse.DatingPulse.repositories.BlockedUserRepository;
+import magnolia.datingpulse.DatingPulse.dto.MatchPageDTO;
 import magnolia.datingpulse.DatingPulse.dto.UserProfileDTO;
 import magnolia.datingpulse.DatingPulse.mapper.UserProfileMapper;
+import magnolia.datingpulse.DatingPulse.util.LongHashSet;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.Comparator;
-import java.util.Optional;
 
 /**
  * Service for finding and ranking potential matches for users
@@ -27,12 +36,19 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class MatchingService {
 
+    private static final double MIN_COMPATIBILITY_SCORE = 0.1;
+    private static final double NO_MIN_SCORE = Double.NEGATIVE_INFINITY;
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final UserProfileRepository userProfileRepository;
     private final SwipeHistoryRepository swipeHistoryRepository;
     private final BlockedUserRepository blockedUserRepository;
     private final CompatibilityCalculator compatibilityCalculator;
     private final UserProfileMapper userProfileMapper;
+    private final CandidateIndex candidateIndex;
+    private final MatchScoringEngine scoringEngine;
+    private final MatchFeedCache matchFeedCache;
 
     /**
      * Find potential matches for a user based on their preferences
@@ -40,44 +56,83 @@ public class MatchingService {
      */
     @Transactional(readOnly = true)
     public List<UserProfileDTO> findPotentialMatches(Long userId, int limit) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
+        return findPotentialMatches(userId, null, limit).getMatches();
+    }
+
+    /**
+     * Find one page of potential matches, continuing after {@code cursor} (null for the first page)
+     * Served from the user's precomputed feed in {@link MatchFeedCache}, rebuilt from the in-memory
+     * {@link CandidateIndex} when missing. Pages reaching past the cached depth rank only the
+     * candidates after the feed's last entry, so a deep page costs the same as the first one.
+     * Only the profiles on the page are loaded and mapped to DTOs
+     */
+    @Transactional(readOnly = true)
+    public MatchPageDTO findPotentialMatches(Long userId, String cursor, int limit) {
+        limit = pageSize(limit);
+        FeedCursor after = decodeCursor(cursor);
+        MatchCandidate self = null;
 
-        Optional<UserProfile> userProfileOpt = userProfileRepository.findByUser(user);
-        if (userProfileOpt.isEmpty()) {
-            throw new IllegalArgumentException("User profile not found for user ID: " + userId);
+        RankedFeed feed = matchFeedCache.get(userId);
+        if (feed == null) {
+            self = MatchCandidate.from(getUserProfile(userId));
+            feed = buildFeed(userId, self, matchFeedCache.getFeedSize());
         }
 
-        UserProfile userProfile = userProfileOpt.get();
-        
-        // Get all active user profiles except the current user
-        List<UserProfile> potentialMatches = userProfileRepository.findAll().stream()
-                .filter(profile -> !profile.getUserID().equals(userId))
-                .filter(profile -> profile.getUser().getStatus().equals("ACTIVE"))
-                .filter(profile -> !hasUserSwipedBefore(user, profile.getUser()))
-                .filter(profile -> !isUserBlocked(user, profile.getUser()))
-                .filter(profile -> isBasicCompatible(userProfile, profile))
-                .collect(Collectors.toList());
+        int from = after != null ? feed.indexAfter(after) : 0;
+        List<ScoredCandidate> ranked = feed.page(from, limit);
+        boolean hasMore = from + ranked.size() < feed.size() || !feed.isExhausted();
 
-        // Calculate compatibility scores and sort
-        return potentialMatches.stream()
-                .map(profile -> {
-                    double score = compatibilityCalculator.calculateOverallCompatibility(userProfile, profile);
-                    UserProfileDTO dto = userProfileMapper.toDTO(profile);
-                    dto.setCompatibilityScore(score);
-                    return dto;
-                })
-                .filter(dto -> dto.getCompatibilityScore() > 0.1) // Minimum compatibility threshold
-                .sorted(Comparator.comparingDouble(UserProfileDTO::getCompatibilityScore).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        int remaining = limit - ranked.size();
+        if (remaining > 0 && !feed.isExhausted()) {
+            // Continue after the feed's last entry, or after the cursor if it is already past it
+            ScoredCandidate last = feed.last();
+            FeedCursor tail = last != null && (after == null || after.admits(last.getScore(), last.getUserId()))
+                    ? FeedCursor.after(last) : after;
+            if (self == null) {
+                self = MatchCandidate.from(getUserProfile(userId));
+            }
+            List<ScoredCandidate> rest = scoringEngine.rank(self, loadExcludedUserIds(userId),
+                    candidatePool(), candidate -> true, MatchScoringEngine.ANY_DISTANCE,
+                    MIN_COMPATIBILITY_SCORE, remaining, tail);
+            ranked = new ArrayList<>(ranked);
+            ranked.addAll(rest);
+            hasMore = rest.size() == remaining;
+        }
+        return toPage(ranked, limit, hasMore);
+    }
+
+    /**
+     * Rebuild a user's cached feed from the candidate index; used by the background refresh.
+     * Users no longer in the index are dropped from the cache; nothing is done before the index is loaded.
+     */
+    public void refreshFeed(Long userId) {
+        if (!candidateIndex.isLoaded()) {
+            return;
+        }
+        MatchCandidate self = candidateIndex.get(userId);
+        if (self == null) {
+            matchFeedCache.evict(userId);
+            return;
+        }
+        buildFeed(userId, self, matchFeedCache.getFeedSize());
     }
 
     /**
      * Find potential matches within a specific distance radius
+     * Uses the candidate index's spatial grid so only nearby cells are scanned
      */
     @Transactional(readOnly = true)
     public List<UserProfileDTO> findPotentialMatchesNearby(Long userId, double radiusKm, int limit) {
+        return findPotentialMatchesNearby(userId, radiusKm, null, limit).getMatches();
+    }
+
+    /**
+     * Find one page of potential matches within a distance radius, continuing after {@code cursor}
+     */
+    @Transactional(readOnly = true)
+    public MatchPageDTO findPotentialMatchesNearby(Long userId, double radiusKm, String cursor, int limit) {
+        limit = pageSize(limit);
+        FeedCursor after = decodeCursor(cursor);
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
 
@@ -88,34 +143,14 @@ public class MatchingService {
             throw new IllegalArgumentException("User location not set");
         }
 
-        // Get all profiles and filter by distance
-        List<UserProfile> nearbyMatches = userProfileRepository.findAll().stream()
-                .filter(profile -> !profile.getUserID().equals(userId))
-                .filter(profile -> profile.getUser().getStatus().equals("ACTIVE"))
-                .filter(profile -> profile.getLatitude() != null && profile.getLongitude() != null)
-                .filter(profile -> {
-                    double distance = compatibilityCalculator.calculateDistanceInKm(
-                        userProfile.getLatitude(), userProfile.getLongitude(),
-                        profile.getLatitude(), profile.getLongitude()
-                    );
-                    return distance <= radiusKm;
-                })
-                .filter(profile -> !hasUserSwipedBefore(user, profile.getUser()))
-                .filter(profile -> !isUserBlocked(user, profile.getUser()))
-                .filter(profile -> isBasicCompatible(userProfile, profile))
-                .collect(Collectors.toList());
-
-        // Calculate compatibility scores and sort
-        return nearbyMatches.stream()
-                .map(profile -> {
-                    double score = compatibilityCalculator.calculateOverallCompatibility(userProfile, profile);
-                    UserProfileDTO dto = userProfileMapper.toDTO(profile);
-                    dto.setCompatibilityScore(score);
-                    return dto;
-                })
-                .sorted(Comparator.comparingDouble(UserProfileDTO::getCompatibilityScore).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        // Only visit grid cells around the user, then apply the exact distance check
+        double latitude = userProfile.getLatitude();
+        double longitude = userProfile.getLongitude();
+        List<ScoredCandidate> ranked = scoringEngine.rank(MatchCandidate.from(userProfile), loadExcludedUserIds(userId),
+                candidateIndex.isLoaded() ? candidateIndex.candidatesNear(latitude, longitude, radiusKm) : candidatePool(),
+                candidate -> true,
+                radiusKm, NO_MIN_SCORE, limit, after);
+        return toPage(ranked, limit, ranked.size() == limit);
     }
 
     /**
@@ -123,41 +158,42 @@ public class MatchingService {
      */
     @Transactional(readOnly = true)
     public List<UserProfileDTO> findPotentialMatchesByAge(Long userId, int minAge, int maxAge, int limit) {
+        return findPotentialMatchesByAge(userId, minAge, maxAge, null, limit).getMatches();
+    }
+
+    /**
+     * Find one page of potential matches by age range, continuing after {@code cursor}
+     */
+    @Transactional(readOnly = true)
+    public MatchPageDTO findPotentialMatchesByAge(Long userId, int minAge, int maxAge, String cursor, int limit) {
+        limit = pageSize(limit);
+        FeedCursor after = decodeCursor(cursor);
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
 
         UserProfile userProfile = userProfileRepository.findByUser(user)
                 .orElseThrow(() -> new IllegalArgumentException("User profile not found for user ID: " + userId));
 
-        // Get profiles within age range
-        List<UserProfile> ageMatches = userProfileRepository.findAll().stream()
-                .filter(profile -> !profile.getUserID().equals(userId))
-                .filter(profile -> profile.getUser().getStatus().equals("ACTIVE"))
-                .filter(profile -> profile.getAge() != null)
-                .filter(profile -> profile.getAge() >= minAge && profile.getAge() <= maxAge)
-                .filter(profile -> !hasUserSwipedBefore(user, profile.getUser()))
-                .filter(profile -> !isUserBlocked(user, profile.getUser()))
-                .filter(profile -> isBasicCompatible(userProfile, profile))
-                .collect(Collectors.toList());
-
-        // Calculate compatibility scores and sort
-        return ageMatches.stream()
-                .map(profile -> {
-                    double score = compatibilityCalculator.calculateOverallCompatibility(userProfile, profile);
-                    UserProfileDTO dto = userProfileMapper.toDTO(profile);
-                    dto.setCompatibilityScore(score);
-                    return dto;
-                })
-                .sorted(Comparator.comparingDouble(UserProfileDTO::getCompatibilityScore).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        List<ScoredCandidate> ranked = scoringEngine.rank(MatchCandidate.from(userProfile), loadExcludedUserIds(userId),
+                candidatePool(),
+                candidate -> candidate.hasAge() && candidate.getAge() >= minAge && candidate.getAge() <= maxAge,
+                MatchScoringEngine.ANY_DISTANCE, NO_MIN_SCORE, limit, after);
+        return toPage(ranked, limit, ranked.size() == limit);
     }
 
     /**
      * Get compatibility score between two users
+     * Uses the indexed interest bitsets when both users are in the candidate index,
+     * so neither profile's interests have to be loaded
      */
     @Transactional(readOnly = true)
     public double getCompatibilityScore(Long userId1, Long userId2) {
+        MatchCandidate candidate1 = candidateIndex.get(userId1);
+        MatchCandidate candidate2 = candidateIndex.get(userId2);
+        if (candidate1 != null && candidate2 != null) {
+            return compatibilityCalculator.calculateOverallCompatibility(candidate1, candidate2);
+        }
+
         UserProfile profile1 = getUserProfile(userId1);
         UserProfile profile2 = getUserProfile(userId2);
         
@@ -202,18 +238,101 @@ public class MatchingService {
     }
 
     /**
-     * Check if user has already swiped on another user
+     * Load everyone the user has swiped on or shares a block with (either direction)
+     * in two queries, instead of probing the database once per candidate
+     */
+    private LongHashSet loadExcludedUserIds(Long userId) {
+        List<Long> swipedIds = swipeHistoryRepository.findTargetUserIdsByUserId(userId);
+        List<Long> blockedIds = blockedUserRepository.findBlockRelatedUserIds(userId);
+
+        LongHashSet excluded = new LongHashSet(swipedIds.size() + blockedIds.size());
+        excluded.addAll(swipedIds);
+        excluded.addAll(blockedIds);
+        return excluded;
+    }
+
+    /**
+     * The candidate index once its startup load has finished; until then every active profile
+     * read from the database, so early requests never rank a partial pool
+     */
+    private Collection<MatchCandidate> candidatePool() {
+        if (candidateIndex.isLoaded()) {
+            return candidateIndex.candidates();
+        }
+        return userProfileRepository.findAll().stream()
+                .filter(profile -> profile.getUser() != null && "ACTIVE".equals(profile.getUser().getStatus()))
+                .map(MatchCandidate::from)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Rank the full candidate pool for the user and cache the result.
+     * The cache stamp is taken before the exclusions are read, so a swipe or block
+     * committed meanwhile prevents this feed from being stored.
      */
-    private boolean hasUserSwipedBefore(User user, User targetUser) {
-        return swipeHistoryRepository.findByUserAndTargetUser(user, targetUser).isPresent();
+    private RankedFeed buildFeed(Long userId, MatchCandidate self, int depth) {
+        long stamp = matchFeedCache.stamp(userId);
+        List<ScoredCandidate> ranked = scoringEngine.rank(self, loadExcludedUserIds(userId),
+                candidatePool(), candidate -> true, MatchScoringEngine.ANY_DISTANCE,
+                MIN_COMPATIBILITY_SCORE, depth, null);
+        RankedFeed feed = new RankedFeed(ranked, depth, System.currentTimeMillis());
+        matchFeedCache.store(userId, feed, stamp);
+        return feed;
     }
 
     /**
-     * Check if users have blocked each other
+     * Hydrate a ranked page; the next cursor points after its last entry when more may follow
      */
-    private boolean isUserBlocked(User user, User targetUser) {
-        return blockedUserRepository.findByBlockerAndBlocked(user, targetUser).isPresent() ||
-               blockedUserRepository.findByBlockerAndBlocked(targetUser, user).isPresent();
+    /**
+     * Requested page size capped at {@link #MAX_PAGE_SIZE}, since it sizes the ranking buffers
+     */
+    private static int pageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private MatchPageDTO toPage(List<ScoredCandidate> ranked, int limit, boolean hasMore) {
+        String nextCursor = hasMore && limit > 0 && ranked.size() == limit
+                ? FeedCursor.after(ranked.get(ranked.size() - 1)).encode()
+                : null;
+        return MatchPageDTO.builder()
+                .matches(hydrate(ranked))
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private FeedCursor decodeCursor(String cursor) {
+        return cursor == null || cursor.isBlank() ? null : FeedCursor.decode(cursor);
+    }
+
+    /**
+     * Load and map only the ranked winners, preserving score order.
+     * Users deactivated since they were indexed are dropped.
+     */
+    private List<UserProfileDTO> hydrate(List<ScoredCandidate> ranked) {
+        if (ranked.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> ids = ranked.stream()
+                .map(ScoredCandidate::getUserId)
+                .collect(Collectors.toList());
+        Map<Long, UserProfile> profilesById = userProfileRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(UserProfile::getUserID, Function.identity()));
+
+        List<UserProfileDTO> result = new ArrayList<>(ranked.size());
+        for (ScoredCandidate candidate : ranked) {
+            UserProfile profile = profilesById.get(candidate.getUserId());
+            if (profile == null || !"ACTIVE".equals(profile.getUser().getStatus())) {
+                continue;
+            }
+            UserProfileDTO dto = userProfileMapper.toDTO(profile);
+            dto.setCompatibilityScore(candidate.getScore());
+            result.add(dto);
+        }
+        return result;
     }
 
     /**
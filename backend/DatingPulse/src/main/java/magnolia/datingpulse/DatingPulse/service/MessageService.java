@@ -1,8 +1,16 @@
 package magnolia.datingpulse.DatingPulse.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import magnolia.datingpulse.DatingPulse.chat.ConversationTail;
+import magnolia.datingpulse.DatingPulse.chat.MessageBatchWriter;
+import magnolia.datingpulse.DatingPulse.chat.MessageTailCache;
+import magnolia.datingpulse.DatingPulse.chat.PendingMessage;
+import magnolia.datingpulse.DatingPulse.dto.ChatMessageDTO;
 import magnolia.datingpulse.DatingPulse.dto.MessageDTO;
+import magnolia.datingpulse.DatingPulse.dto.MessagePageDTO;
 import magnolia.datingpulse.DatingPulse.entity.Conversation;
+import magnolia.datingpulse.DatingPulse.entity.Match;
 import magnolia.datingpulse.DatingPulse.entity.Message;
 import magnolia.datingpulse.DatingPulse.entity.User;
 import magnolia.datingpulse.DatingPulse.mapper.MessageMapper;
@@ -10,25 +18,40 @@ import magnolia.datingpulse.DatingPulse.repositories.ConversationRepository;
 import magnolia.datingpulse.DatingPulse.repositories.MessageRepository;
 import magnolia.datingpulse.DatingPulse.repositories.UserRepository;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import static magnolia.datingpulse.DatingPulse.util.TransactionHooks.afterCommit;
+
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class MessageService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final MessageRepository messageRepository;
     private final ConversationRepository conversationRepository;
     private final UserRepository userRepository;
     private final MessageMapper messageMapper;
     private final ConversationService conversationService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageBatchWriter messageBatchWriter;
+    private final MessageTailCache messageTailCache;
 
     @Transactional
     public MessageDTO sendMessage(MessageDTO messageDTO) {
@@ -85,8 +108,31 @@ public class MessageService {
 
         // Update conversation's last message
         conversationService.updateLastMessage(messageDTO.getConversationID(), saved.getMessageID());
+        adjustUnreadCounters(conversation, receiver.getUserID(), 1);
 
-        return messageMapper.toDTO(saved);
+        MessageDTO sent = messageMapper.toDTO(saved);
+        messageTailCache.messageAdded(sent);
+        return sent;
+    }
+
+    /**
+     * Write messages the chat pipeline has already authorized and delivered: multi-row inserts,
+     * then per conversation one last-message update and one unread counter change per receiver
+     */
+    @Transactional
+    public void persistAcceptedMessages(List<PendingMessage> messages) {
+        messageBatchWriter.insert(messages);
+
+        Map<Long, List<PendingMessage>> byConversation = messages.stream()
+                .collect(Collectors.groupingBy(PendingMessage::getConversationId, LinkedHashMap::new, Collectors.toList()));
+        byConversation.forEach((conversationId, received) -> {
+            conversationRepository.updateLastMessageId(conversationId, received.get(received.size() - 1).getMessageId());
+            received.stream()
+                    .collect(Collectors.groupingBy(PendingMessage::getReceiverId))
+                    .forEach((receiverId, unread) -> adjustUnreadCounters(conversationId,
+                            unread.get(0).isReceiverIsUserOne(), receiverId, unread.size()));
+        });
+        messages.forEach(message -> messageTailCache.messageAdded(toDTO(message)));
     }
 
     @Transactional(readOnly = true)
@@ -109,13 +155,80 @@ public class MessageService {
 
     @Transactional(readOnly = true)
     public List<MessageDTO> getVisibleMessagesForUser(Long conversationId, Long userId) {
-        List<MessageDTO> allMessages = getMessagesInConversation(conversationId);
-        
-        return allMessages.stream()
-                .filter(message -> isMessageVisibleForUser(message, userId))
+        if (!conversationRepository.existsById(conversationId)) {
+            throw new IllegalArgumentException("Conversation not found with ID: " + conversationId);
+        }
+
+        return messageRepository.findVisibleInConversation(conversationId, userId).stream()
+                .map(messageMapper::toDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * One page of the messages visible to a user, oldest first. Without a cursor this is the
+     * latest {@code limit} messages; {@code beforeMessageId} pages back through older history
+     * and {@code afterMessageId} fetches what arrived since. Rows are read by keyset on
+     * (sent_at, message_id) so a page costs the same at any depth.
+     *
+     * <p>The latest page comes from {@link MessageTailCache} when it can answer. SUPPORTS rather
+     * than a transaction, so a cache hit does not check out a connection.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public MessagePageDTO getMessageHistory(Long conversationId, Long userId, Long beforeMessageId,
+                                            Long afterMessageId, int limit) {
+        if (beforeMessageId != null && afterMessageId != null) {
+            throw new IllegalArgumentException("Specify at most one of before and after");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        int pageSize = Math.min(limit, MAX_HISTORY_PAGE_SIZE);
+        boolean latest = beforeMessageId == null && afterMessageId == null;
+        if (latest) {
+            MessagePageDTO cached = messageTailCache.firstPage(conversationId, userId, pageSize);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        if (!conversationRepository.existsById(conversationId)) {
+            throw new IllegalArgumentException("Conversation not found with ID: " + conversationId);
+        }
+        if (latest) {
+            MessagePageDTO loaded = loadTail(conversationId).firstPage(userId, pageSize);
+            if (loaded != null) {
+                return loaded;
+            }
+        }
+
+        // One extra row tells whether another page follows
+        Pageable probe = PageRequest.of(0, pageSize + 1);
+        List<Message> rows;
+        boolean ascending = false;
+        if (beforeMessageId != null) {
+            LocalDateTime sentAt = findSentAt(conversationId, beforeMessageId);
+            rows = messageRepository.findVisibleBefore(conversationId, userId, sentAt, beforeMessageId, probe);
+        } else if (afterMessageId != null) {
+            LocalDateTime sentAt = findSentAt(conversationId, afterMessageId);
+            rows = messageRepository.findVisibleAfter(conversationId, userId, sentAt, afterMessageId, probe);
+            ascending = true;
+        } else {
+            rows = messageRepository.findLatestVisible(conversationId, userId, probe);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        List<MessageDTO> messages = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (int i = 0; i < rows.size() && i < pageSize; i++) {
+            messages.add(messageMapper.toDTO(rows.get(i)));
+        }
+        if (!ascending) {
+            Collections.reverse(messages);
+        }
+        return MessagePageDTO.builder()
+                .messages(messages)
+                .hasMore(hasMore)
+                .build();
+    }
+
     @Transactional(readOnly = true)
     public List<MessageDTO> getUnreadMessagesForUser(Long userId) {
         User user = userRepository.findById(userId)
@@ -139,27 +252,46 @@ public class MessageService {
         }
 
         // Mark message as read using both read_at timestamp and is_read boolean
-        message.setReadAt(LocalDateTime.now());
+        LocalDateTime readAt = LocalDateTime.now();
+        if (messageRepository.markAsReadIfUnread(messageId, readAt) > 0) {
+            adjustUnreadCounters(message.getConversation(), userId, -1);
+        }
+        message.setReadAt(readAt);
         message.setIsRead(true);
         Message updated = messageRepository.save(message);
-        return messageMapper.toDTO(updated);
+        return cacheUpdate(messageMapper.toDTO(updated));
     }
 
+    /**
+     * Mark every unread message the user received in the conversation as read with one UPDATE,
+     * then send the other participant a single CONVERSATION_READ receipt once committed
+     *
+     * @return the number of messages marked read
+     */
     @Transactional
-    public void markAllMessagesAsReadInConversation(Long conversationId, Long userId) {
+    public int markAllMessagesAsReadInConversation(Long conversationId, Long userId) {
         Conversation conversation = conversationRepository.findById(conversationId)
                 .orElseThrow(() -> new IllegalArgumentException("Conversation not found with ID: " + conversationId));
 
-        List<Message> messages = messageRepository.findByConversationOrderBySentAtAsc(conversation);
-        
-        messages.stream()
-                .filter(message -> message.getReceiver().getUserID().equals(userId))
-                .filter(message -> message.getReadAt() == null) // Changed to use read_at timestamp
-                .forEach(message -> {
-                    message.setReadAt(LocalDateTime.now()); // Changed to use read_at timestamp
-                    message.setIsRead(true); // Also set is_read boolean
-                    messageRepository.save(message);
-                });
+        LocalDateTime readAt = LocalDateTime.now();
+        int updated = messageRepository.markAllAsRead(conversationId, userId, readAt);
+        if (updated > 0) {
+            messageTailCache.conversationRead(conversationId, userId, readAt);
+            adjustUnreadCounters(conversation, userId, -updated);
+            Match match = conversation.getMatch();
+            String senderUsername = userId.equals(match.getUserOne().getUserID())
+                    ? match.getUserTwo().getUsername()
+                    : match.getUserOne().getUsername();
+            ChatMessageDTO receipt = ChatMessageDTO.builder()
+                    .type("CONVERSATION_READ")
+                    .conversationId(conversationId)
+                    .receiverId(userId)
+                    .readCount(updated)
+                    .timestamp(System.currentTimeMillis())
+                    .build();
+            afterCommit(() -> sendReadReceipt(senderUsername, receipt));
+        }
+        return updated;
     }
 
     @Transactional
@@ -180,7 +312,7 @@ public class MessageService {
         message.setContent(newContent);
         message.setIsEdited(true); // Set edited flag
         Message updated = messageRepository.save(message);
-        return messageMapper.toDTO(updated);
+        return cacheUpdate(messageMapper.toDTO(updated));
     }
 
     @Transactional
@@ -192,20 +324,29 @@ public class MessageService {
         if (message.getSender().getUserID().equals(userId)) {
             message.setDeletedForSender(true);
         } else if (message.getReceiver().getUserID().equals(userId)) {
+            if (messageRepository.deleteForReceiverIfUnread(messageId) > 0) {
+                adjustUnreadCounters(message.getConversation(), userId, -1);
+            }
             message.setDeletedForReceiver(true);
         } else {
             throw new IllegalArgumentException("User is not part of this message");
         }
 
-        messageRepository.save(message);
+        cacheUpdate(messageMapper.toDTO(messageRepository.save(message)));
     }
 
     @Transactional
     public void deleteMessage(Long messageId) {
-        if (!messageRepository.existsById(messageId)) {
-            throw new IllegalArgumentException("Message not found with ID: " + messageId);
+        Message message = messageRepository.findById(messageId)
+                .orElseThrow(() -> new IllegalArgumentException("Message not found with ID: " + messageId));
+
+        // Decide from the row, not the loaded entity: a read or receiver delete may have committed since
+        if (messageRepository.deleteIfUnread(messageId) > 0) {
+            adjustUnreadCounters(message.getConversation(), message.getReceiver().getUserID(), -1);
+        } else {
+            messageRepository.deleteByMessageId(messageId);
         }
-        messageRepository.deleteById(messageId);
+        messageTailCache.messageDeleted(message.getConversation().getConversationID(), messageId);
     }
 
     @Transactional
@@ -219,17 +360,16 @@ public class MessageService {
 
         message.setStatus(status);
         Message updated = messageRepository.save(message);
-        return messageMapper.toDTO(updated);
+        return cacheUpdate(messageMapper.toDTO(updated));
     }
 
+    /**
+     * Served from the user's denormalized counter, see {@link #adjustUnreadCounters}
+     */
     @Transactional(readOnly = true)
     public long countUnreadMessagesForUser(Long userId) {
-        User user = userRepository.findById(userId)
+        return userRepository.findUnreadMessageCount(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
-
-        return messageRepository.findByReceiverAndReadAtIsNull(user).stream()
-                .filter(message -> !message.getDeletedForReceiver()) // Use correct deletion field
-                .count();
     }
 
     @Transactional(readOnly = true)
@@ -249,17 +389,88 @@ public class MessageService {
                message.getReceiver().getUserID().equals(userId);
     }
 
-    private boolean isMessageVisibleForUser(MessageDTO message, Long userId) {
-        // Message is visible if it's not deleted for the specific user
-        if (message.getSenderID().equals(userId)) {
-            return !Boolean.TRUE.equals(message.getDeletedForSender());
-        } else if (message.getReceiverID().equals(userId)) {
-            return !Boolean.TRUE.equals(message.getDeletedForReceiver());
+    /**
+     * Apply a change in a receiver's unread messages within one conversation to the conversation's
+     * per-participant counter and the receiver's totals. Every caller passes only the rows its own
+     * conditional UPDATE flipped, so concurrent sends, reads and deletes never double count. The
+     * conversation row is updated first: its lock orders concurrent changes to the same conversation,
+     * and the count read back under it tells whether the conversation became unread (0 to n) or read
+     * (n to 0), which moves the receiver's unread conversation count if the conversation counts there,
+     * see {@link ConversationService#countUnreadConversationsForUser}.
+     */
+    private void adjustUnreadCounters(Conversation conversation, Long receiverId, int delta) {
+        boolean userOne = receiverId.equals(conversation.getMatch().getUserOne().getUserID());
+        adjustUnreadCounters(conversation.getConversationID(), userOne, receiverId, delta);
+    }
+
+    private void adjustUnreadCounters(Long conversationId, boolean userOne, Long receiverId, int delta) {
+        conversationRepository.adjustUnreadCount(conversationId, userOne, delta);
+        int unread = conversationRepository.findUnreadCount(conversationId, userOne);
+
+        int conversations = 0;
+        if (delta > 0 && unread == delta) {
+            conversations = 1;
+        } else if (delta < 0 && unread == 0) {
+            conversations = -1;
         }
-        return false; // User is not part of this message
+        if (conversations != 0 && !conversationRepository.countsTowardUnread(conversationId)) {
+            conversations = 0;
+        }
+        userRepository.adjustUnreadCounts(receiverId, delta, conversations);
+    }
+
+    private void sendReadReceipt(String senderUsername, ChatMessageDTO receipt) {
+        try {
+            messagingTemplate.convertAndSendToUser(senderUsername, "/queue/read-receipts", receipt);
+        } catch (Exception e) {
+            log.error("Error sending read receipt for conversation {}: {}", receipt.getConversationId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read the conversation's newest messages into {@link MessageTailCache}
+     */
+    private ConversationTail loadTail(Long conversationId) {
+        int capacity = messageTailCache.getMessagesPerConversation();
+        long stamp = messageTailCache.stamp(conversationId);
+        List<Message> rows = messageRepository.findLatestInConversation(conversationId, PageRequest.of(0, capacity));
+        List<MessageDTO> oldestFirst = new ArrayList<>(rows.size());
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            oldestFirst.add(messageMapper.toDTO(rows.get(i)));
+        }
+        return messageTailCache.load(conversationId, stamp, oldestFirst, rows.size() < capacity);
+    }
+
+    private MessageDTO cacheUpdate(MessageDTO message) {
+        messageTailCache.messageUpdated(message);
+        return message;
+    }
+
+    private static MessageDTO toDTO(PendingMessage pending) {
+        // Matches the row MessageBatchWriter inserts
+        MessageDTO message = new MessageDTO();
+        message.setMessageID(pending.getMessageId());
+        message.setConversationID(pending.getConversationId());
+        message.setSenderID(pending.getSenderId());
+        message.setReceiverID(pending.getReceiverId());
+        message.setContent(pending.getContent());
+        message.setType(pending.getType());
+        message.setSentAt(pending.getSentAt());
+        message.setStatus("SENT");
+        message.setIsEdited(false);
+        message.setIsRead(false);
+        message.setDeletedForSender(false);
+        message.setDeletedForReceiver(false);
+        return message;
+    }
+
+    private LocalDateTime findSentAt(Long conversationId, Long messageId) {
+        return messageRepository.findSentAtInConversation(conversationId, messageId)
+                .orElseThrow(() -> new IllegalArgumentException(
+                        "Message " + messageId + " not found in conversation " + conversationId));
     }
 
-    private boolean isValidMessageType(String type) {
+    public static boolean isValidMessageType(String type) {
         return type != null && type.matches("^(TEXT|IMAGE|AUDIO|VIDEO|SYSTEM|FILE)$");
     }
 
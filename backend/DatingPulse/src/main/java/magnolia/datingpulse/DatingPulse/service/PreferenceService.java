@@ -1,6 +1,8 @@
 package magnolia.datingpulse.DatingPulse.service;
 
 import lombok.RequiredArgsConstructor;
+import magnolia.datingpulse.DatingPulse.algorithm.CandidateIndex;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchFeedCache;
 import magnolia.datingpulse.DatingPulse.dto.PreferenceDTO;
 import magnolia.datingpulse.DatingPulse.entity.Preference;
 import magnolia.datingpulse.DatingPulse.entity.UserProfile;
@@ -20,6 +22,8 @@ public class PreferenceService {
     private final PreferenceRepository preferenceRepository;
     private final UserProfileRepository userProfileRepository;
     private final PreferenceMapper preferenceMapper;
+    private final CandidateIndex candidateIndex;
+    private final MatchFeedCache matchFeedCache;
 
     @Transactional
     public PreferenceDTO createPreference(PreferenceDTO preferenceDTO) {
@@ -41,6 +45,9 @@ public class PreferenceService {
         preference.setUserProfile(userProfile);
 
         Preference saved = preferenceRepository.save(preference);
+        userProfile.setPreference(saved);
+        candidateIndex.upsert(userProfile);
+        matchFeedCache.invalidate(userProfile.getUserID());
         return preferenceMapper.toDTO(saved);
     }
 
@@ -176,15 +183,24 @@ public class PreferenceService {
         */
 
         Preference updated = preferenceRepository.save(existing);
+        candidateIndex.upsert(updated.getUserProfile());
+        if (updated.getUserProfile() != null) {
+            matchFeedCache.invalidate(updated.getUserProfile().getUserID());
+        }
         return preferenceMapper.toDTO(updated);
     }
 
     @Transactional
     public void deletePreference(Long id) {
-        if (!preferenceRepository.existsById(id)) {
-            throw new IllegalArgumentException("Preference not found with ID: " + id);
+        Preference preference = preferenceRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Preference not found with ID: " + id));
+        UserProfile userProfile = preference.getUserProfile();
+        preferenceRepository.delete(preference);
+        if (userProfile != null) {
+            userProfile.setPreference(null);
+            candidateIndex.upsert(userProfile);
+            matchFeedCache.invalidate(userProfile.getUserID());
         }
-        preferenceRepository.deleteById(id);
     }
 
     @Transactional(readOnly = true)
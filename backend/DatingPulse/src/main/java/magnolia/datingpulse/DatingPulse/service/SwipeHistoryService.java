@@ -1,6 +1,7 @@
 package magnolia.datingpulse.DatingPulse.service;
 
 import lombok.RequiredArgsConstructor;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchFeedCache;
 import magnolia.datingpulse.DatingPulse.dto.SwipeHistoryDTO;
 import magnolia.datingpulse.DatingPulse.entity.Device;
 import magnolia.datingpulse.DatingPulse.entity.Session;
@@ -27,6 +28,7 @@ public class SwipeHistoryService {
     private final DeviceRepository deviceRepository;
     private final SessionRepository sessionRepository;
     private final SwipeHistoryMapper swipeHistoryMapper;
+    private final MatchFeedCache matchFeedCache;
 
     @Transactional
     public SwipeHistoryDTO recordSwipe(SwipeHistoryDTO swipeDTO) {
@@ -73,6 +75,9 @@ public class SwipeHistoryService {
         }
 
         SwipeHistory saved = swipeHistoryRepository.save(swipe);
+
+        // The target no longer belongs in the user's precomputed feed
+        matchFeedCache.removeCandidate(user.getUserID(), targetUser.getUserID());
         return swipeHistoryMapper.toDTO(saved);
     }
 
@@ -1,6 +1,8 @@
 package magnolia.datingpulse.DatingPulse.service;
 
 import lombok.RequiredArgsConstructor;
+import magnolia.datingpulse.DatingPulse.algorithm.CandidateIndex;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchFeedCache;
 import magnolia.datingpulse.DatingPulse.dto.UserProfileDTO;
 import magnolia.datingpulse.DatingPulse.dto.ProfileResponseDTO;
 import magnolia.datingpulse.DatingPulse.entity.Interest;
@@ -34,6 +36,8 @@ public class UserProfileService {
     private final PreferenceRepository preferenceRepository;
     private final UserProfileMapper userProfileMapper;
     private final ProfileVerificationRepository profileVerificationRepository;
+    private final CandidateIndex candidateIndex;
+    private final MatchFeedCache matchFeedCache;
 
     @Transactional
     public UserProfileDTO createUserProfile(UserProfileDTO profileDTO) {
@@ -78,6 +82,7 @@ public class UserProfileService {
         // }
 
         UserProfile saved = userProfileRepository.save(profile);
+        candidateIndex.upsert(saved);
         return userProfileMapper.toDTO(saved);
     }
 
@@ -212,6 +217,8 @@ public class UserProfileService {
         }
 
         UserProfile updated = userProfileRepository.save(existing);
+        candidateIndex.upsert(updated);
+        matchFeedCache.invalidate(updated.getUserID());
         return userProfileMapper.toDTO(updated);
     }
 
@@ -238,6 +245,8 @@ public class UserProfileService {
         profile.setLatitude(latitude);
         profile.setLongitude(longitude);
         userProfileRepository.save(profile);
+        candidateIndex.upsert(profile);
+        matchFeedCache.invalidate(profile.getUserID());
     }
 
     @Transactional
@@ -256,6 +265,8 @@ public class UserProfileService {
         }
         profile.getInterests().add(interest);
         userProfileRepository.save(profile);
+        candidateIndex.addInterest(profile.getUserID(), interestId);
+        matchFeedCache.invalidate(profile.getUserID());
     }
 
     @Transactional
@@ -272,6 +283,8 @@ public class UserProfileService {
         if (profile.getInterests() != null) {
             profile.getInterests().remove(interest);
             userProfileRepository.save(profile);
+            candidateIndex.removeInterest(profile.getUserID(), interestId);
+            matchFeedCache.invalidate(profile.getUserID());
         }
     }
 
@@ -284,6 +297,8 @@ public class UserProfileService {
                 .orElseThrow(() -> new IllegalArgumentException("Profile not found for user ID: " + userId));
 
         userProfileRepository.delete(profile);
+        candidateIndex.remove(userId);
+        matchFeedCache.removeCandidateEverywhere(userId);
     }
 
     @Transactional(readOnly = true)
@@ -1,9 +1,14 @@
 package magnolia.datingpulse.DatingPulse.service;
 
 import lombok.RequiredArgsConstructor;
+import magnolia.datingpulse.DatingPulse.algorithm.CandidateIndex;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchFeedCache;
+import magnolia.datingpulse.DatingPulse.chat.ConversationMembershipCache;
+import magnolia.datingpulse.DatingPulse.config.TokenRevocationCache;
 import magnolia.datingpulse.DatingPulse.dto.UserDTO;
 import magnolia.datingpulse.DatingPulse.entity.User;
 import magnolia.datingpulse.DatingPulse.mapper.UserMapper;
+import magnolia.datingpulse.DatingPulse.repositories.UserProfileRepository;
 import magnolia.datingpulse.DatingPulse.repositories.UserRepository;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
@@ -17,11 +22,18 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import static magnolia.datingpulse.DatingPulse.util.TransactionHooks.afterCommit;
+
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final UserProfileRepository userProfileRepository;
+    private final CandidateIndex candidateIndex;
+    private final MatchFeedCache matchFeedCache;
+    private final TokenRevocationCache tokenRevocationCache;
+    private final ConversationMembershipCache membershipCache;
     // Password encoder removed since passwords are no longer used
 
     @Transactional
@@ -119,6 +131,8 @@ public class UserService {
                 throw new IllegalArgumentException("Username already exists: " + userDTO.getUsername());
             }
             existing.setUsername(userDTO.getUsername());
+            // Chat addresses participants by username
+            membershipCache.evictUser(userId);
         }
         
         if (userDTO.getEmail() != null && !userDTO.getEmail().equals(existing.getEmail())) {
@@ -132,11 +146,16 @@ public class UserService {
         if (userDTO.getPhone() != null) {
             existing.setPhone(userDTO.getPhone());
         }
-        if (userDTO.getRole() != null) {
+        if (userDTO.getRole() != null && !userDTO.getRole().equals(existing.getRole())) {
             existing.setRole(userDTO.getRole());
+            revokeTokens(userId);
         }
         if (userDTO.getStatus() != null) {
+            if (!userDTO.getStatus().equals(existing.getStatus())) {
+                revokeTokens(userId);
+            }
             existing.setStatus(userDTO.getStatus());
+            refreshCandidateIndex(existing);
         }
         // Note: UserDTO still has isVerified for backwards compatibility, 
         // but entity now has emailVerified and phoneVerified
@@ -182,6 +201,8 @@ public class UserService {
         
         user.setStatus("SUSPENDED");
         userRepository.save(user);
+        refreshCandidateIndex(user);
+        revokeTokens(userId);
     }
 
     @Transactional
@@ -191,6 +212,8 @@ public class UserService {
         
         user.setStatus("BANNED");
         userRepository.save(user);
+        refreshCandidateIndex(user);
+        revokeTokens(userId);
     }
 
     @Transactional
@@ -200,6 +223,7 @@ public class UserService {
         
         user.setStatus("ACTIVE");
         userRepository.save(user);
+        refreshCandidateIndex(user);
     }
 
     @Transactional
@@ -218,6 +242,9 @@ public class UserService {
             throw new IllegalArgumentException("User not found with ID: " + userId);
         }
         userRepository.deleteById(userId);
+        candidateIndex.remove(userId);
+        matchFeedCache.removeCandidateEverywhere(userId);
+        revokeTokens(userId);
     }
 
     @Transactional(readOnly = true)
@@ -229,4 +256,23 @@ public class UserService {
     public boolean isEmailTaken(String email) {
         return userRepository.findByEmail(email).isPresent();
     }
-}
\ No newline at end of file
+
+    /**
+     * Refuse the user's tokens once the change commits, as they carry the role the user had when they were issued
+     */
+    private void revokeTokens(Long userId) {
+        afterCommit(() -> tokenRevocationCache.revoke(userId));
+    }
+
+    /**
+     * Keep the matching candidate index and cached feeds in line with the user's status
+     */
+    private void refreshCandidateIndex(User user) {
+        if ("ACTIVE".equals(user.getStatus())) {
+            userProfileRepository.findByUser(user).ifPresent(candidateIndex::upsert);
+        } else {
+            candidateIndex.remove(user.getUserID());
+            matchFeedCache.removeCandidateEverywhere(user.getUserID());
+        }
+    }
+}
@@ -1,67 +1,95 @@
 package magnolia.datingpulse.DatingPulse.service;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import magnolia.datingpulse.DatingPulse.chat.Presence;
+import magnolia.datingpulse.DatingPulse.chat.PresenceRegistry;
+import magnolia.datingpulse.DatingPulse.chat.RedisPresenceStore;
+import magnolia.datingpulse.DatingPulse.dto.ChatMessageDTO;
+import magnolia.datingpulse.DatingPulse.repositories.MatchRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Set;
 import java.time.Instant;
 
 /**
- * Service for managing user online/offline status in real-time chat
+ * Service for managing user online/offline status in real-time chat.
+ * Online users live in a {@link PresenceRegistry}, which times out users not seen for
+ * {@code app.chat.presence.timeout-ms}. Every inbound frame of a connected session, STOMP
+ * heart-beats included, counts as seen (see {@link #keepAlive}), so a user with a live session
+ * does not time out; the timeout catches sessions that ended without a disconnect. With
+ * {@code app.chat.presence.redis.enabled} presence is also written to Redis, so every node
+ * answers for users connected to any node.
+ * Status changes are not broadcast: they are queued and, once per batch window, sent only to the
+ * online users each changed user is matched with, one message per recipient.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class UserStatusService {
 
+    // WebSocket session attribute holding the connected user's ID, set when the session connects
+    public static final String SESSION_USER_ID = "userId";
+
+    // Bound on the IN list of one match lookup
+    private static final int MATCH_LOOKUP_CHUNK = 1000;
+    private static final int REGISTRY_SHARDS = 16;
+    // Heartbeats reach Redis at most this many times per timeout
+    private static final int PUBLISHES_PER_TIMEOUT = 4;
+
     private final SimpMessagingTemplate messagingTemplate;
-    
-    // Thread-safe storage for online users
-    private final ConcurrentHashMap<Long, UserStatus> onlineUsers = new ConcurrentHashMap<>();
-    
-    public static class UserStatus {
-        private final Long userId;
-        private final String username;
-        private final Instant lastSeen;
-        
-        public UserStatus(Long userId, String username, Instant lastSeen) {
-            this.userId = userId;
-            this.username = username;
-            this.lastSeen = lastSeen;
-        }
-        
-        // Getters
-        public Long getUserId() { return userId; }
-        public String getUsername() { return username; }
-        public Instant getLastSeen() { return lastSeen; }
+    private final MatchRepository matchRepository;
+    // Present when app.chat.presence.redis.enabled=true
+    private final Optional<RedisPresenceStore> sharedPresence;
+    private final long timeoutMillis;
+    private final PresenceRegistry onlineUsers;
+
+    // Latest status change per user not yet sent; a later change replaces an earlier one
+    private final ConcurrentHashMap<Long, ChatMessageDTO> pendingChanges = new ConcurrentHashMap<>();
+
+    public UserStatusService(SimpMessagingTemplate messagingTemplate,
+                             MatchRepository matchRepository,
+                             Optional<RedisPresenceStore> sharedPresence,
+                             @Value("${app.chat.presence.tick-ms:1000}") long tickMillis,
+                             @Value("${app.chat.presence.timeout-ms:300000}") long timeoutMillis) {
+        this.messagingTemplate = messagingTemplate;
+        this.matchRepository = matchRepository;
+        this.sharedPresence = sharedPresence;
+        this.timeoutMillis = timeoutMillis;
+        this.onlineUsers = new PresenceRegistry(REGISTRY_SHARDS, tickMillis, timeoutMillis, System.currentTimeMillis());
     }
 
     /**
      * Mark user as online
      */
     public void setUserOnline(Long userId, String username) {
-        UserStatus status = new UserStatus(userId, username, Instant.now());
-        onlineUsers.put(userId, status);
+        long now = System.currentTimeMillis();
+        onlineUsers.online(userId, username, now);
+        sharedPresence.ifPresent(store -> publish(store, onlineUsers.get(userId), now));
         
         log.debug("User {} ({}) is now online", userId, username);
         
-        // Broadcast to all connected clients
-        broadcastUserStatus(userId, username, "USER_ONLINE");
+        queueStatusChange(userId, username, "USER_ONLINE");
     }
 
     /**
      * Mark user as offline
      */
     public void setUserOffline(Long userId) {
-        UserStatus status = onlineUsers.remove(userId);
+        Presence status = onlineUsers.remove(userId);
         if (status != null) {
+            sharedPresence.ifPresent(store -> store.remove(userId));
             log.debug("User {} ({}) is now offline", userId, status.getUsername());
             
-            // Broadcast to all connected clients
-            broadcastUserStatus(userId, status.getUsername(), "USER_OFFLINE");
+            queueStatusChange(userId, status.getUsername(), "USER_OFFLINE");
         }
     }
 
@@ -69,81 +97,177 @@ public class UserStatusService {
      * Check if user is online
      */
     public boolean isUserOnline(Long userId) {
-        return onlineUsers.containsKey(userId);
+        return onlineUsers.get(userId) != null || getSharedLastSeen(userId) != null;
     }
 
     /**
      * Get all online users
      */
     public Set<Long> getOnlineUserIds() {
-        return onlineUsers.keySet();
+        return sharedPresence
+                .map(store -> store.seenSince(System.currentTimeMillis() - timeoutMillis))
+                .orElseGet(onlineUsers::userIds);
     }
 
     /**
      * Get online user count
      */
     public int getOnlineUserCount() {
-        return onlineUsers.size();
+        return sharedPresence
+                .map(store -> (int) store.countSeenSince(System.currentTimeMillis() - timeoutMillis))
+                .orElseGet(onlineUsers::size);
     }
 
     /**
-     * Update user's last seen timestamp
+     * Record activity by the user, bringing them back online if they had timed out or gone offline.
+     * Allocation-free unless the stamp is due in Redis.
      */
-    public void updateLastSeen(Long userId) {
-        UserStatus currentStatus = onlineUsers.get(userId);
-        if (currentStatus != null) {
-            UserStatus updatedStatus = new UserStatus(
-                currentStatus.getUserId(),
-                currentStatus.getUsername(),
-                Instant.now()
-            );
-            onlineUsers.put(userId, updatedStatus);
+    public void updateLastSeen(Long userId, String username) {
+        if (!keepAlive(userId)) {
+            setUserOnline(userId, username);
         }
     }
 
+    /**
+     * Move an online user's last-seen stamp forward, for any frame their session sends. Returns
+     * false if they are not online here; a user who went offline on purpose stays offline.
+     */
+    public boolean keepAlive(Long userId) {
+        long now = System.currentTimeMillis();
+        Presence status = onlineUsers.touch(userId, now);
+        if (status != null && now - status.getPublishedMillis() >= timeoutMillis / PUBLISHES_PER_TIMEOUT) {
+            sharedPresence.ifPresent(store -> publish(store, status, now));
+        }
+        return status != null;
+    }
+
     /**
      * Get user's last seen time
      */
     public Instant getLastSeen(Long userId) {
-        UserStatus status = onlineUsers.get(userId);
-        return status != null ? status.getLastSeen() : null;
+        Presence status = onlineUsers.get(userId);
+        if (status != null) {
+            return Instant.ofEpochMilli(status.getLastSeenMillis());
+        }
+        Long sharedLastSeen = getSharedLastSeen(userId);
+        return sharedLastSeen != null ? Instant.ofEpochMilli(sharedLastSeen) : null;
+    }
+
+    /**
+     * Expire users not seen for the presence timeout. Only entries whose deadline has come are
+     * visited, so this runs every tick regardless of how many users are online.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.presence.tick-ms:1000}")
+    public void expireIdleUsers() {
+        long now = System.currentTimeMillis();
+        for (Presence status : onlineUsers.expire(now)) {
+            log.debug("Expired user status for user {} ({})", status.getUserId(), status.getUsername());
+            queueStatusChange(status.getUserId(), status.getUsername(), "USER_OFFLINE");
+        }
+        sharedPresence.ifPresent(store -> store.prune(now - timeoutMillis));
     }
 
     /**
      * Clean up offline users based on timeout
      */
     public void cleanupOfflineUsers(long timeoutMinutes) {
-        Instant cutoff = Instant.now().minusSeconds(timeoutMinutes * 60);
+        long cutoff = System.currentTimeMillis() - timeoutMinutes * 60_000;
         
-        onlineUsers.entrySet().removeIf(entry -> {
-            UserStatus status = entry.getValue();
-            boolean isExpired = status.getLastSeen().isBefore(cutoff);
-            
-            if (isExpired) {
-                log.debug("Cleaning up expired user status for user {} ({})", 
-                    status.getUserId(), status.getUsername());
-                broadcastUserStatus(status.getUserId(), status.getUsername(), "USER_OFFLINE");
-            }
-            
-            return isExpired;
-        });
+        for (Presence status : onlineUsers.removeIdleSince(cutoff)) {
+            log.debug("Cleaning up expired user status for user {} ({})", 
+                status.getUserId(), status.getUsername());
+            queueStatusChange(status.getUserId(), status.getUsername(), "USER_OFFLINE");
+        }
+        sharedPresence.ifPresent(store -> store.prune(cutoff));
+    }
+
+    private void publish(RedisPresenceStore store, Presence status, long now) {
+        if (status != null) {
+            store.publish(status.getUserId(), status.getUsername(), status.getLastSeenMillis());
+            status.setPublishedMillis(now);
+        }
+    }
+
+    /**
+     * Last-seen time in Redis if the user is online on any node, otherwise null
+     */
+    private Long getSharedLastSeen(Long userId) {
+        if (sharedPresence.isEmpty()) {
+            return null;
+        }
+        Long lastSeen = sharedPresence.get().lastSeen(userId);
+        return lastSeen != null && lastSeen >= System.currentTimeMillis() - timeoutMillis ? lastSeen : null;
+    }
+
+    /**
+     * Username to address a recipient by, if they are online on this or another node
+     */
+    private String getOnlineUsername(Long userId) {
+        Presence status = onlineUsers.get(userId);
+        if (status != null) {
+            return status.getUsername();
+        }
+        return getSharedLastSeen(userId) != null ? sharedPresence.get().username(userId) : null;
     }
 
     /**
-     * Broadcast user status change to all connected clients
+     * Queue a status change for the next batch
      */
-    private void broadcastUserStatus(Long userId, String username, String statusType) {
+    private void queueStatusChange(Long userId, String username, String statusType) {
+        pendingChanges.put(userId, ChatMessageDTO.builder()
+                .type(statusType)
+                .senderId(userId)
+                .senderUsername(username != null ? username : "Unknown")
+                .timestamp(System.currentTimeMillis())
+                .build());
+    }
+
+    /**
+     * Send the queued status changes to the online matches of each changed user, as one list
+     * per recipient on /user/queue/user-status
+     */
+    @Scheduled(fixedDelayString = "${app.chat.presence.batch-window-ms:1000}")
+    public void flushStatusChanges() {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+        Map<Long, ChatMessageDTO> changes = new HashMap<>();
+        for (Long userId : pendingChanges.keySet()) {
+            ChatMessageDTO change = pendingChanges.remove(userId);
+            if (change != null) {
+                changes.put(userId, change);
+            }
+        }
+
         try {
-            String message = String.format(
-                "{\"type\":\"%s\",\"senderId\":%d,\"senderUsername\":\"%s\",\"timestamp\":%d}",
-                statusType, userId, username != null ? username : "Unknown", System.currentTimeMillis()
-            );
-            
-            messagingTemplate.convertAndSend("/topic/user-status", message);
-            
-            log.debug("Broadcasted {} status for user {}", statusType, userId);
+            Map<Long, List<ChatMessageDTO>> byRecipient = new HashMap<>();
+            List<Long> changedUserIds = new ArrayList<>(changes.keySet());
+            for (int from = 0; from < changedUserIds.size(); from += MATCH_LOOKUP_CHUNK) {
+                Set<Long> chunk = new HashSet<>(
+                        changedUserIds.subList(from, Math.min(from + MATCH_LOOKUP_CHUNK, changedUserIds.size())));
+                for (Object[] pair : matchRepository.findActiveMatchPairs(chunk)) {
+                    Long userOneId = (Long) pair[0];
+                    Long userTwoId = (Long) pair[1];
+                    // Each side is taken from the chunk holding that user, so a pair split across chunks counts once
+                    if (chunk.contains(userOneId)) {
+                        byRecipient.computeIfAbsent(userTwoId, id -> new ArrayList<>()).add(changes.get(userOneId));
+                    }
+                    if (chunk.contains(userTwoId)) {
+                        byRecipient.computeIfAbsent(userOneId, id -> new ArrayList<>()).add(changes.get(userTwoId));
+                    }
+                }
+            }
+
+            byRecipient.forEach((recipientId, batch) -> {
+                String recipient = getOnlineUsername(recipientId);
+                if (recipient != null) {
+                    // User destinations resolve by principal name, which is the username
+                    messagingTemplate.convertAndSendToUser(recipient, "/queue/user-status", batch);
+                }
+            });
+            log.debug("Sent {} status changes to {} matched users", changes.size(), byRecipient.size());
         } catch (Exception e) {
-            log.error("Error broadcasting user status: {}", e.getMessage(), e);
+            log.error("Error sending user status changes: {}", e.getMessage(), e);
         }
     }
 }
\ No newline at end of file
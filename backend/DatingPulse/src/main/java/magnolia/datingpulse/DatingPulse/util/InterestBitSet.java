@@ -0,0 +1,107 @@
+package magnolia.datingpulse.DatingPulse.util;
+
+import magnolia.datingpulse.DatingPulse.entity.Interest;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Interest sets encoded as {@code long[]} bitsets indexed by interest ID.
+ * Arrays are treated as immutable: updates return a new array, so a bitset can be
+ * shared by concurrent readers. Interests without an ID are ignored.
+ */
+public final class InterestBitSet {
+
+    public static final long[] EMPTY = new long[0];
+
+    private InterestBitSet() {
+    }
+
+    public static long[] encode(Collection<Interest> interests) {
+        if (interests == null || interests.isEmpty()) {
+            return EMPTY;
+        }
+        long maxId = -1;
+        for (Interest interest : interests) {
+            if (interest.getId() != null && interest.getId() >= 0) {
+                maxId = Math.max(maxId, interest.getId());
+            }
+        }
+        if (maxId < 0) {
+            return EMPTY;
+        }
+        long[] bits = new long[wordIndex(maxId) + 1];
+        for (Interest interest : interests) {
+            if (interest.getId() != null && interest.getId() >= 0) {
+                long id = interest.getId();
+                bits[wordIndex(id)] |= 1L << id;
+            }
+        }
+        return bits;
+    }
+
+    public static boolean contains(long[] bits, long interestId) {
+        int word = wordIndex(interestId);
+        return interestId >= 0 && word < bits.length && (bits[word] & (1L << interestId)) != 0;
+    }
+
+    /**
+     * Copy of {@code bits} with the interest set; returns {@code bits} if already present
+     */
+    public static long[] with(long[] bits, long interestId) {
+        if (interestId < 0 || contains(bits, interestId)) {
+            return bits;
+        }
+        int word = wordIndex(interestId);
+        long[] updated = Arrays.copyOf(bits, Math.max(bits.length, word + 1));
+        updated[word] |= 1L << interestId;
+        return updated;
+    }
+
+    /**
+     * Copy of {@code bits} with the interest cleared and trailing empty words trimmed;
+     * returns {@code bits} if absent
+     */
+    public static long[] without(long[] bits, long interestId) {
+        if (!contains(bits, interestId)) {
+            return bits;
+        }
+        long[] updated = bits.clone();
+        updated[wordIndex(interestId)] &= ~(1L << interestId);
+        int length = updated.length;
+        while (length > 0 && updated[length - 1] == 0) {
+            length--;
+        }
+        return length == 0 ? EMPTY : Arrays.copyOf(updated, length);
+    }
+
+    public static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public static int intersectionCount(long[] bits1, long[] bits2) {
+        int count = 0;
+        for (int i = 0, n = Math.min(bits1.length, bits2.length); i < n; i++) {
+            count += Long.bitCount(bits1[i] & bits2[i]);
+        }
+        return count;
+    }
+
+    /**
+     * Jaccard similarity popcount(AND) / popcount(OR), given each set's precomputed cardinality.
+     * Two empty sets are identical (1.0).
+     */
+    public static double jaccard(long[] bits1, int count1, long[] bits2, int count2) {
+        int common = intersectionCount(bits1, bits2);
+        int union = count1 + count2 - common;
+        return union == 0 ? 1.0 : (double) common / union;
+    }
+
+    private static int wordIndex(long interestId) {
+        return (int) (interestId >>> 6);
+    }
+}
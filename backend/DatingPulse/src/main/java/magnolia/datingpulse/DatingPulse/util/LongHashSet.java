@@ -0,0 +1,119 @@
+package magnolia.datingpulse.DatingPulse.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of primitive longs with linear probing.
+ * Avoids boxing for hot membership checks such as the matching exclusion set.
+ * Not thread-safe.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] table;
+    private int mask;
+    private int size;
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Add a value; returns true if it was not already present
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        int slot = slot(value);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        if (++size > table.length * LOAD_FACTOR) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public void addAll(Iterable<Long> values) {
+        for (Long value : values) {
+            if (value != null) {
+                add(value);
+            }
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+
+        int slot = slot(value);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        containsZero = false;
+        size = 0;
+    }
+
+    private int slot(long value) {
+        // Murmur3 finalizer spreads sequential IDs across the table
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] old = table;
+        table = new long[newCapacity];
+        mask = newCapacity - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int slot = slot(value);
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+}
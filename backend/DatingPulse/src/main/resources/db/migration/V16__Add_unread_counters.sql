@@ -0,0 +1,45 @@
+-- V16: Denormalized unread counters
+-- Per-participant unread counts on conversations and per-user totals on users, maintained by
+-- MessageService so the unread count endpoints read a single row instead of scanning messages.
+
+ALTER TABLE conversations ADD COLUMN IF NOT EXISTS unread_count_user1 INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE conversations ADD COLUMN IF NOT EXISTS unread_count_user2 INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS unread_message_count INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE users ADD COLUMN IF NOT EXISTS unread_conversation_count INTEGER NOT NULL DEFAULT 0;
+
+-- Backfill from existing messages: unread means not yet read and not deleted by the receiver
+WITH unread AS (
+    SELECT conversation_id, receiver_id, COUNT(*) AS unread_count
+    FROM messages
+    WHERE read_at IS NULL AND deleted_for_receiver = FALSE
+    GROUP BY conversation_id, receiver_id
+)
+UPDATE conversations c
+SET unread_count_user1 = COALESCE((SELECT u.unread_count FROM unread u
+                                   WHERE u.conversation_id = c.conversation_id AND u.receiver_id = m.user_one_id), 0),
+    unread_count_user2 = COALESCE((SELECT u.unread_count FROM unread u
+                                   WHERE u.conversation_id = c.conversation_id AND u.receiver_id = m.user_two_id), 0)
+FROM matches m
+WHERE m.id = c.match_id;
+
+-- Every unread message counts toward the user's total, but only conversations whose match is active
+-- and that are not deleted for both users count as unread conversations
+WITH per_user AS (
+    SELECT m.user_one_id AS user_id, c.unread_count_user1 AS unread_count,
+           m.is_active AND NOT (c.deleted_for_user1 AND c.deleted_for_user2) AS counted
+    FROM conversations c JOIN matches m ON m.id = c.match_id
+    UNION ALL
+    SELECT m.user_two_id, c.unread_count_user2,
+           m.is_active AND NOT (c.deleted_for_user1 AND c.deleted_for_user2)
+    FROM conversations c JOIN matches m ON m.id = c.match_id
+)
+UPDATE users usr
+SET unread_message_count = totals.messages,
+    unread_conversation_count = totals.conversations
+FROM (
+    SELECT user_id, SUM(unread_count) AS messages,
+           COUNT(*) FILTER (WHERE unread_count > 0 AND counted) AS conversations
+    FROM per_user
+    GROUP BY user_id
+) totals
+WHERE totals.user_id = usr.user_id;
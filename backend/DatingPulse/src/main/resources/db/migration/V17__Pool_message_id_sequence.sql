@@ -0,0 +1,18 @@
+-- V17: Pool message IDs
+-- Message IDs are drawn in blocks of 50 from messages_message_id_seq, by Hibernate's pooled
+-- optimizer and by the chat write-behind pipeline, which assigns IDs before the row is inserted.
+-- Rows are inserted with explicit IDs, so an identity column must accept them.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'messages' AND column_name = 'message_id' AND is_identity = 'YES') THEN
+        ALTER TABLE messages ALTER COLUMN message_id SET GENERATED BY DEFAULT;
+        ALTER TABLE messages ALTER COLUMN message_id SET INCREMENT BY 50;
+    ELSE
+        CREATE SEQUENCE IF NOT EXISTS messages_message_id_seq OWNED BY messages.message_id;
+        ALTER SEQUENCE messages_message_id_seq INCREMENT BY 50;
+        -- A drawn value v covers the 50 IDs ending at v, so the first block must start above existing rows
+        PERFORM setval('messages_message_id_seq', COALESCE((SELECT MAX(message_id) FROM messages), 0) + 50, false);
+    END IF;
+END $$;
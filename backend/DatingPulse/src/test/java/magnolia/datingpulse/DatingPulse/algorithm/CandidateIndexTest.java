@@ -0,0 +1,87 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import magnolia.datingpulse.DatingPulse.entity.User;
+import magnolia.datingpulse.DatingPulse.entity.UserProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CandidateIndexTest {
+
+    private CandidateIndex candidateIndex;
+
+    @BeforeEach
+    void setUp() {
+        candidateIndex = new CandidateIndex();
+    }
+
+    private UserProfile profile(Long userId, String status, int age) {
+        User user = User.builder()
+                .userID(userId)
+                .status(status)
+                .build();
+        return UserProfile.builder()
+                .userID(userId)
+                .user(user)
+                .age(age)
+                .latitude(-26.2041)
+                .longitude(28.0473)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should not let a stale load overwrite a newer upsert")
+    void testLoadAfterUpsert() {
+        candidateIndex.upsert(profile(1L, "ACTIVE", 30));
+
+        candidateIndex.load(profile(1L, "ACTIVE", 25));
+
+        assertEquals(30, candidateIndex.get(1L).getAge());
+    }
+
+    @Test
+    @DisplayName("Should not let a stale load re-add a user removed during the load")
+    void testLoadAfterRemove() {
+        candidateIndex.remove(1L);
+
+        candidateIndex.load(profile(1L, "ACTIVE", 25));
+
+        assertNull(candidateIndex.get(1L));
+        assertTrue(candidateIndex.candidatesNear(-26.2041, 28.0473, 10.0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should hand users changed during the load back until none remain")
+    void testFinishLoad() {
+        candidateIndex.load(profile(2L, "ACTIVE", 28));
+        candidateIndex.remove(1L);
+
+        assertEquals(Set.of(1L), candidateIndex.finishLoad());
+        assertFalse(candidateIndex.isLoaded());
+
+        // The re-read sees the committed state, which no longer has the user active
+        candidateIndex.load(profile(1L, "SUSPENDED", 25));
+
+        assertTrue(candidateIndex.finishLoad().isEmpty());
+        assertTrue(candidateIndex.isLoaded());
+        assertNull(candidateIndex.get(1L));
+        assertNotNull(candidateIndex.get(2L));
+    }
+
+    @Test
+    @DisplayName("Should index a changed user once it is read again")
+    void testReloadChangedUser() {
+        candidateIndex.addInterest(1L, 5L);
+        candidateIndex.load(profile(1L, "ACTIVE", 25));
+        assertNull(candidateIndex.get(1L));
+
+        candidateIndex.finishLoad();
+        candidateIndex.load(profile(1L, "ACTIVE", 25));
+
+        assertEquals(25, candidateIndex.get(1L).getAge());
+    }
+}
@@ -0,0 +1,60 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedCursorTest {
+
+    @Test
+    @DisplayName("Should round-trip through its encoded token")
+    void testEncodeDecode() {
+        FeedCursor cursor = new FeedCursor(0.8125, 42L);
+
+        FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+        assertEquals(0.8125, decoded.getScore());
+        assertEquals(42L, decoded.getUserId());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed tokens")
+    void testDecodeInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode("AAAA"));
+        String nan = new FeedCursor(Double.NaN, 1L).encode();
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(nan));
+    }
+
+    @Test
+    @DisplayName("Should admit only entries ranking below it, breaking ties by user ID")
+    void testAdmits() {
+        FeedCursor cursor = new FeedCursor(0.5, 10L);
+
+        assertTrue(cursor.admits(0.4, 1L));
+        assertTrue(cursor.admits(0.5, 11L));
+        assertFalse(cursor.admits(0.5, 10L));
+        assertFalse(cursor.admits(0.5, 9L));
+        assertFalse(cursor.admits(0.6, 20L));
+    }
+
+    @Test
+    @DisplayName("Should resume a feed right after the cursor position")
+    void testIndexAfter() {
+        RankedFeed feed = new RankedFeed(List.of(
+                new ScoredCandidate(3L, 0.9),
+                new ScoredCandidate(1L, 0.5),
+                new ScoredCandidate(2L, 0.5),
+                new ScoredCandidate(7L, 0.2)), 10, System.currentTimeMillis());
+
+        assertEquals(2, feed.indexAfter(new FeedCursor(0.5, 1L)));
+        assertEquals(0, feed.indexAfter(new FeedCursor(1.0, 1L)));
+        assertEquals(4, feed.indexAfter(new FeedCursor(0.2, 7L)));
+        // A cursor whose entry has since left the feed still lands in order
+        assertEquals(3, feed.indexAfter(new FeedCursor(0.3, 5L)));
+        assertEquals(7L, feed.page(3, 5).get(0).getUserId());
+    }
+}
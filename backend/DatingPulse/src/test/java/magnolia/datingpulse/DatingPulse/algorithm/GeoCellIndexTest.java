@@ -0,0 +1,72 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoCellIndexTest {
+
+    private GeoCellIndex geoIndex;
+
+    @BeforeEach
+    void setUp() {
+        geoIndex = new GeoCellIndex(0.25);
+    }
+
+    private Set<Long> within(double latitude, double longitude, double radiusKm) {
+        Set<Long> found = new HashSet<>();
+        geoIndex.forEachWithin(latitude, longitude, radiusKm, found::add);
+        return found;
+    }
+
+    @Test
+    @DisplayName("Should return users in nearby cells only")
+    void testForEachWithin() {
+        geoIndex.add(1L, -26.2041, 28.0473);   // Johannesburg
+        geoIndex.add(2L, -26.1951, 28.0568);   // ~1.4km away
+        geoIndex.add(3L, -33.9249, 18.4241);   // Cape Town
+
+        Set<Long> found = within(-26.2041, 28.0473, 10.0);
+
+        assertTrue(found.containsAll(Set.of(1L, 2L)));
+        assertFalse(found.contains(3L));
+    }
+
+    @Test
+    @DisplayName("Should move users between cells incrementally")
+    void testMove() {
+        geoIndex.add(1L, -26.2041, 28.0473);
+
+        geoIndex.move(1L, -26.2041, 28.0473, -33.9249, 18.4241);
+
+        assertFalse(within(-26.2041, 28.0473, 10.0).contains(1L));
+        assertTrue(within(-33.9249, 18.4241, 10.0).contains(1L));
+    }
+
+    @Test
+    @DisplayName("Should drop empty cells on removal")
+    void testRemove() {
+        geoIndex.add(1L, 51.5074, -0.1278);
+
+        geoIndex.remove(1L, 51.5074, -0.1278);
+
+        assertTrue(within(51.5074, -0.1278, 10.0).isEmpty());
+        assertEquals(0, geoIndex.cellCount());
+    }
+
+    @Test
+    @DisplayName("Should wrap radius queries across the antimeridian")
+    void testAntimeridian() {
+        geoIndex.add(1L, -17.0, 179.95);
+        geoIndex.add(2L, -17.0, -179.95);
+
+        Set<Long> found = within(-17.0, 179.99, 30.0);
+
+        assertTrue(found.containsAll(Set.of(1L, 2L)));
+    }
+}
@@ -0,0 +1,72 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoDistanceTest {
+
+    private static double[] radians(double... degrees) {
+        double[] result = new double[degrees.length];
+        for (int i = 0; i < degrees.length; i++) {
+            result[i] = Math.toRadians(degrees[i]);
+        }
+        return result;
+    }
+
+    private static double[] cosines(double[] radians) {
+        double[] result = new double[radians.length];
+        for (int i = 0; i < radians.length; i++) {
+            result[i] = Math.cos(radians[i]);
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("Should compute the distance between Johannesburg and Cape Town")
+    void testHaversine() {
+        double lat1 = Math.toRadians(-26.2041);
+        double lat2 = Math.toRadians(-33.9249);
+
+        double distance = GeoDistance.haversineKm(lat1, Math.toRadians(28.0473), Math.cos(lat1),
+                lat2, Math.toRadians(18.4241), Math.cos(lat2));
+
+        assertEquals(1265.0, distance, 10.0);
+    }
+
+    @Test
+    @DisplayName("Should reject points outside the bounding box and match pairwise distances inside it")
+    void testBatchDistances() {
+        double[] latitudes = radians(-26.1951, -33.9249, -26.3041, 51.5074);
+        double[] longitudes = radians(28.0568, 18.4241, 28.1473, -0.1278);
+        double[] cosLatitudes = cosines(latitudes);
+        double queryLat = Math.toRadians(-26.2041);
+        double queryLon = Math.toRadians(28.0473);
+        double[] distances = new double[latitudes.length];
+
+        GeoDistance.distancesKm(queryLat, queryLon, Math.cos(queryLat), 50.0,
+                latitudes, longitudes, cosLatitudes, latitudes.length, distances);
+
+        for (int i : new int[] {0, 2}) {
+            assertEquals(GeoDistance.haversineKm(queryLat, queryLon, Math.cos(queryLat),
+                    latitudes[i], longitudes[i], cosLatitudes[i]), distances[i], 1e-12);
+        }
+        assertEquals(Double.POSITIVE_INFINITY, distances[1]);
+        assertEquals(Double.POSITIVE_INFINITY, distances[3]);
+    }
+
+    @Test
+    @DisplayName("Should keep nearby points across the antimeridian")
+    void testBatchAcrossAntimeridian() {
+        double[] latitudes = radians(-17.0);
+        double[] longitudes = radians(-179.95);
+        double queryLat = Math.toRadians(-17.0);
+        double[] distances = new double[1];
+
+        GeoDistance.distancesKm(queryLat, Math.toRadians(179.95), Math.cos(queryLat), 30.0,
+                latitudes, longitudes, cosines(latitudes), 1, distances);
+
+        assertTrue(distances[0] < 30.0);
+    }
+}
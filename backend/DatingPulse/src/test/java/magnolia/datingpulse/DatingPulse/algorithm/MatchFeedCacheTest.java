@@ -0,0 +1,108 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchFeedCacheTest {
+
+    private MatchFeedCache feedCache;
+
+    @BeforeEach
+    void setUp() {
+        feedCache = new MatchFeedCache(900_000L, 3);
+    }
+
+    private RankedFeed feed(long... userIds) {
+        List<ScoredCandidate> ranked = new ArrayList<>();
+        for (int i = 0; i < userIds.length; i++) {
+            ranked.add(new ScoredCandidate(userIds[i], 1.0 - i * 0.1));
+        }
+        return new RankedFeed(ranked, 3, System.currentTimeMillis());
+    }
+
+    private static List<Long> userIds(RankedFeed feed) {
+        return feed.page(0, feed.size()).stream().map(ScoredCandidate::getUserId).toList();
+    }
+
+    @Test
+    @DisplayName("Should drop a swiped candidate without discarding the feed")
+    void testRemoveCandidate() {
+        feedCache.store(1L, feed(2L, 3L, 4L), feedCache.stamp(1L));
+
+        feedCache.removeCandidate(1L, 3L);
+
+        RankedFeed cached = feedCache.get(1L);
+        assertNotNull(cached);
+        assertEquals(List.of(2L, 4L), userIds(cached));
+        assertFalse(cached.isExhausted());
+    }
+
+    @Test
+    @DisplayName("Should discard a feed on invalidation")
+    void testInvalidate() {
+        feedCache.store(1L, feed(2L, 3L, 4L), feedCache.stamp(1L));
+
+        feedCache.invalidate(1L);
+
+        assertNull(feedCache.get(1L));
+        assertEquals(List.of(1L), feedCache.usersNeedingRefresh(900_000L));
+    }
+
+    @Test
+    @DisplayName("Should not store a feed built before a concurrent invalidation")
+    void testStaleStoreRejected() {
+        long stamp = feedCache.stamp(1L);
+        feedCache.removeCandidate(1L, 2L);
+
+        feedCache.store(1L, feed(2L, 3L), stamp);
+
+        assertNull(feedCache.get(1L));
+    }
+
+    @Test
+    @DisplayName("Should not store a feed stamped before its entry was evicted")
+    void testStoreAfterEvictionRejected() {
+        feedCache.store(1L, feed(2L, 3L, 4L), feedCache.stamp(1L));
+        long stamp = feedCache.stamp(1L);
+        feedCache.evict(1L);
+
+        feedCache.store(1L, feed(2L, 3L), stamp);
+        assertNull(feedCache.get(1L));
+
+        // An entry created again after the eviction does not reuse the stamped version
+        feedCache.invalidate(1L);
+        feedCache.store(1L, feed(2L, 3L), stamp);
+        assertNull(feedCache.get(1L));
+    }
+
+    @Test
+    @DisplayName("Should remove a deactivated candidate from every feed")
+    void testRemoveCandidateEverywhere() {
+        feedCache.store(1L, feed(2L, 3L), feedCache.stamp(1L));
+        feedCache.store(4L, feed(3L, 5L), feedCache.stamp(4L));
+        feedCache.store(3L, feed(1L, 4L), feedCache.stamp(3L));
+
+        feedCache.removeCandidateEverywhere(3L);
+
+        assertEquals(List.of(2L), userIds(feedCache.get(1L)));
+        assertEquals(List.of(5L), userIds(feedCache.get(4L)));
+        assertNull(feedCache.get(3L));
+    }
+
+    @Test
+    @DisplayName("Should serve any limit from an exhausted feed")
+    void testExhaustedFeed() {
+        feedCache.store(1L, feed(2L), feedCache.stamp(1L));
+
+        RankedFeed cached = feedCache.get(1L);
+
+        assertTrue(cached.isExhausted());
+        assertEquals(1, cached.page(0, 50).size());
+    }
+}
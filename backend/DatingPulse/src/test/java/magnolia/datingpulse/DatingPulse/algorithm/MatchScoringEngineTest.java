@@ -0,0 +1,144 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import magnolia.datingpulse.DatingPulse.config.MetricsConfig;
+import magnolia.datingpulse.DatingPulse.entity.Preference;
+import magnolia.datingpulse.DatingPulse.entity.UserProfile;
+import magnolia.datingpulse.DatingPulse.util.LongHashSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchScoringEngineTest {
+
+    private MatchScoringEngine sequentialEngine;
+    private MatchScoringEngine parallelEngine;
+    private List<MatchCandidate> population;
+
+    @BeforeEach
+    void setUp() {
+        MetricsConfig.DatingPulseMetrics metrics = new MetricsConfig.DatingPulseMetrics(new SimpleMeterRegistry());
+        sequentialEngine = new MatchScoringEngine(new CompatibilityCalculator(), metrics, 1, 64);
+        parallelEngine = new MatchScoringEngine(new CompatibilityCalculator(), metrics, 4, 64);
+
+        Random random = new Random(42);
+        population = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            Preference preference = Preference.builder()
+                    .genderPreference(random.nextBoolean() ? "ANY" : "FEMALE")
+                    .ageMin(18)
+                    .ageMax(60)
+                    .maxDistance(200)
+                    .build();
+            population.add(MatchCandidate.from(UserProfile.builder()
+                    .userID(id)
+                    .age(18 + random.nextInt(40))
+                    .gender(random.nextBoolean() ? "MALE" : "FEMALE")
+                    .latitude(-26.0 + random.nextDouble())
+                    .longitude(28.0 + random.nextDouble())
+                    .preference(id % 5 == 0 ? null : preference) // some users without preferences
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        sequentialEngine.shutdown();
+        parallelEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should rank identically whether scored inline or in parallel chunks")
+    void testParallelMatchesSequential() {
+        MatchCandidate self = population.get(0);
+        LongHashSet excluded = new LongHashSet();
+        excluded.add(2L);
+        excluded.add(3L);
+
+        List<ScoredCandidate> sequential = sequentialEngine.rank(self, excluded, population, candidate -> true,
+                MatchScoringEngine.ANY_DISTANCE, 0.1, 50, null);
+        List<ScoredCandidate> parallel = parallelEngine.rank(self, excluded, population, candidate -> true,
+                MatchScoringEngine.ANY_DISTANCE, 0.1, 50, null);
+
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getUserId(), parallel.get(i).getUserId());
+            assertEquals(sequential.get(i).getScore(), parallel.get(i).getScore());
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip the requesting user, excluded users and filtered candidates")
+    void testExclusions() {
+        MatchCandidate self = population.get(0);
+        LongHashSet excluded = new LongHashSet();
+        excluded.add(2L);
+
+        List<ScoredCandidate> ranked = parallelEngine.rank(self, excluded, population,
+                candidate -> candidate.getUserId() % 2 == 0, MatchScoringEngine.ANY_DISTANCE,
+                Double.NEGATIVE_INFINITY, population.size(), null);
+
+        assertFalse(ranked.isEmpty());
+        for (ScoredCandidate candidate : ranked) {
+            assertNotEquals(self.getUserId(), candidate.getUserId());
+            assertNotEquals(2L, candidate.getUserId());
+            assertEquals(0, candidate.getUserId() % 2);
+        }
+    }
+
+    @Test
+    @DisplayName("Should match pairwise filtering and scoring when distances are batched")
+    void testBatchedDistancesMatchPairwise() {
+        MatchCandidate self = population.get(0);
+        CompatibilityCalculator calculator = new CompatibilityCalculator();
+        double radiusKm = 40.0;
+        TopKSelector expected = new TopKSelector(population.size());
+        for (MatchCandidate candidate : population) {
+            if (candidate == self || GeoDistance.haversineKm(self, candidate) > radiusKm
+                    || !calculator.isBasicCompatible(self, candidate)) {
+                continue;
+            }
+            expected.offer(candidate.getUserId(), calculator.calculateOverallCompatibility(self, candidate));
+        }
+
+        List<ScoredCandidate> ranked = parallelEngine.rank(self, new LongHashSet(), population,
+                candidate -> true, radiusKm, Double.NEGATIVE_INFINITY, population.size(), null);
+
+        List<ScoredCandidate> pairwise = expected.toSortedList();
+        assertEquals(pairwise.size(), ranked.size());
+        for (int i = 0; i < pairwise.size(); i++) {
+            assertEquals(pairwise.get(i).getUserId(), ranked.get(i).getUserId());
+            assertEquals(pairwise.get(i).getScore(), ranked.get(i).getScore(), 1e-12);
+        }
+    }
+
+    @Test
+    @DisplayName("Should continue a ranking after a cursor without gaps or repeats")
+    void testRankAfterCursor() {
+        MatchCandidate self = population.get(0);
+        List<ScoredCandidate> full = parallelEngine.rank(self, new LongHashSet(), population, candidate -> true,
+                MatchScoringEngine.ANY_DISTANCE, Double.NEGATIVE_INFINITY, 300, null);
+
+        List<ScoredCandidate> paged = new ArrayList<>();
+        FeedCursor cursor = null;
+        while (paged.size() < full.size()) {
+            List<ScoredCandidate> page = parallelEngine.rank(self, new LongHashSet(), population,
+                    candidate -> true, MatchScoringEngine.ANY_DISTANCE, Double.NEGATIVE_INFINITY, 50, cursor);
+            assertEquals(50, page.size());
+            paged.addAll(page);
+            cursor = FeedCursor.after(page.get(page.size() - 1));
+        }
+
+        for (int i = 0; i < full.size(); i++) {
+            assertEquals(full.get(i).getUserId(), paged.get(i).getUserId());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package magnolia.datingpulse.DatingPulse.algorithm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKSelectorTest {
+
+    @Test
+    @DisplayName("Should keep only the K best scores, best first")
+    void testKeepsBestScores() {
+        TopKSelector topK = new TopKSelector(3);
+        topK.offer(1L, 0.2);
+        topK.offer(2L, 0.9);
+        topK.offer(3L, 0.5);
+        topK.offer(4L, 0.7);
+        topK.offer(5L, 0.1);
+
+        List<ScoredCandidate> result = topK.toSortedList();
+
+        assertEquals(3, result.size());
+        assertEquals(2L, result.get(0).getUserId());
+        assertEquals(4L, result.get(1).getUserId());
+        assertEquals(3L, result.get(2).getUserId());
+    }
+
+    @Test
+    @DisplayName("Should break score ties by lower user ID")
+    void testTieBreak() {
+        TopKSelector topK = new TopKSelector(2);
+        topK.offer(30L, 0.5);
+        topK.offer(10L, 0.5);
+        topK.offer(20L, 0.5);
+
+        List<ScoredCandidate> result = topK.toSortedList();
+
+        assertEquals(10L, result.get(0).getUserId());
+        assertEquals(20L, result.get(1).getUserId());
+    }
+
+    @Test
+    @DisplayName("Should return nothing when K is zero")
+    void testZeroCapacity() {
+        TopKSelector topK = new TopKSelector(0);
+
+        assertFalse(topK.offer(1L, 1.0));
+        assertTrue(topK.toSortedList().isEmpty());
+    }
+}
@@ -0,0 +1,190 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import magnolia.datingpulse.DatingPulse.repositories.MessageRepository;
+import magnolia.datingpulse.DatingPulse.service.MessageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatMessagePipelineTest {
+
+    @Mock
+    private ConversationMembershipCache membershipCache;
+
+    @Mock
+    private MessageIdAllocator idAllocator;
+
+    @Mock
+    private MessageService messageService;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @TempDir
+    Path spoolDirectory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private ChatMessagePipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(membershipCache.get(1L)).thenReturn(new ConversationMembership(1L, 5L, 7L, 8L, "alice", "bob", true));
+        lenient().when(idAllocator.next()).thenReturn(100L, 101L, 102L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    private ChatMessagePipeline pipeline(int capacity) {
+        pipeline = new ChatMessagePipeline(membershipCache, idAllocator, messageService, messageRepository,
+                objectMapper, new SimpleMeterRegistry(), spoolDirectory.toString(),
+                2, 50, 0, capacity, 0, 1 << 20, false);
+        return pipeline;
+    }
+
+    private void spool(long... ids) throws Exception {
+        try (MessageSpool spool = new MessageSpool(spoolDirectory.resolve("shard-0"), 1 << 20, false, objectMapper)) {
+            for (long id : ids) {
+                spool.append(PendingMessage.builder().messageId(id).conversationId(1L).senderId(7L)
+                        .receiverId(8L).content("m" + id).type("TEXT").sentAt(LocalDateTime.now()).build());
+            }
+        }
+    }
+
+    private List<PendingMessage> leftOver() throws Exception {
+        List<PendingMessage> records = new ArrayList<>();
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(spoolDirectory)) {
+            for (Path directory : directories) {
+                records.addAll(MessageSpool.recover(directory, objectMapper));
+            }
+        }
+        return records;
+    }
+
+    private static boolean hasIds(List<PendingMessage> batch, Long... ids) {
+        return batch.stream().map(PendingMessage::getMessageId).toList().equals(List.of(ids));
+    }
+
+    @Test
+    @DisplayName("Should accept a message for delivery and persist it behind")
+    void testSubmitPersistsInBackground() throws Exception {
+        // Arrange
+        pipeline(100).start();
+
+        // Act
+        PendingMessage accepted = pipeline.submit(7L, 1L, null, "hi", "TEXT");
+
+        // Assert - the receiver comes from the conversation, not the client
+        assertEquals(100L, accepted.getMessageId());
+        assertEquals(8L, accepted.getReceiverId());
+        assertFalse(accepted.isReceiverIsUserOne());
+        verify(messageService, timeout(2000)).persistAcceptedMessages(argThat(batch -> hasIds(batch, 100L)));
+    }
+
+    @Test
+    @DisplayName("Should reject senders outside the conversation and inactive matches")
+    void testSubmitUnauthorized() throws Exception {
+        pipeline(100).start();
+        when(membershipCache.get(2L)).thenReturn(new ConversationMembership(2L, 6L, 7L, 9L, "alice", "carol", false));
+
+        assertThrows(IllegalArgumentException.class, () -> pipeline.submit(9L, 1L, null, "hi", "TEXT"));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.submit(7L, 1L, 9L, "hi", "TEXT"));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.submit(7L, 2L, null, "hi", "TEXT"));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.submit(7L, 1L, null, " ", "TEXT"));
+        verifyNoInteractions(idAllocator);
+    }
+
+    @Test
+    @DisplayName("Should push back once the unpersisted backlog is full")
+    void testSubmitBackpressure() throws Exception {
+        // Arrange - the database stalls on the first batch
+        CountDownLatch stalled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            stalled.await();
+            return null;
+        }).when(messageService).persistAcceptedMessages(anyList());
+        pipeline(1).start();
+
+        // Act
+        pipeline.submit(7L, 1L, null, "first", "TEXT");
+
+        // Assert
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(7L, 1L, null, "second", "TEXT"));
+        stalled.countDown();
+    }
+
+    @Test
+    @DisplayName("Should give the permit back when a message ID cannot be allocated")
+    void testSubmitReleasesPermitOnIdFailure() throws Exception {
+        // Arrange - room for one unpersisted message, and the sequence fetch fails once
+        when(idAllocator.next()).thenThrow(new IllegalStateException("database down")).thenReturn(100L);
+        pipeline(1).start();
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(7L, 1L, null, "first", "TEXT"));
+        PendingMessage accepted = pipeline.submit(7L, 1L, null, "second", "TEXT");
+
+        // Assert
+        assertEquals(100L, accepted.getMessageId());
+    }
+
+    @Test
+    @DisplayName("Should replay spooled messages that never reached the database")
+    void testReplaySpool() throws Exception {
+        // Arrange - a previous run spooled two messages and persisted only the first
+        spool(1L, 2L);
+        when(messageRepository.findExistingIds(any())).thenReturn(List.of(1L));
+
+        // Act
+        pipeline(100).start();
+
+        // Assert
+        verify(messageService, timeout(2000)).persistAcceptedMessages(argThat(batch -> hasIds(batch, 2L)));
+        pipeline.stop();
+        assertTrue(leftOver().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should start while the database is down and keep the spool until replay succeeds")
+    void testReplaySpoolDatabaseDown() throws Exception {
+        // Arrange
+        spool(1L);
+        when(messageRepository.findExistingIds(any())).thenReturn(List.of());
+        doThrow(new IllegalStateException("connection refused"))
+                .when(messageService).persistAcceptedMessages(anyList());
+
+        // Act - start returns while the replay keeps failing
+        pipeline(100).start();
+        verify(messageService, timeout(2000)).persistAcceptedMessages(argThat(batch -> hasIds(batch, 1L)));
+        pipeline.stop();
+
+        // Assert
+        assertEquals(List.of(1L), leftOver().stream().map(PendingMessage::getMessageId).toList());
+    }
+}
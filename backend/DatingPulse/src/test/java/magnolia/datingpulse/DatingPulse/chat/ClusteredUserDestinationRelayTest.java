@@ -0,0 +1,251 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.user.DefaultUserDestinationResolver;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.DefaultSimpUserRegistry;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two nodes, each with Spring's own user destination handler and simple broker, joined by an
+ * in-memory stand-in for Redis
+ */
+class ClusteredUserDestinationRelayTest {
+
+    private InMemoryClusterMessageBus bus;
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    void setUp() {
+        bus = new InMemoryClusterMessageBus();
+        nodeA = new Node("node-a", bus);
+        nodeB = new Node("node-b", bus);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeA.stop();
+        nodeB.stop();
+    }
+
+    @Test
+    @DisplayName("Should deliver a user destination message to the user's session on another node")
+    void userDestination_ReachesOtherNode() {
+        // Arrange
+        nodeB.connect("bob", "b-1");
+        nodeB.subscribe("b-1", "/user/queue/messages");
+
+        // Act
+        nodeA.template.convertAndSendToUser("bob", "/queue/messages", "hello");
+
+        // Assert
+        List<Message<?>> delivered = nodeB.deliveredTo("b-1");
+        assertEquals(1, delivered.size());
+        assertEquals("hello", new String((byte[]) delivered.get(0).getPayload(), StandardCharsets.UTF_8));
+        assertTrue(nodeA.outbound.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should deliver once to sessions of the same user on both nodes")
+    void userDestination_ReachesEverySession() {
+        // Arrange
+        nodeA.connect("bob", "a-1");
+        nodeA.subscribe("a-1", "/user/queue/messages");
+        nodeB.connect("bob", "b-1");
+        nodeB.subscribe("b-1", "/user/queue/messages");
+
+        // Act
+        nodeA.template.convertAndSendToUser("bob", "/queue/messages", "hello");
+
+        // Assert
+        assertEquals(1, nodeA.deliveredTo("a-1").size());
+        assertEquals(1, nodeB.deliveredTo("b-1").size());
+    }
+
+    @Test
+    @DisplayName("Should broadcast topic messages to subscribers on every node exactly once")
+    void topic_ReachesAllNodes() {
+        // Arrange
+        nodeA.connect("alice", "a-1");
+        nodeA.subscribe("a-1", "/topic/conversation/1/typing");
+        nodeB.connect("bob", "b-1");
+        nodeB.subscribe("b-1", "/topic/conversation/1/typing");
+
+        // Act
+        nodeA.template.convertAndSend("/topic/conversation/1/typing", "typing");
+
+        // Assert
+        assertEquals(1, nodeA.deliveredTo("a-1").size());
+        assertEquals(1, nodeB.deliveredTo("b-1").size());
+    }
+
+    @Test
+    @DisplayName("Should stop routing to a node once the user's last session there disconnects")
+    void disconnect_Unregisters() {
+        // Arrange
+        nodeB.connect("bob", "b-1");
+        nodeB.connect("bob", "b-2");
+        assertEquals(Set.of("node-b"), bus.nodesOf("bob"));
+
+        // Act & Assert
+        nodeB.disconnect("bob", "b-1");
+        assertEquals(Set.of("node-b"), bus.nodesOf("bob"));
+        nodeB.disconnect("bob", "b-2");
+        assertTrue(bus.nodesOf("bob").isEmpty());
+
+        nodeA.template.convertAndSendToUser("bob", "/queue/messages", "hello");
+        assertEquals(0, bus.published);
+    }
+
+    /**
+     * One backend node: the STOMP broker pieces Spring wires up for enableSimpleBroker, with a
+     * relay, and a capture of what would be written to the node's WebSocket sessions
+     */
+    private static final class Node {
+        private final ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        private final ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        private final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        private final DefaultSimpUserRegistry userRegistry = new DefaultSimpUserRegistry();
+        private final SimpleBrokerMessageHandler broker;
+        private final UserDestinationMessageHandler userDestinationHandler;
+        private final ClusteredUserDestinationRelay relay;
+        private final SimpMessagingTemplate template;
+        private final List<Message<?>> outbound = new CopyOnWriteArrayList<>();
+
+        Node(String nodeId, ClusterMessageBus bus) {
+            clientOutbound.subscribe(outbound::add);
+            broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel,
+                    List.of("/topic", "/queue"));
+            userDestinationHandler = new UserDestinationMessageHandler(clientInbound, brokerChannel,
+                    new DefaultUserDestinationResolver(userRegistry));
+            broker.start();
+            userDestinationHandler.start();
+            relay = new ClusteredUserDestinationRelay(bus, brokerChannel, userRegistry, new ObjectMapper(),
+                    nodeId, "test:ws", 30_000);
+            relay.start();
+            template = new SimpMessagingTemplate(brokerChannel);
+            template.setMessageConverter(new StringMessageConverter());
+        }
+
+        void connect(String user, String sessionId) {
+            // The simple broker only delivers to sessions it saw connect
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+            accessor.setSessionId(sessionId);
+            accessor.setUser(principal(user));
+            clientInbound.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+
+            SessionConnectedEvent event = new SessionConnectedEvent(this, message(SimpMessageType.CONNECT_ACK, sessionId),
+                    principal(user));
+            userRegistry.onApplicationEvent(event);
+            relay.onConnected(event);
+        }
+
+        void disconnect(String user, String sessionId) {
+            SessionDisconnectEvent event = new SessionDisconnectEvent(this,
+                    message(SimpMessageType.DISCONNECT, sessionId), sessionId, CloseStatus.NORMAL, principal(user));
+            relay.onDisconnect(event);
+            userRegistry.onApplicationEvent(event);
+        }
+
+        void subscribe(String sessionId, String destination) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+            accessor.setSessionId(sessionId);
+            accessor.setSubscriptionId("sub-" + sessionId + "-" + destination);
+            accessor.setDestination(destination);
+            accessor.setUser(principal(userRegistry.getUsers().stream()
+                    .filter(user -> user.getSession(sessionId) != null)
+                    .findFirst().orElseThrow().getName()));
+            clientInbound.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        }
+
+        List<Message<?>> deliveredTo(String sessionId) {
+            return outbound.stream()
+                    .filter(message -> SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE)
+                    .filter(message -> sessionId.equals(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())))
+                    .collect(Collectors.toList());
+        }
+
+        void stop() {
+            broker.stop();
+            userDestinationHandler.stop();
+        }
+
+        private static Message<byte[]> message(SimpMessageType type, String sessionId) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+            accessor.setSessionId(sessionId);
+            return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        }
+
+        private static Principal principal(String name) {
+            return () -> name;
+        }
+    }
+
+    /**
+     * Synchronous stand-in for {@link RedisClusterMessageBus}
+     */
+    private static final class InMemoryClusterMessageBus implements ClusterMessageBus {
+        private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, Long>> registrations = new HashMap<>();
+        private int published;
+
+        @Override
+        public void publish(String channel, String message) {
+            published++;
+            listeners.getOrDefault(channel, List.of()).forEach(listener -> listener.accept(message));
+        }
+
+        @Override
+        public void subscribe(String channel, Consumer<String> listener) {
+            listeners.computeIfAbsent(channel, key -> new ArrayList<>()).add(listener);
+        }
+
+        @Override
+        public synchronized void register(String user, String node, long ttlMillis) {
+            registrations.computeIfAbsent(user, key -> new HashMap<>()).put(node, System.currentTimeMillis() + ttlMillis);
+        }
+
+        @Override
+        public synchronized void unregister(String user, String node) {
+            registrations.getOrDefault(user, new HashMap<>()).remove(node);
+        }
+
+        @Override
+        public synchronized Set<String> nodesOf(String user) {
+            long now = System.currentTimeMillis();
+            return registrations.getOrDefault(user, Map.of()).entrySet().stream()
+                    .filter(entry -> entry.getValue() > now)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+        }
+    }
+}
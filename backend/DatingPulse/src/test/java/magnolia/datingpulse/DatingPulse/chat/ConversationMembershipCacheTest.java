@@ -0,0 +1,196 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import magnolia.datingpulse.DatingPulse.entity.Conversation;
+import magnolia.datingpulse.DatingPulse.entity.Match;
+import magnolia.datingpulse.DatingPulse.entity.User;
+import magnolia.datingpulse.DatingPulse.repositories.ConversationRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConversationMembershipCacheTest {
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    private static Conversation conversation(long conversationId, long matchId) {
+        Match match = Match.builder()
+                .id(matchId)
+                .userOne(User.builder().userID(7L).username("alice").build())
+                .userTwo(User.builder().userID(8L).username("bob").build())
+                .build();
+        return Conversation.builder().conversationID(conversationId).match(match).build();
+    }
+
+    @Test
+    @DisplayName("Should load a conversation once and answer membership from the cache")
+    void get_LoadsOnce() {
+        // Arrange
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, null, 100, 300);
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation(1L, 5L)));
+
+        // Act
+        ConversationMembership first = cache.get(1L);
+        ConversationMembership second = cache.get(1L);
+
+        // Assert
+        assertSame(first, second);
+        assertTrue(first.isParticipant(7L));
+        assertTrue(first.isParticipant(8L));
+        assertFalse(first.isParticipant(9L));
+        assertTrue(first.isActive());
+        assertEquals("bob", first.username(8L));
+        verify(conversationRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should not cache a conversation that does not exist")
+    void get_MissingConversation() {
+        // Arrange
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, null, 100, 300);
+        when(conversationRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertNull(cache.get(1L));
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.size());
+        verify(conversationRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should reload a conversation after its match is evicted")
+    void evictMatch_ReloadsConversation() {
+        // Arrange
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, null, 100, 300);
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation(1L, 5L)));
+        cache.get(1L);
+
+        // Act
+        cache.evictMatch(5L);
+        cache.get(1L);
+
+        // Assert
+        verify(conversationRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should drop only the conversations of a renamed user")
+    void evictUser_DropsTheirConversations() {
+        // Arrange
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, null, 100, 300);
+        Match other = Match.builder()
+                .id(6L)
+                .userOne(User.builder().userID(9L).build())
+                .userTwo(User.builder().userID(10L).build())
+                .build();
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation(1L, 5L)));
+        when(conversationRepository.findById(2L))
+                .thenReturn(Optional.of(Conversation.builder().conversationID(2L).match(other).build()));
+        cache.get(1L);
+        cache.get(2L);
+
+        // Act
+        cache.evictUser(8L);
+        cache.get(1L);
+        cache.get(2L);
+
+        // Assert
+        verify(conversationRepository, times(2)).findById(1L);
+        verify(conversationRepository, times(1)).findById(2L);
+    }
+
+    @Test
+    @DisplayName("Should discard entries to stay within the configured size")
+    void get_TrimsWhenFull() {
+        // Arrange
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, null, 16, 300);
+        when(conversationRepository.findById(anyLong()))
+                .thenAnswer(invocation -> {
+                    long id = invocation.getArgument(0);
+                    return Optional.of(conversation(id, id + 1000));
+                });
+
+        // Act
+        for (long id = 1; id <= 100; id++) {
+            cache.get(id);
+        }
+
+        // Assert
+        assertTrue(cache.size() <= 16);
+        assertTrue(cache.size() > 0);
+    }
+
+    @Test
+    @DisplayName("Should drop a conversation on every node when one node evicts its match")
+    @SuppressWarnings("unchecked")
+    void evictMatch_ReachesOtherNodes() {
+        // Arrange
+        ClusterMessageBus bus = mock(ClusterMessageBus.class);
+        ConversationMembershipCache nodeA = new ConversationMembershipCache(conversationRepository, bus, 100, 300);
+        ConversationMembershipCache nodeB = new ConversationMembershipCache(conversationRepository, bus, 100, 300);
+        ArgumentCaptor<Consumer<String>> listeners = ArgumentCaptor.forClass(Consumer.class);
+        verify(bus, times(2)).subscribe(anyString(), listeners.capture());
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation(1L, 5L)));
+        nodeA.get(1L);
+        nodeB.get(1L);
+
+        // Act
+        nodeA.evictMatch(5L);
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(bus).publish(anyString(), published.capture());
+        listeners.getAllValues().forEach(listener -> listener.accept(published.getValue()));
+
+        // Assert
+        assertEquals(0, nodeA.size());
+        assertEquals(0, nodeB.size());
+    }
+
+    @Test
+    @DisplayName("Should drop a renamed user's conversations on every node")
+    @SuppressWarnings("unchecked")
+    void evictUser_ReachesOtherNodes() {
+        // Arrange
+        ClusterMessageBus bus = mock(ClusterMessageBus.class);
+        new ConversationMembershipCache(conversationRepository, bus, 100, 300).evictUser(8L);
+        ConversationMembershipCache nodeB = new ConversationMembershipCache(conversationRepository, bus, 100, 300);
+        ArgumentCaptor<Consumer<String>> listeners = ArgumentCaptor.forClass(Consumer.class);
+        verify(bus, times(2)).subscribe(anyString(), listeners.capture());
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(bus).publish(anyString(), published.capture());
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation(1L, 5L)));
+        nodeB.get(1L);
+
+        // Act
+        listeners.getAllValues().get(1).accept(published.getValue());
+
+        // Assert
+        assertEquals(0, nodeB.size());
+    }
+
+    @Test
+    @DisplayName("Should reload a conversation once its entry has expired")
+    void get_ReloadsExpiredEntry() {
+        // Arrange
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, null, 100, 0);
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation(1L, 5L)));
+
+        // Act
+        cache.get(1L);
+        cache.get(1L);
+
+        // Assert
+        verify(conversationRepository, times(2)).findById(1L);
+    }
+}
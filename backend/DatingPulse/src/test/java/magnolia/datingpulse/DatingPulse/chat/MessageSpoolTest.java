@@ -0,0 +1,89 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageSpoolTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path directory;
+
+    private PendingMessage message(long id) {
+        return PendingMessage.builder()
+                .messageId(id)
+                .conversationId(1L)
+                .senderId(7L)
+                .receiverId(8L)
+                .content("message " + id)
+                .type("TEXT")
+                .sentAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+
+    private List<Long> recoveredIds() throws Exception {
+        return MessageSpool.recover(directory, objectMapper).stream().map(PendingMessage::getMessageId).toList();
+    }
+
+    private long segmentCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    @DisplayName("Should recover unpersisted records in order and release persisted segments")
+    void testPersistedThrough() throws Exception {
+        // Arrange - small segments so records span several files
+        try (MessageSpool spool = new MessageSpool(directory, 256, false, objectMapper)) {
+            for (long id = 0; id < 10; id++) {
+                assertEquals(id, spool.append(message(id)));
+            }
+            long segments = segmentCount();
+            assertTrue(segments > 2);
+
+            // Act
+            spool.persistedThrough(4);
+
+            // Assert - whole segments up to record 4 are gone, later records survive
+            assertTrue(segmentCount() < segments);
+            List<Long> recovered = recoveredIds();
+            assertEquals(9L, recovered.get(recovered.size() - 1));
+            assertFalse(recovered.contains(0L));
+            assertTrue(recovered.containsAll(List.of(5L, 6L, 7L, 8L)));
+
+            spool.persistedThrough(9);
+            assertTrue(recoveredIds().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip a record torn by a crash mid-write")
+    void testRecoverTornTail() throws Exception {
+        try (MessageSpool spool = new MessageSpool(directory, 1 << 20, false, objectMapper)) {
+            spool.append(message(1));
+            spool.append(message(2));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.findFirst().orElseThrow();
+            Files.writeString(segment, "{\"messageId\":3,\"conv", StandardOpenOption.APPEND);
+        }
+
+        assertEquals(List.of(1L, 2L), recoveredIds());
+
+        MessageSpool.clear(directory);
+        assertEquals(0, segmentCount());
+    }
+}
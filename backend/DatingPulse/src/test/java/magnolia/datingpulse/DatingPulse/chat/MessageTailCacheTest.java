@@ -0,0 +1,185 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import magnolia.datingpulse.DatingPulse.dto.MessageDTO;
+import magnolia.datingpulse.DatingPulse.dto.MessagePageDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class MessageTailCacheTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private static MessageDTO message(long id, long conversationId, long senderId, long receiverId) {
+        MessageDTO message = new MessageDTO();
+        message.setMessageID(id);
+        message.setConversationID(conversationId);
+        message.setSenderID(senderId);
+        message.setReceiverID(receiverId);
+        message.setContent("message " + id);
+        message.setSentAt(START.plusSeconds(id));
+        message.setDeletedForSender(false);
+        message.setDeletedForReceiver(false);
+        return message;
+    }
+
+    private static List<MessageDTO> messages(long conversationId, long... ids) {
+        List<MessageDTO> messages = new ArrayList<>();
+        for (long id : ids) {
+            messages.add(message(id, conversationId, 7L, 8L));
+        }
+        return messages;
+    }
+
+    private static List<Long> ids(MessagePageDTO page) {
+        return page.getMessages().stream().map(MessageDTO::getMessageID).toList();
+    }
+
+    @Test
+    @DisplayName("Should answer a short conversation in full, and a long one only when it holds a page beyond the request")
+    void firstPage_CompleteAndPartialTails() {
+        // Arrange
+        MessageTailCache cache = new MessageTailCache(4, 1 << 20, 30, null);
+        cache.load(1L, cache.stamp(1L), messages(1L, 1, 2), true);
+        cache.load(2L, cache.stamp(2L), messages(2L, 5, 6, 7, 8), false);
+
+        // Act & Assert
+        MessagePageDTO whole = cache.firstPage(1L, 7L, 10);
+        assertEquals(List.of(1L, 2L), ids(whole));
+        assertFalse(whole.isHasMore());
+
+        MessagePageDTO partial = cache.firstPage(2L, 8L, 3);
+        assertEquals(List.of(6L, 7L, 8L), ids(partial));
+        assertTrue(partial.isHasMore());
+        assertNull(cache.firstPage(2L, 8L, 4));
+        assertNull(cache.firstPage(3L, 7L, 4));
+    }
+
+    @Test
+    @DisplayName("Should keep messages in order and drop the oldest once full")
+    void messageAdded_InsertsInOrder() {
+        // Arrange
+        MessageTailCache cache = new MessageTailCache(3, 1 << 20, 30, null);
+        cache.load(1L, cache.stamp(1L), messages(1L, 2), true);
+
+        // Act - 5 commits before 4
+        cache.messageAdded(message(5, 1L, 7L, 8L));
+        cache.messageAdded(message(4, 1L, 8L, 7L));
+        cache.messageAdded(message(1, 1L, 7L, 8L));
+
+        // Assert - 1 was older than a full tail, so it is not held and the tail is no longer complete
+        assertEquals(List.of(4L, 5L), ids(cache.firstPage(1L, 7L, 2)));
+        assertTrue(cache.firstPage(1L, 7L, 2).isHasMore());
+        assertNull(cache.firstPage(1L, 7L, 3));
+    }
+
+    @Test
+    @DisplayName("Should hide messages deleted for the reader and apply reads and edits")
+    void updates_ReplaceCachedMessages() {
+        // Arrange
+        MessageTailCache cache = new MessageTailCache(8, 1 << 20, 30, null);
+        cache.load(1L, cache.stamp(1L), messages(1L, 1, 2, 3), true);
+        MessageDTO hidden = message(2, 1L, 7L, 8L);
+        hidden.setDeletedForReceiver(true);
+        MessageDTO edited = message(3, 1L, 7L, 8L);
+        edited.setContent("edited");
+        LocalDateTime readAt = START.plusMinutes(5);
+
+        // Act
+        cache.messageUpdated(hidden);
+        cache.messageUpdated(edited);
+        cache.conversationRead(1L, 8L, readAt);
+        cache.messageDeleted(1L, 1L);
+
+        // Assert
+        MessagePageDTO receiver = cache.firstPage(1L, 8L, 10);
+        assertEquals(List.of(3L), ids(receiver));
+        assertEquals("edited", receiver.getMessages().get(0).getContent());
+        assertEquals(readAt, receiver.getMessages().get(0).getReadAt());
+        assertEquals(List.of(2L, 3L), ids(cache.firstPage(1L, 7L, 10)));
+    }
+
+    @Test
+    @DisplayName("Should not cache a load that raced with a write to the conversation")
+    void load_DiscardedAfterConcurrentChange() {
+        // Arrange
+        MessageTailCache cache = new MessageTailCache(4, 1 << 20, 30, null);
+        long stamp = cache.stamp(1L);
+
+        // Act - a message commits while the rows are being read
+        cache.messageAdded(message(3, 1L, 7L, 8L));
+        ConversationTail tail = cache.load(1L, stamp, messages(1L, 1, 2), true);
+
+        // Assert
+        assertNotNull(tail.firstPage(7L, 10));
+        assertEquals(0, cache.size());
+        assertNull(cache.firstPage(1L, 7L, 10));
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently read conversations past the byte budget")
+    void load_EvictsLeastRecentlyUsed() {
+        // Arrange - room for about two conversations of two messages
+        long twoMessages = ConversationTail.estimateBytes(message(1, 1L, 7L, 8L)) * 2;
+        MessageTailCache cache = new MessageTailCache(4, twoMessages * 2, 30, null);
+        cache.load(1L, cache.stamp(1L), messages(1L, 1, 2), true);
+        cache.load(2L, cache.stamp(2L), messages(2L, 1, 2), true);
+
+        // Act - reading 1 makes 2 the eldest
+        cache.firstPage(1L, 7L, 10);
+        cache.load(3L, cache.stamp(3L), messages(3L, 1, 2), true);
+
+        // Assert
+        assertNotNull(cache.firstPage(1L, 7L, 10));
+        assertNull(cache.firstPage(2L, 7L, 10));
+        assertNotNull(cache.firstPage(3L, 7L, 10));
+        assertTrue(cache.estimatedBytes() <= twoMessages * 2);
+    }
+
+    @Test
+    @DisplayName("Should drop a conversation's tail on other nodes when it changes on one node")
+    @SuppressWarnings("unchecked")
+    void messageAdded_EvictsOtherNodes() {
+        // Arrange
+        ClusterMessageBus bus = mock(ClusterMessageBus.class);
+        MessageTailCache nodeA = new MessageTailCache(4, 1 << 20, 30, bus);
+        MessageTailCache nodeB = new MessageTailCache(4, 1 << 20, 30, bus);
+        ArgumentCaptor<Consumer<String>> listeners = ArgumentCaptor.forClass(Consumer.class);
+        verify(bus, times(2)).subscribe(anyString(), listeners.capture());
+        nodeA.load(1L, nodeA.stamp(1L), messages(1L, 1, 2), true);
+        nodeB.load(1L, nodeB.stamp(1L), messages(1L, 1, 2), true);
+
+        // Act
+        nodeA.messageAdded(message(3, 1L, 7L, 8L));
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(bus).publish(anyString(), published.capture());
+        listeners.getAllValues().forEach(listener -> listener.accept(published.getValue()));
+
+        // Assert - node A applied the change itself, node B reloads on its next read
+        assertEquals(List.of(1L, 2L, 3L), ids(nodeA.firstPage(1L, 7L, 10)));
+        assertNull(nodeB.firstPage(1L, 7L, 10));
+        assertEquals(0, nodeB.size());
+    }
+
+    @Test
+    @DisplayName("Should not serve a tail past its maximum age")
+    void firstPage_DropsExpiredTail() {
+        // Arrange
+        MessageTailCache cache = new MessageTailCache(4, 1 << 20, 0, null);
+        cache.load(1L, cache.stamp(1L), messages(1L, 1, 2), true);
+
+        // Act & Assert
+        assertNull(cache.firstPage(1L, 7L, 10));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.estimatedBytes());
+    }
+}
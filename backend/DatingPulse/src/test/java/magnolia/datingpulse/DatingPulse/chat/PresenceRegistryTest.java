@@ -0,0 +1,101 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PresenceRegistryTest {
+
+    private static final long TICK = 1000;
+    private static final long TIMEOUT = 300_000;
+
+    @Test
+    @DisplayName("Should expire a user once the timeout passes without a heartbeat")
+    void expire_AfterTimeout() {
+        // Arrange
+        PresenceRegistry registry = new PresenceRegistry(4, TICK, TIMEOUT, 0);
+        registry.online(1L, "alice", 0);
+
+        // Act & Assert
+        assertTrue(registry.expire(TIMEOUT - TICK).isEmpty());
+        List<Presence> expired = registry.expire(TIMEOUT);
+        assertEquals(1, expired.size());
+        assertEquals(1L, expired.get(0).getUserId());
+        assertNull(registry.get(1L));
+    }
+
+    @Test
+    @DisplayName("Should keep a user who sent a heartbeat, rescheduling from the new stamp")
+    void expire_HeartbeatExtends() {
+        // Arrange
+        PresenceRegistry registry = new PresenceRegistry(4, TICK, TIMEOUT, 0);
+        registry.online(1L, "alice", 0);
+        Presence presence = registry.get(1L);
+
+        // Act
+        assertSame(presence, registry.touch(1L, 200_000));
+
+        // Assert
+        assertTrue(registry.expire(TIMEOUT).isEmpty());
+        assertEquals(200_000, registry.get(1L).getLastSeenMillis());
+        assertEquals(1, registry.expire(200_000 + TIMEOUT).size());
+    }
+
+    @Test
+    @DisplayName("Should not touch a user who has already expired")
+    void touch_AfterExpire() {
+        // Arrange
+        PresenceRegistry registry = new PresenceRegistry(4, TICK, TIMEOUT, 0);
+        registry.online(1L, "alice", 0);
+        Presence expired = registry.expire(TIMEOUT).get(0);
+
+        // Act & Assert
+        assertNull(registry.touch(1L, TIMEOUT + TICK));
+        assertEquals(0, expired.getLastSeenMillis());
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    @DisplayName("Should catch up after a long pause and expire only idle users")
+    void expire_CatchesUp() {
+        // Arrange
+        PresenceRegistry registry = new PresenceRegistry(4, TICK, TIMEOUT, 0);
+        for (long userId = 1; userId <= 1000; userId++) {
+            registry.online(userId, "user" + userId, 0);
+        }
+        long later = 100L * 24 * 3600 * 1000;
+        registry.touch(7L, later);
+
+        // Act
+        List<Presence> expired = registry.expire(later);
+
+        // Assert
+        assertEquals(999, expired.size());
+        assertEquals(Set.of(7L), registry.userIds());
+    }
+
+    @Test
+    @DisplayName("Should remove users explicitly and by idle cutoff")
+    void remove_AndRemoveIdleSince() {
+        // Arrange
+        PresenceRegistry registry = new PresenceRegistry(4, TICK, TIMEOUT, 0);
+        for (long userId = 1; userId <= 100; userId++) {
+            registry.online(userId, "user" + userId, userId * 1000);
+        }
+
+        // Act
+        assertNotNull(registry.remove(5L));
+        assertNull(registry.remove(5L));
+        List<Presence> removed = registry.removeIdleSince(50_000);
+
+        // Assert
+        assertEquals(48, removed.size());
+        assertEquals(51, registry.size());
+        assertTrue(registry.expire(TIMEOUT).isEmpty());
+        assertEquals(51, registry.expire(100_000 + TIMEOUT).size());
+    }
+}
@@ -0,0 +1,51 @@
+package magnolia.datingpulse.DatingPulse.chat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TypingIndicatorThrottleTest {
+
+    @Test
+    @DisplayName("Should forward one typing indicator per interval per sender and conversation")
+    void tryForward_DebouncesRepeats() {
+        // Arrange
+        TypingIndicatorThrottle throttle = new TypingIndicatorThrottle(60_000);
+
+        // Act & Assert
+        assertTrue(throttle.tryForward(1L, 7L, true));
+        assertFalse(throttle.tryForward(1L, 7L, true));
+        assertFalse(throttle.tryForward(1L, 7L, true));
+        assertTrue(throttle.tryForward(1L, 8L, true));
+        assertTrue(throttle.tryForward(2L, 7L, true));
+    }
+
+    @Test
+    @DisplayName("Should always forward a stop after a forwarded start, but not a repeated stop")
+    void tryForward_StopPassesOnce() {
+        // Arrange
+        TypingIndicatorThrottle throttle = new TypingIndicatorThrottle(60_000);
+        throttle.tryForward(1L, 7L, true);
+
+        // Act & Assert
+        assertTrue(throttle.tryForward(1L, 7L, false));
+        assertFalse(throttle.tryForward(1L, 7L, false));
+        assertFalse(throttle.tryForward(1L, 7L, true));
+    }
+
+    @Test
+    @DisplayName("Should forward again once the interval has passed")
+    void tryForward_AfterInterval() throws InterruptedException {
+        // Arrange
+        TypingIndicatorThrottle throttle = new TypingIndicatorThrottle(20);
+        throttle.tryForward(1L, 7L, true);
+
+        // Act
+        Thread.sleep(30);
+
+        // Assert
+        assertTrue(throttle.tryForward(1L, 7L, true));
+        assertEquals(1, throttle.size());
+    }
+}
@@ -0,0 +1,81 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import magnolia.datingpulse.DatingPulse.dto.ChatMessageDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CborWireFormatTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final CborWireFormat wireFormat = new CborWireFormat(objectMapper);
+
+    @Test
+    @DisplayName("Should transcode JSON to smaller CBOR that decodes to the same message")
+    void jsonToCbor_RoundTrips() throws Exception {
+        // Arrange
+        ChatMessageDTO message = ChatMessageDTO.builder()
+                .type("MESSAGE").conversationId(1L).senderId(2L).senderUsername("john_doe")
+                .receiverId(3L).content("Hello! How are you?").messageType("TEXT")
+                .timestamp(1640995200000L).build();
+        byte[] json = objectMapper.writeValueAsBytes(message);
+
+        // Act
+        byte[] cbor = wireFormat.jsonToCbor(json);
+
+        // Assert
+        assertTrue(cbor.length < json.length);
+        assertEquals(message, wireFormat.getCborMapper().readValue(cbor, ChatMessageDTO.class));
+    }
+
+    @Test
+    @DisplayName("Should send CBOR only to native sessions that asked for it on CONNECT")
+    void outboundInterceptor_TranscodesOptedInSessions() throws Exception {
+        // Arrange
+        connect("native-1", true);
+        connect("sockjs-1", false);
+        byte[] json = objectMapper.writeValueAsBytes(Map.of("type", "MESSAGE"));
+
+        // Act
+        Message<?> toNative = wireFormat.outboundInterceptor().preSend(outbound("native-1", json), null);
+        Message<?> toSockJs = wireFormat.outboundInterceptor().preSend(outbound("sockjs-1", json), null);
+
+        // Assert
+        assertEquals(CborWireFormat.CBOR_FRAME, toNative.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertArrayEquals(wireFormat.jsonToCbor(json), (byte[]) toNative.getPayload());
+        assertSame(json, toSockJs.getPayload());
+    }
+
+    private void connect(String sessionId, boolean nativeSession) throws Exception {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        accessor.addNativeHeader(CborWireFormat.ACCEPT_HEADER, "application/cbor");
+        Map<String, Object> attributes = new HashMap<>();
+        if (nativeSession) {
+            wireFormat.nativeSessionMarker().beforeHandshake(null, null, null, attributes);
+        }
+        accessor.setSessionAttributes(attributes);
+        wireFormat.inboundInterceptor().preSend(
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+    }
+
+    private static Message<byte[]> outbound(String sessionId, byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
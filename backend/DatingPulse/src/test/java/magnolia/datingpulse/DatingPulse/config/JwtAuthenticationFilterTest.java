@@ -0,0 +1,125 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import magnolia.datingpulse.DatingPulse.entity.User;
+import magnolia.datingpulse.DatingPulse.service.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    @Mock
+    private TokenRevocationCache tokenRevocationCache;
+
+    private JwtUtil jwtUtil;
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = JwtUtilTest.jwtUtil(86_400_000L);
+        filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, tokenRevocationCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private Authentication filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static User user() {
+        return User.builder().userID(42L).username("claimsuser").role("ADMIN").build();
+    }
+
+    @Test
+    @DisplayName("Should build the principal from the token's claims without loading the user")
+    void doFilter_AuthenticatesFromClaims() throws Exception {
+        // Arrange
+        String token = jwtUtil.generateToken(user(), 3L);
+        when(tokenRevocationCache.isCurrent(42L, 3L)).thenReturn(true);
+
+        // Act
+        Authentication authentication = filter(token);
+
+        // Assert
+        assertNotNull(authentication);
+        assertEquals("claimsuser", ((UserDetails) authentication.getPrincipal()).getUsername());
+        assertEquals(List.of("ROLE_ADMIN"),
+                authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Should refuse a token whose status version was bumped")
+    void doFilter_RefusesRevokedToken() throws Exception {
+        // Arrange
+        String token = jwtUtil.generateToken(user(), 3L);
+        when(tokenRevocationCache.isCurrent(42L, 3L)).thenReturn(false);
+
+        // Act
+        Authentication authentication = filter(token);
+
+        // Assert
+        assertNull(authentication);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Should load the user for tokens issued without a user ID")
+    void doFilter_LoadsUserForLegacyToken() throws Exception {
+        // Arrange
+        String token = jwtUtil.generateToken("legacyuser");
+        UserDetails legacy = org.springframework.security.core.userdetails.User.withUsername("legacyuser")
+                .password("")
+                .authorities("ROLE_USER")
+                .build();
+        when(userDetailsService.loadUserByUsername("legacyuser")).thenReturn(legacy);
+
+        // Act
+        Authentication authentication = filter(token);
+
+        // Assert
+        assertSame(legacy, authentication.getPrincipal());
+        verifyNoInteractions(tokenRevocationCache);
+    }
+
+    @Test
+    @DisplayName("Should leave a request with a forged token unauthenticated")
+    void doFilter_IgnoresForgedToken() throws Exception {
+        // Arrange
+        String forged = JwtUtilTest.jwtUtil(86_400_000L, "another-secret-key-that-is-at-least-32-bytes")
+                .generateToken(user(), 3L);
+
+        // Act & Assert
+        assertNull(filter(forged));
+        verifyNoInteractions(tokenRevocationCache, userDetailsService);
+    }
+}
@@ -0,0 +1,113 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import magnolia.datingpulse.DatingPulse.entity.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "datingpulse-jwt-secret-key-for-unit-tests-only";
+
+    static JwtUtil jwtUtil(long expirationMillis) {
+        return jwtUtil(expirationMillis, SECRET);
+    }
+
+    static JwtUtil jwtUtil(long expirationMillis, String secret) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", expirationMillis);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxEntries", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxTtlMillis", 600_000L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Test
+    @DisplayName("Should sign the user's ID, role and status version into the token")
+    void generateToken_CarriesUserClaims() {
+        // Arrange
+        JwtUtil jwtUtil = jwtUtil(86_400_000L);
+        User user = User.builder()
+                .userID(42L)
+                .username("claimsuser")
+                .role("ADMIN")
+                .build();
+
+        // Act
+        Claims claims = jwtUtil.parseClaims(jwtUtil.generateToken(user, 3L));
+
+        // Assert
+        assertEquals("claimsuser", claims.getSubject());
+        assertEquals(42L, jwtUtil.extractUserId(claims));
+        assertEquals(3L, jwtUtil.extractStatusVersion(claims));
+        assertEquals("ROLE_ADMIN", jwtUtil.extractAuthorities(claims).get(0).getAuthority());
+    }
+
+    @Test
+    @DisplayName("Should leave the user claims empty for tokens issued without them")
+    void generateToken_WithoutUserClaims() {
+        // Arrange
+        JwtUtil jwtUtil = jwtUtil(86_400_000L);
+
+        // Act
+        Claims claims = jwtUtil.parseClaims(jwtUtil.generateToken("legacyuser"));
+
+        // Assert
+        assertEquals("legacyuser", claims.getSubject());
+        assertNull(jwtUtil.extractUserId(claims));
+        assertEquals(0L, jwtUtil.extractStatusVersion(claims));
+        assertTrue(jwtUtil.extractAuthorities(claims).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return the cached claims for a token presented again")
+    void parseClaims_CachesVerifiedToken() {
+        // Arrange
+        JwtUtil jwtUtil = jwtUtil(86_400_000L);
+        String token = jwtUtil.generateToken("cacheduser");
+
+        // Act
+        Claims first = jwtUtil.parseClaims(token);
+        Claims second = jwtUtil.parseClaims(token);
+
+        // Assert
+        assertSame(first, second);
+    }
+
+    @Test
+    @DisplayName("Should reject a tampered token after the genuine one was cached")
+    void parseClaims_RejectsTamperedTokenAfterCaching() {
+        // Arrange
+        JwtUtil jwtUtil = jwtUtil(86_400_000L);
+        String token = jwtUtil.generateToken("cacheduser");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+        jwtUtil.parseClaims(token);
+
+        // Act & Assert
+        assertThrows(JwtException.class, () -> jwtUtil.parseClaims(tampered));
+        assertFalse(jwtUtil.validateToken(tampered));
+        assertTrue(jwtUtil.validateToken(token));
+    }
+
+    @Test
+    @DisplayName("Should re-verify a cached token once it has expired")
+    void parseClaims_ExpiredCachedToken() throws InterruptedException {
+        // Arrange
+        JwtUtil jwtUtil = jwtUtil(1_000L);
+        String token = jwtUtil.generateToken("shortlived");
+        Claims claims = jwtUtil.parseClaims(token);
+
+        // Act - expiry has second precision, so wait until just past it
+        Thread.sleep(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()) + 50);
+
+        // Assert
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.parseClaims(token));
+        assertFalse(jwtUtil.validateToken(token));
+    }
+}
@@ -0,0 +1,57 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitingConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RateLimitingConfig config = new RateLimitingConfig(Optional.empty(), 1000, meterRegistry);
+
+    @Test
+    @DisplayName("Should keep one bucket per key and enforce its limit across calls")
+    void resolveBucket_ReusesBucket() {
+        // Arrange
+        RateLimitingConfig.RateLimitType type = RateLimitingConfig.RateLimitType.AUTH_REGISTER;
+
+        // Act
+        Bucket first = config.resolveBucket("10.0.0.1:" + type.name(), type);
+        Bucket second = config.resolveBucket("10.0.0.1:" + type.name(), type);
+        Bucket other = config.resolveBucket("10.0.0.2:" + type.name(), type);
+
+        // Assert
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertTrue(first.tryConsume(3));
+        assertFalse(second.tryConsume(1));
+        assertTrue(other.tryConsume(1));
+    }
+
+    @Test
+    @DisplayName("Should report the number of buckets held")
+    void resolveBucket_ReportsStoreSize() {
+        // Arrange
+        RateLimitingConfig.RateLimitType type = RateLimitingConfig.RateLimitType.GENERAL_API;
+
+        // Act
+        config.resolveBucket("10.0.0.1:" + type.name(), type);
+        config.resolveBucket("10.0.0.2:" + type.name(), type);
+
+        // Assert
+        assertEquals(2.0, meterRegistry.get(RateLimitingConfig.BUCKETS_METRIC).tag("store", "local").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should expire idle buckets only once they would have refilled")
+    void refillTime_CoversLongestWindow() {
+        assertEquals(Duration.ofHours(1), RateLimitingConfig.RateLimitType.GENERAL_API.refillTime());
+        assertEquals(Duration.ofHours(24), RateLimitingConfig.RateLimitType.PASSWORD_RESET.refillTime());
+    }
+}
@@ -0,0 +1,173 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredCacheManagerTest {
+
+    // Two nodes sharing one remote cache and one invalidation channel
+    private final ConcurrentMapCacheManager shared = new ConcurrentMapCacheManager();
+    private final List<TieredCacheManager> nodes = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TieredCacheManager nodeA = node();
+    private final TieredCacheManager nodeB = node();
+
+    private TieredCacheManager node() {
+        TieredCacheManager manager = new TieredCacheManager(shared, Map.of("users", 2L), 100, Duration.ofMinutes(1),
+                message -> nodes.forEach(node -> node.onInvalidation(message)), meterRegistry);
+        nodes.add(manager);
+        return manager;
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from the local tier")
+    void get_FillsLocalTier() {
+        // Arrange
+        Cache users = nodeA.getCache("users");
+        shared.getCache("users").put(1L, "alice");
+
+        // Act
+        assertEquals("alice", users.get(1L, String.class));
+        shared.getCache("users").put(1L, "changed behind the cache");
+
+        // Assert
+        assertEquals("alice", users.get(1L, String.class));
+        assertEquals("alice", ((TieredCache) users).getLocalCache().getIfPresent("1"));
+    }
+
+    @Test
+    @DisplayName("Should drop every node's local copy when one node evicts")
+    void evict_InvalidatesOtherNodes() {
+        // Arrange
+        Cache usersA = nodeA.getCache("users");
+        Cache usersB = nodeB.getCache("users");
+        usersA.put(1L, "alice");
+        assertEquals("alice", usersA.get(1L, String.class));
+        assertEquals("alice", usersB.get(1L, String.class));
+
+        // Act
+        usersA.evict(1L);
+
+        // Assert
+        assertNull(((TieredCache) usersB).getLocalCache().getIfPresent("1"));
+        assertNull(usersB.get(1L));
+    }
+
+    @Test
+    @DisplayName("Should refresh other nodes after a put and a clear")
+    void putAndClear_InvalidateOtherNodes() {
+        // Arrange
+        Cache usersA = nodeA.getCache("users");
+        Cache usersB = nodeB.getCache("users");
+        usersA.put("bob", "v1");
+        assertEquals("v1", usersB.get("bob", String.class));
+
+        // Act & Assert
+        usersA.put("bob", "v2");
+        assertEquals("v2", usersB.get("bob", String.class));
+
+        usersA.clear();
+        assertNull(usersB.get("bob"));
+    }
+
+    @Test
+    @DisplayName("Should load through the remote tier once and cache the result locally")
+    void getWithLoader_LoadsOnce() {
+        // Arrange
+        Cache users = nodeA.getCache("users");
+        int[] loads = {0};
+
+        // Act
+        String first = users.get(7L, () -> "user-" + ++loads[0]);
+        String second = users.get(7L, () -> "user-" + ++loads[0]);
+
+        // Assert
+        assertEquals("user-1", first);
+        assertEquals("user-1", second);
+        assertEquals(1, loads[0]);
+        assertEquals("user-1", shared.getCache("users").get(7L, String.class));
+    }
+
+    @Test
+    @DisplayName("Should report local hits and misses and loader latency per cache")
+    @SuppressWarnings("unchecked")
+    void snapshot_ReportsTierCounters() {
+        // Arrange
+        Cache users = nodeA.getCache("users");
+        users.get(1L, () -> "alice");
+
+        // Act
+        users.get(1L, () -> "alice");
+        Map<String, Object> stats = CacheMetrics.snapshot(meterRegistry, "users");
+
+        // Assert
+        Map<String, Object> local = (Map<String, Object>) stats.get(CacheMetrics.LOCAL_TIER);
+        assertEquals(1L, local.get("hits"));
+        assertEquals(1L, local.get("misses"));
+        assertEquals(0.5, (double) local.get("hitRatio"), 1e-9);
+        Map<String, Object> latency = (Map<String, Object>) stats.get("latency");
+        assertEquals(1L, ((Map<String, Object>) latency.get("load")).get("count"));
+        assertEquals(1L, ((Map<String, Object>) latency.get("remote.get")).get("count"));
+    }
+
+    @Test
+    @DisplayName("Should time the load of a plain @Cacheable miss")
+    @SuppressWarnings("unchecked")
+    void cacheable_RecordsLoadLatency() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            // Arrange
+            context.registerBean(CacheManager.class, () -> nodeA);
+            context.register(CachingConfig.class);
+            context.refresh();
+            UserLookup lookup = context.getBean(UserLookup.class);
+
+            // Act - a miss in both tiers, then a local hit
+            assertEquals("user-1", lookup.find(1L));
+            assertEquals("user-1", lookup.find(1L));
+
+            // Assert
+            Map<String, Object> latency = (Map<String, Object>) CacheMetrics.snapshot(meterRegistry, "users").get("latency");
+            assertEquals(1L, ((Map<String, Object>) latency.get("load")).get("count"));
+            assertEquals(1, lookup.getCalls());
+        }
+    }
+
+    @Configuration
+    @EnableCaching
+    static class CachingConfig {
+        @Bean
+        UserLookup userLookup() {
+            return new UserLookup();
+        }
+    }
+
+    static class UserLookup {
+        private int calls;
+
+        @Cacheable("users")
+        public String find(Long id) {
+            calls++;
+            return "user-" + id;
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package magnolia.datingpulse.DatingPulse.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TokenRevocationCacheTest {
+
+    private static final long TOKEN_LIFETIME_MS = 86_400_000;
+
+    @Test
+    @DisplayName("Should refuse tokens issued before a revocation and accept those issued after")
+    void revoke_RefusesOlderTokens() {
+        // Arrange
+        TokenRevocationCache cache = new TokenRevocationCache(Optional.empty(), TOKEN_LIFETIME_MS, 5000, 1000);
+        long issuedBefore = cache.currentVersion(7L);
+
+        // Act
+        cache.revoke(7L);
+        long issuedAfter = cache.currentVersion(7L);
+
+        // Assert
+        assertFalse(cache.isCurrent(7L, issuedBefore));
+        assertTrue(cache.isCurrent(7L, issuedAfter));
+        assertTrue(cache.isCurrent(8L, 0L));
+    }
+
+    @Test
+    @DisplayName("Should read shared versions once per local TTL and apply this node's revocations at once")
+    void shared_ReadsThroughLocalCopy() {
+        // Arrange
+        RedisTokenVersionStore store = mock(RedisTokenVersionStore.class);
+        when(store.version(7L)).thenReturn(2L);
+        when(store.increment(7L)).thenReturn(3L);
+        TokenRevocationCache cache = new TokenRevocationCache(Optional.of(store), TOKEN_LIFETIME_MS, 60_000, 1000);
+
+        // Act & Assert
+        assertTrue(cache.isCurrent(7L, 2L));
+        assertFalse(cache.isCurrent(7L, 1L));
+        verify(store, times(1)).version(7L);
+
+        cache.revoke(7L);
+        assertFalse(cache.isCurrent(7L, 2L));
+        assertTrue(cache.isCurrent(7L, 3L));
+        verify(store, times(1)).version(7L);
+    }
+
+    @Test
+    @DisplayName("Should fall back to signature and expiry checks when Redis cannot be read")
+    void shared_AcceptsWhenStoreFails() {
+        // Arrange
+        RedisTokenVersionStore store = mock(RedisTokenVersionStore.class);
+        when(store.version(7L)).thenThrow(new IllegalStateException("connection refused"));
+        TokenRevocationCache cache = new TokenRevocationCache(Optional.of(store), TOKEN_LIFETIME_MS, 60_000, 1000);
+
+        // Act & Assert
+        assertTrue(cache.isCurrent(7L, 0L));
+    }
+}
@@ -0,0 +1,121 @@
+package magnolia.datingpulse.DatingPulse.service;
+
+import magnolia.datingpulse.DatingPulse.chat.ConversationMembershipCache;
+import magnolia.datingpulse.DatingPulse.chat.MessageTailCache;
+import magnolia.datingpulse.DatingPulse.entity.Conversation;
+import magnolia.datingpulse.DatingPulse.entity.Match;
+import magnolia.datingpulse.DatingPulse.entity.User;
+import magnolia.datingpulse.DatingPulse.mapper.ConversationMapper;
+import magnolia.datingpulse.DatingPulse.mapper.MatchMapper;
+import magnolia.datingpulse.DatingPulse.repositories.ConversationRepository;
+import magnolia.datingpulse.DatingPulse.repositories.MatchRepository;
+import magnolia.datingpulse.DatingPulse.repositories.MessageRepository;
+import magnolia.datingpulse.DatingPulse.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MatchServiceTest {
+
+    @Mock
+    private MatchRepository matchRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MatchMapper matchMapper;
+
+    @Mock
+    private LikeService likeService;
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private MessageTailCache messageTailCache;
+
+    @Mock
+    private ConversationMapper conversationMapper;
+
+    private ConversationMembershipCache membershipCache;
+    private MatchService matchService;
+
+    @BeforeEach
+    void setUp() {
+        membershipCache = new ConversationMembershipCache(conversationRepository, null, 100, 300);
+        ConversationService conversationService = new ConversationService(conversationRepository, matchRepository,
+                messageRepository, userRepository, membershipCache, messageTailCache, conversationMapper);
+        matchService = new MatchService(matchRepository, userRepository, matchMapper, likeService, membershipCache,
+                conversationService);
+    }
+
+    @Test
+    @DisplayName("Should let a re-matched pair chat again after the match was deactivated")
+    void createMatch_ReactivationRefreshesMembership() {
+        // Arrange
+        User alice = User.builder().userID(7L).build();
+        User bob = User.builder().userID(8L).build();
+        Match match = Match.builder().id(5L).userOne(alice).userTwo(bob).isActive(true).build();
+        when(matchRepository.findById(5L)).thenReturn(Optional.of(match));
+        when(matchRepository.save(match)).thenReturn(match);
+        when(conversationRepository.findById(1L))
+                .thenReturn(Optional.of(Conversation.builder().conversationID(1L).match(match).build()));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(alice));
+        when(userRepository.findById(8L)).thenReturn(Optional.of(bob));
+        when(matchRepository.findByUserOneAndUserTwo(alice, bob)).thenReturn(Optional.of(match));
+
+        matchService.deactivateMatch(5L);
+        assertFalse(membershipCache.get(1L).isActive());
+
+        // Act
+        matchService.createMatch(7L, 8L, "MUTUAL_LIKE");
+
+        // Assert
+        assertTrue(membershipCache.get(1L).isActive());
+        verify(conversationRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Should take a deactivated match's conversation out of the unread conversation count and back")
+    void deactivateMatch_ReleasesUnreadConversation() {
+        // Arrange - bob has unread messages in the conversation, alice has none
+        User alice = User.builder().userID(7L).build();
+        User bob = User.builder().userID(8L).build();
+        Match match = Match.builder().id(5L).userOne(alice).userTwo(bob).isActive(true).build();
+        Conversation conversation = Conversation.builder()
+                .conversationID(1L).match(match).unreadCountUser2(3).build();
+        when(matchRepository.findById(5L)).thenReturn(Optional.of(match));
+        when(matchRepository.save(match)).thenReturn(match);
+        when(conversationRepository.findByMatch(match)).thenReturn(Optional.of(conversation));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(alice));
+        when(userRepository.findById(8L)).thenReturn(Optional.of(bob));
+        when(matchRepository.findByUserOneAndUserTwo(alice, bob)).thenReturn(Optional.of(match));
+
+        // Act
+        matchService.deactivateMatch(5L);
+        matchService.deactivateMatch(5L);
+
+        // Assert - released once; the message total is left alone
+        verify(userRepository).adjustUnreadCounts(8L, 0, -1);
+
+        // Act
+        matchService.createMatch(7L, 8L, "MUTUAL_LIKE");
+
+        // Assert
+        verify(userRepository).adjustUnreadCounts(8L, 0, 1);
+        verify(userRepository, never()).adjustUnreadCounts(eq(7L), anyInt(), anyInt());
+    }
+}
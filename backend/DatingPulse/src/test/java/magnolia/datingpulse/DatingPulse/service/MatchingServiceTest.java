@@ -1,16 +1,23 @@
 package magnolia.datingpulse.DatingPulse.service;
 
+import magnolia.datingpulse.DatingPulse.algorithm.CandidateIndex;
 import magnolia.datingpulse.DatingPulse.algorithm.CompatibilityCalculator;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchFeedCache;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchScoringEngine;
+import magnolia.datingpulse.DatingPulse.config.MetricsConfig;
 import magnolia.datingpulse.DatingPulse.entity.*;
 import magnolia.datingpulse.DatingPulse.repositories.*;
+import magnolia.datingpulse.DatingPulse.dto.MatchPageDTO;
 import magnolia.datingpulse.DatingPulse.dto.UserProfileDTO;
 import magnolia.datingpulse.DatingPulse.mapper.UserProfileMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.*;
@@ -33,12 +40,22 @@ class MatchingServiceTest {
     @Mock
     private BlockedUserRepository blockedUserRepository;
     
-    @Mock
-    private CompatibilityCalculator compatibilityCalculator;
+    @Spy
+    private CompatibilityCalculator compatibilityCalculator = new CompatibilityCalculator();
     
     @Mock
     private UserProfileMapper userProfileMapper;
 
+    @Spy
+    private CandidateIndex candidateIndex = new CandidateIndex();
+
+    @Spy
+    private MatchScoringEngine scoringEngine = new MatchScoringEngine(new CompatibilityCalculator(),
+            new MetricsConfig.DatingPulseMetrics(new SimpleMeterRegistry()), 1, 4096);
+
+    @Spy
+    private MatchFeedCache matchFeedCache = new MatchFeedCache(900_000L, 200);
+
     @InjectMocks
     private MatchingService matchingService;
 
@@ -53,6 +70,8 @@ class MatchingServiceTest {
 
     @BeforeEach
     void setUp() {
+        candidateIndex.finishLoad();
+
         // Create test users
         user1 = User.builder()
                 .userID(1L)
@@ -126,40 +145,81 @@ class MatchingServiceTest {
     @DisplayName("Should find potential matches successfully")
     void testFindPotentialMatches() {
         // Arrange
+        candidateIndex.load(profile1);
+        candidateIndex.load(profile2);
+        candidateIndex.load(profile3);
+
         when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
         when(userProfileRepository.findByUser(user1)).thenReturn(Optional.of(profile1));
-        when(userProfileRepository.findAll()).thenReturn(Arrays.asList(profile1, profile2, profile3));
-        when(swipeHistoryRepository.findByUserAndTargetUser(user1, user2)).thenReturn(Optional.empty());
-        when(swipeHistoryRepository.findByUserAndTargetUser(user1, user3)).thenReturn(Optional.empty());
-        when(blockedUserRepository.findByBlockerAndBlocked(user1, user2)).thenReturn(Optional.empty());
-        when(blockedUserRepository.findByBlockerAndBlocked(user2, user1)).thenReturn(Optional.empty());
-        when(blockedUserRepository.findByBlockerAndBlocked(user1, user3)).thenReturn(Optional.empty());
-        when(blockedUserRepository.findByBlockerAndBlocked(user3, user1)).thenReturn(Optional.empty());
-        
-        when(compatibilityCalculator.isGenderCompatible("FEMALE", preference1)).thenReturn(true);
-        when(compatibilityCalculator.isGenderCompatible("MALE", preference2)).thenReturn(true);
-        when(compatibilityCalculator.isAgeInPreferenceRange(30, preference1)).thenReturn(true);
-        when(compatibilityCalculator.isAgeInPreferenceRange(28, preference2)).thenReturn(true);
-        when(compatibilityCalculator.calculateDistanceInKm(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(2.0);
-        
-        when(compatibilityCalculator.calculateOverallCompatibility(profile1, profile2)).thenReturn(0.8);
-        
+        when(swipeHistoryRepository.findTargetUserIdsByUserId(1L)).thenReturn(List.of());
+        when(blockedUserRepository.findBlockRelatedUserIds(1L)).thenReturn(List.of());
+        when(userProfileRepository.findAllById(List.of(2L))).thenReturn(List.of(profile2));
+
         UserProfileDTO mockDTO = new UserProfileDTO();
-        mockDTO.setCompatibilityScore(0.8);
         when(userProfileMapper.toDTO(profile2)).thenReturn(mockDTO);
 
         // Act
         List<UserProfileDTO> matches = matchingService.findPotentialMatches(1L, 10);
 
-        // Assert
+        // Assert - profile3 is male and outside profile1's gender preference
         assertNotNull(matches);
         assertEquals(1, matches.size());
-        assertEquals(0.8, matches.get(0).getCompatibilityScore());
-        
+        assertSame(mockDTO, matches.get(0));
+        assertTrue(matches.get(0).getCompatibilityScore() > 0.1);
+
         verify(userRepository).findById(1L);
         verify(userProfileRepository).findByUser(user1);
-        verify(compatibilityCalculator).calculateOverallCompatibility(profile1, profile2);
+        verify(userProfileRepository, never()).findAll();
+        verify(userProfileMapper, never()).toDTO(profile3);
+    }
+
+    @Test
+    @DisplayName("Should rank profiles from the database while the candidate index is loading")
+    void testFindPotentialMatchesBeforeIndexLoaded() {
+        // Arrange - nothing indexed yet
+        doReturn(false).when(candidateIndex).isLoaded();
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
+        when(userProfileRepository.findByUser(user1)).thenReturn(Optional.of(profile1));
+        when(userProfileRepository.findAll()).thenReturn(List.of(profile1, profile2, profile3));
+        when(swipeHistoryRepository.findTargetUserIdsByUserId(1L)).thenReturn(List.of());
+        when(blockedUserRepository.findBlockRelatedUserIds(1L)).thenReturn(List.of());
+        when(userProfileRepository.findAllById(List.of(2L))).thenReturn(List.of(profile2));
+
+        UserProfileDTO mockDTO = new UserProfileDTO();
+        when(userProfileMapper.toDTO(profile2)).thenReturn(mockDTO);
+
+        // Act
+        List<UserProfileDTO> matches = matchingService.findPotentialMatches(1L, 10);
+
+        // Assert
+        assertEquals(1, matches.size());
+        assertSame(mockDTO, matches.get(0));
+        verify(userProfileRepository).findAll();
+    }
+
+    @Test
+    @DisplayName("Should exclude swiped and blocked users with bulk lookups")
+    void testFindPotentialMatchesExcludesSwipedAndBlocked() {
+        // Arrange - profile2 was swiped on, profile3 (made compatible) blocked the user
+        profile3.setGender("FEMALE");
+        candidateIndex.load(profile1);
+        candidateIndex.load(profile2);
+        candidateIndex.load(profile3);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
+        when(userProfileRepository.findByUser(user1)).thenReturn(Optional.of(profile1));
+        when(swipeHistoryRepository.findTargetUserIdsByUserId(1L)).thenReturn(List.of(2L));
+        when(blockedUserRepository.findBlockRelatedUserIds(1L)).thenReturn(List.of(3L));
+
+        // Act
+        List<UserProfileDTO> matches = matchingService.findPotentialMatches(1L, 10);
+
+        // Assert
+        assertTrue(matches.isEmpty());
+        verify(swipeHistoryRepository, never()).findByUserAndTargetUser(any(), any());
+        verify(blockedUserRepository, never()).findByBlockerAndBlocked(any(), any());
+        verify(userProfileRepository, never()).findAllById(any());
     }
 
     @Test
@@ -190,25 +250,20 @@ class MatchingServiceTest {
     @Test
     @DisplayName("Should find matches within distance radius")
     void testFindPotentialMatchesNearby() {
-        // Arrange
+        // Arrange - profile2 is ~1.4km away, profile3 ~15km away
+        profile3.setGender("FEMALE");
+        candidateIndex.load(profile1);
+        candidateIndex.load(profile2);
+        candidateIndex.load(profile3);
+
         when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
         when(userProfileRepository.findByUser(user1)).thenReturn(Optional.of(profile1));
-        when(userProfileRepository.findAll()).thenReturn(Arrays.asList(profile1, profile2, profile3));
-        when(swipeHistoryRepository.findByUserAndTargetUser(any(), any())).thenReturn(Optional.empty());
-        when(blockedUserRepository.findByBlockerAndBlocked(any(), any())).thenReturn(Optional.empty());
-        
-        when(compatibilityCalculator.calculateDistanceInKm(-26.2041, 28.0473, -26.1951, 28.0568))
-                .thenReturn(1.5); // Within 5km radius
-        when(compatibilityCalculator.calculateDistanceInKm(-26.2041, 28.0473, -26.3041, 28.1473))
-                .thenReturn(15.0); // Outside 5km radius
-                
-        when(compatibilityCalculator.isGenderCompatible(anyString(), any())).thenReturn(true);
-        when(compatibilityCalculator.isAgeInPreferenceRange(any(), any())).thenReturn(true);
-        when(compatibilityCalculator.calculateOverallCompatibility(any(), any())).thenReturn(0.7);
-        
+        when(swipeHistoryRepository.findTargetUserIdsByUserId(1L)).thenReturn(List.of());
+        when(blockedUserRepository.findBlockRelatedUserIds(1L)).thenReturn(List.of());
+        when(userProfileRepository.findAllById(List.of(2L))).thenReturn(List.of(profile2));
+
         UserProfileDTO mockDTO = new UserProfileDTO();
-        mockDTO.setCompatibilityScore(0.7);
-        when(userProfileMapper.toDTO(any())).thenReturn(mockDTO);
+        when(userProfileMapper.toDTO(profile2)).thenReturn(mockDTO);
 
         // Act
         List<UserProfileDTO> matches = matchingService.findPotentialMatchesNearby(1L, 5.0, 10);
@@ -216,29 +271,27 @@ class MatchingServiceTest {
         // Assert
         assertNotNull(matches);
         assertEquals(1, matches.size()); // Only profile2 should be within 5km radius
-        
-        verify(compatibilityCalculator).calculateDistanceInKm(-26.2041, 28.0473, -26.1951, 28.0568);
+        assertSame(mockDTO, matches.get(0));
+        verify(userProfileRepository, never()).findAll();
     }
 
     @Test
     @DisplayName("Should find matches by age range")
     void testFindPotentialMatchesByAge() {
-        // Arrange
+        // Arrange - profile3 made compatible but aged 35
+        profile3.setGender("FEMALE");
+        candidateIndex.load(profile1);
+        candidateIndex.load(profile2);
+        candidateIndex.load(profile3);
+
         when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
         when(userProfileRepository.findByUser(user1)).thenReturn(Optional.of(profile1));
-        when(userProfileRepository.findAll()).thenReturn(Arrays.asList(profile1, profile2, profile3));
-        when(swipeHistoryRepository.findByUserAndTargetUser(any(), any())).thenReturn(Optional.empty());
-        when(blockedUserRepository.findByBlockerAndBlocked(any(), any())).thenReturn(Optional.empty());
-        
-        when(compatibilityCalculator.isGenderCompatible(anyString(), any())).thenReturn(true);
-        when(compatibilityCalculator.isAgeInPreferenceRange(any(), any())).thenReturn(true);
-        when(compatibilityCalculator.calculateDistanceInKm(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(2.0);
-        when(compatibilityCalculator.calculateOverallCompatibility(any(), any())).thenReturn(0.6);
-        
+        when(swipeHistoryRepository.findTargetUserIdsByUserId(1L)).thenReturn(List.of());
+        when(blockedUserRepository.findBlockRelatedUserIds(1L)).thenReturn(List.of());
+        when(userProfileRepository.findAllById(List.of(2L))).thenReturn(List.of(profile2));
+
         UserProfileDTO mockDTO = new UserProfileDTO();
-        mockDTO.setCompatibilityScore(0.6);
-        when(userProfileMapper.toDTO(any())).thenReturn(mockDTO);
+        when(userProfileMapper.toDTO(profile2)).thenReturn(mockDTO);
 
         // Act - Looking for users aged 25-32
         List<UserProfileDTO> matches = matchingService.findPotentialMatchesByAge(1L, 25, 32, 10);
@@ -246,6 +299,108 @@ class MatchingServiceTest {
         // Assert
         assertNotNull(matches);
         assertEquals(1, matches.size()); // Only profile2 (age 30) should be in range 25-32
+        verify(userProfileRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Should hydrate only the top-ranked matches")
+    void testFindPotentialMatchesHydratesOnlyTopK() {
+        // Arrange - profile3 is compatible but further away, so it ranks below profile2
+        profile3.setGender("FEMALE");
+        candidateIndex.load(profile1);
+        candidateIndex.load(profile2);
+        candidateIndex.load(profile3);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
+        when(userProfileRepository.findByUser(user1)).thenReturn(Optional.of(profile1));
+        when(swipeHistoryRepository.findTargetUserIdsByUserId(1L)).thenReturn(List.of());
+        when(blockedUserRepository.findBlockRelatedUserIds(1L)).thenReturn(List.of());
+        when(userProfileRepository.findAllById(List.of(2L))).thenReturn(List.of(profile2));
+        when(userProfileMapper.toDTO(profile2)).thenReturn(new UserProfileDTO());
+
+        // Act
+        List<UserProfileDTO> matches = matchingService.findPotentialMatches(1L, 1);
+
+        // Assert
+        assertEquals(1, matches.size());
+        verify(userProfileMapper, never()).toDTO(profile3);
+    }
+
+    @Test
+    @DisplayName("Should serve repeat feed opens from the cached feed")
+    void testFindPotentialMatchesServedFromFeedCache() {
+        // Arrange
+        profile3.setGender("FEMALE");
+        candidateIndex.load(profile1);
+        candidateIndex.load(profile2);
+        candidateIndex.load(profile3);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
+        when(userProfileRepository.findByUser(user1)).thenReturn(Optional.of(profile1));
+        when(swipeHistoryRepository.findTargetUserIdsByUserId(1L)).thenReturn(List.of());
+        when(blockedUserRepository.findBlockRelatedUserIds(1L)).thenReturn(List.of());
+        when(userProfileRepository.findAllById(List.of(2L))).thenReturn(List.of(profile2));
+        when(userProfileRepository.findAllById(List.of(3L))).thenReturn(List.of(profile3));
+        when(userProfileMapper.toDTO(any(UserProfile.class))).thenReturn(new UserProfileDTO());
+
+        // Act - first open builds the feed, the second reads it, then the user swipes on profile2
+        matchingService.findPotentialMatches(1L, 1);
+        matchingService.findPotentialMatches(1L, 1);
+        matchFeedCache.removeCandidate(1L, 2L);
+        List<UserProfileDTO> afterSwipe = matchingService.findPotentialMatches(1L, 1);
+
+        // Assert - exclusions were loaded once and the swiped candidate dropped without a rebuild
+        assertEquals(1, afterSwipe.size());
+        verify(swipeHistoryRepository, times(1)).findTargetUserIdsByUserId(1L);
+        verify(userRepository, times(1)).findById(1L);
+        verify(userProfileRepository).findAllById(List.of(3L));
+    }
+
+    @Test
+    @DisplayName("Should page through matches with a cursor")
+    void testFindPotentialMatchesPagedByCursor() {
+        // Arrange
+        profile3.setGender("FEMALE");
+        candidateIndex.load(profile1);
+        candidateIndex.load(profile2);
+        candidateIndex.load(profile3);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user1));
+        when(userProfileRepository.findByUser(user1)).thenReturn(Optional.of(profile1));
+        when(swipeHistoryRepository.findTargetUserIdsByUserId(1L)).thenReturn(List.of());
+        when(blockedUserRepository.findBlockRelatedUserIds(1L)).thenReturn(List.of());
+        when(userProfileRepository.findAllById(List.of(2L))).thenReturn(List.of(profile2));
+        when(userProfileRepository.findAllById(List.of(3L))).thenReturn(List.of(profile3));
+        when(userProfileMapper.toDTO(any(UserProfile.class))).thenReturn(new UserProfileDTO());
+
+        // Act
+        MatchPageDTO first = matchingService.findPotentialMatches(1L, null, 1);
+        MatchPageDTO second = matchingService.findPotentialMatches(1L, first.getNextCursor(), 1);
+
+        // Assert - each page is read from the cached feed and the last page has no cursor
+        assertEquals(1, first.getMatches().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getMatches().size());
+        assertNull(second.getNextCursor());
+        verify(userProfileRepository).findAllById(List.of(2L));
+        verify(userProfileRepository).findAllById(List.of(3L));
+        verify(swipeHistoryRepository, times(1)).findTargetUserIdsByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed cursor")
+    void testFindPotentialMatchesInvalidCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> matchingService.findPotentialMatches(1L, "not-a-cursor", 20));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should reject a page size below one")
+    void testFindPotentialMatchesInvalidLimit() {
+        assertThrows(IllegalArgumentException.class, () -> matchingService.findPotentialMatches(1L, null, -1));
+        assertThrows(IllegalArgumentException.class, () -> matchingService.findPotentialMatchesNearby(1L, 10, null, 0));
+        verifyNoInteractions(userRepository, matchFeedCache);
     }
 
     @Test
@@ -256,7 +411,7 @@ class MatchingServiceTest {
         when(userRepository.findById(2L)).thenReturn(Optional.of(user2));
         when(userProfileRepository.findByUser(user1)).thenReturn(Optional.of(profile1));
         when(userProfileRepository.findByUser(user2)).thenReturn(Optional.of(profile2));
-        when(compatibilityCalculator.calculateOverallCompatibility(profile1, profile2)).thenReturn(0.85);
+        doReturn(0.85).when(compatibilityCalculator).calculateOverallCompatibility(profile1, profile2);
 
         // Act
         double score = matchingService.getCompatibilityScore(1L, 2L);
@@ -266,6 +421,27 @@ class MatchingServiceTest {
         verify(compatibilityCalculator).calculateOverallCompatibility(profile1, profile2);
     }
 
+    @Test
+    @DisplayName("Should score indexed users from their interest bitsets without loading profiles")
+    void testGetCompatibilityScoreFromIndex() {
+        // Arrange - two of three distinct interests are shared
+        Interest hiking = Interest.builder().id(1L).name("Hiking").build();
+        Interest music = Interest.builder().id(2L).name("Music").build();
+        Interest chess = Interest.builder().id(70L).name("Chess").build();
+        profile1.setInterests(new HashSet<>(Set.of(hiking, music)));
+        profile2.setInterests(new HashSet<>(Set.of(hiking, music, chess)));
+        double expected = new CompatibilityCalculator().calculateOverallCompatibility(profile1, profile2);
+        candidateIndex.load(profile1);
+        candidateIndex.load(profile2);
+
+        // Act
+        double score = matchingService.getCompatibilityScore(1L, 2L);
+
+        // Assert
+        assertEquals(expected, score, 1e-9);
+        verifyNoInteractions(userRepository, userProfileRepository);
+    }
+
     @Test
     @DisplayName("Should check basic compatibility correctly")
     void testIsBasicCompatible() {
@@ -0,0 +1,373 @@
+package magnolia.datingpulse.DatingPulse.service;
+
+import magnolia.datingpulse.DatingPulse.chat.MessageTailCache;
+import magnolia.datingpulse.DatingPulse.dto.ChatMessageDTO;
+import magnolia.datingpulse.DatingPulse.dto.MessageDTO;
+import magnolia.datingpulse.DatingPulse.dto.MessagePageDTO;
+import magnolia.datingpulse.DatingPulse.entity.Conversation;
+import magnolia.datingpulse.DatingPulse.entity.Match;
+import magnolia.datingpulse.DatingPulse.entity.Message;
+import magnolia.datingpulse.DatingPulse.entity.User;
+import magnolia.datingpulse.DatingPulse.mapper.MessageMapper;
+import magnolia.datingpulse.DatingPulse.repositories.ConversationRepository;
+import magnolia.datingpulse.DatingPulse.repositories.MessageRepository;
+import magnolia.datingpulse.DatingPulse.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageServiceTest {
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private ConversationRepository conversationRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private MessageMapper messageMapper;
+
+    @Mock
+    private ConversationService conversationService;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    // Three messages per conversation, so a tail of three rows does not hold the whole history
+    @Spy
+    private MessageTailCache messageTailCache = new MessageTailCache(3, 1 << 20, 30, null);
+
+    @InjectMocks
+    private MessageService messageService;
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(conversationRepository.existsById(1L)).thenReturn(true);
+        lenient().when(messageMapper.toDTO(any(Message.class))).thenAnswer(invocation -> {
+            Message message = invocation.getArgument(0);
+            MessageDTO dto = new MessageDTO();
+            dto.setMessageID(message.getMessageID());
+            dto.setConversationID(message.getConversation().getConversationID());
+            dto.setSenderID(message.getSender().getUserID());
+            dto.setReceiverID(message.getReceiver().getUserID());
+            dto.setSentAt(message.getSentAt());
+            return dto;
+        });
+    }
+
+    // Sent by user 7 to user 8 in conversation 1
+    private Message message(long id) {
+        return Message.builder()
+                .messageID(id)
+                .conversation(Conversation.builder().conversationID(1L).build())
+                .sender(User.builder().userID(7L).build())
+                .receiver(User.builder().userID(8L).build())
+                .sentAt(now.plusSeconds(id))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should return the latest page oldest first and report older history")
+    void testGetLatestHistory() {
+        // Arrange - newest first from the query, one row beyond the page
+        when(messageRepository.findLatestInConversation(1L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(message(10), message(9), message(8)));
+
+        // Act
+        MessagePageDTO page = messageService.getMessageHistory(1L, 7L, null, null, 2);
+
+        // Assert
+        assertTrue(page.isHasMore());
+        assertEquals(List.of(9L, 10L), page.getMessages().stream().map(MessageDTO::getMessageID).toList());
+        verify(messageRepository, never()).findLatestVisible(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Should serve the latest page from the cached tail, including messages sent since")
+    void testGetLatestHistoryFromCache() {
+        // Arrange
+        when(messageRepository.findLatestInConversation(1L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(message(10), message(9), message(8)));
+        messageService.getMessageHistory(1L, 7L, null, null, 2);
+        MessageDTO sent = new MessageDTO();
+        sent.setMessageID(11L);
+        sent.setConversationID(1L);
+        sent.setSenderID(8L);
+        sent.setReceiverID(7L);
+        sent.setSentAt(now.plusSeconds(11));
+        messageTailCache.messageAdded(sent);
+
+        // Act
+        MessagePageDTO page = messageService.getMessageHistory(1L, 7L, null, null, 2);
+
+        // Assert - one load, and no query for the second read
+        assertTrue(page.isHasMore());
+        assertEquals(List.of(10L, 11L), page.getMessages().stream().map(MessageDTO::getMessageID).toList());
+        verify(messageRepository, times(1)).findLatestInConversation(anyLong(), any());
+        verify(conversationRepository, times(1)).existsById(1L);
+    }
+
+    @Test
+    @DisplayName("Should query the database when the tail is shorter than the requested page")
+    void testGetLatestHistoryBeyondTail() {
+        // Arrange
+        when(messageRepository.findLatestInConversation(1L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(message(10), message(9), message(8)));
+        when(messageRepository.findLatestVisible(1L, 7L, PageRequest.of(0, 6)))
+                .thenReturn(List.of(message(10), message(9), message(8), message(7)));
+
+        // Act
+        MessagePageDTO page = messageService.getMessageHistory(1L, 7L, null, null, 5);
+
+        // Assert
+        assertFalse(page.isHasMore());
+        assertEquals(List.of(7L, 8L, 9L, 10L), page.getMessages().stream().map(MessageDTO::getMessageID).toList());
+    }
+
+    @Test
+    @DisplayName("Should page back from a message by keyset")
+    void testGetHistoryBefore() {
+        // Arrange
+        when(messageRepository.findSentAtInConversation(1L, 8L)).thenReturn(Optional.of(now.plusSeconds(8)));
+        when(messageRepository.findVisibleBefore(1L, 7L, now.plusSeconds(8), 8L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(message(7), message(6)));
+
+        // Act
+        MessagePageDTO page = messageService.getMessageHistory(1L, 7L, 8L, null, 2);
+
+        // Assert
+        assertFalse(page.isHasMore());
+        assertEquals(List.of(6L, 7L), page.getMessages().stream().map(MessageDTO::getMessageID).toList());
+        verify(messageRepository, never()).findByConversationOrderBySentAtAsc(any());
+    }
+
+    @Test
+    @DisplayName("Should fetch newer messages in order after a message")
+    void testGetHistoryAfter() {
+        // Arrange
+        when(messageRepository.findSentAtInConversation(1L, 8L)).thenReturn(Optional.of(now.plusSeconds(8)));
+        when(messageRepository.findVisibleAfter(1L, 7L, now.plusSeconds(8), 8L, PageRequest.of(0, 51)))
+                .thenReturn(List.of(message(9), message(10)));
+
+        // Act
+        MessagePageDTO page = messageService.getMessageHistory(1L, 7L, null, 8L, 50);
+
+        // Assert
+        assertFalse(page.isHasMore());
+        assertEquals(List.of(9L, 10L), page.getMessages().stream().map(MessageDTO::getMessageID).toList());
+    }
+
+    @Test
+    @DisplayName("Should reject an anchor message from another conversation")
+    void testGetHistoryForeignAnchor() {
+        when(messageRepository.findSentAtInConversation(1L, 99L)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.getMessageHistory(1L, 7L, 99L, null, 20));
+    }
+
+    @Test
+    @DisplayName("Should reject both cursors at once")
+    void testGetHistoryBothCursors() {
+        assertThrows(IllegalArgumentException.class,
+                () -> messageService.getMessageHistory(1L, 7L, 5L, 8L, 20));
+        verifyNoInteractions(messageRepository);
+    }
+
+    private Conversation conversation() {
+        Match match = Match.builder()
+                .userOne(User.builder().userID(7L).username("alice").build())
+                .userTwo(User.builder().userID(8L).username("bob").build())
+                .build();
+        return Conversation.builder().conversationID(1L).match(match).build();
+    }
+
+    @Test
+    @DisplayName("Should mark a conversation read with one update and a single receipt")
+    void testMarkAllMessagesAsRead() {
+        // Arrange
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation()));
+        when(messageRepository.markAllAsRead(eq(1L), eq(7L), any(LocalDateTime.class))).thenReturn(12);
+        when(conversationRepository.countsTowardUnread(1L)).thenReturn(true);
+
+        // Act
+        int markedRead = messageService.markAllMessagesAsReadInConversation(1L, 7L);
+
+        // Assert - no transaction is active, so the receipt goes out immediately
+        assertEquals(12, markedRead);
+        verify(messageRepository, never()).save(any());
+        verify(messagingTemplate).convertAndSendToUser(eq("bob"), eq("/queue/read-receipts"),
+                argThat((ChatMessageDTO receipt) -> "CONVERSATION_READ".equals(receipt.getType())
+                        && receipt.getReadCount() == 12 && receipt.getReceiverId() == 7L));
+        // User 7 is userOne; the conversation's counter drops to zero so it leaves the unread total
+        verify(conversationRepository).adjustUnreadCount(1L, true, -12);
+        verify(userRepository).adjustUnreadCounts(7L, -12, -1);
+    }
+
+    @Test
+    @DisplayName("Should keep a conversation of a deactivated match out of the unread conversation count")
+    void testMarkAllMessagesAsReadInactiveMatch() {
+        // Arrange - the conversation left the count when its match was deactivated
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation()));
+        when(messageRepository.markAllAsRead(eq(1L), eq(7L), any(LocalDateTime.class))).thenReturn(3);
+        when(conversationRepository.countsTowardUnread(1L)).thenReturn(false);
+
+        // Act
+        messageService.markAllMessagesAsReadInConversation(1L, 7L);
+
+        // Assert
+        verify(userRepository).adjustUnreadCounts(7L, -3, 0);
+    }
+
+    @Test
+    @DisplayName("Should not send a receipt when nothing was unread")
+    void testMarkAllMessagesAsReadNothingUnread() {
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation()));
+        when(messageRepository.markAllAsRead(eq(1L), anyLong(), any(LocalDateTime.class))).thenReturn(0);
+
+        assertEquals(0, messageService.markAllMessagesAsReadInConversation(1L, 7L));
+        verifyNoInteractions(messagingTemplate);
+        verify(userRepository, never()).adjustUnreadCounts(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should count a conversation as unread on its first unread message")
+    void testSendMessageIncrementsUnreadCounters() {
+        // Arrange
+        Conversation conversation = conversation();
+        when(conversationRepository.findById(1L)).thenReturn(Optional.of(conversation));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(conversation.getMatch().getUserOne()));
+        when(userRepository.findById(8L)).thenReturn(Optional.of(conversation.getMatch().getUserTwo()));
+        when(conversationService.isUserPartOfConversation(eq(1L), anyLong())).thenReturn(true);
+        when(messageMapper.toEntity(any(MessageDTO.class))).thenReturn(new Message());
+        when(messageRepository.save(any(Message.class))).thenReturn(message(20));
+        when(conversationRepository.findUnreadCount(1L, false)).thenReturn(1);
+        when(conversationRepository.countsTowardUnread(1L)).thenReturn(true);
+
+        MessageDTO dto = new MessageDTO();
+        dto.setConversationID(1L);
+        dto.setSenderID(7L);
+        dto.setReceiverID(8L);
+        dto.setContent("hi");
+        dto.setType("TEXT");
+
+        // Act
+        messageService.sendMessage(dto);
+
+        // Assert
+        verify(conversationRepository).adjustUnreadCount(1L, false, 1);
+        verify(userRepository).adjustUnreadCounts(8L, 1, 1);
+    }
+
+    @Test
+    @DisplayName("Should leave the counters alone when the message was already read")
+    void testMarkMessageAsReadAlreadyRead() {
+        // Arrange - the conditional update finds nothing left to flip
+        Message read = message(5);
+        read.setReceiver(User.builder().userID(7L).build());
+        read.setConversation(conversation());
+        when(messageRepository.findById(5L)).thenReturn(Optional.of(read));
+        when(messageRepository.markAsReadIfUnread(eq(5L), any(LocalDateTime.class))).thenReturn(0);
+        when(messageRepository.save(read)).thenReturn(read);
+
+        // Act
+        messageService.markMessageAsRead(5L, 7L);
+
+        // Assert
+        verify(conversationRepository, never()).adjustUnreadCount(anyLong(), anyBoolean(), anyInt());
+        verify(userRepository, never()).adjustUnreadCounts(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should decrement the counters once when deleting an unread message")
+    void testDeleteUnreadMessage() {
+        // Arrange
+        Message unread = message(5);
+        unread.setConversation(conversation());
+        when(messageRepository.findById(5L)).thenReturn(Optional.of(unread));
+        when(messageRepository.deleteIfUnread(5L)).thenReturn(1);
+        when(conversationRepository.countsTowardUnread(1L)).thenReturn(true);
+
+        // Act
+        messageService.deleteMessage(5L);
+
+        // Assert
+        verify(conversationRepository).adjustUnreadCount(1L, false, -1);
+        verify(userRepository).adjustUnreadCounts(8L, -1, -1);
+        verify(messageRepository, never()).deleteByMessageId(anyLong());
+    }
+
+    @Test
+    @DisplayName("Should leave the counters alone when the deleted message was read after it was loaded")
+    void testDeleteMessageAlreadyRead() {
+        // Arrange - loaded as unread, but a read committed before the delete reached the row
+        Message stale = message(5);
+        stale.setConversation(conversation());
+        when(messageRepository.findById(5L)).thenReturn(Optional.of(stale));
+        when(messageRepository.deleteIfUnread(5L)).thenReturn(0);
+        when(messageRepository.deleteByMessageId(5L)).thenReturn(1);
+
+        // Act
+        messageService.deleteMessage(5L);
+
+        // Assert
+        verify(messageRepository).deleteByMessageId(5L);
+        verify(conversationRepository, never()).adjustUnreadCount(anyLong(), anyBoolean(), anyInt());
+        verify(userRepository, never()).adjustUnreadCounts(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should leave the counters alone when the receiver already deleted the message")
+    void testDeleteMessageAlreadyDeletedForReceiver() {
+        // Arrange - the receiver's delete already took the message out of their unread count
+        Message deleted = message(5);
+        deleted.setConversation(conversation());
+        deleted.setDeletedForReceiver(true);
+        when(messageRepository.findById(5L)).thenReturn(Optional.of(deleted));
+        when(messageRepository.deleteIfUnread(5L)).thenReturn(0);
+        when(messageRepository.deleteByMessageId(5L)).thenReturn(1);
+
+        // Act
+        messageService.deleteMessage(5L);
+
+        // Assert
+        verify(messageRepository).deleteByMessageId(5L);
+        verify(conversationRepository, never()).adjustUnreadCount(anyLong(), anyBoolean(), anyInt());
+        verify(userRepository, never()).adjustUnreadCounts(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should serve the unread count from the user's counter")
+    void testCountUnreadMessagesFromCounter() {
+        when(userRepository.findUnreadMessageCount(7L)).thenReturn(Optional.of(3));
+
+        assertEquals(3, messageService.countUnreadMessagesForUser(7L));
+        verify(messageRepository, never()).findByReceiverAndReadAtIsNull(any());
+    }
+}
@@ -1,8 +1,13 @@
 package magnolia.datingpulse.DatingPulse.service;
 
+import magnolia.datingpulse.DatingPulse.algorithm.CandidateIndex;
+import magnolia.datingpulse.DatingPulse.algorithm.MatchFeedCache;
+import magnolia.datingpulse.DatingPulse.chat.ConversationMembershipCache;
+import magnolia.datingpulse.DatingPulse.config.TokenRevocationCache;
 import magnolia.datingpulse.DatingPulse.dto.UserDTO;
 import magnolia.datingpulse.DatingPulse.entity.User;
 import magnolia.datingpulse.DatingPulse.mapper.UserMapper;
+import magnolia.datingpulse.DatingPulse.repositories.UserProfileRepository;
 import magnolia.datingpulse.DatingPulse.repositories.UserRepository;
 import magnolia.datingpulse.DatingPulse.util.TestDataBuilder;
 import org.junit.jupiter.api.BeforeEach;
@@ -37,6 +42,21 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private UserProfileRepository userProfileRepository;
+
+    @Mock
+    private CandidateIndex candidateIndex;
+
+    @Mock
+    private MatchFeedCache matchFeedCache;
+
+    @Mock
+    private TokenRevocationCache tokenRevocationCache;
+
+    @Mock
+    private ConversationMembershipCache membershipCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -273,6 +293,9 @@ class UserServiceTest {
             // Assert
             verify(userRepository).findById(userId);
             verify(userRepository).save(any(User.class));
+            verify(candidateIndex).remove(userId);
+            verify(matchFeedCache).removeCandidateEverywhere(userId);
+            verify(tokenRevocationCache).revoke(userId);
         }
 
         @Test
@@ -291,6 +314,9 @@ class UserServiceTest {
             // Assert
             verify(userRepository).findById(userId);
             verify(userRepository).save(any(User.class));
+            verify(candidateIndex).remove(userId);
+            verify(matchFeedCache).removeCandidateEverywhere(userId);
+            verify(tokenRevocationCache).revoke(userId);
         }
 
         @Test
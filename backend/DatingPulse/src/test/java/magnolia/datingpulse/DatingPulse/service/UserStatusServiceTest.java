@@ -0,0 +1,135 @@
+package magnolia.datingpulse.DatingPulse.service;
+
+import magnolia.datingpulse.DatingPulse.dto.ChatMessageDTO;
+import magnolia.datingpulse.DatingPulse.repositories.MatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatusServiceTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private MatchRepository matchRepository;
+
+    private UserStatusService userStatusService;
+
+    @BeforeEach
+    void setUp() {
+        userStatusService = new UserStatusService(messagingTemplate, matchRepository, Optional.empty(), 1000, 300_000);
+    }
+
+    @Test
+    @DisplayName("Should send status changes only to online matches, batched per recipient")
+    @SuppressWarnings("unchecked")
+    void flushStatusChanges_SendsToOnlineMatches() {
+        // Arrange
+        userStatusService.setUserOnline(1L, "alice");
+        userStatusService.setUserOnline(2L, "bob");
+        userStatusService.setUserOnline(3L, "carol");
+        // alice-bob matched, carol-alice matched, bob-4 matched with 4 offline
+        when(matchRepository.findActiveMatchPairs(anyCollection())).thenReturn(List.of(
+                new Object[]{1L, 2L}, new Object[]{3L, 1L}, new Object[]{2L, 4L}));
+
+        // Act
+        userStatusService.flushStatusChanges();
+
+        // Assert
+        ArgumentCaptor<Object> batch = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSendToUser(eq("alice"), eq("/queue/user-status"), batch.capture());
+        List<ChatMessageDTO> aliceBatch = (List<ChatMessageDTO>) batch.getValue();
+        assertEquals(2, aliceBatch.size());
+        assertTrue(aliceBatch.stream().anyMatch(status -> status.getSenderId() == 2L));
+        assertTrue(aliceBatch.stream().anyMatch(status -> status.getSenderId() == 3L));
+        verify(messagingTemplate).convertAndSendToUser(eq("bob"), eq("/queue/user-status"), any());
+        verify(messagingTemplate).convertAndSendToUser(eq("carol"), eq("/queue/user-status"), any());
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    @DisplayName("Should send only the latest status of a user within a window")
+    @SuppressWarnings("unchecked")
+    void flushStatusChanges_CoalescesChanges() {
+        // Arrange
+        userStatusService.setUserOnline(1L, "alice");
+        userStatusService.flushStatusChanges();
+        reset(matchRepository);
+        userStatusService.setUserOnline(2L, "bob");
+        userStatusService.setUserOffline(2L);
+        userStatusService.setUserOnline(2L, "bob");
+        userStatusService.setUserOffline(2L);
+        when(matchRepository.findActiveMatchPairs(anyCollection())).thenReturn(List.<Object[]>of(new Object[]{1L, 2L}));
+
+        // Act
+        userStatusService.flushStatusChanges();
+
+        // Assert
+        ArgumentCaptor<Object> batch = ArgumentCaptor.forClass(Object.class);
+        verify(messagingTemplate).convertAndSendToUser(eq("alice"), eq("/queue/user-status"), batch.capture());
+        List<ChatMessageDTO> aliceBatch = (List<ChatMessageDTO>) batch.getValue();
+        assertEquals(1, aliceBatch.size());
+        assertEquals("USER_OFFLINE", aliceBatch.get(0).getType());
+    }
+
+    @Test
+    @DisplayName("Should report users online until they go offline")
+    void onlineStatus_TracksLastSeen() {
+        // Act
+        userStatusService.setUserOnline(1L, "alice");
+        userStatusService.updateLastSeen(1L, "alice");
+
+        // Assert
+        assertTrue(userStatusService.isUserOnline(1L));
+        assertNotNull(userStatusService.getLastSeen(1L));
+        assertEquals(1, userStatusService.getOnlineUserCount());
+        assertEquals(Set.of(1L), userStatusService.getOnlineUserIds());
+
+        userStatusService.setUserOffline(1L);
+        assertFalse(userStatusService.isUserOnline(1L));
+        assertNull(userStatusService.getLastSeen(1L));
+    }
+
+    @Test
+    @DisplayName("Should bring a user back online on activity but not on session keep-alives")
+    void updateLastSeen_ReRegistersUser() {
+        // Arrange
+        userStatusService.setUserOnline(1L, "alice");
+        userStatusService.setUserOffline(1L);
+
+        // Act & Assert
+        assertFalse(userStatusService.keepAlive(1L));
+        assertFalse(userStatusService.isUserOnline(1L));
+
+        userStatusService.updateLastSeen(1L, "alice");
+        assertTrue(userStatusService.isUserOnline(1L));
+        assertTrue(userStatusService.keepAlive(1L));
+    }
+
+    @Test
+    @DisplayName("Should not query matches when nothing changed")
+    void flushStatusChanges_NothingPending() {
+        // Act
+        userStatusService.flushStatusChanges();
+
+        // Assert
+        verifyNoInteractions(matchRepository, messagingTemplate);
+    }
+}
@@ -0,0 +1,55 @@
+package magnolia.datingpulse.DatingPulse.util;
+
+import magnolia.datingpulse.DatingPulse.entity.Interest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterestBitSetTest {
+
+    private Interest interest(long id) {
+        return Interest.builder().id(id).name("Interest " + id).build();
+    }
+
+    @Test
+    @DisplayName("Should encode interests by ID across words")
+    void testEncode() {
+        long[] bits = InterestBitSet.encode(List.of(interest(1), interest(64), interest(130)));
+
+        assertEquals(3, bits.length);
+        assertEquals(3, InterestBitSet.cardinality(bits));
+        assertTrue(InterestBitSet.contains(bits, 64));
+        assertFalse(InterestBitSet.contains(bits, 2));
+        assertSame(InterestBitSet.EMPTY, InterestBitSet.encode(List.of()));
+    }
+
+    @Test
+    @DisplayName("Should add and remove interests without mutating the original")
+    void testWithAndWithout() {
+        long[] bits = InterestBitSet.encode(List.of(interest(3)));
+
+        long[] added = InterestBitSet.with(bits, 200);
+        long[] removed = InterestBitSet.without(added, 200);
+
+        assertFalse(InterestBitSet.contains(bits, 200));
+        assertTrue(InterestBitSet.contains(added, 200));
+        assertArrayEquals(bits, removed);
+        assertSame(added, InterestBitSet.with(added, 3));
+        assertSame(InterestBitSet.EMPTY, InterestBitSet.without(bits, 3));
+    }
+
+    @Test
+    @DisplayName("Should compute Jaccard similarity from popcounts")
+    void testJaccard() {
+        long[] bits1 = InterestBitSet.encode(List.of(interest(1), interest(2), interest(100)));
+        long[] bits2 = InterestBitSet.encode(List.of(interest(2), interest(100), interest(5)));
+
+        double similarity = InterestBitSet.jaccard(bits1, 3, bits2, 3);
+
+        assertEquals(0.5, similarity, 1e-9);
+        assertEquals(1.0, InterestBitSet.jaccard(InterestBitSet.EMPTY, 0, InterestBitSet.EMPTY, 0));
+    }
+}
@@ -0,0 +1,63 @@
+package magnolia.datingpulse.DatingPulse.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    @DisplayName("Should add and find values")
+    void testAddAndContains() {
+        LongHashSet set = new LongHashSet();
+
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertTrue(set.contains(42L));
+        assertFalse(set.contains(43L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    @DisplayName("Should handle zero and negative values")
+    void testZeroAndNegative() {
+        LongHashSet set = new LongHashSet(2);
+
+        assertFalse(set.contains(0L));
+        set.add(0L);
+        set.add(-7L);
+
+        assertTrue(set.contains(0L));
+        assertTrue(set.contains(-7L));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    @DisplayName("Should grow past its initial capacity")
+    void testGrowth() {
+        LongHashSet set = new LongHashSet(4);
+        for (long i = 1; i <= 10_000; i++) {
+            set.add(i);
+        }
+
+        assertEquals(10_000, set.size());
+        for (long i = 1; i <= 10_000; i++) {
+            assertTrue(set.contains(i));
+        }
+        assertFalse(set.contains(10_001L));
+    }
+
+    @Test
+    @DisplayName("Should skip nulls when adding boxed values")
+    void testAddAll() {
+        LongHashSet set = new LongHashSet();
+        set.addAll(Arrays.asList(1L, null, 2L, 2L));
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(1L));
+        assertTrue(set.contains(2L));
+    }
+}
@@ -10,6 +10,7 @@ import {
   AppBar,
   Toolbar,
   Fab,
+  Button,
 } from '@mui/material';
 import { 
   Send, 
@@ -31,6 +32,8 @@ interface ConversationViewProps {
 function ConversationView({ conversation, onBack, compact = false }: ConversationViewProps) {
   const { user } = useAuth();
   const [messages, setMessages] = useState<Message[]>([]);
+  const [hasOlder, setHasOlder] = useState(false);
+  const [loadingOlder, setLoadingOlder] = useState(false);
   const [newMessage, setNewMessage] = useState('');
   const [loading, setLoading] = useState(true);
   const [sending, setSending] = useState(false);
@@ -40,8 +43,9 @@ function ConversationView({ conversation, onBack, compact = false }: Conversatio
 
   const loadMessages = useCallback(async () => {
     try {
-      const messagesData = await datingService.getMessages(conversation.conversationID);
-      setMessages(messagesData);
+      const page = await datingService.getMessageHistory(conversation.conversationID, user?.userID ?? 0);
+      setMessages(page.messages);
+      setHasOlder(page.hasMore);
       scrollToBottom();
     } catch (err: any) {
       setError('Failed to load messages');
@@ -49,7 +53,23 @@ function ConversationView({ conversation, onBack, compact = false }: Conversatio
     } finally {
       setLoading(false);
     }
-  }, [conversation.conversationID]);
+  }, [conversation.conversationID, user?.userID]);
+
+  const loadOlderMessages = async () => {
+    if (messages.length === 0 || loadingOlder) return;
+
+    setLoadingOlder(true);
+    try {
+      const page = await datingService.getMessageHistory(
+        conversation.conversationID, user?.userID ?? 0, messages[0].messageID);
+      setMessages(prev => [...page.messages, ...prev]);
+      setHasOlder(page.hasMore);
+    } catch (err) {
+      console.error('Failed to load older messages:', err);
+    } finally {
+      setLoadingOlder(false);
+    }
+  };
 
   useEffect(() => {
     loadMessages();
@@ -189,6 +209,13 @@ function ConversationView({ conversation, onBack, compact = false }: Conversatio
           </Box>
         ) : (
           <Box>
+            {hasOlder && (
+              <Box textAlign="center" mb={2}>
+                <Button size="small" onClick={loadOlderMessages} disabled={loadingOlder}>
+                  {loadingOlder ? 'Loading...' : 'Load earlier messages'}
+                </Button>
+              </Box>
+            )}
             {messages.map((message) => {
               const isOwnMessage = message.senderID === user?.userID;
               return (
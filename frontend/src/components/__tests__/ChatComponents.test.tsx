@@ -15,7 +15,7 @@ import theme from '../../theme/theme';
 vi.mock('../../services/datingService', () => ({
   datingService: {
     getConversations: vi.fn(),
-    getMessages: vi.fn(),
+    getMessageHistory: vi.fn(),
     sendMessage: vi.fn(),
   }
 }));
@@ -107,7 +107,7 @@ describe('New Chat Components', () => {
 
   test('ConversationView renders correctly', async () => {
     const mockOnBack = vi.fn();
-    vi.mocked(datingService.datingService.getMessages).mockResolvedValue([]);
+    vi.mocked(datingService.datingService.getMessageHistory).mockResolvedValue({ messages: [], hasMore: false });
     
     render(
       <TestWrapper>
@@ -165,7 +165,7 @@ describe('New Chat Components', () => {
   });
 
   test('ConversationView compact mode works', async () => {
-    vi.mocked(datingService.datingService.getMessages).mockResolvedValue([]);
+    vi.mocked(datingService.datingService.getMessageHistory).mockResolvedValue({ messages: [], hasMore: false });
     
     render(
       <TestWrapper>
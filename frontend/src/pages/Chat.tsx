@@ -17,6 +17,7 @@ import {
   ListItemIcon,
   ListItemText,
   Divider,
+  Button,
 } from '@mui/material';
 import { 
   Send, 
@@ -42,6 +43,8 @@ function EnhancedChat() {
   const navigate = useNavigate();
   const { user } = useAuth();
   const [messages, setMessages] = useState<Message[]>([]);
+  const [hasOlder, setHasOlder] = useState(false);
+  const [loadingOlder, setLoadingOlder] = useState(false);
   const [newMessage, setNewMessage] = useState('');
   const [loading, setLoading] = useState(true);
   const [sending, setSending] = useState(false);
@@ -78,8 +81,9 @@ function EnhancedChat() {
     if (!conversationId) return;
     
     try {
-      const messagesData = await datingService.getMessages(parseInt(conversationId));
-      setMessages(messagesData);
+      const page = await datingService.getMessageHistory(parseInt(conversationId), user?.userID ?? 0);
+      setMessages(page.messages);
+      setHasOlder(page.hasMore);
       scrollToBottom();
     } catch (err: any) {
       setError('Failed to load messages');
@@ -87,7 +91,23 @@ function EnhancedChat() {
     } finally {
       setLoading(false);
     }
-  }, [conversationId]);
+  }, [conversationId, user?.userID]);
+
+  const loadOlderMessages = async () => {
+    if (!conversationId || messages.length === 0 || loadingOlder) return;
+
+    setLoadingOlder(true);
+    try {
+      const page = await datingService.getMessageHistory(
+        parseInt(conversationId), user?.userID ?? 0, messages[0].messageID);
+      setMessages(prev => [...page.messages, ...prev]);
+      setHasOlder(page.hasMore);
+    } catch (err) {
+      console.error('Failed to load older messages:', err);
+    } finally {
+      setLoadingOlder(false);
+    }
+  };
 
   useEffect(() => {
     if (conversationId) {
@@ -299,6 +319,13 @@ function EnhancedChat() {
           </Box>
         ) : (
           <Box>
+            {hasOlder && (
+              <Box textAlign="center" mb={2}>
+                <Button size="small" onClick={loadOlderMessages} disabled={loadingOlder}>
+                  {loadingOlder ? 'Loading...' : 'Load earlier messages'}
+                </Button>
+              </Box>
+            )}
             {messages.map((message) => {
               const isOwnMessage = message.senderID === user?.userID;
               return (
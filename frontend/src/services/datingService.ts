@@ -1,5 +1,5 @@
 import api from './api';
-import { Match, Like, ReceivedLike, Message, Conversation, DiscoverUser } from '../types/Dating';
+import { Match, Like, ReceivedLike, Message, MessagePage, Conversation, DiscoverUser } from '../types/Dating';
 import { mockDataService } from './mockDataService';
 
 const USE_MOCK_DATA = false; // Changed to always try real API first
@@ -99,19 +99,24 @@ export const datingService = {
     }
   },
 
-  async getMessages(conversationId: number): Promise<Message[]> {
+  // Latest messages when `before` is omitted; pass the oldest loaded message ID to page back
+  async getMessageHistory(conversationId: number, userId: number, before?: number, limit: number = 50): Promise<MessagePage> {
     if (USE_MOCK_DATA) {
       await mockDataService.delay(500);
-      return mockDataService.generateMessages(conversationId, 15);
+      return { messages: before ? [] : mockDataService.generateMessages(conversationId, 15), hasMore: false };
     }
-    
+
     try {
-      const response = await api.get(`/conversations/${conversationId}/messages`);
+      const params = new URLSearchParams({ userId: String(userId), limit: String(limit) });
+      if (before) {
+        params.set('before', String(before));
+      }
+      const response = await api.get(`/api/messages/conversation/${conversationId}/history?${params}`);
       return response.data;
     } catch (error) {
       console.warn('API unavailable, using mock data');
       await mockDataService.delay(500);
-      return mockDataService.generateMessages(conversationId, 15);
+      return { messages: before ? [] : mockDataService.generateMessages(conversationId, 15), hasMore: false };
     }
   },
 
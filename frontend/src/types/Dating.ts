@@ -107,6 +107,11 @@ export interface Message {
   messageType: string;
 }
 
+export interface MessagePage {
+  messages: Message[]; // Oldest first
+  hasMore: boolean;
+}
+
 export interface Conversation {
   conversationID: number;
   user1ID: number;